@@ -196,6 +196,11 @@ android {
         kotlinCompilerExtensionVersion = "1.5.8"
     }
 
+    // Unit test JVM: android.util.Log dkk. mengembalikan nilai default, bukan melempar exception
+    testOptions {
+        unitTests.isReturnDefaultValues = true
+    }
+
     packaging {
         resources {
             excludes += setOf(
@@ -287,6 +292,12 @@ dependencies {
     // Lifecycle (ViewModel, LiveData)
     implementation("androidx.lifecycle:lifecycle-viewmodel:2.7.0")
     implementation("androidx.lifecycle:lifecycle-livedata:2.7.0")
+    implementation("androidx.lifecycle:lifecycle-viewmodel-ktx:2.7.0")
+
+    // Paging (keyset PagingSource ditulis dengan ListenableFuture)
+    implementation("androidx.paging:paging-runtime:3.2.1")
+    implementation("androidx.paging:paging-guava:3.2.1")
+    implementation("com.google.guava:guava:32.1.3-android")
 
     // WorkManager untuk background tasks
     implementation("androidx.work:work-runtime-ktx:2.9.0")
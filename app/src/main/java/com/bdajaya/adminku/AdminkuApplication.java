@@ -9,6 +9,9 @@ import androidx.appcompat.app.AppCompatDelegate;
 import com.bdajaya.adminku.data.AppDatabase;
 import com.bdajaya.adminku.data.manager.ImageStorageManager;
 import com.bdajaya.adminku.data.repository.*;
+import com.bdajaya.adminku.util.ImageIngestionWorker;
+import com.bdajaya.adminku.util.StockLedgerCompactionWorker;
+import com.bdajaya.adminku.util.ThumbnailBackfillWorker;
 import dagger.hilt.android.HiltAndroidApp;
 import javax.inject.Inject;
 
@@ -31,6 +34,12 @@ public class AdminkuApplication extends Application {
 
         // Apply dark mode preference on app start
         applyDarkModePreference();
+
+        // Periodic background maintenance
+        StockLedgerCompactionWorker.schedule(this);
+        ThumbnailBackfillWorker.schedule(this);
+        // Lanjutkan gambar PENDING yang tertinggal (mis. proses mati sebelum enqueue)
+        ImageIngestionWorker.enqueue(this);
     }
 
     private void applyDarkModePreference() {
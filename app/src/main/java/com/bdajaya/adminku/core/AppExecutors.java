@@ -0,0 +1,115 @@
+package com.bdajaya.adminku.core;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor layer untuk seluruh aplikasi (menggantikan AppDatabase.databaseWriteExecutor).
+ *
+ * - diskWrite(): satu thread writer, khusus drain WriteBatcher, jadi tidak ada dua transaksi
+ *   yang berebut lock SQLite. Jangan execute() kerja lain di sini; kirim command lewat WriteBatcher.
+ * - diskRead(): pool pembaca seukuran jumlah core (2..4). Dengan WAL, pembaca berjalan paralel
+ *   dan tidak diblok oleh writer.
+ * - io(): pool terbatas untuk kerja file/gambar. Kalau antrian penuh, task dijalankan di thread
+ *   pemanggil (backpressure) daripada menumpuk bitmap di memori.
+ * - imageProcessing(): pool seukuran jumlah core (2..4) untuk decode/encode gambar yang
+ *   dipecah per hash oleh ProductRepository.ingestPendingImages. Memori bitmap
+ *   dibatasi terpisah oleh budget decode, bukan oleh ukuran pool.
+ * - mainThread(): posting ke UI thread.
+ *
+ * Satu instance per proses, dibuat oleh ExecutorModule dan diteruskan lewat constructor.
+ * AppDatabase menyimpan instance yang dipakai builder-nya (getExecutors()) untuk singleton
+ * per-database yang tidak dibuat Hilt (WriteBatcher, TrigramIndex, CategoryTreeCache).
+ */
+public class AppExecutors {
+
+    private static final int IO_THREADS = 2;
+    private static final int IO_QUEUE_CAPACITY = 64;
+
+    private final ExecutorService diskWrite;
+    private final ExecutorService diskRead;
+    private final ExecutorService io;
+    private final ExecutorService imageProcessing;
+    private final Executor mainThread;
+
+    private volatile Thread writerThread;
+
+    public AppExecutors() {
+        diskWrite = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "db-writer");
+                    writerThread = thread;
+                    return thread;
+                });
+
+        int readers = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+        diskRead = new ThreadPoolExecutor(readers, readers, 30L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), namedFactory("db-reader"));
+        ((ThreadPoolExecutor) diskRead).allowCoreThreadTimeOut(true);
+
+        ThreadPoolExecutor ioPool = new ThreadPoolExecutor(IO_THREADS, IO_THREADS, 30L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(IO_QUEUE_CAPACITY), namedFactory("io"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        ioPool.allowCoreThreadTimeOut(true);
+        io = ioPool;
+
+        int imageThreads = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+        ThreadPoolExecutor imagePool = new ThreadPoolExecutor(imageThreads, imageThreads, 30L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(IO_QUEUE_CAPACITY), namedFactory("image"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        imagePool.allowCoreThreadTimeOut(true);
+        imageProcessing = imagePool;
+
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        mainThread = mainHandler::post;
+    }
+
+    @NonNull
+    public ExecutorService diskWrite() {
+        return diskWrite;
+    }
+
+    @NonNull
+    public ExecutorService diskRead() {
+        return diskRead;
+    }
+
+    @NonNull
+    public ExecutorService io() {
+        return io;
+    }
+
+    @NonNull
+    public ExecutorService imageProcessing() {
+        return imageProcessing;
+    }
+
+    @NonNull
+    public Executor mainThread() {
+        return mainThread;
+    }
+
+    public boolean isWriterThread() {
+        return Thread.currentThread() == writerThread;
+    }
+
+    public static boolean isMainThread() {
+        return Looper.myLooper() == Looper.getMainLooper();
+    }
+
+    private static ThreadFactory namedFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+    }
+}
@@ -0,0 +1,183 @@
+package com.bdajaya.adminku.core;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking counterpart of {@link Result}: a {@link CompletableFuture} that always completes
+ * with a Result (failures are values, never exceptional completion except on cancel).
+ *
+ * Typical use from a ViewModel:
+ * <pre>
+ * request = repository.addCategoryAsync(parentId, name)
+ *         .onMainThread(result -> ...);
+ * </pre>
+ * Cancel reads (e.g. a superseded search) freely. Don't cancel a write from onCleared(): a
+ * cancelled source future is dropped by the WriteBatcher, so just ignore the callback instead.
+ *
+ * Nothing here blocks; composition runs on the thread that completed the previous stage
+ * (the writer or a reader), and only {@link #onMainThread} hops to the UI thread.
+ *
+ * @param <T> The type of the success value
+ */
+public final class AsyncResult<T> {
+
+    private final CompletableFuture<Result<T>> future;
+    @Nullable
+    private final Runnable cancelUpstream;
+
+    private AsyncResult(CompletableFuture<Result<T>> future, @Nullable Runnable cancelUpstream) {
+        this.future = future;
+        this.cancelUpstream = cancelUpstream;
+    }
+
+    // ================================
+    // FACTORY METHODS
+    // ================================
+
+    /**
+     * Runs a Result-returning operation on the given executor. If the AsyncResult is cancelled
+     * before the task starts, the operation is skipped.
+     */
+    @NonNull
+    public static <T> AsyncResult<T> supply(@NonNull Executor executor, @NonNull Supplier<Result<T>> operation) {
+        CompletableFuture<Result<T>> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                future.complete(operation.get());
+            } catch (Exception e) {
+                future.complete(ErrorHandler.handleException(e, "Async operation"));
+            }
+        });
+        return new AsyncResult<>(future, null);
+    }
+
+    /**
+     * Adapts a raw future. Exceptional completion is turned into a failed Result through
+     * errorMapper; cancelling the AsyncResult also cancels the source future.
+     */
+    @NonNull
+    public static <T> AsyncResult<T> from(@NonNull CompletableFuture<T> source,
+                                          @NonNull Function<Exception, Result<T>> errorMapper) {
+        CompletableFuture<Result<T>> future = source.handle((value, error) -> {
+            if (error == null) {
+                return Result.success(value);
+            }
+            return errorMapper.apply(unwrap(error));
+        });
+        return new AsyncResult<>(future, () -> source.cancel(false));
+    }
+
+    @NonNull
+    public static <T> AsyncResult<T> completed(@NonNull Result<T> result) {
+        return new AsyncResult<>(CompletableFuture.completedFuture(result), null);
+    }
+
+    // ================================
+    // COMPOSITION
+    // ================================
+
+    /**
+     * Maps the success value; failures pass through unchanged.
+     */
+    @NonNull
+    public <R> AsyncResult<R> map(@NonNull Result.SuccessMapper<T, R> mapper) {
+        return new AsyncResult<>(future.thenApply(result -> result.map(mapper)), this::cancel);
+    }
+
+    /**
+     * Chains another async step that only runs when this one succeeded.
+     */
+    @NonNull
+    public <R> AsyncResult<R> flatMap(@NonNull Function<T, AsyncResult<R>> next) {
+        CompletableFuture<Result<R>> chained = future.thenCompose(result -> {
+            if (result.isFailure()) {
+                return CompletableFuture.completedFuture(
+                        Result.failure(result.getErrorMessage(), result.getErrorCode(), result.getException()));
+            }
+            return next.apply(result.getData()).future;
+        });
+        return new AsyncResult<>(chained, this::cancel);
+    }
+
+    /**
+     * Delivers the result on the main thread. Not called when the AsyncResult was cancelled.
+     */
+    @NonNull
+    public AsyncResult<T> onMainThread(@NonNull Consumer<Result<T>> callback) {
+        future.thenAcceptAsync(result -> {
+            if (!future.isCancelled()) {
+                callback.accept(result);
+            }
+        }, MainThread.EXECUTOR);
+        return this;
+    }
+
+    /**
+     * Delivers the result on whichever thread completes it (no thread hop).
+     */
+    @NonNull
+    public AsyncResult<T> onComplete(@NonNull Consumer<Result<T>> callback) {
+        future.thenAccept(callback);
+        return this;
+    }
+
+    // ================================
+    // CANCELLATION & STATE
+    // ================================
+
+    /**
+     * Cancels this stage and its source. Work that has not started yet is skipped; a callback
+     * registered with {@link #onMainThread} will not run.
+     */
+    public boolean cancel() {
+        boolean cancelled = future.cancel(false);
+        if (cancelUpstream != null) {
+            cancelUpstream.run();
+        }
+        return cancelled;
+    }
+
+    public boolean isCancelled() {
+        return future.isCancelled();
+    }
+
+    public boolean isDone() {
+        return future.isDone();
+    }
+
+    @NonNull
+    public CompletableFuture<Result<T>> toFuture() {
+        return future;
+    }
+
+    private static Exception unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof Exception ? (Exception) cause : new Exception(cause);
+    }
+
+    /**
+     * UI thread executor, created on first use so loading this class needs no Looper.
+     */
+    private static final class MainThread {
+        static final Executor EXECUTOR = new Handler(Looper.getMainLooper())::post;
+    }
+}
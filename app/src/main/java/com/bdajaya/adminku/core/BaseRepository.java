@@ -3,9 +3,10 @@ package com.bdajaya.adminku.core;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.bdajaya.adminku.data.WriteBatcher;
+
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
+import java.util.concurrent.Executor;
 
 /**
  * Base repository class providing common patterns for database operations.
@@ -17,12 +18,26 @@ import java.util.concurrent.Future;
  */
 public abstract class BaseRepository {
 
+    private final WriteBatcher writeBatcher;
+    private final Executor reader;
+
+    /**
+     * @param writeBatcher Single writer that group-commits executeWriteAsync commands
+     * @param reader Read pool for executeReadAsync (AppExecutors.diskRead() in the app)
+     */
+    protected BaseRepository(@NonNull WriteBatcher writeBatcher, @NonNull Executor reader) {
+        this.writeBatcher = writeBatcher;
+        this.reader = reader;
+    }
+
     // ================================
     // ASYNC OPERATION METHODS
     // ================================
 
     /**
-     * Executes a database read operation asynchronously with proper error handling.
+     * Executes a database read operation with proper error handling.
+     * Runs inline on the calling thread, so it must be called from a background thread;
+     * UI code should use {@link #executeReadAsync} instead.
      *
      * @param operation The operation to execute
      * @param operationName The name of the operation for logging
@@ -33,76 +48,41 @@ public abstract class BaseRepository {
         try {
             ErrorHandler.logDebug("Starting read operation: " + operationName);
 
-            Future<T> future = com.bdajaya.adminku.data.AppDatabase.databaseWriteExecutor.submit(operation);
-            T result = future.get();
+            T result = operation.call();
 
             ErrorHandler.logDebug("Read operation completed successfully: " + operationName);
             return Result.success(result);
 
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            String errorMessage = "Read operation interrupted: " + operationName;
-            return ErrorHandler.<T>handleDatabaseException(e, operationName)
-                    .map(r -> null); // Return failure result
-
-        } catch (ExecutionException e) {
-            Throwable cause = e.getCause();
-            String errorMessage = "Read operation failed: " + operationName;
-            if (cause instanceof Exception) {
-                return ErrorHandler.<T>handleDatabaseException((Exception) cause, operationName)
-                        .map(r -> null); // Return failure result
-            } else {
-                return ErrorHandler.<T>handleException(new Exception(cause), operationName)
-                        .map(r -> null); // Return failure result
-            }
-
         } catch (Exception e) {
-            String errorMessage = "Unexpected error in read operation: " + operationName;
-            return ErrorHandler.<T>handleException(e, operationName)
-                    .map(r -> null); // Return failure result
+            return ErrorHandler.handleDatabaseException(e, operationName);
         }
     }
 
     /**
-     * Executes a database write operation asynchronously with proper error handling.
+     * Non-blocking read on the read pool.
      *
      * @param operation The operation to execute
      * @param operationName The name of the operation for logging
      * @param <T> The return type of the operation
-     * @return A Result containing the operation result or error
+     * @return An AsyncResult completed with the operation result or error
      */
-    protected <T> Result<T> executeWriteOperation(@NonNull Callable<T> operation, @NonNull String operationName) {
-        try {
-            ErrorHandler.logDebug("Starting write operation: " + operationName);
-
-            Future<T> future = com.bdajaya.adminku.data.AppDatabase.databaseWriteExecutor.submit(operation);
-            T result = future.get();
-
-            ErrorHandler.logDebug("Write operation completed successfully: " + operationName);
-            return Result.success(result);
-
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            String errorMessage = "Write operation interrupted: " + operationName;
-            return ErrorHandler.<T>handleDatabaseException(e, operationName)
-                    .map(r -> null); // Return failure result
-
-        } catch (ExecutionException e) {
-            Throwable cause = e.getCause();
-            String errorMessage = "Write operation failed: " + operationName;
-            if (cause instanceof Exception) {
-                return ErrorHandler.<T>handleDatabaseException((Exception) cause, operationName)
-                        .map(r -> null); // Return failure result
-            } else {
-                return ErrorHandler.<T>handleException(new Exception(cause), operationName)
-                        .map(r -> null); // Return failure result
-            }
+    protected <T> AsyncResult<T> executeReadAsync(@NonNull Callable<T> operation, @NonNull String operationName) {
+        return AsyncResult.supply(reader, () -> executeReadOperation(operation, operationName));
+    }
 
-        } catch (Exception e) {
-            String errorMessage = "Unexpected error in write operation: " + operationName;
-            return ErrorHandler.<T>handleException(e, operationName)
-                    .map(r -> null); // Return failure result
-        }
+    /**
+     * Non-blocking write, group-committed with other queued writes on the writer thread
+     * (see WriteBatcher). Cancelling before the batch runs drops the write.
+     *
+     * @param operation The operation to execute
+     * @param operationName The name of the operation for logging
+     * @param <T> The return type of the operation
+     * @return An AsyncResult completed with the operation result or error
+     */
+    protected <T> AsyncResult<T> executeWriteAsync(@NonNull Callable<T> operation, @NonNull String operationName) {
+        ErrorHandler.logDebug("Queueing write operation: " + operationName);
+        return AsyncResult.from(writeBatcher.submit(operation),
+                e -> ErrorHandler.handleDatabaseException(e, operationName));
     }
 
     /**
@@ -116,7 +96,7 @@ public abstract class BaseRepository {
         try {
             ErrorHandler.logDebug("Starting void operation: " + operationName);
 
-            com.bdajaya.adminku.data.AppDatabase.databaseWriteExecutor.execute(operation);
+            writeBatcher.execute(operation);
 
             ErrorHandler.logDebug("Void operation completed successfully: " + operationName);
             return Result.success();
@@ -199,46 +179,34 @@ public abstract class BaseRepository {
     // ================================
 
     /**
-     * Executes multiple operations in a transaction-like manner.
-     * Note: This is a simplified version. For true transactions, use Room's @Transaction annotation.
+     * Executes multiple operations as one write command, so they share a single transaction:
+     * a failing step rolls back the steps before it.
      *
      * @param operations The operations to execute
      * @param operationName The name of the combined operation for logging
-     * @return A Result indicating overall success or failure
+     * @return An AsyncResult indicating overall success or failure
      */
-    protected Result<Void> executeTransaction(@NonNull TransactionOperation[] operations, @NonNull String operationName) {
+    protected AsyncResult<Void> executeTransaction(@NonNull TransactionOperation[] operations, @NonNull String operationName) {
         logOperationStart(operationName);
 
-        try {
+        return executeWriteAsync(() -> {
             for (int i = 0; i < operations.length; i++) {
                 TransactionOperation operation = operations[i];
-                String stepName = operationName + " - Step " + (i + 1);
-
-                if (operation instanceof ReadOperation) {
-                    ReadOperation<?> readOp = (ReadOperation<?>) operation;
-                    Result<?> result = executeReadOperation(readOp.callable, stepName);
-                    if (result.isFailure()) {
-                        logOperationFailure(operationName, "Failed at step " + (i + 1) + ": " + result.getErrorMessage());
-                        return Result.failure("Transaction failed at step " + (i + 1) + ": " + result.getErrorMessage());
-                    }
-                } else if (operation instanceof WriteOperation) {
-                    WriteOperation<?> writeOp = (WriteOperation<?>) operation;
-                    Result<?> result = executeWriteOperation(writeOp.callable, stepName);
-                    if (result.isFailure()) {
-                        logOperationFailure(operationName, "Failed at step " + (i + 1) + ": " + result.getErrorMessage());
-                        return Result.failure("Transaction failed at step " + (i + 1) + ": " + result.getErrorMessage());
+                try {
+                    if (operation instanceof ReadOperation) {
+                        ((ReadOperation<?>) operation).callable.call();
+                    } else if (operation instanceof WriteOperation) {
+                        ((WriteOperation<?>) operation).callable.call();
                     }
+                } catch (Exception e) {
+                    logOperationFailure(operationName, "Failed at step " + (i + 1) + ": " + e.getMessage());
+                    throw new Exception("Transaction failed at step " + (i + 1) + ": " + e.getMessage(), e);
                 }
             }
 
             logOperationSuccess(operationName);
-            return Result.success();
-
-        } catch (Exception e) {
-            logOperationFailure(operationName, e.getMessage());
-            return ErrorHandler.<Void>handleException(e, operationName)
-                    .map(r -> null); // Return failure result
-        }
+            return null;
+        }, operationName);
     }
 
     // ================================
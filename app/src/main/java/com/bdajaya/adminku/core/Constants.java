@@ -154,6 +154,77 @@ public final class Constants {
      */
     public static final int DATABASE_THREAD_POOL_SIZE = 4;
 
+    /**
+     * Maximum results shown for a search-as-you-type query.
+     */
+    public static final int SEARCH_RESULT_LIMIT = 50;
+
+    /**
+     * Recent query → result-id lists kept per search session (instant backspace).
+     */
+    public static final int SEARCH_SESSION_CACHE_SIZE = 16;
+
+    /**
+     * Below this many FTS/barcode hits, product search adds typo-tolerant trigram matches.
+     */
+    public static final int SEARCH_FUZZY_MIN_HITS = 5;
+
+    /**
+     * Trigram-overlap candidates re-ranked by edit distance per fuzzy query.
+     */
+    public static final int SEARCH_FUZZY_CANDIDATE_LIMIT = 1000;
+
+    /**
+     * Product rows re-indexed per trigram indexing transaction.
+     */
+    public static final int TRIGRAM_INDEX_BATCH_SIZE = 500;
+
+    /**
+     * Product images given a thumbnail per backfill batch (one decode each, at thumbnail size).
+     */
+    public static final int THUMBNAIL_BACKFILL_BATCH_SIZE = 50;
+
+    /**
+     * Bitmap memory (KB) that concurrent image decodes may hold together. One 1920px photo
+     * needs about 11-22MB, so two or three decode at once; a larger one still runs, alone.
+     */
+    public static final int IMAGE_DECODE_BUDGET_KB = 48 * 1024;
+
+    /**
+     * Stock transactions older than this are folded into checkpoint rows by the compaction job.
+     */
+    public static final int STOCK_LEDGER_RETENTION_DAYS = 180;
+
+    /**
+     * ADJUST rows written per insertAll call when committing a stocktake (progress is reported per chunk).
+     */
+    public static final int STOCKTAKE_COMMIT_CHUNK_SIZE = 500;
+
+    /**
+     * CSV catalog import: rows upserted per database transaction.
+     */
+    public static final int CSV_IMPORT_CHUNK_SIZE = 2000;
+
+    /**
+     * Group commit: maximum queued write commands folded into one transaction.
+     */
+    public static final int WRITE_BATCH_MAX_COMMANDS = 128;
+
+    /**
+     * Group commit: how long the writer waits for more commands before committing a partial batch.
+     */
+    public static final long WRITE_BATCH_WINDOW_MS = 2;
+
+    /**
+     * Barcode numbers reserved per Sequence transaction by BarcodeAllocator.
+     */
+    public static final int BARCODE_BLOCK_SIZE = 100;
+
+    /**
+     * ProductWithDetails entries kept by ProductRepositoryCache (LRU, by count).
+     */
+    public static final int PRODUCT_DETAILS_CACHE_SIZE = 256;
+
     // ================================
     // VALIDATION METHODS
     // ================================
@@ -11,11 +11,23 @@ import androidx.room.migration.Migration;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 import com.bdajaya.adminku.data.dao.*;
 import com.bdajaya.adminku.data.entity.*;
+import com.bdajaya.adminku.db.migration.DatabaseTriggers;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import com.bdajaya.adminku.core.AppExecutors;
 
 import static com.bdajaya.adminku.db.migration.Migrations.MIGRATION_5_6;
+import static com.bdajaya.adminku.db.migration.Migrations.MIGRATION_6_7;
+import static com.bdajaya.adminku.db.migration.Migrations.MIGRATION_7_8;
+import static com.bdajaya.adminku.db.migration.Migrations.MIGRATION_8_9;
+import static com.bdajaya.adminku.db.migration.Migrations.MIGRATION_9_10;
+import static com.bdajaya.adminku.db.migration.Migrations.MIGRATION_10_11;
+import static com.bdajaya.adminku.db.migration.Migrations.MIGRATION_11_12;
+import static com.bdajaya.adminku.db.migration.Migrations.MIGRATION_12_13;
+import static com.bdajaya.adminku.db.migration.Migrations.MIGRATION_13_14;
+import static com.bdajaya.adminku.db.migration.Migrations.MIGRATION_14_15;
+import static com.bdajaya.adminku.db.migration.Migrations.MIGRATION_15_16;
+import static com.bdajaya.adminku.db.migration.Migrations.MIGRATION_16_17;
+import static com.bdajaya.adminku.db.migration.Migrations.MIGRATION_17_18;
 
 @Database(entities = {
         Product.class,
@@ -24,16 +36,27 @@ import static com.bdajaya.adminku.db.migration.Migrations.MIGRATION_5_6;
         Unit.class,
         StockTransaction.class,
         Brand.class,
-        ProductFts.class
-}, version = 6, exportSchema = true)
+        ProductFts.class,
+        StockBalance.class,
+        StockMonthlySummary.class,
+        CategoryClosure.class,
+        StocktakeSession.class,
+        StocktakeCount.class,
+        Sequence.class,
+        CategoryFts.class,
+        BrandFts.class,
+        ProductTrigram.class,
+        ProductTrigramDoc.class,
+        ProductTrigramQueue.class,
+        ImageBlob.class,
+        ProductChange.class
+}, version = 18, exportSchema = true)
 @TypeConverters({DateConverter.class, StringListConverter.class})
 public abstract class AppDatabase extends RoomDatabase  {
     private static final String DATABASE_NAME = "adminku_db";
     private static volatile AppDatabase INSTANCE;
-    private static final int NUMBER_OF_THREADS = 4;
 
-    public static final ExecutorService databaseWriteExecutor =
-            Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+    private AppExecutors executors;
 
     public abstract ProductDao productDao();
     public abstract ProductImageDao productImageDao();
@@ -42,12 +65,26 @@ public abstract class AppDatabase extends RoomDatabase  {
     public abstract StockTransactionDao stockTransactionDao();
     public abstract BrandDao brandDao();
     public abstract ProductFtsDao productFtsDao();
+    public abstract StocktakeDao stocktakeDao();
+    public abstract SequenceDao sequenceDao();
+    public abstract SearchDao searchDao();
+    public abstract ProductTrigramDao productTrigramDao();
+    public abstract ImageBlobDao imageBlobDao();
 
-    public static AppDatabase getInstance(final Context context) {
+    /**
+     * Executors yang dipakai builder database ini; singleton per-database yang tidak dibuat
+     * Hilt (WriteBatcher, TrigramIndex, CategoryTreeCache) mengambilnya dari sini.
+     */
+    @NonNull
+    public AppExecutors getExecutors() {
+        return executors;
+    }
+
+    public static AppDatabase getInstance(final Context context, final AppExecutors executors) {
         if (INSTANCE == null) {
             synchronized (AppDatabase.class) {
                 if (INSTANCE == null) {
-                    INSTANCE = Room.databaseBuilder(
+                    AppDatabase instance = Room.databaseBuilder(
                                     context.getApplicationContext(),
                                     AppDatabase.class,
                                     DATABASE_NAME)
@@ -55,14 +92,24 @@ public abstract class AppDatabase extends RoomDatabase  {
                                 @Override
                                 public void onCreate(@NonNull SupportSQLiteDatabase db) {
                                     super.onCreate(db);
-                                    databaseWriteExecutor.execute(() -> {
-                                        // Populate the database with initial data
-                                        DatabaseInitializer.populateDatabase(getInstance(context));
-                                    });
+                                    DatabaseTriggers.createAll(db);
+                                    // Populate the database with initial data, as one write command
+                                    AppDatabase database = getInstance(context, executors);
+                                    WriteBatcher.getInstance(database)
+                                            .execute(() -> DatabaseInitializer.populateDatabase(database));
                                 }
                             })
-                            .addMigrations(MIGRATION_5_6)
+                            // WAL: pembaca di diskRead tidak diblok oleh writer tunggal di diskWrite.
+                            // Transaksi suspend/Rx Room ikut read pool; writer hanya milik WriteBatcher
+                            .setJournalMode(JournalMode.WRITE_AHEAD_LOGGING)
+                            .setQueryExecutor(executors.diskRead())
+                            .addMigrations(MIGRATION_5_6, MIGRATION_6_7, MIGRATION_7_8, MIGRATION_8_9,
+                                    MIGRATION_9_10, MIGRATION_10_11, MIGRATION_11_12, MIGRATION_12_13,
+                                    MIGRATION_13_14, MIGRATION_14_15,
+                                    MIGRATION_15_16, MIGRATION_16_17, MIGRATION_17_18)
                             .build();
+                    instance.executors = executors;
+                    INSTANCE = instance;
                 }
             }
         }
@@ -0,0 +1,156 @@
+package com.bdajaya.adminku.data;
+
+import androidx.annotation.NonNull;
+
+import com.bdajaya.adminku.core.Constants;
+import com.bdajaya.adminku.data.dao.SequenceDao;
+import com.bdajaya.adminku.data.entity.Sequence;
+
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+/**
+ * Pembuat nomor barcode internal (BE-00000001) berbasis tabel Sequence.
+ *
+ * Nomor dipesan per blok (BARCODE_BLOCK_SIZE) lewat satu command WriteBatcher, lalu dibagikan
+ * dari memori dengan AtomicLong: tidak ada scan MAX(barcode) per produk dan dua insert bersamaan
+ * tidak pernah mendapat nomor yang sama. Blok yang belum habis saat proses mati hilang (ada celah
+ * nomor), tapi nomor tidak pernah terpakai dua kali.
+ *
+ * Blok di memori baru dipakai setelah pemesanannya commit, jadi rollback tidak membuat nomor
+ * dibagikan dua kali. Pemesanan untuk baris yang ditulis di transaksi yang sama (import) memakai
+ * {@link #reserveRangeInTransaction}.
+ */
+public class BarcodeAllocator {
+
+    public static final String SEQUENCE_BARCODE = "barcode";
+
+    private static volatile BarcodeAllocator INSTANCE;
+
+    private final WriteBatcher writeBatcher;
+    private final SequenceDao sequenceDao;
+    private final IntSupplier maxExistingBarcode;
+    private final int blockSize;
+    private final Object reserveLock = new Object();
+    private volatile Block block;
+    // Pemesanan blok yang sedang berjalan; dibagi oleh semua pemanggil yang menunggu blok baru
+    private CompletableFuture<Void> refill;
+
+    public static BarcodeAllocator getInstance(AppDatabase database) {
+        if (INSTANCE == null) {
+            synchronized (BarcodeAllocator.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new BarcodeAllocator(WriteBatcher.getInstance(database), database.sequenceDao(),
+                            () -> database.productDao().getMaxBarcodeNumber(), Constants.BARCODE_BLOCK_SIZE);
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    BarcodeAllocator(WriteBatcher writeBatcher, SequenceDao sequenceDao, IntSupplier maxExistingBarcode,
+                     int blockSize) {
+        this.writeBatcher = writeBatcher;
+        this.sequenceDao = sequenceDao;
+        this.maxExistingBarcode = maxExistingBarcode;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Barcode berikutnya. Langsung selesai dari blok di memori; hanya menunggu writer sekali per blok.
+     */
+    @NonNull
+    public CompletableFuture<String> nextBarcode() {
+        return nextNumber().thenApply(BarcodeAllocator::format);
+    }
+
+    @NonNull
+    public CompletableFuture<Long> nextNumber() {
+        Block current = block;
+        if (current != null) {
+            long value = current.next.getAndIncrement();
+            if (value < current.end) {
+                return CompletableFuture.completedFuture(value);
+            }
+        }
+        // Blok habis (atau belum ada): tunggu pemesanan blok baru lalu coba lagi
+        return refill(current).thenCompose(ignored -> nextNumber());
+    }
+
+    /**
+     * Pesan count nomor berurutan sekaligus di dalam transaksi pemanggil (command WriteBatcher).
+     * Nomor ikut di-rollback bersama baris yang memakainya, jadi aman diulang.
+     *
+     * @return nomor pertama; nomor yang dipesan adalah [hasil, hasil + count)
+     */
+    public long reserveRangeInTransaction(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("count must be positive");
+        }
+        return reserve(count);
+    }
+
+    @NonNull
+    public static String format(long number) {
+        return String.format(Locale.ROOT, "BE-%08d", number);
+    }
+
+    private CompletableFuture<Void> refill(Block exhausted) {
+        synchronized (reserveLock) {
+            // Pemanggil lain mungkin sudah mengganti blok
+            if (block != exhausted) {
+                return CompletableFuture.completedFuture(null);
+            }
+            if (refill == null) {
+                CompletableFuture<Void> pending = writeBatcher.submit(() -> reserve(blockSize))
+                        .handle((start, error) -> {
+                            synchronized (reserveLock) {
+                                refill = null;
+                                if (error == null) {
+                                    block = new Block(start, start + blockSize);
+                                }
+                            }
+                            if (error != null) {
+                                throw error instanceof RuntimeException
+                                        ? (RuntimeException) error
+                                        : new IllegalStateException("Barcode reservation failed", error);
+                            }
+                            return null;
+                        });
+                // Command yang selesai seketika sudah melepas refill di dalam handle
+                if (!pending.isDone()) {
+                    refill = pending;
+                }
+                return pending;
+            }
+            return refill;
+        }
+    }
+
+    /**
+     * Di dalam transaksi: geser Sequence sejauh count.
+     */
+    private long reserve(int count) {
+        long now = System.currentTimeMillis();
+        Long next = sequenceDao.getNextValue(SEQUENCE_BARCODE);
+        if (next == null) {
+            // Sekali saja (DB baru): lanjutkan dari barcode BE- terbesar yang sudah ada
+            next = (long) maxExistingBarcode.getAsInt() + 1;
+            sequenceDao.insert(new Sequence(SEQUENCE_BARCODE, next, now));
+        }
+        sequenceDao.setNextValue(SEQUENCE_BARCODE, next + count, now);
+        return next;
+    }
+
+    private static final class Block {
+        final AtomicLong next;
+        final long end;
+
+        Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.bdajaya.adminku.data;
+
+import androidx.annotation.NonNull;
+
+import com.bdajaya.adminku.core.AppExecutors;
+import com.bdajaya.adminku.core.Constants;
+import com.bdajaya.adminku.core.ErrorHandler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Group commit untuk tulisan ke database.
+ *
+ * Command yang masuk dalam jendela singkat (WRITE_BATCH_WINDOW_MS) dijalankan bersama di writer
+ * thread dalam satu runInTransaction, jadi satu fsync untuk banyak tulisan kecil (tap "+1",
+ * scanner, ubah status). Tiap pemanggil tetap mendapat future sendiri.
+ *
+ * Kalau satu command gagal, seluruh batch di-rollback lalu tiap command diulang di transaksinya
+ * sendiri, sehingga hanya command yang gagal yang menerima exception. Karena itu command harus
+ * berupa kerja database saja (tanpa efek samping ke file/UI) supaya aman diulang.
+ *
+ * Writer thread hanya menjalankan drain di sini: kerja lain (baca, orkestrasi) berjalan di
+ * diskRead()/io() dan hanya command tulisnya yang masuk ke sini.
+ */
+public class WriteBatcher {
+
+    private static volatile WriteBatcher INSTANCE;
+
+    private final Transactions transactions;
+    private final Executor writer;
+    private final BooleanSupplier onWriterThread;
+    private final ConcurrentLinkedQueue<PendingWrite<?>> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+
+    private final AtomicLong committedWrites = new AtomicLong();
+    private final AtomicLong committedBatches = new AtomicLong();
+
+    // Hanya disentuh di writer thread: non-null selama transaksi batch berjalan
+    private List<PendingWrite<?>> nestedWrites;
+    private Throwable nestedFailure;
+
+    /**
+     * Cara membungkus satu batch dalam transaksi (Room di aplikasi, palsu di unit test).
+     * Transaksi bersarang harus ikut transaksi luar, seperti runInTransaction Room.
+     */
+    interface Transactions {
+        void run(@NonNull Callable<Void> body) throws Exception;
+    }
+
+    public static WriteBatcher getInstance(AppDatabase database) {
+        if (INSTANCE == null) {
+            synchronized (WriteBatcher.class) {
+                if (INSTANCE == null) {
+                    AppExecutors executors = database.getExecutors();
+                    INSTANCE = new WriteBatcher(database::runInTransaction, executors.diskWrite(),
+                            executors::isWriterThread);
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    WriteBatcher(@NonNull Transactions transactions, @NonNull Executor writer,
+                 @NonNull BooleanSupplier onWriterThread) {
+        this.transactions = transactions;
+        this.writer = writer;
+        this.onWriterThread = onWriterThread;
+    }
+
+    /**
+     * Antrikan command tulis. Future selesai setelah transaksinya commit.
+     *
+     * Dari dalam command lain (writer thread, transaksi batch sedang berjalan) command langsung
+     * dijalankan di transaksi bersarang yang ikut transaksi induknya: future-nya baru selesai
+     * saat induknya commit, dan kalau command bersarang gagal, induknya ikut gagal dan seluruh
+     * transaksinya di-rollback (tidak ada commit sebagian).
+     */
+    @NonNull
+    public <T> CompletableFuture<T> submit(@NonNull Callable<T> command) {
+        PendingWrite<T> pending = new PendingWrite<>(command);
+        if (onWriterThread.getAsBoolean() && nestedWrites != null) {
+            runNested(pending);
+            return pending.future;
+        }
+        queue.add(pending);
+        scheduleDrain();
+        return pending.future;
+    }
+
+    @NonNull
+    public CompletableFuture<Void> execute(@NonNull Runnable command) {
+        return submit(() -> {
+            command.run();
+            return null;
+        });
+    }
+
+    /**
+     * Jumlah command yang sudah commit (untuk mengukur writes/detik).
+     */
+    public long getCommittedWrites() {
+        return committedWrites.get();
+    }
+
+    /**
+     * Jumlah transaksi yang sudah commit; committedWrites / committedBatches = rata-rata ukuran batch.
+     */
+    public long getCommittedBatches() {
+        return committedBatches.get();
+    }
+
+    private void scheduleDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            writer.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        // Reset dulu: command yang datang selama drain menjadwalkan drain berikutnya
+        drainScheduled.set(false);
+
+        int max = Constants.WRITE_BATCH_MAX_COMMANDS;
+        if (queue.size() < max) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(Constants.WRITE_BATCH_WINDOW_MS));
+        }
+
+        List<PendingWrite<?>> batch = new ArrayList<>(Math.min(max, 16));
+        while (true) {
+            batch.clear();
+            PendingWrite<?> next;
+            while (batch.size() < max && (next = queue.poll()) != null) {
+                // Dibatalkan sebelum sempat jalan: lewati
+                if (!next.future.isCancelled()) {
+                    batch.add(next);
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            runBatch(batch);
+        }
+    }
+
+    private void runBatch(List<PendingWrite<?>> batch) {
+        if (batch.size() > 1) {
+            Throwable error = commit(batch);
+            if (error == null) {
+                return;
+            }
+            ErrorHandler.logDebug("Write batch of " + batch.size() + " rolled back, retrying one by one: "
+                    + error.getMessage());
+        }
+
+        for (PendingWrite<?> pending : batch) {
+            Throwable error = commit(Collections.singletonList(pending));
+            if (error != null) {
+                pending.future.completeExceptionally(error);
+            }
+        }
+    }
+
+    /**
+     * Satu transaksi untuk semua command. Setelah commit, future command dan command bersarangnya
+     * diselesaikan; kalau rollback, command bersarang menerima exception-nya.
+     *
+     * @return null jika commit, selain itu penyebab rollback
+     */
+    private Throwable commit(List<PendingWrite<?>> commands) {
+        List<PendingWrite<?>> nested = new ArrayList<>();
+        nestedWrites = nested;
+        nestedFailure = null;
+        try {
+            transactions.run(() -> {
+                for (PendingWrite<?> pending : commands) {
+                    pending.call();
+                    if (nestedFailure != null) {
+                        // Transaksi bersarang yang gagal sudah menggagalkan transaksi ini; lempar
+                        // di sini supaya tidak di-rollback diam-diam saat endTransaction
+                        throw nestedFailure instanceof Exception
+                                ? (Exception) nestedFailure
+                                : new RuntimeException(nestedFailure);
+                    }
+                }
+                return null;
+            });
+        } catch (Throwable e) {
+            for (PendingWrite<?> write : nested) {
+                write.future.completeExceptionally(e);
+            }
+            return e;
+        } finally {
+            nestedWrites = null;
+            nestedFailure = null;
+        }
+
+        committedWrites.addAndGet(commands.size());
+        committedBatches.incrementAndGet();
+        for (PendingWrite<?> pending : commands) {
+            pending.complete();
+        }
+        for (PendingWrite<?> write : nested) {
+            write.complete();
+        }
+        return null;
+    }
+
+    /**
+     * Di writer, di dalam command lain: jalankan di transaksi bersarang. Hasilnya baru diserahkan
+     * setelah transaksi luar commit (lihat commit).
+     */
+    private void runNested(PendingWrite<?> pending) {
+        List<PendingWrite<?>> outer = nestedWrites;
+        try {
+            transactions.run(() -> {
+                pending.call();
+                return null;
+            });
+            outer.add(pending);
+        } catch (Throwable e) {
+            if (nestedFailure == null) {
+                nestedFailure = e;
+            }
+            pending.future.completeExceptionally(e);
+        }
+    }
+
+    private static final class PendingWrite<T> {
+        final Callable<T> command;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        T value;
+
+        PendingWrite(Callable<T> command) {
+            this.command = command;
+        }
+
+        void call() throws Exception {
+            value = command.call();
+        }
+
+        void complete() {
+            future.complete(value);
+        }
+    }
+}
@@ -36,6 +36,9 @@ public interface BrandDao {
     @Query("SELECT * FROM Brand ORDER BY name")
     List<Brand> getAllSync();
 
+    @Query("SELECT * FROM Brand WHERE id IN (:ids)")
+    List<Brand> getByIdsSync(List<String> ids);
+
     @Query("SELECT * FROM Brand WHERE name LIKE '%' || :query || '%' ORDER BY name LIMIT :limit")
     List<Brand> search(String query, int limit);
 
@@ -5,6 +5,7 @@ import androidx.annotation.Nullable;
 import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
 import androidx.room.Delete;
+import androidx.room.Embedded;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
@@ -100,6 +101,14 @@ public interface CategoryDao {
     @Query("SELECT * FROM Category WHERE parentId = :parentId ORDER BY name")
     List<Category> getChildrenSync(@NonNull String parentId);
 
+    /**
+     * Get every category in one pass (used to build the in-memory tree snapshot)
+     * @return All categories
+     */
+    @NonNull
+    @Query("SELECT * FROM Category")
+    List<Category> getAllSync();
+
     /**
      * Count the number of children for a category
      * @param id Parent category ID
@@ -183,4 +192,58 @@ public interface CategoryDao {
      */
     @Query("SELECT CASE WHEN COUNT(*) > 0 THEN 1 ELSE 0 END FROM Category WHERE parentId = :id")
     boolean hasDescendants(@NonNull String id);
+
+    // ================================
+    // CLOSURE TABLE QUERIES
+    // ================================
+
+    /**
+     * Get the path from a category up to its root in one query
+     * @param id Category ID
+     * @return Categories ordered self first, root last
+     */
+    @NonNull
+    @Query("SELECT c.* FROM CategoryClosure cc JOIN Category c ON c.id = cc.ancestorId " +
+            "WHERE cc.descendantId = :id ORDER BY cc.depth")
+    List<Category> getPathToRoot(@NonNull String id);
+
+    /**
+     * Get all descendants of a category (excluding itself)
+     * @param id Category ID
+     * @return Descendants ordered by depth, then name
+     */
+    @NonNull
+    @Query("SELECT c.* FROM CategoryClosure cc JOIN Category c ON c.id = cc.descendantId " +
+            "WHERE cc.ancestorId = :id AND cc.depth > 0 ORDER BY cc.depth, c.name")
+    List<Category> getDescendants(@NonNull String id);
+
+    /**
+     * Get the ids of a category and all of its descendants
+     * @param id Category ID
+     * @return Subtree category IDs
+     */
+    @NonNull
+    @Query("SELECT descendantId FROM CategoryClosure WHERE ancestorId = :id")
+    List<String> getSubtreeIds(@NonNull String id);
+
+    /**
+     * Get ancestor rows for many categories at once (path building for search results)
+     * @param ids Category IDs (at most 999)
+     * @return Rows ordered by descendant, then depth (self first)
+     */
+    @NonNull
+    @Query("SELECT cc.descendantId AS descendantId, cc.depth AS depth, c.* " +
+            "FROM CategoryClosure cc JOIN Category c ON c.id = cc.ancestorId " +
+            "WHERE cc.descendantId IN (:ids) ORDER BY cc.descendantId, cc.depth")
+    List<AncestorRow> getAncestorRows(@NonNull List<String> ids);
+
+    /**
+     * Row returned by {@link #getAncestorRows(List)}
+     */
+    class AncestorRow {
+        public String descendantId;
+        public int depth;
+        @Embedded
+        public Category ancestor;
+    }
 }
@@ -0,0 +1,38 @@
+package com.bdajaya.adminku.data.dao;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+
+import com.bdajaya.adminku.data.entity.ImageBlob;
+
+import java.util.List;
+
+/**
+ * Content-addressed image files; refCount is maintained by triggers on ProductImage.
+ */
+@Dao
+public interface ImageBlobDao {
+
+    @Query("SELECT * FROM ImageBlob WHERE hash = :hash")
+    ImageBlob get(String hash);
+
+    /**
+     * Register an encoded blob. refCount starts at the rows that already point to it (PENDING
+     * rows carry blobHash before the blob exists); later changes come from the triggers.
+     */
+    @Query("INSERT OR IGNORE INTO ImageBlob " +
+            "(hash, imagePath, thumbnailPath, width, height, fileSize, refCount, createdAt) " +
+            "VALUES (:hash, :imagePath, :thumbnailPath, :width, :height, :fileSize, " +
+            "(SELECT COUNT(*) FROM ProductImage WHERE blobHash = :hash), :createdAt)")
+    void insertIfAbsent(String hash, String imagePath, String thumbnailPath, int width, int height,
+                        long fileSize, long createdAt);
+
+    @Query("SELECT * FROM ImageBlob WHERE refCount <= 0")
+    List<ImageBlob> getUnreferenced();
+
+    /**
+     * 0 when the blob gained a reference since it was read.
+     */
+    @Query("DELETE FROM ImageBlob WHERE hash = :hash AND refCount <= 0")
+    int deleteIfUnreferenced(String hash);
+}
@@ -1,13 +1,17 @@
 package com.bdajaya.adminku.data.dao;
 
+import android.database.Cursor;
+
 import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.RawQuery;
 import androidx.room.Transaction;
 import androidx.room.Update;
+import androidx.sqlite.db.SupportSQLiteQuery;
 
 import com.bdajaya.adminku.data.entity.Product;
 import com.bdajaya.adminku.data.model.ProductWithDetails;
@@ -47,6 +51,17 @@ public interface ProductDao {
     @Query("SELECT COUNT(*) FROM Product WHERE categoryId = :categoryId")
     int countByCategoryId(String categoryId);
 
+    /**
+     * Products in a category or any of its descendants (via CategoryClosure).
+     */
+    @Query("SELECT p.* FROM CategoryClosure cc JOIN Product p ON p.categoryId = cc.descendantId " +
+            "WHERE cc.ancestorId = :categoryId ORDER BY p.name")
+    List<Product> getByCategorySubtree(String categoryId);
+
+    @Query("SELECT COUNT(*) FROM CategoryClosure cc JOIN Product p ON p.categoryId = cc.descendantId " +
+            "WHERE cc.ancestorId = :categoryId")
+    int countByCategorySubtree(String categoryId);
+
     /**
      * Legacy LIKE-based search (kept for backward compatibility).
      * Note: LIKE '%term%' cannot use normal index efficiently.
@@ -65,12 +80,50 @@ public interface ProductDao {
     @Query("SELECT * FROM Product WHERE id = :id")
     LiveData<ProductWithDetails> getProductWithDetails(String id);
 
+    /**
+     * One-shot load for ProductRepositoryCache (background thread).
+     */
+    @Transaction
+    @Query("SELECT * FROM Product WHERE id = :id")
+    ProductWithDetails getProductWithDetailsSync(String id);
+
     @Transaction
     @Query("SELECT * FROM Product WHERE status = :status ORDER BY name")
     LiveData<List<ProductWithDetails>> getProductsWithDetailsByStatus(String status);
 
+    // Keyset pages per status ordered by (name, id), served by index (status, name, id).
+    // name >= :name narrows the index range; the OR resolves ties on id.
+
     @Transaction
-    @Query("SELECT * FROM Product WHERE id IN (SELECT docid FROM ProductFts WHERE ProductFts MATCH :query) ORDER BY name LIMIT :limit")
+    @Query("SELECT * FROM Product WHERE status = :status ORDER BY name, id LIMIT :limit")
+    List<ProductWithDetails> getPageFirst(String status, int limit);
+
+    @Transaction
+    @Query("SELECT * FROM Product WHERE status = :status AND name >= :name AND (name > :name OR id >= :id) " +
+            "ORDER BY name, id LIMIT :limit")
+    List<ProductWithDetails> getPageFrom(String status, String name, String id, int limit);
+
+    @Transaction
+    @Query("SELECT * FROM Product WHERE status = :status AND name >= :name AND (name > :name OR id > :id) " +
+            "ORDER BY name, id LIMIT :limit")
+    List<ProductWithDetails> getPageAfter(String status, String name, String id, int limit);
+
+    /**
+     * Returned in descending order; caller reverses the page.
+     */
+    @Transaction
+    @Query("SELECT * FROM Product WHERE status = :status AND name <= :name AND (name < :name OR id < :id) " +
+            "ORDER BY name DESC, id DESC LIMIT :limit")
+    List<ProductWithDetails> getPageBefore(String status, String name, String id, int limit);
+
+    /**
+     * FTS search returning full product details, ordered by name.
+     * ProductFts is an external-content table over Product, so docid == Product.rowid.
+     *
+     * NOTE: caller must format query for MATCH operator (see FtsQueryBuilder).
+     */
+    @Transaction
+    @Query("SELECT * FROM Product WHERE rowid IN (SELECT docid FROM ProductFts WHERE ProductFts MATCH :query) ORDER BY name LIMIT :limit")
     List<ProductWithDetails> searchWithDetailsUsingFts(String query, int limit);
 
     /**
@@ -79,15 +132,149 @@ public interface ProductDao {
      *
      * NOTE: caller must format query for MATCH operator (e.g. "term*" for prefix search).
      */
-    @Query("SELECT * FROM Product WHERE id IN (SELECT docid FROM ProductFts WHERE ProductFts MATCH :query) ORDER BY name LIMIT :limit")
+    @Query("SELECT * FROM Product WHERE rowid IN (SELECT docid FROM ProductFts WHERE ProductFts MATCH :query) ORDER BY name LIMIT :limit")
     List<Product> searchFts(String query, int limit);
 
+    /**
+     * FTS4 matchinfo('pcnx') of one hit: phrase/column counts, row count and, per phrase and
+     * column, how many rows contain it. Those statistics are the same for every hit, so one row is
+     * enough to compute the idf weights of the ranked query. Null when nothing matches.
+     *
+     * NOTE: caller must format query for MATCH operator (see FtsQueryBuilder).
+     */
+    @Query("SELECT matchinfo(ProductFts, 'pcnx') FROM ProductFts WHERE ProductFts MATCH :query LIMIT 1")
+    byte[] getFtsMatchStats(String query);
+
+    /**
+     * Ranked search in one statement: FTS hits scored from matchinfo, joined to Product
+     * (rowid = docid), ordered and capped in SQLite so only the top N rows leave the database.
+     * Built by ProductSearchEngine.buildRankedQuery.
+     */
+    @Transaction
+    @RawQuery
+    List<ProductWithDetails> searchRankedWithDetails(SupportSQLiteQuery query);
+
+    /**
+     * Barcode lookup as an index range scan on the unique barcode index
+     * (exact match sorts first because it is the smallest value in the range).
+     * upperBound is the prefix with its last char incremented, computed by the caller.
+     */
+    @Query("SELECT id FROM Product WHERE barcode >= :prefix AND barcode < :upperBound ORDER BY barcode LIMIT :limit")
+    List<String> searchIdsByBarcodeRange(String prefix, String upperBound, int limit);
+
+    @Transaction
+    @Query("SELECT * FROM Product WHERE id IN (:ids)")
+    List<ProductWithDetails> getProductsWithDetailsByIds(List<String> ids);
+
     @Query("UPDATE Product SET status = :status WHERE id = :id")
     void updateStatus(String id, String status);
 
     @Query("UPDATE Product SET stock = stock + :quantity WHERE id = :id")
     void updateStock(String id, long quantity);
 
+    /**
+     * Full scan; only used once to seed the Sequence row. New barcodes come from BarcodeAllocator.
+     */
     @Query("SELECT MAX(CAST(SUBSTR(barcode, 4) AS INTEGER)) FROM Product WHERE barcode LIKE 'BE-%'")
     int getMaxBarcodeNumber();
-}
\ No newline at end of file
+
+    // ================================
+    // BULK IMPORT / EXPORT
+    // ================================
+
+    /**
+     * Insert only; never REPLACE here, which would delete the old row and cascade to
+     * images, stock ledger and balance. Returns -1 for rows whose id/barcode already exist.
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    long[] insertAllIfAbsent(List<Product> products);
+
+    /**
+     * Existing ids for a batch of barcodes (unique barcode index; at most 999 barcodes).
+     */
+    @Query("SELECT id, barcode FROM Product WHERE barcode IN (:barcodes)")
+    List<BarcodeId> getIdsByBarcodes(List<String> barcodes);
+
+    /**
+     * Catalog fields only: stock and status stay with the stock ledger.
+     */
+    @Query("UPDATE Product SET name = :name, description = :description, categoryId = :categoryId, " +
+            "brandId = :brandId, unitId = :unitId, buyPrice = :buyPrice, sellPrice = :sellPrice, " +
+            "margin = :margin, updatedAt = :updatedAt WHERE id = :id")
+    int updateCatalogFields(String id, String name, String description, String categoryId, String brandId,
+                            String unitId, long buyPrice, long sellPrice, int margin, long updatedAt);
+
+    /**
+     * Flat export rows in barcode order (walks the unique barcode index, no sort step).
+     * Returned as a Cursor so the caller can stream it without materializing every row.
+     */
+    @Query("SELECT p.barcode AS barcode, p.name AS name, p.description AS description, " +
+            "p.categoryId AS categoryId, b.name AS brandName, u.name AS unitName, p.buyPrice AS buyPrice, " +
+            "p.sellPrice AS sellPrice, p.margin AS margin, p.stock AS stock, p.status AS status " +
+            "FROM Product p LEFT JOIN Brand b ON b.id = p.brandId LEFT JOIN Unit u ON u.id = p.unitId " +
+            "ORDER BY p.barcode")
+    Cursor getExportCursor();
+
+    /**
+     * Every scannable product with what checkout needs (price, stock in base unit, and the
+     * product unit's conversion factor), for the in-memory BarcodeIndex. Unknown units count as 1.
+     * Read {@link #getLastProductChangeSeq()} first; later changes are picked up incrementally.
+     */
+    @Query("SELECT p.rowid AS docid, p.id AS productId, p.barcode AS barcode, p.name AS name, " +
+            "p.unitId AS unitId, COALESCE(u.conversionFactor, 1) AS conversionFactor, " +
+            "p.sellPrice AS sellPrice, p.stock AS stock, p.status AS status, 0 AS seq " +
+            "FROM Product p LEFT JOIN Unit u ON u.id = p.unitId " +
+            "WHERE p.barcode IS NOT NULL AND p.barcode != ''")
+    List<BarcodeRow> getBarcodeRows();
+
+    @Query("SELECT COALESCE(MAX(seq), 0) FROM ProductChange")
+    long getLastProductChangeSeq();
+
+    /**
+     * Products changed after seq (index range scan on ProductChange.seq). A deleted product comes
+     * back with a null productId, a cleared barcode with an empty one: both mean "drop docid".
+     */
+    @Query("SELECT c.docid AS docid, p.id AS productId, p.barcode AS barcode, p.name AS name, " +
+            "p.unitId AS unitId, COALESCE(u.conversionFactor, 1) AS conversionFactor, " +
+            "COALESCE(p.sellPrice, 0) AS sellPrice, COALESCE(p.stock, 0) AS stock, p.status AS status, " +
+            "c.seq AS seq " +
+            "FROM ProductChange c LEFT JOIN Product p ON p.rowid = c.docid " +
+            "LEFT JOIN Unit u ON u.id = p.unitId " +
+            "WHERE c.seq > :seq ORDER BY c.seq")
+    List<BarcodeRow> getBarcodeRowsChangedAfter(long seq);
+
+    /**
+     * Product ids changed after seq, for evicting ProductRepositoryCache entries.
+     */
+    @Query("SELECT productId, seq FROM ProductChange WHERE seq > :seq")
+    List<ChangedProduct> getProductsChangedAfter(long seq);
+
+    class BarcodeId {
+        public String id;
+        public String barcode;
+    }
+
+    /**
+     * Row returned by {@link #getBarcodeRows()} and {@link #getBarcodeRowsChangedAfter(long)}.
+     */
+    class BarcodeRow {
+        public long docid; // Product.rowid
+        public String productId;
+        public String barcode;
+        public String name;
+        public String unitId;
+        public long conversionFactor;
+        public long sellPrice;
+        public long stock;
+        public String status;
+        public long seq; // ProductChange.seq, 0 for a full load
+    }
+
+    /**
+     * Row returned by {@link #getProductsChangedAfter(long)}.
+     */
+    class ChangedProduct {
+        public String productId;
+        public long seq;
+    }
+}
@@ -44,4 +44,36 @@ public interface ProductImageDao {
 
     @Query("UPDATE ProductImage SET orderIndex = :newIndex WHERE id = :id")
     void updateOrderIndex(String id, int newIndex);
+
+    /**
+     * Gambar lama (sebelum thumbnail ada) yang belum punya thumbnail, untuk backfill bertahap.
+     */
+    @Query("SELECT * FROM ProductImage WHERE thumbnailPath IS NULL AND status = 'READY' " +
+            "ORDER BY createdAt LIMIT :limit")
+    List<ProductImage> getWithoutThumbnail(int limit);
+
+    @Query("UPDATE ProductImage SET thumbnailPath = :thumbnailPath WHERE id = :id")
+    void updateThumbnailPath(String id, String thumbnailPath);
+
+    /**
+     * Gambar yang masih menunggu ImageIngestionWorker, urut per produk.
+     */
+    @Query("SELECT * FROM ProductImage WHERE status = 'PENDING' ORDER BY productId, orderIndex")
+    List<ProductImage> getPending();
+
+    @Query("SELECT COUNT(*) FROM ProductImage WHERE status = 'PENDING'")
+    LiveData<Integer> observePendingCount();
+
+    /**
+     * Ganti file staging dengan blob hasil encode. 0 kalau baris sudah dihapus (produk/gambar
+     * dihapus selama encode berjalan).
+     */
+    @Query("UPDATE ProductImage SET blobHash = :blobHash, imagePath = :imagePath, " +
+            "thumbnailPath = :thumbnailPath, width = :width, height = :height, fileSize = :fileSize, " +
+            "status = 'READY' WHERE id = :id AND status = 'PENDING'")
+    int completeIngestion(String id, String blobHash, String imagePath, String thumbnailPath,
+                          int width, int height, long fileSize);
+
+    @Query("DELETE FROM ProductImage WHERE id = :id AND status = 'PENDING'")
+    int deletePending(String id);
 }
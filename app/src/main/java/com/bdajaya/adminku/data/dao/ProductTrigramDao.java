@@ -0,0 +1,81 @@
+package com.bdajaya.adminku.data.dao;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.bdajaya.adminku.data.entity.ProductTrigram;
+import com.bdajaya.adminku.data.entity.ProductTrigramDoc;
+
+import java.util.List;
+
+/**
+ * Storage for the trigram index (see TrigramIndex). docid is always Product.rowid.
+ * Callers keep IN lists under SQLite's 999 variable limit.
+ */
+@Dao
+public interface ProductTrigramDao {
+
+    // ================================
+    // QUEUE
+    // ================================
+
+    @Query("SELECT docid FROM ProductTrigramQueue ORDER BY docid LIMIT :limit")
+    List<Long> getQueued(int limit);
+
+    @Query("DELETE FROM ProductTrigramQueue WHERE docid IN (:docids)")
+    void dequeue(List<Long> docids);
+
+    // ================================
+    // DOCUMENTS
+    // ================================
+
+    /**
+     * Current name/barcode of the given rowids; deleted products are simply absent.
+     */
+    @Query("SELECT rowid AS docid, name, barcode FROM Product WHERE rowid IN (:docids)")
+    List<IndexSource> getIndexSources(List<Long> docids);
+
+    @Query("SELECT * FROM ProductTrigramDoc WHERE docid IN (:docids)")
+    List<ProductTrigramDoc> getDocs(List<Long> docids);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsertDocs(List<ProductTrigramDoc> docs);
+
+    @Query("DELETE FROM ProductTrigramDoc WHERE docid IN (:docids)")
+    void deleteDocs(List<Long> docids);
+
+    @Query("SELECT COUNT(*) FROM ProductTrigramDoc")
+    int countDocs();
+
+    // ================================
+    // POSTINGS
+    // ================================
+
+    @Query("SELECT * FROM ProductTrigram WHERE trigram IN (:trigrams)")
+    List<ProductTrigram> getTrigrams(List<String> trigrams);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsertTrigrams(List<ProductTrigram> trigrams);
+
+    @Query("DELETE FROM ProductTrigram WHERE trigram IN (:trigrams)")
+    void deleteTrigrams(List<String> trigrams);
+
+    /**
+     * Product ids for the final fuzzy hits (rowid lookup, no index needed).
+     */
+    @Query("SELECT rowid AS docid, id AS productId FROM Product WHERE rowid IN (:docids)")
+    List<DocProduct> getProductIds(List<Long> docids);
+
+    class IndexSource {
+        public long docid;
+        public String name;
+        public String barcode;
+    }
+
+    class DocProduct {
+        public long docid;
+        public String productId;
+    }
+}
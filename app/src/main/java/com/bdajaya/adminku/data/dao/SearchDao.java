@@ -0,0 +1,37 @@
+package com.bdajaya.adminku.data.dao;
+
+import androidx.room.Dao;
+import androidx.room.RawQuery;
+import androidx.sqlite.db.SupportSQLiteQuery;
+
+import java.util.List;
+
+/**
+ * Catalog query for the unified search (see CatalogSearchEngine).
+ *
+ * One UNION ALL statement ranks and caps the category, brand and unit groups inside SQLite and
+ * counts the matches of every group; the statement is built by CatalogSearchEngine because the
+ * requested groups and the number of unit terms vary per query. FTS arms join on
+ * rowid = docid, which also drops index entries left behind by a REPLACE insert (its implicit
+ * delete fires no trigger).
+ */
+@Dao
+public interface SearchDao {
+
+    @RawQuery
+    List<Hit> search(SupportSQLiteQuery query);
+
+    /**
+     * Row returned by {@link #search(SupportSQLiteQuery)}. name, createdAt and updatedAt are only
+     * filled for brands, so a brand hit needs no second lookup. A count row (kind ending in
+     * "_COUNT") has no id and carries the number of matches of its group in count.
+     */
+    class Hit {
+        public String kind;
+        public String id;
+        public String name;
+        public long createdAt;
+        public long updatedAt;
+        public int count;
+    }
+}
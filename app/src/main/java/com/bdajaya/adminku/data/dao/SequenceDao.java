@@ -0,0 +1,27 @@
+package com.bdajaya.adminku.data.dao;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.bdajaya.adminku.data.entity.Sequence;
+
+/**
+ * Named counters; see BarcodeAllocator for block reservation.
+ */
+@Dao
+public interface SequenceDao {
+
+    /**
+     * First value not yet reserved, or null when the sequence has not been created yet.
+     */
+    @Query("SELECT nextValue FROM Sequence WHERE name = :name")
+    Long getNextValue(String name);
+
+    @Insert(onConflict = OnConflictStrategy.ABORT)
+    void insert(Sequence sequence);
+
+    @Query("UPDATE Sequence SET nextValue = :nextValue, updatedAt = :now WHERE name = :name")
+    int setNextValue(String name, long nextValue, long now);
+}
@@ -7,7 +7,10 @@ import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
 import androidx.room.Transaction;
 
+import com.bdajaya.adminku.data.entity.StockBalance;
+import com.bdajaya.adminku.data.entity.StockMonthlySummary;
 import com.bdajaya.adminku.data.entity.StockTransaction;
+import com.bdajaya.adminku.data.model.StockTimelineEntry;
 import com.bdajaya.adminku.data.model.StockTransactionWithUnit;
 
 import java.util.List;
@@ -15,11 +18,150 @@ import java.util.List;
 @Dao
 public interface StockTransactionDao {
 
-    @Insert(onConflict = OnConflictStrategy.REPLACE)
-    void insert(StockTransaction stockTransaction);
+    /**
+     * Per-product balance from the ledger: last ADJUST sets the level, ADD/REMOVE after it move it.
+     * Bare columns next to MAX() take their values from the row holding the max (SQLite rule).
+     */
+    String LEDGER_BALANCE_SELECT = "SELECT t.productId, " +
+            "COALESCE(a.quantity, 0) + COALESCE(SUM(CASE WHEN t.timestamp > COALESCE(a.lastAdjustAt, 0) THEN " +
+            "CASE t.transactionType WHEN 'ADD' THEN t.quantity WHEN 'REMOVE' THEN -t.quantity ELSE 0 END " +
+            "ELSE 0 END), 0), " +
+            "COALESCE(a.quantity, 0), COALESCE(a.lastAdjustAt, 0), :now " +
+            "FROM StockTransaction t " +
+            "LEFT JOIN (SELECT productId, quantity, MAX(timestamp) AS lastAdjustAt FROM StockTransaction " +
+            "WHERE transactionType = 'ADJUST' GROUP BY productId) a ON a.productId = t.productId ";
+
+    /**
+     * Insert a ledger row and apply it to StockBalance atomically.
+     * Re-inserting an existing id is ignored so a row is never counted twice.
+     */
+    @Transaction
+    default void insert(StockTransaction stockTransaction) {
+        if (insertLedgerRow(stockTransaction) == -1) {
+            return;
+        }
+        applyToBalance(stockTransaction);
+    }
+
+    @Transaction
+    default void insertAll(List<StockTransaction> transactions) {
+        for (StockTransaction transaction : transactions) {
+            insert(transaction);
+        }
+    }
+
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    long insertLedgerRow(StockTransaction stockTransaction);
+
+    default void applyToBalance(StockTransaction transaction) {
+        long now = System.currentTimeMillis();
+        String productId = transaction.getProductId();
+        ensureBalanceRow(productId, now);
+
+        switch (transaction.getTransactionType()) {
+            case "ADD":
+                applyBalanceDelta(productId, transaction.getQuantity(), transaction.getTimestamp(), now);
+                break;
+            case "REMOVE":
+                applyBalanceDelta(productId, -transaction.getQuantity(), transaction.getTimestamp(), now);
+                break;
+            case "ADJUST":
+                applyBalanceAdjust(productId, transaction.getQuantity(), transaction.getTimestamp(), now);
+                break;
+            default:
+                break;
+        }
+    }
+
+    // ================================
+    // STOCK BALANCE
+    // ================================
+
+    @Query("INSERT OR IGNORE INTO StockBalance (productId, onHand, lastAdjustQuantity, lastAdjustAt, updatedAt) " +
+            "VALUES (:productId, 0, 0, 0, :now)")
+    void ensureBalanceRow(String productId, long now);
+
+    /**
+     * ADD/REMOVE only count when they happen after the last ADJUST.
+     */
+    @Query("UPDATE StockBalance SET onHand = onHand + :delta, updatedAt = :now " +
+            "WHERE productId = :productId AND lastAdjustAt < :timestamp")
+    void applyBalanceDelta(String productId, long delta, long timestamp, long now);
+
+    /**
+     * ADJUST sets an absolute level. Movements already recorded after a back-dated ADJUST are replayed
+     * on top of it (an index range on (productId, timestamp), normally empty).
+     */
+    @Query("UPDATE StockBalance SET onHand = :quantity + (SELECT COALESCE(SUM(CASE t.transactionType " +
+            "WHEN 'ADD' THEN t.quantity WHEN 'REMOVE' THEN -t.quantity ELSE 0 END), 0) " +
+            "FROM StockTransaction t WHERE t.productId = :productId AND t.timestamp > :timestamp), " +
+            "lastAdjustQuantity = :quantity, lastAdjustAt = :timestamp, updatedAt = :now " +
+            "WHERE productId = :productId AND lastAdjustAt <= :timestamp")
+    void applyBalanceAdjust(String productId, long quantity, long timestamp, long now);
+
+    /**
+     * REMOVE that only succeeds when enough stock is on hand; check and decrement are one statement.
+     *
+     * @return 1 when applied, 0 when the balance was too low
+     */
+    @Query("UPDATE StockBalance SET onHand = onHand - :quantity, updatedAt = :now " +
+            "WHERE productId = :productId AND lastAdjustAt < :timestamp AND onHand >= :quantity")
+    int applyBalanceRemoveGuarded(String productId, long quantity, long timestamp, long now);
+
+    @Query("SELECT EXISTS(SELECT 1 FROM Product WHERE id = :productId)")
+    boolean productExists(String productId);
+
+    /**
+     * Mirror StockBalance onto Product.stock/status (same rule as quick edit:
+     * ARCHIVED stays, otherwise LIVE when stock > 0, else OUT_OF_STOCK).
+     */
+    @Query("UPDATE Product SET stock = :onHand, " +
+            "status = CASE WHEN status = 'ARCHIVED' THEN status " +
+            "WHEN :onHand > 0 THEN 'LIVE' ELSE 'OUT_OF_STOCK' END, " +
+            "updatedAt = :now WHERE id = :productId")
+    void syncProductStock(String productId, long onHand, long now);
+
+    @Query("SELECT * FROM StockBalance WHERE productId = :productId")
+    StockBalance getBalance(String productId);
+
+    /**
+     * Current stock in BASE UNIT (primary-key lookup on StockBalance).
+     */
+    @Query("SELECT COALESCE((SELECT onHand FROM StockBalance WHERE productId = :productId), 0)")
+    long getTotalStockForProduct(String productId);
+
+    @Query("DELETE FROM StockBalance")
+    void clearAllBalances();
+
+    @Query("DELETE FROM StockBalance WHERE productId = :productId")
+    void clearBalance(String productId);
+
+    @Query("INSERT INTO StockBalance (productId, onHand, lastAdjustQuantity, lastAdjustAt, updatedAt) " +
+            LEDGER_BALANCE_SELECT + "GROUP BY t.productId")
+    void insertAllBalancesFromLedger(long now);
+
+    @Query("INSERT INTO StockBalance (productId, onHand, lastAdjustQuantity, lastAdjustAt, updatedAt) " +
+            LEDGER_BALANCE_SELECT + "WHERE t.productId = :productId GROUP BY t.productId")
+    void insertBalanceFromLedger(String productId, long now);
 
-    @Insert(onConflict = OnConflictStrategy.REPLACE)
-    void insertAll(List<StockTransaction> transactions);
+    /**
+     * Recompute every StockBalance row from the ledger in two set-based statements.
+     */
+    @Transaction
+    default void rebuildAllBalances() {
+        clearAllBalances();
+        insertAllBalancesFromLedger(System.currentTimeMillis());
+    }
+
+    @Transaction
+    default void rebuildBalance(String productId) {
+        clearBalance(productId);
+        insertBalanceFromLedger(productId, System.currentTimeMillis());
+    }
+
+    // ================================
+    // LEDGER QUERIES
+    // ================================
 
     @Query("SELECT * FROM StockTransaction WHERE id = :id")
     StockTransaction getById(String id);
@@ -34,19 +176,49 @@ public interface StockTransactionDao {
     @Query("SELECT * FROM StockTransaction WHERE productId = :productId ORDER BY timestamp DESC")
     LiveData<List<StockTransactionWithUnit>> getByProductIdWithUnit(String productId);
 
+    /**
+     * @deprecated OFFSET scans every skipped row; use the keyset timeline queries below.
+     */
+    @Deprecated
     @Query("SELECT * FROM StockTransaction WHERE productId = :productId ORDER BY timestamp DESC LIMIT :limit OFFSET :offset")
     List<StockTransaction> getByProductIdPaginated(String productId, int limit, int offset);
 
+    // ================================
+    // TIMELINE (keyset on timestamp DESC, id DESC)
+    // ================================
+
+    String TIMELINE_SELECT = "SELECT t.*, u.id AS unit_id, u.name AS unit_name, u.baseUnit AS unit_baseUnit, " +
+            "u.conversionFactor AS unit_conversionFactor, u.isBaseUnit AS unit_isBaseUnit, " +
+            "u.createdAt AS unit_createdAt, u.updatedAt AS unit_updatedAt " +
+            "FROM StockTransaction t LEFT JOIN Unit u ON u.id = t.unitId ";
+
+    @Query(TIMELINE_SELECT + "WHERE t.productId = :productId " +
+            "ORDER BY t.timestamp DESC, t.id DESC LIMIT :limit")
+    List<StockTimelineEntry> getTimelineFirst(String productId, int limit);
+
     /**
-     * Calculate total stock in BASE UNIT
+     * Cursor inclusive (refresh from a known position).
      */
-    @Query("SELECT COALESCE(SUM(CASE " +
-            "WHEN transactionType = 'ADD' THEN quantity " +
-            "WHEN transactionType = 'REMOVE' THEN -quantity " +
-            "WHEN transactionType = 'ADJUST' THEN quantity " +
-            "ELSE 0 END), 0) " +
-            "FROM StockTransaction WHERE productId = :productId")
-    long getTotalStockForProduct(String productId);
+    @Query(TIMELINE_SELECT + "WHERE t.productId = :productId AND t.timestamp <= :timestamp " +
+            "AND (t.timestamp < :timestamp OR t.id <= :id) " +
+            "ORDER BY t.timestamp DESC, t.id DESC LIMIT :limit")
+    List<StockTimelineEntry> getTimelineFrom(String productId, long timestamp, String id, int limit);
+
+    /**
+     * Older entries than the cursor (next page while scrolling down).
+     */
+    @Query(TIMELINE_SELECT + "WHERE t.productId = :productId AND t.timestamp <= :timestamp " +
+            "AND (t.timestamp < :timestamp OR t.id < :id) " +
+            "ORDER BY t.timestamp DESC, t.id DESC LIMIT :limit")
+    List<StockTimelineEntry> getTimelineOlder(String productId, long timestamp, String id, int limit);
+
+    /**
+     * Newer entries than the cursor, ascending; caller reverses the page.
+     */
+    @Query(TIMELINE_SELECT + "WHERE t.productId = :productId AND t.timestamp >= :timestamp " +
+            "AND (t.timestamp > :timestamp OR t.id > :id) " +
+            "ORDER BY t.timestamp ASC, t.id ASC LIMIT :limit")
+    List<StockTimelineEntry> getTimelineNewer(String productId, long timestamp, String id, int limit);
 
     /**
      * Get last stock adjustment (for ADJUST type calculation)
@@ -84,12 +256,56 @@ public interface StockTransactionDao {
     @Query("SELECT COUNT(*) FROM StockTransaction WHERE productId = :productId")
     int getTransactionCountForProduct(String productId);
 
+    @Transaction
+    default int deleteByProductId(String productId) {
+        clearBalance(productId);
+        return deleteLedgerByProductId(productId);
+    }
+
     @Query("DELETE FROM StockTransaction WHERE productId = :productId")
-    int deleteByProductId(String productId);
+    int deleteLedgerByProductId(String productId);
 
+    /**
+     * @deprecated Deleting ledger rows drops real stock movements, so a later rebuild of
+     * StockBalance would be wrong. Use StockLedgerCompactor, which folds old rows into checkpoints.
+     */
+    @Deprecated
     @Query("DELETE FROM StockTransaction WHERE timestamp < :timestamp")
     int deleteOlderThan(long timestamp);
 
+    // ================================
+    // COMPACTION
+    // ================================
+
+    /**
+     * Products that still have raw (non-checkpoint) rows before the cutoff.
+     */
+    @Query("SELECT productId FROM StockTransaction WHERE timestamp < :cutoff " +
+            "GROUP BY productId HAVING SUM(checkpoint = 0) > 0")
+    List<String> getProductIdsToCompact(long cutoff);
+
+    @Query("SELECT * FROM StockTransaction WHERE productId = :productId AND timestamp < :cutoff " +
+            "ORDER BY timestamp, rowid")
+    List<StockTransaction> getLedgerBefore(String productId, long cutoff);
+
+    @Query("DELETE FROM StockTransaction WHERE productId = :productId AND timestamp < :cutoff")
+    int deleteLedgerBefore(String productId, long cutoff);
+
+    @Query("INSERT OR IGNORE INTO StockMonthlySummary " +
+            "(productId, unitId, month, addQuantity, removeQuantity, adjustCount, transactionCount) " +
+            "VALUES (:productId, :unitId, :month, 0, 0, 0, 0)")
+    void ensureMonthlySummary(String productId, String unitId, String month);
+
+    @Query("UPDATE StockMonthlySummary SET addQuantity = addQuantity + :addQuantity, " +
+            "removeQuantity = removeQuantity + :removeQuantity, adjustCount = adjustCount + :adjustCount, " +
+            "transactionCount = transactionCount + :transactionCount " +
+            "WHERE productId = :productId AND unitId = :unitId AND month = :month")
+    void addToMonthlySummary(String productId, String unitId, String month, long addQuantity,
+                             long removeQuantity, int adjustCount, int transactionCount);
+
+    @Query("SELECT * FROM StockMonthlySummary WHERE productId = :productId ORDER BY month DESC")
+    List<StockMonthlySummary> getMonthlySummaries(String productId);
+
     /**
      * Get transactions grouped by unit
      */
@@ -0,0 +1,148 @@
+package com.bdajaya.adminku.data.dao;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.bdajaya.adminku.data.entity.StocktakeCount;
+import com.bdajaya.adminku.data.entity.StocktakeSession;
+
+import java.util.List;
+
+/**
+ * Stocktake (stock opname) sessions and their staged counts.
+ * Variance is always computed in SQL against StockBalance, never row by row.
+ */
+@Dao
+public interface StocktakeDao {
+
+    /**
+     * System quantity (BASE UNIT) at the moment the product was counted: the current balance minus
+     * the ADD/REMOVE recorded after countedAt (index range on (productId, timestamp), usually empty).
+     * A count overtaken by a later ADJUST reports its own quantity, i.e. no variance: that ADJUST
+     * already set the level and an older one would not change it.
+     * Needs StocktakeCount c LEFT JOIN StockBalance b.
+     */
+    String SYSTEM_AT_COUNT = "(CASE WHEN COALESCE(b.lastAdjustAt, 0) > c.countedAt THEN c.countedBaseQuantity " +
+            "ELSE COALESCE(b.onHand, 0) - (SELECT COALESCE(SUM(CASE t.transactionType " +
+            "WHEN 'ADD' THEN t.quantity WHEN 'REMOVE' THEN -t.quantity ELSE 0 END), 0) " +
+            "FROM StockTransaction t WHERE t.productId = c.productId AND t.timestamp > c.countedAt) END)";
+
+    /**
+     * Staged counts joined with the balance at count time (BASE UNIT); variance = counted - system.
+     */
+    String VARIANCE_SELECT = "SELECT c.productId AS productId, p.name AS productName, c.unitId AS unitId, " +
+            "c.countedQuantity AS countedQuantity, c.conversionFactor AS conversionFactor, " +
+            "c.countedBaseQuantity AS countedBaseQuantity, c.countedAt AS countedAt, " +
+            SYSTEM_AT_COUNT + " AS systemQuantity, " +
+            "c.countedBaseQuantity - " + SYSTEM_AT_COUNT + " AS variance " +
+            "FROM StocktakeCount c JOIN Product p ON p.id = c.productId " +
+            "LEFT JOIN StockBalance b ON b.productId = c.productId " +
+            "WHERE c.sessionId = :sessionId ";
+
+    String PROGRESS_SELECT = "SELECT (SELECT COUNT(*) FROM StocktakeCount WHERE sessionId = :sessionId) AS counted, " +
+            "(SELECT COUNT(*) FROM Product WHERE status != 'ARCHIVED') AS totalProducts, " +
+            "(SELECT COUNT(*) FROM StocktakeCount c LEFT JOIN StockBalance b ON b.productId = c.productId " +
+            "WHERE c.sessionId = :sessionId AND c.countedBaseQuantity != " + SYSTEM_AT_COUNT + ") AS varianceLines";
+
+    // ================================
+    // SESSIONS
+    // ================================
+
+    @Insert(onConflict = OnConflictStrategy.ABORT)
+    void insertSession(StocktakeSession session);
+
+    @Query("SELECT * FROM StocktakeSession WHERE id = :sessionId")
+    StocktakeSession getSession(String sessionId);
+
+    /**
+     * Most recent OPEN session, to resume after the app was closed.
+     */
+    @Query("SELECT * FROM StocktakeSession WHERE status = 'OPEN' ORDER BY createdAt DESC LIMIT 1")
+    StocktakeSession getLatestOpenSession();
+
+    @Query("SELECT * FROM StocktakeSession ORDER BY createdAt DESC")
+    LiveData<List<StocktakeSession>> getSessionsLive();
+
+    @Query("UPDATE StocktakeSession SET updatedAt = :now WHERE id = :sessionId")
+    void touchSession(String sessionId, long now);
+
+    /**
+     * Close an OPEN session. Returns 0 when it was not OPEN (already committed or cancelled).
+     */
+    @Query("UPDATE StocktakeSession SET status = :status, committedAt = :committedAt, " +
+            "adjustedCount = :adjustedCount, updatedAt = :now WHERE id = :sessionId AND status = 'OPEN'")
+    int closeSession(String sessionId, String status, long committedAt, int adjustedCount, long now);
+
+    // ================================
+    // COUNTS
+    // ================================
+
+    /**
+     * Recounting a product in the same session replaces the earlier count.
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsertCount(StocktakeCount count);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsertCounts(List<StocktakeCount> counts);
+
+    @Query("DELETE FROM StocktakeCount WHERE sessionId = :sessionId AND productId = :productId")
+    int deleteCount(String sessionId, String productId);
+
+    @Query("SELECT * FROM StocktakeCount WHERE sessionId = :sessionId AND productId = :productId")
+    StocktakeCount getCount(String sessionId, String productId);
+
+    @Query("SELECT COUNT(*) FROM StocktakeCount WHERE sessionId = :sessionId")
+    int countCounts(String sessionId);
+
+    // ================================
+    // PROGRESS & VARIANCE
+    // ================================
+
+    @Query(PROGRESS_SELECT)
+    Progress getProgress(String sessionId);
+
+    @Query(PROGRESS_SELECT)
+    LiveData<Progress> getProgressLive(String sessionId);
+
+    @Query(VARIANCE_SELECT + "ORDER BY p.name, c.productId")
+    List<VarianceLine> getVariances(String sessionId);
+
+    @Query(VARIANCE_SELECT + "AND c.countedBaseQuantity != " + SYSTEM_AT_COUNT + " ORDER BY p.name, c.productId")
+    LiveData<List<VarianceLine>> getNonZeroVariancesLive(String sessionId);
+
+    /**
+     * Mirror StockBalance onto Product.stock/status for every counted product in one statement
+     * (same rule as StockTransactionDao.syncProductStock). Run after the ADJUST rows: the balance
+     * then holds the count plus whatever moved after it was taken.
+     */
+    @Query("UPDATE Product SET " +
+            "stock = COALESCE((SELECT b.onHand FROM StockBalance b WHERE b.productId = Product.id), 0), " +
+            "status = CASE WHEN status = 'ARCHIVED' THEN status " +
+            "WHEN COALESCE((SELECT b.onHand FROM StockBalance b WHERE b.productId = Product.id), 0) > 0 " +
+            "THEN 'LIVE' ELSE 'OUT_OF_STOCK' END, " +
+            "updatedAt = :now " +
+            "WHERE id IN (SELECT productId FROM StocktakeCount WHERE sessionId = :sessionId)")
+    int syncCountedProductsFromBalance(String sessionId, long now);
+
+    class Progress {
+        public int counted;
+        public int totalProducts;
+        public int varianceLines;
+    }
+
+    class VarianceLine {
+        public String productId;
+        public String productName;
+        public String unitId;
+        public long countedQuantity;
+        public long conversionFactor;
+        public long countedBaseQuantity;
+        public long countedAt;
+        public long systemQuantity;
+        public long variance;
+    }
+}
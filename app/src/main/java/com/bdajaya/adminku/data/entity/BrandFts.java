@@ -0,0 +1,24 @@
+package com.bdajaya.adminku.data.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+
+/**
+ * Full-text index for Brand.name.
+ *
+ * Standalone FTS4 table with docid = Brand.rowid, kept in sync by SQL triggers (see
+ * DatabaseTriggers). Not a contentEntity table: BrandDao.insert uses REPLACE, whose implicit
+ * delete fires no trigger, and the triggers use INSERT OR REPLACE so a reused rowid overwrites
+ * the stale entry instead of failing.
+ */
+@Fts4
+@Entity(tableName = "BrandFts")
+public class BrandFts {
+    @NonNull
+    public String name;
+
+    public BrandFts(@NonNull String name) {
+        this.name = name;
+    }
+}
@@ -0,0 +1,61 @@
+package com.bdajaya.adminku.data.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Index;
+
+/**
+ * Closure table for the category tree: one row per (ancestor, descendant) pair,
+ * including the (id, id, 0) self row.
+ *
+ * Maintained by SQL triggers on Category (see DatabaseTriggers), so every insert, delete
+ * and parent change keeps it in sync without application code. No foreign keys:
+ * CategoryDao.insert uses REPLACE, which would cascade-delete closure rows mid-statement.
+ */
+@Entity(
+        tableName = "CategoryClosure",
+        primaryKeys = {"ancestorId", "descendantId"},
+        indices = {@Index(value = {"descendantId", "depth"})}
+)
+public class CategoryClosure {
+
+    @NonNull
+    private String ancestorId;
+
+    @NonNull
+    private String descendantId;
+
+    private int depth; // 0 = self, 1 = parent/child, ...
+
+    public CategoryClosure(@NonNull String ancestorId, @NonNull String descendantId, int depth) {
+        this.ancestorId = ancestorId;
+        this.descendantId = descendantId;
+        this.depth = depth;
+    }
+
+    @NonNull
+    public String getAncestorId() {
+        return ancestorId;
+    }
+
+    public void setAncestorId(@NonNull String ancestorId) {
+        this.ancestorId = ancestorId;
+    }
+
+    @NonNull
+    public String getDescendantId() {
+        return descendantId;
+    }
+
+    public void setDescendantId(@NonNull String descendantId) {
+        this.descendantId = descendantId;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+}
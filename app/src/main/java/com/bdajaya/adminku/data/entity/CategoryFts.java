@@ -0,0 +1,27 @@
+package com.bdajaya.adminku.data.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+
+/**
+ * Full-text index for Category: name plus the names of all ancestors (materialized path),
+ * so "minuman kopi" finds "Kopi" under "Minuman".
+ *
+ * Standalone FTS4 table (no contentEntity): the path is not a Category column. docid is
+ * Category.rowid and rows are kept in sync by SQL triggers on Category and CategoryClosure
+ * (see DatabaseTriggers), including renames of an ancestor and moves to another parent.
+ */
+@Fts4
+@Entity(tableName = "CategoryFts")
+public class CategoryFts {
+    @NonNull
+    public String name;
+
+    public String path; // ancestor names, order not significant
+
+    public CategoryFts(@NonNull String name, String path) {
+        this.name = name;
+        this.path = path;
+    }
+}
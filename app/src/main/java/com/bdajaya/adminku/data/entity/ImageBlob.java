@@ -0,0 +1,115 @@
+package com.bdajaya.adminku.data.entity;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * One encoded image file shared by every ProductImage with the same source bytes.
+ *
+ * hash is the SHA-256 (hex) of the raw picked file, computed while it is staged, and the files
+ * live at blobs/{first two hex}/{hash}.jpg with the thumbnail beside it. refCount is the number
+ * of ProductImage rows whose blobHash points here; SQL triggers on ProductImage keep it current,
+ * so a blob with refCount 0 can be garbage collected together with its files.
+ */
+@Entity(tableName = "ImageBlob")
+public class ImageBlob {
+
+    @PrimaryKey
+    @NonNull
+    private String hash;
+
+    @NonNull
+    private String imagePath; // e.g., "blobs/ab/ab12….jpg"
+
+    @Nullable
+    private String thumbnailPath; // e.g., "blobs/ab/ab12…_thumb.jpg"
+
+    private int width;
+    private int height;
+    private long fileSize;
+
+    private int refCount;
+
+    private long createdAt;
+
+    public ImageBlob(@NonNull String hash, @NonNull String imagePath, @Nullable String thumbnailPath,
+                     int width, int height, long fileSize, int refCount, long createdAt) {
+        this.hash = hash;
+        this.imagePath = imagePath;
+        this.thumbnailPath = thumbnailPath;
+        this.width = width;
+        this.height = height;
+        this.fileSize = fileSize;
+        this.refCount = refCount;
+        this.createdAt = createdAt;
+    }
+
+    @NonNull
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(@NonNull String hash) {
+        this.hash = hash;
+    }
+
+    @NonNull
+    public String getImagePath() {
+        return imagePath;
+    }
+
+    public void setImagePath(@NonNull String imagePath) {
+        this.imagePath = imagePath;
+    }
+
+    @Nullable
+    public String getThumbnailPath() {
+        return thumbnailPath;
+    }
+
+    public void setThumbnailPath(@Nullable String thumbnailPath) {
+        this.thumbnailPath = thumbnailPath;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public void setWidth(int width) {
+        this.width = width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public void setHeight(int height) {
+        this.height = height;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public void setFileSize(long fileSize) {
+        this.fileSize = fileSize;
+    }
+
+    public int getRefCount() {
+        return refCount;
+    }
+
+    public void setRefCount(int refCount) {
+        this.refCount = refCount;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -14,7 +14,7 @@ import androidx.room.PrimaryKey;
         @Index("categoryId"),
         @Index("unitId"),
         @Index("brandId"),
-        @Index("status")
+        @Index({"status", "name", "id"})
     },
     foreignKeys = {
         @ForeignKey(
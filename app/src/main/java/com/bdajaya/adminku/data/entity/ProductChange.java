@@ -0,0 +1,58 @@
+package com.bdajaya.adminku.data.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * Last change per Product rowid: any Product column, the product's images, or its unit's
+ * conversion factor. Filled by SQL triggers on Product, ProductImage and Unit (see
+ * DatabaseTriggers); BarcodeIndex and ProductRepositoryCache read the rows with seq above the
+ * last one they saw, so they refresh only the products that changed.
+ *
+ * One row per rowid (replaced on every change), so the table never grows past the number of
+ * products ever created; a deleted product keeps its row so the index can drop it.
+ */
+@Entity(tableName = "ProductChange", indices = {@Index("seq")})
+public class ProductChange {
+
+    @PrimaryKey
+    private long docid; // Product.rowid
+
+    @NonNull
+    private String productId; // kept after the product is deleted
+
+    private long seq; // increasing in commit order (single writer)
+
+    public ProductChange(long docid, @NonNull String productId, long seq) {
+        this.docid = docid;
+        this.productId = productId;
+        this.seq = seq;
+    }
+
+    public long getDocid() {
+        return docid;
+    }
+
+    public void setDocid(long docid) {
+        this.docid = docid;
+    }
+
+    @NonNull
+    public String getProductId() {
+        return productId;
+    }
+
+    public void setProductId(@NonNull String productId) {
+        this.productId = productId;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(long seq) {
+        this.seq = seq;
+    }
+}
@@ -1,13 +1,15 @@
 package com.bdajaya.adminku.data.entity;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.room.ColumnInfo;
 import androidx.room.Entity;
 import androidx.room.ForeignKey;
 import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
 @Entity(
-        indices = {@Index("productId")},
+        indices = {@Index("productId"), @Index("blobHash")},
         foreignKeys = @ForeignKey(
                 entity = Product.class,
                 parentColumns = "id",
@@ -16,6 +18,10 @@ import androidx.room.PrimaryKey;
         )
 )
 public class ProductImage {
+    // Status ingestion: PENDING = imagePath masih file mentah di staging, menunggu ImageIngestionWorker
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_READY = "READY";
+
     @PrimaryKey
     @NonNull
     private String id;
@@ -27,10 +33,23 @@ public class ProductImage {
     @NonNull
     private String imagePath; // e.g., "products/prod_123/image_1.jpg"
 
+    // Thumbnail THUMBNAIL_SIZE px di samping file asli; null untuk gambar lama yang belum di-backfill
+    @Nullable
+    private String thumbnailPath; // e.g., "products/prod_123/image_1_thumb.jpg"
+
+    // SHA-256 file sumber → ImageBlob; null untuk gambar lama di folder produk
+    @Nullable
+    private String blobHash;
+
+    // Default berupa literal SQL, harus sama persis dengan MIGRATION_15_16 ('READY')
+    @NonNull
+    @ColumnInfo(defaultValue = "'" + STATUS_READY + "'")
+    private String status = STATUS_READY;
+
     private int orderIndex;
     private long createdAt;
 
-    // Optional: simpan metadata
+    // Metadata file asli (diisi saat disimpan)
     private long fileSize;
     private int width;
     private int height;
@@ -57,6 +76,26 @@ public class ProductImage {
     public String getImagePath() { return imagePath; }
     public void setImagePath(@NonNull String imagePath) { this.imagePath = imagePath; }
 
+    @Nullable
+    public String getThumbnailPath() { return thumbnailPath; }
+    public void setThumbnailPath(@Nullable String thumbnailPath) { this.thumbnailPath = thumbnailPath; }
+
+    /**
+     * Path untuk list/grid: thumbnail kalau ada, selain itu file asli.
+     */
+    @NonNull
+    public String getDisplayPath() { return thumbnailPath != null ? thumbnailPath : imagePath; }
+
+    @Nullable
+    public String getBlobHash() { return blobHash; }
+    public void setBlobHash(@Nullable String blobHash) { this.blobHash = blobHash; }
+
+    @NonNull
+    public String getStatus() { return status; }
+    public void setStatus(@NonNull String status) { this.status = status; }
+
+    public boolean isPending() { return STATUS_PENDING.equals(status); }
+
     public int getOrderIndex() { return orderIndex; }
     public void setOrderIndex(int orderIndex) { this.orderIndex = orderIndex; }
 
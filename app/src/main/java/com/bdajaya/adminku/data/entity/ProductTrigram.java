@@ -0,0 +1,56 @@
+package com.bdajaya.adminku.data.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Posting list of the typo-tolerant product index: one row per trigram with the sorted
+ * Product rowids that contain it (delta + varint encoded, see PostingList).
+ *
+ * Maintained by TrigramIndex from ProductTrigramQueue; never written by product code directly.
+ */
+@Entity(tableName = "ProductTrigram")
+public class ProductTrigram {
+
+    @PrimaryKey
+    @NonNull
+    private String trigram;
+
+    @NonNull
+    private byte[] postings;
+
+    private int docCount; // number of rowids in postings (for idf)
+
+    public ProductTrigram(@NonNull String trigram, @NonNull byte[] postings, int docCount) {
+        this.trigram = trigram;
+        this.postings = postings;
+        this.docCount = docCount;
+    }
+
+    @NonNull
+    public String getTrigram() {
+        return trigram;
+    }
+
+    public void setTrigram(@NonNull String trigram) {
+        this.trigram = trigram;
+    }
+
+    @NonNull
+    public byte[] getPostings() {
+        return postings;
+    }
+
+    public void setPostings(@NonNull byte[] postings) {
+        this.postings = postings;
+    }
+
+    public int getDocCount() {
+        return docCount;
+    }
+
+    public void setDocCount(int docCount) {
+        this.docCount = docCount;
+    }
+}
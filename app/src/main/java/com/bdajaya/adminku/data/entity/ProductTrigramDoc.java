@@ -0,0 +1,58 @@
+package com.bdajaya.adminku.data.entity;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Normalized text last indexed for a Product rowid (lower-case alphanumeric words).
+ *
+ * Lets the indexer remove exactly the trigrams it added before (the old name is gone once the
+ * product is updated) and lets the fuzzy search re-rank candidates without reading Product.
+ * Keyed by rowid, not Product.id, so a REPLACE that reuses a rowid re-indexes it correctly.
+ */
+@Entity(tableName = "ProductTrigramDoc")
+public class ProductTrigramDoc {
+
+    @PrimaryKey
+    private long docid; // Product.rowid
+
+    @NonNull
+    private String name;
+
+    @Nullable
+    private String barcode;
+
+    public ProductTrigramDoc(long docid, @NonNull String name, @Nullable String barcode) {
+        this.docid = docid;
+        this.name = name;
+        this.barcode = barcode;
+    }
+
+    public long getDocid() {
+        return docid;
+    }
+
+    public void setDocid(long docid) {
+        this.docid = docid;
+    }
+
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    public void setName(@NonNull String name) {
+        this.name = name;
+    }
+
+    @Nullable
+    public String getBarcode() {
+        return barcode;
+    }
+
+    public void setBarcode(@Nullable String barcode) {
+        this.barcode = barcode;
+    }
+}
@@ -0,0 +1,27 @@
+package com.bdajaya.adminku.data.entity;
+
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Product rowids whose name or barcode changed (or that were deleted) and still need
+ * re-indexing. Filled by SQL triggers on Product (see DatabaseTriggers), drained by TrigramIndex.
+ */
+@Entity(tableName = "ProductTrigramQueue")
+public class ProductTrigramQueue {
+
+    @PrimaryKey
+    private long docid; // Product.rowid
+
+    public ProductTrigramQueue(long docid) {
+        this.docid = docid;
+    }
+
+    public long getDocid() {
+        return docid;
+    }
+
+    public void setDocid(long docid) {
+        this.docid = docid;
+    }
+}
@@ -0,0 +1,55 @@
+package com.bdajaya.adminku.data.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Named counter for generated identifiers (e.g. the BE-xxxxxxxx barcode).
+ *
+ * nextValue is the first value not yet handed out. Allocators reserve whole blocks by moving it
+ * forward in one transaction and serve the block from memory, so numbers are unique but may
+ * have gaps (a reserved block is not returned when the process dies).
+ */
+@Entity(tableName = "Sequence")
+public class Sequence {
+
+    @PrimaryKey
+    @NonNull
+    private String name;
+
+    private long nextValue;
+
+    private long updatedAt;
+
+    public Sequence(@NonNull String name, long nextValue, long updatedAt) {
+        this.name = name;
+        this.nextValue = nextValue;
+        this.updatedAt = updatedAt;
+    }
+
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    public void setName(@NonNull String name) {
+        this.name = name;
+    }
+
+    public long getNextValue() {
+        return nextValue;
+    }
+
+    public void setNextValue(long nextValue) {
+        this.nextValue = nextValue;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
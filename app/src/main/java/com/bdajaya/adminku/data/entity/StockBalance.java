@@ -0,0 +1,92 @@
+package com.bdajaya.adminku.data.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.PrimaryKey;
+
+/**
+ * Materialized stock balance per product (BASE UNIT).
+ *
+ * Maintained by StockTransactionDao in the same transaction as every ledger insert:
+ * - ADJUST sets onHand to an absolute quantity and moves the adjust point
+ * - ADD/REMOVE after the adjust point change onHand by +/- quantity
+ *
+ * The ledger (StockTransaction) stays the source of truth; StockTransactionDao.rebuildAllBalances()
+ * recomputes this table from it.
+ */
+@Entity(
+        tableName = "StockBalance",
+        foreignKeys = {
+                @ForeignKey(
+                        entity = Product.class,
+                        parentColumns = "id",
+                        childColumns = "productId",
+                        onDelete = ForeignKey.CASCADE
+                )
+        }
+)
+public class StockBalance {
+
+    @PrimaryKey
+    @NonNull
+    private String productId;
+
+    private long onHand; // in base unit
+
+    private long lastAdjustQuantity; // in base unit, 0 if never adjusted
+
+    private long lastAdjustAt; // timestamp of last ADJUST, 0 if never adjusted
+
+    private long updatedAt;
+
+    public StockBalance(@NonNull String productId, long onHand, long lastAdjustQuantity,
+                        long lastAdjustAt, long updatedAt) {
+        this.productId = productId;
+        this.onHand = onHand;
+        this.lastAdjustQuantity = lastAdjustQuantity;
+        this.lastAdjustAt = lastAdjustAt;
+        this.updatedAt = updatedAt;
+    }
+
+    @NonNull
+    public String getProductId() {
+        return productId;
+    }
+
+    public void setProductId(@NonNull String productId) {
+        this.productId = productId;
+    }
+
+    public long getOnHand() {
+        return onHand;
+    }
+
+    public void setOnHand(long onHand) {
+        this.onHand = onHand;
+    }
+
+    public long getLastAdjustQuantity() {
+        return lastAdjustQuantity;
+    }
+
+    public void setLastAdjustQuantity(long lastAdjustQuantity) {
+        this.lastAdjustQuantity = lastAdjustQuantity;
+    }
+
+    public long getLastAdjustAt() {
+        return lastAdjustAt;
+    }
+
+    public void setLastAdjustAt(long lastAdjustAt) {
+        this.lastAdjustAt = lastAdjustAt;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
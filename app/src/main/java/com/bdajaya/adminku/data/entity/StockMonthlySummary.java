@@ -0,0 +1,114 @@
+package com.bdajaya.adminku.data.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+
+/**
+ * Monthly movement totals per product and unit (BASE UNIT quantities).
+ *
+ * Written by ledger compaction from the raw StockTransaction rows it folds away,
+ * so history views keep per-month numbers after the detail rows are gone.
+ * month is "yyyy-MM" in device local time.
+ */
+@Entity(
+        tableName = "StockMonthlySummary",
+        primaryKeys = {"productId", "unitId", "month"},
+        foreignKeys = {
+                @ForeignKey(
+                        entity = Product.class,
+                        parentColumns = "id",
+                        childColumns = "productId",
+                        onDelete = ForeignKey.CASCADE
+                )
+        }
+)
+public class StockMonthlySummary {
+
+    @NonNull
+    private String productId;
+
+    @NonNull
+    private String unitId;
+
+    @NonNull
+    private String month;
+
+    private long addQuantity;
+
+    private long removeQuantity;
+
+    private int adjustCount;
+
+    private int transactionCount;
+
+    public StockMonthlySummary(@NonNull String productId, @NonNull String unitId, @NonNull String month,
+                               long addQuantity, long removeQuantity, int adjustCount, int transactionCount) {
+        this.productId = productId;
+        this.unitId = unitId;
+        this.month = month;
+        this.addQuantity = addQuantity;
+        this.removeQuantity = removeQuantity;
+        this.adjustCount = adjustCount;
+        this.transactionCount = transactionCount;
+    }
+
+    @NonNull
+    public String getProductId() {
+        return productId;
+    }
+
+    public void setProductId(@NonNull String productId) {
+        this.productId = productId;
+    }
+
+    @NonNull
+    public String getUnitId() {
+        return unitId;
+    }
+
+    public void setUnitId(@NonNull String unitId) {
+        this.unitId = unitId;
+    }
+
+    @NonNull
+    public String getMonth() {
+        return month;
+    }
+
+    public void setMonth(@NonNull String month) {
+        this.month = month;
+    }
+
+    public long getAddQuantity() {
+        return addQuantity;
+    }
+
+    public void setAddQuantity(long addQuantity) {
+        this.addQuantity = addQuantity;
+    }
+
+    public long getRemoveQuantity() {
+        return removeQuantity;
+    }
+
+    public void setRemoveQuantity(long removeQuantity) {
+        this.removeQuantity = removeQuantity;
+    }
+
+    public int getAdjustCount() {
+        return adjustCount;
+    }
+
+    public void setAdjustCount(int adjustCount) {
+        this.adjustCount = adjustCount;
+    }
+
+    public int getTransactionCount() {
+        return transactionCount;
+    }
+
+    public void setTransactionCount(int transactionCount) {
+        this.transactionCount = transactionCount;
+    }
+}
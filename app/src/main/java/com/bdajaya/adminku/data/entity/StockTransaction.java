@@ -2,6 +2,7 @@ package com.bdajaya.adminku.data.entity;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.room.ColumnInfo;
 import androidx.room.Entity;
 import androidx.room.ForeignKey;
 import androidx.room.Index;
@@ -85,6 +86,9 @@ public class StockTransaction {
 
     private long timestamp;
 
+    @ColumnInfo(defaultValue = "0")
+    private boolean checkpoint; // true for rows written by ledger compaction
+
     // Constructor
     public StockTransaction(@NonNull String id, @NonNull String productId,
                             @NonNull String transactionType, long quantity,
@@ -112,6 +116,7 @@ public class StockTransaction {
         private String unitId;
         private String notes;
         private long timestamp;
+        private boolean checkpoint;
 
         public Builder(@NonNull String productId, @NonNull TransactionType transactionType) {
             this.productId = productId;
@@ -155,12 +160,19 @@ public class StockTransaction {
             return this;
         }
 
+        public Builder checkpoint(boolean checkpoint) {
+            this.checkpoint = checkpoint;
+            return this;
+        }
+
         public StockTransaction build() {
             if (productId == null || transactionType == null || unitId == null) {
                 throw new IllegalStateException("productId, transactionType, and unitId are required");
             }
-            return new StockTransaction(id, productId, transactionType.getValue(),
+            StockTransaction transaction = new StockTransaction(id, productId, transactionType.getValue(),
                     quantity, originalQuantity, originalConversionFactor, unitId, notes, timestamp);
+            transaction.setCheckpoint(checkpoint);
+            return transaction;
         }
     }
 
@@ -241,6 +253,14 @@ public class StockTransaction {
         this.timestamp = timestamp;
     }
 
+    public boolean isCheckpoint() {
+        return checkpoint;
+    }
+
+    public void setCheckpoint(boolean checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
     // Helper Methods
     @Nullable
     public TransactionType getTransactionTypeEnum() {
@@ -0,0 +1,122 @@
+package com.bdajaya.adminku.data.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+
+/**
+ * Staged count for one product in a stocktake session (one row per product; recounting replaces it).
+ *
+ * countedQuantity is what the user entered in unitId; countedBaseQuantity is the same
+ * amount in BASE UNIT, which is what the ADJUST row will set on commit.
+ */
+@Entity(
+        tableName = "StocktakeCount",
+        primaryKeys = {"sessionId", "productId"},
+        foreignKeys = {
+                @ForeignKey(
+                        entity = StocktakeSession.class,
+                        parentColumns = "id",
+                        childColumns = "sessionId",
+                        onDelete = ForeignKey.CASCADE
+                ),
+                @ForeignKey(
+                        entity = Product.class,
+                        parentColumns = "id",
+                        childColumns = "productId",
+                        onDelete = ForeignKey.CASCADE
+                )
+        },
+        indices = {@Index("productId")}
+)
+public class StocktakeCount {
+
+    @NonNull
+    private String sessionId;
+
+    @NonNull
+    private String productId;
+
+    @NonNull
+    private String unitId;
+
+    private long countedQuantity; // in unitId
+
+    private long conversionFactor; // unitId factor at count time
+
+    private long countedBaseQuantity; // in base unit
+
+    private long countedAt;
+
+    public StocktakeCount(@NonNull String sessionId, @NonNull String productId, @NonNull String unitId,
+                          long countedQuantity, long conversionFactor, long countedBaseQuantity,
+                          long countedAt) {
+        this.sessionId = sessionId;
+        this.productId = productId;
+        this.unitId = unitId;
+        this.countedQuantity = countedQuantity;
+        this.conversionFactor = conversionFactor;
+        this.countedBaseQuantity = countedBaseQuantity;
+        this.countedAt = countedAt;
+    }
+
+    @NonNull
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(@NonNull String sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    @NonNull
+    public String getProductId() {
+        return productId;
+    }
+
+    public void setProductId(@NonNull String productId) {
+        this.productId = productId;
+    }
+
+    @NonNull
+    public String getUnitId() {
+        return unitId;
+    }
+
+    public void setUnitId(@NonNull String unitId) {
+        this.unitId = unitId;
+    }
+
+    public long getCountedQuantity() {
+        return countedQuantity;
+    }
+
+    public void setCountedQuantity(long countedQuantity) {
+        this.countedQuantity = countedQuantity;
+    }
+
+    public long getConversionFactor() {
+        return conversionFactor;
+    }
+
+    public void setConversionFactor(long conversionFactor) {
+        this.conversionFactor = conversionFactor;
+    }
+
+    public long getCountedBaseQuantity() {
+        return countedBaseQuantity;
+    }
+
+    public void setCountedBaseQuantity(long countedBaseQuantity) {
+        this.countedBaseQuantity = countedBaseQuantity;
+    }
+
+    public long getCountedAt() {
+        return countedAt;
+    }
+
+    public void setCountedAt(long countedAt) {
+        this.countedAt = countedAt;
+    }
+}
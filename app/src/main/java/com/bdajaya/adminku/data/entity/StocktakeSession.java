@@ -0,0 +1,117 @@
+package com.bdajaya.adminku.data.entity;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * A stocktake (stock opname) session.
+ *
+ * Counts are staged in StocktakeCount while the session is OPEN, so a session survives
+ * app restarts and can be resumed. Committing writes all ADJUST rows in one transaction
+ * and moves the session to COMMITTED.
+ */
+@Entity(
+        tableName = "StocktakeSession",
+        indices = {@Index("status")}
+)
+public class StocktakeSession {
+
+    public static final String STATUS_OPEN = "OPEN";
+    public static final String STATUS_COMMITTED = "COMMITTED";
+    public static final String STATUS_CANCELLED = "CANCELLED";
+
+    @PrimaryKey
+    @NonNull
+    private String id;
+
+    @Nullable
+    private String name;
+
+    @NonNull
+    private String status;
+
+    private long createdAt;
+
+    private long updatedAt;
+
+    private long committedAt; // 0 until committed
+
+    private int adjustedCount; // ADJUST rows written on commit
+
+    public StocktakeSession(@NonNull String id, @Nullable String name, @NonNull String status,
+                            long createdAt, long updatedAt, long committedAt, int adjustedCount) {
+        this.id = id;
+        this.name = name;
+        this.status = status;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.committedAt = committedAt;
+        this.adjustedCount = adjustedCount;
+    }
+
+    public boolean isOpen() {
+        return STATUS_OPEN.equals(status);
+    }
+
+    @NonNull
+    public String getId() {
+        return id;
+    }
+
+    public void setId(@NonNull String id) {
+        this.id = id;
+    }
+
+    @Nullable
+    public String getName() {
+        return name;
+    }
+
+    public void setName(@Nullable String name) {
+        this.name = name;
+    }
+
+    @NonNull
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(@NonNull String status) {
+        this.status = status;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public long getCommittedAt() {
+        return committedAt;
+    }
+
+    public void setCommittedAt(long committedAt) {
+        this.committedAt = committedAt;
+    }
+
+    public int getAdjustedCount() {
+        return adjustedCount;
+    }
+
+    public void setAdjustedCount(int adjustedCount) {
+        this.adjustedCount = adjustedCount;
+    }
+}
@@ -0,0 +1,159 @@
+package com.bdajaya.adminku.data.manager;
+
+import androidx.annotation.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming RFC 4180 CSV reader over a fixed-size char buffer.
+ *
+ * Reads one record at a time, so memory stays flat regardless of file size.
+ * Handles quoted fields, doubled quotes, embedded separators/newlines, CRLF and LF,
+ * and a leading UTF-8 BOM.
+ */
+public class CsvReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final char separator;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private boolean eof;
+    private boolean firstRead = true;
+    private long physicalLine; // newlines consumed so far
+    private long recordLine;
+
+    public CsvReader(Reader reader) {
+        this(reader, ',');
+    }
+
+    public CsvReader(Reader reader, char separator) {
+        this.reader = reader;
+        this.separator = separator;
+    }
+
+    /**
+     * 1-based line where the last returned record started.
+     */
+    public long getLineNumber() {
+        return recordLine;
+    }
+
+    /**
+     * Next record, or null at end of input. Blank lines are skipped.
+     */
+    @Nullable
+    public List<String> readRecord() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean inQuotes = false;
+        boolean fieldStarted = false;
+        boolean sawAny = false;
+        recordLine = physicalLine + 1;
+
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                if (!sawAny) {
+                    return null;
+                }
+                fields.add(field.toString());
+                return fields;
+            }
+
+            char ch = (char) c;
+            if (inQuotes) {
+                if (ch == '"') {
+                    if (peek() == '"') {
+                        read();
+                        field.append('"');
+                    } else {
+                        inQuotes = false;
+                    }
+                } else {
+                    if (ch == '\n') {
+                        physicalLine++;
+                    }
+                    field.append(ch);
+                }
+                continue;
+            }
+
+            if (ch == '"' && !fieldStarted) {
+                inQuotes = true;
+                fieldStarted = true;
+                sawAny = true;
+            } else if (ch == separator) {
+                fields.add(field.toString());
+                field.setLength(0);
+                fieldStarted = false;
+                sawAny = true;
+            } else if (ch == '\r' || ch == '\n') {
+                if (ch == '\r' && peek() == '\n') {
+                    read();
+                }
+                physicalLine++;
+                if (!sawAny) {
+                    // Blank line
+                    recordLine = physicalLine + 1;
+                    continue;
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append(ch);
+                fieldStarted = true;
+                sawAny = true;
+            }
+        }
+    }
+
+    private int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        if (position < limit) {
+            return true;
+        }
+        if (eof) {
+            return false;
+        }
+        limit = reader.read(buffer, 0, BUFFER_SIZE);
+        position = 0;
+        if (limit <= 0) {
+            limit = 0;
+            eof = true;
+            return false;
+        }
+        if (firstRead) {
+            firstRead = false;
+            if (buffer[0] == '\uFEFF') {
+                position = 1;
+                return fill();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
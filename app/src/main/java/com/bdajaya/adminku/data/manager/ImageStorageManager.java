@@ -4,6 +4,7 @@ import android.content.Context;
 import android.database.Cursor;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
+import android.media.ExifInterface;
 import android.net.Uri;
 import android.provider.MediaStore;
 import android.util.Log;
@@ -11,20 +12,31 @@ import android.util.Log;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.bdajaya.adminku.core.Constants;
+
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.Semaphore;
 
 /**
  * Centralized image storage management.
  *
  * Storage Strategy:
  * - Internal storage untuk keamanan dan kontrol penuh
- * - Struktur: /data/data/com.bdajaya.adminku/files/products/{productId}/{imageId}.jpg
+ * - Struktur: /data/data/com.bdajaya.adminku/files/blobs/{ab}/{sha256}.jpg, dialamatkan dengan
+ *   hash file sumber (ab = dua karakter pertama hash), dengan thumbnail {sha256}_thumb.jpg di
+ *   sampingnya (list/grid memuat thumbnail, detail dan share memuat file asli). Gambar yang
+ *   sama hanya disimpan sekali; referensinya dihitung di tabel ImageBlob.
+ * - products/{productId}/ hanya berisi file staging dan gambar lama sebelum blob
  * - Kompresi otomatis untuk efisiensi
  * - Cache directory untuk sharing temporary files
  */
@@ -34,10 +46,18 @@ public class ImageStorageManager {
 
     // Konstanta
     private static final String PRODUCTS_DIR = "products";
+    private static final String BLOBS_DIR = "blobs";
     private static final String CACHE_SHARE_DIR = "share_cache";
     private static final int MAX_DIMENSION = 1920; // HD quality
     private static final int THUMBNAIL_SIZE = 512;
     private static final int JPEG_QUALITY = 90;
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String THUMBNAIL_SUFFIX = "_thumb";
+    private static final String STAGED_SUFFIX = ".pending";
+    private static final long THUMBNAIL_PEAK_BYTES = (long) THUMBNAIL_SIZE * THUMBNAIL_SIZE * 4;
+
+    // Dibagi semua instance: jatah memori bitmap untuk decode yang berjalan bersamaan (KB)
+    private static final Semaphore DECODE_BUDGET = new Semaphore(Constants.IMAGE_DECODE_BUDGET_KB, true);
 
     private final Context context;
 
@@ -50,66 +70,350 @@ public class ImageStorageManager {
     // ================================
 
     /**
-     * Simpan gambar dari Uri dan return path relatif.
+     * Hasil penyimpanan satu gambar: path relatif file asli dan thumbnail, plus metadata asli.
+     */
+    public static final class SavedImage {
+        @NonNull
+        public final String path;
+        @Nullable
+        public final String thumbnailPath;
+        public final int width;
+        public final int height;
+        public final long fileSize;
+
+        SavedImage(@NonNull String path, @Nullable String thumbnailPath, int width, int height, long fileSize) {
+            this.path = path;
+            this.thumbnailPath = thumbnailPath;
+            this.width = width;
+            this.height = height;
+            this.fileSize = fileSize;
+        }
+    }
+
+    /**
+     * Simpan gambar dari Uri beserta thumbnail-nya ke relativePath (dipakai {@link #encodeBlob}).
+     *
+     * Gambar di-decode lewat SampledImageDecoder (bounds dulu, lalu inSampleSize), jadi foto
+     * kamera besar tidak pernah dimuat di resolusi penuh. Pixel tidak diputar: orientasi EXIF
+     * sumber ditulis ke tag JPEG hasil (Glide dan aplikasi tujuan share membacanya), jadi foto
+     * portrait tidak butuh salinan bitmap kedua. Width/height yang dikembalikan sudah mengikuti
+     * orientasi tampilan. Thumbnail
+     * (sisi terpanjang THUMBNAIL_SIZE) diperkecil dari bitmap yang sama, tanpa decode kedua.
+     * Setiap JPEG ditulis ke file .tmp lalu di-rename, sehingga file setengah jadi tidak pernah
+     * terlihat di path akhir. Thumbnail yang gagal tidak menggagalkan gambar aslinya.
      *
-     * @param productId ID produk
-     * @param imageUri Uri gambar dari picker
-     * @return Path relatif (e.g., "products/prod_123/img_456.jpg")
+     * Setelah ukuran diketahui, decode menunggu jatah dari budget memori bersama
+     * (IMAGE_DECODE_BUDGET_KB), jadi beberapa penyimpanan paralel tidak bisa menumpuk bitmap.
+     *
+     * @return path relatif dan metadata, atau null
      */
     @Nullable
-    public String saveProductImage(@NonNull String productId, @NonNull Uri imageUri) {
+    private SavedImage saveImage(Uri imageUri, String relativePath) {
         try {
-            // Baca gambar
-            InputStream inputStream = context.getContentResolver().openInputStream(imageUri);
-            if (inputStream == null) return null;
-
-            Bitmap bitmap = BitmapFactory.decodeStream(inputStream);
-            inputStream.close();
+            SampledImageDecoder.Source source =
+                    SampledImageDecoder.readSource(context.getContentResolver(), imageUri);
+            if (source == null) return null;
+
+            int permits = budgetPermits(source.estimatePeakBytes(MAX_DIMENSION) + THUMBNAIL_PEAK_BYTES);
+            DECODE_BUDGET.acquire(permits);
+            try {
+                return saveDecoded(imageUri, source, relativePath);
+            } finally {
+                DECODE_BUDGET.release(permits);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (IOException | RuntimeException e) {
+            // RuntimeException: decoder menolak file rusak / format tidak dikenal
+            Log.e(TAG, "Error saving image", e);
+            return null;
+        }
+    }
 
-            if (bitmap == null) return null;
+    private SavedImage saveDecoded(Uri imageUri, SampledImageDecoder.Source source, String relativePath)
+            throws IOException {
+        Bitmap bitmap = SampledImageDecoder.decodeSampled(context.getContentResolver(), imageUri, source,
+                MAX_DIMENSION);
+        if (bitmap == null) return null;
 
-            // Resize untuk efisiensi
-            bitmap = resizeIfNeeded(bitmap, MAX_DIMENSION);
+        try {
+            // Simpan ke internal storage
+            File imageFile = new File(context.getFilesDir(), relativePath);
+            File parent = imageFile.getParentFile();
+            if (parent != null && !parent.exists()) {
+                parent.mkdirs();
+            }
 
-            // Generate ID unik
-            String imageId = UUID.randomUUID().toString();
-            String fileName = imageId + ".jpg";
+            writeJpeg(bitmap, imageFile, source.orientation);
 
-            // Simpan ke internal storage
-            File productDir = getProductDirectory(productId);
-            if (!productDir.exists()) {
-                productDir.mkdirs();
+            String thumbnailPath = thumbnailPathFor(relativePath);
+            try {
+                writeThumbnail(bitmap, new File(context.getFilesDir(), thumbnailPath), source.orientation);
+            } catch (IOException | RuntimeException e) {
+                Log.w(TAG, "Thumbnail not created for " + relativePath, e);
+                thumbnailPath = null;
             }
 
-            File imageFile = new File(productDir, fileName);
-            FileOutputStream fos = new FileOutputStream(imageFile);
-            bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, fos);
-            fos.flush();
-            fos.close();
+            boolean swap = source.swapsDimensions();
+            return new SavedImage(relativePath, thumbnailPath,
+                    swap ? bitmap.getHeight() : bitmap.getWidth(),
+                    swap ? bitmap.getWidth() : bitmap.getHeight(),
+                    imageFile.length());
+        } finally {
             bitmap.recycle();
+        }
+    }
 
-            // Return path relatif
-            return PRODUCTS_DIR + "/" + productId + "/" + fileName;
+    /**
+     * File staging beserta SHA-256 isinya (alamat blob yang nanti dipakai).
+     */
+    public static final class StagedImage {
+        @NonNull
+        public final String hash;
+        @NonNull
+        public final String path;
+
+        StagedImage(@NonNull String hash, @NonNull String path) {
+            this.hash = hash;
+            this.path = path;
+        }
+    }
 
-        } catch (IOException e) {
-            Log.e(TAG, "Error saving image", e);
+    /**
+     * Salin byte mentah gambar dari picker ke staging di folder produk, tanpa decode, sambil
+     * menghitung SHA-256-nya.
+     *
+     * Cepat (hanya copy stream), jadi produk bisa langsung di-commit dengan ProductImage
+     * PENDING yang menunjuk ke file ini. File staging tetap ada walau izin Uri picker dicabut
+     * atau proses mati; ImageIngestionWorker yang meng-encode-nya nanti lewat
+     * {@link #encodeBlob}, kecuali blob dengan hash yang sama sudah ada.
+     *
+     * @return hash dan path relatif staging (e.g., "products/prod_123/img_456.pending"), atau null
+     */
+    @Nullable
+    public StagedImage stageImage(@NonNull String productId, @NonNull Uri imageUri) {
+        File productDir = getProductDirectory(productId);
+        if (!productDir.exists()) {
+            productDir.mkdirs();
+        }
+
+        String fileName = UUID.randomUUID().toString() + STAGED_SUFFIX;
+        File target = new File(productDir, fileName);
+        File tempFile = new File(productDir, fileName + TEMP_SUFFIX);
+        try {
+            MessageDigest digest = newDigest();
+            try (InputStream in = context.getContentResolver().openInputStream(imageUri);
+                 FileOutputStream fos = new FileOutputStream(tempFile)) {
+                if (in == null) return null;
+                byte[] buffer = new byte[8192];
+                int length;
+                while ((length = in.read(buffer)) > 0) {
+                    digest.update(buffer, 0, length);
+                    fos.write(buffer, 0, length);
+                }
+                fos.getFD().sync();
+            }
+            if (!tempFile.renameTo(target)) {
+                throw new IOException("Cannot move " + tempFile + " to " + target);
+            }
+            return new StagedImage(toHex(digest.digest()), PRODUCTS_DIR + "/" + productId + "/" + fileName);
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Error staging image " + imageUri, e);
             return null;
+        } finally {
+            if (tempFile.exists()) {
+                tempFile.delete();
+            }
         }
     }
 
     /**
-     * Batch save multiple images.
+     * Stage beberapa gambar, urutan dipertahankan; Uri yang gagal dilewati.
      */
     @NonNull
-    public List<String> saveProductImages(@NonNull String productId, @NonNull List<Uri> imageUris) {
-        List<String> paths = new ArrayList<>();
+    public List<StagedImage> stageImages(@NonNull String productId, @NonNull List<Uri> imageUris) {
+        List<StagedImage> staged = new ArrayList<>();
         for (Uri uri : imageUris) {
-            String path = saveProductImage(productId, uri);
-            if (path != null) {
-                paths.add(path);
+            StagedImage image = stageImage(productId, uri);
+            if (image != null) {
+                staged.add(image);
+            }
+        }
+        return staged;
+    }
+
+    /**
+     * SHA-256 file yang sudah tersimpan (file staging dari sebelum blob ada), atau null kalau
+     * file hilang.
+     */
+    @Nullable
+    public String hashFile(@NonNull String relativePath) {
+        File file = getImageFile(relativePath);
+        if (file == null) return null;
+
+        try (InputStream in = new FileInputStream(file)) {
+            MessageDigest digest = newDigest();
+            byte[] buffer = new byte[8192];
+            int length;
+            while ((length = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, length);
+            }
+            return toHex(digest.digest());
+        } catch (IOException e) {
+            Log.e(TAG, "Error hashing " + relativePath, e);
+            return null;
+        }
+    }
+
+    /**
+     * Encode file staging menjadi JPEG akhir + thumbnail di alamat blob hash (lewat
+     * {@link #saveImage}). File staging tidak dihapus di sini: hapus setelah blob di-commit.
+     * Pemanggil memastikan hanya satu encode per hash yang berjalan.
+     */
+    @Nullable
+    public SavedImage encodeBlob(@NonNull String hash, @NonNull String stagedPath) {
+        File staged = getImageFile(stagedPath);
+        if (staged == null) {
+            Log.w(TAG, "Staged image missing: " + stagedPath);
+            return null;
+        }
+        return saveImage(Uri.fromFile(staged), blobPathFor(hash));
+    }
+
+    /**
+     * Path relatif blob: "blobs/ab/abcdef….jpg".
+     */
+    @NonNull
+    public static String blobPathFor(@NonNull String hash) {
+        return BLOBS_DIR + "/" + hash.substring(0, 2) + "/" + hash + ".jpg";
+    }
+
+    public static boolean isStagedPath(@Nullable String path) {
+        return path != null && path.endsWith(STAGED_SUFFIX);
+    }
+
+    /**
+     * Buat thumbnail untuk gambar yang sudah tersimpan (backfill gambar lama).
+     * Decode file asli langsung di ukuran thumbnail, jadi murah walaupun aslinya 1920px.
+     *
+     * @return path relatif thumbnail, atau null kalau file asli tidak ada / gagal
+     */
+    @Nullable
+    public String createThumbnail(@NonNull String relativePath) {
+        File original = getImageFile(relativePath);
+        if (original == null) return null;
+
+        Bitmap bitmap = null;
+        try {
+            bitmap = SampledImageDecoder.decode(context.getContentResolver(), Uri.fromFile(original),
+                    THUMBNAIL_SIZE);
+            if (bitmap == null) return null;
+
+            String thumbnailPath = thumbnailPathFor(relativePath);
+            writeJpeg(bitmap, new File(context.getFilesDir(), thumbnailPath));
+            return thumbnailPath;
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Error creating thumbnail for " + relativePath, e);
+            return null;
+        } finally {
+            if (bitmap != null) {
+                bitmap.recycle();
+            }
+        }
+    }
+
+    /**
+     * Path thumbnail untuk path gambar asli: "img_456.jpg" → "img_456_thumb.jpg".
+     */
+    @NonNull
+    public static String thumbnailPathFor(@NonNull String relativePath) {
+        int dot = relativePath.lastIndexOf('.');
+        int slash = relativePath.lastIndexOf('/');
+        if (dot <= slash) {
+            return relativePath + THUMBNAIL_SUFFIX;
+        }
+        return relativePath.substring(0, dot) + THUMBNAIL_SUFFIX + relativePath.substring(dot);
+    }
+
+    /**
+     * Thumbnail untuk file gambar asli di storage kita, atau null kalau belum ada
+     * (gambar dari picker, atau gambar lama yang belum di-backfill).
+     */
+    @Nullable
+    public static File getThumbnailFile(@NonNull File original) {
+        File thumbnail = new File(thumbnailPathFor(original.getAbsolutePath()));
+        return thumbnail.exists() ? thumbnail : null;
+    }
+
+    /**
+     * Jatah budget dalam KB; gambar yang lebih besar dari seluruh budget tetap jalan, sendirian.
+     */
+    private static int budgetPermits(long bytes) {
+        long kilobytes = (bytes + 1023) / 1024;
+        return (int) Math.max(1, Math.min(kilobytes, Constants.IMAGE_DECODE_BUDGET_KB));
+    }
+
+    private void writeThumbnail(Bitmap source, File target, int orientation) throws IOException {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        float scale = Math.min(1f, (float) THUMBNAIL_SIZE / Math.max(width, height));
+        if (scale >= 1f) {
+            writeJpeg(source, target, orientation);
+            return;
+        }
+
+        Bitmap thumbnail = Bitmap.createScaledBitmap(source,
+                Math.max(1, Math.round(width * scale)), Math.max(1, Math.round(height * scale)), true);
+        try {
+            writeJpeg(thumbnail, target, orientation);
+        } finally {
+            if (thumbnail != source) {
+                thumbnail.recycle();
+            }
+        }
+    }
+
+    /**
+     * Tulis ke target.tmp, fsync, lalu rename: pembaca tidak pernah melihat JPEG setengah jadi.
+     */
+    private void writeJpeg(Bitmap bitmap, File target) throws IOException {
+        writeJpeg(bitmap, target, ExifInterface.ORIENTATION_NORMAL);
+    }
+
+    /**
+     * Seperti {@link #writeJpeg(Bitmap, File)}, plus tag EXIF orientation kalau bukan normal
+     * (ditulis ke file .tmp sebelum fsync, jadi rename tetap atomik).
+     */
+    private void writeJpeg(Bitmap bitmap, File target, int orientation) throws IOException {
+        File tempFile = new File(target.getPath() + TEMP_SUFFIX);
+        try {
+            try (FileOutputStream fos = new FileOutputStream(tempFile)) {
+                if (!bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, fos)) {
+                    throw new IOException("JPEG compression failed");
+                }
+                if (orientation == ExifInterface.ORIENTATION_NORMAL
+                        || orientation == ExifInterface.ORIENTATION_UNDEFINED) {
+                    fos.getFD().sync();
+                }
+            }
+            if (orientation != ExifInterface.ORIENTATION_NORMAL
+                    && orientation != ExifInterface.ORIENTATION_UNDEFINED) {
+                ExifInterface exif = new ExifInterface(tempFile.getPath());
+                exif.setAttribute(ExifInterface.TAG_ORIENTATION, String.valueOf(orientation));
+                exif.saveAttributes();
+                try (RandomAccessFile file = new RandomAccessFile(tempFile, "rw")) {
+                    file.getFD().sync();
+                }
+            }
+            if (!tempFile.renameTo(target)) {
+                throw new IOException("Cannot move " + tempFile + " to " + target);
+            }
+        } finally {
+            if (tempFile.exists()) {
+                tempFile.delete();
             }
         }
-        return paths;
     }
 
     // ================================
@@ -128,6 +432,20 @@ public class ImageStorageManager {
         return file.exists() ? file : null;
     }
 
+    /**
+     * Kebalikan getImageUri: path relatif untuk file Uri di storage kita, atau null untuk Uri
+     * dari luar (picker, kamera).
+     */
+    @Nullable
+    public String getRelativePath(@NonNull Uri uri) {
+        String path = uri.getPath();
+        if (!"file".equalsIgnoreCase(uri.getScheme()) || path == null) {
+            return null;
+        }
+        String root = context.getFilesDir().getAbsolutePath() + "/";
+        return path.startsWith(root) ? path.substring(root.length()) : null;
+    }
+
     /**
      * Load sebagai Uri untuk Glide.
      */
@@ -202,9 +520,13 @@ public class ImageStorageManager {
     // ================================
 
     /**
-     * Hapus gambar berdasarkan path relatif.
+     * Hapus gambar berdasarkan path relatif, beserta thumbnail-nya.
      */
     public boolean deleteImage(@NonNull String relativePath) {
+        File thumbnail = getImageFile(thumbnailPathFor(relativePath));
+        if (thumbnail != null) {
+            thumbnail.delete();
+        }
         File file = getImageFile(relativePath);
         return file != null && file.delete();
     }
@@ -224,32 +546,25 @@ public class ImageStorageManager {
     // UTILITY METHODS
     // ================================
 
-    private File getProductDirectory(String productId) {
-        return new File(context.getFilesDir(), PRODUCTS_DIR + "/" + productId);
-    }
-
-    private Bitmap resizeIfNeeded(Bitmap bitmap, int maxDimension) {
-        int width = bitmap.getWidth();
-        int height = bitmap.getHeight();
-
-        if (width <= maxDimension && height <= maxDimension) {
-            return bitmap;
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Wajib ada di setiap JVM/Android
+            throw new IllegalStateException(e);
         }
+    }
 
-        float scale = Math.min(
-                (float) maxDimension / width,
-                (float) maxDimension / height
-        );
-
-        int newWidth = Math.round(width * scale);
-        int newHeight = Math.round(height * scale);
-
-        Bitmap resized = Bitmap.createScaledBitmap(bitmap, newWidth, newHeight, true);
-        if (resized != bitmap) {
-            bitmap.recycle();
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
         }
+        return hex.toString();
+    }
 
-        return resized;
+    private File getProductDirectory(String productId) {
+        return new File(context.getFilesDir(), PRODUCTS_DIR + "/" + productId);
     }
 
     private void copyFile(File source, File dest) throws IOException {
@@ -0,0 +1,78 @@
+package com.bdajaya.adminku.data.manager;
+
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.bdajaya.adminku.data.AppDatabase;
+import com.bdajaya.adminku.data.repository.CategoryTreeCache;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Export katalog produk ke CSV langsung dari Cursor.
+ *
+ * Baris dibaca satu per satu dari ProductDao.getExportCursor() dan langsung ditulis,
+ * jadi jumlah produk tidak mempengaruhi pemakaian memori. Path kategori diambil dari
+ * CategoryTreeCache (tanpa query per baris). Formatnya sama dengan ProductCsvImporter.HEADER,
+ * sehingga file hasil export bisa di-import kembali.
+ */
+public class ProductCsvExporter {
+
+    private static final String TAG = "ProductCsvExporter";
+
+    private final AppDatabase database;
+
+    public ProductCsvExporter(@NonNull AppDatabase database) {
+        this.database = database;
+    }
+
+    /**
+     * Blocking; panggil dari background thread. Writer di-flush tapi tidak ditutup.
+     *
+     * @return jumlah produk yang ditulis
+     */
+    public int exportCsv(@NonNull Writer output) throws IOException {
+        CategoryTreeCache.Snapshot tree = CategoryTreeCache.getInstance(database).get();
+        CsvWriter writer = new CsvWriter(output);
+        writer.writeRecord(ProductCsvImporter.HEADER);
+
+        int count = 0;
+        try (Cursor cursor = database.productDao().getExportCursor()) {
+            int barcode = cursor.getColumnIndexOrThrow("barcode");
+            int name = cursor.getColumnIndexOrThrow("name");
+            int description = cursor.getColumnIndexOrThrow("description");
+            int categoryId = cursor.getColumnIndexOrThrow("categoryId");
+            int brandName = cursor.getColumnIndexOrThrow("brandName");
+            int unitName = cursor.getColumnIndexOrThrow("unitName");
+            int buyPrice = cursor.getColumnIndexOrThrow("buyPrice");
+            int sellPrice = cursor.getColumnIndexOrThrow("sellPrice");
+            int margin = cursor.getColumnIndexOrThrow("margin");
+            int stock = cursor.getColumnIndexOrThrow("stock");
+            int status = cursor.getColumnIndexOrThrow("status");
+
+            while (cursor.moveToNext()) {
+                String category = cursor.isNull(categoryId) ? null : tree.getPathString(cursor.getString(categoryId));
+                writer.writeRecord(
+                        cursor.getString(barcode),
+                        cursor.getString(name),
+                        cursor.getString(description),
+                        category,
+                        cursor.getString(brandName),
+                        cursor.getString(unitName),
+                        Long.toString(cursor.getLong(buyPrice)),
+                        Long.toString(cursor.getLong(sellPrice)),
+                        Integer.toString(cursor.getInt(margin)),
+                        Long.toString(cursor.getLong(stock)),
+                        cursor.getString(status));
+                count++;
+            }
+        }
+        writer.flush();
+
+        Log.d(TAG, "Exported " + count + " products");
+        return count;
+    }
+}
@@ -0,0 +1,455 @@
+package com.bdajaya.adminku.data.manager;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bdajaya.adminku.core.Constants;
+import com.bdajaya.adminku.data.AppDatabase;
+import com.bdajaya.adminku.data.BarcodeAllocator;
+import com.bdajaya.adminku.data.WriteBatcher;
+import com.bdajaya.adminku.data.dao.BrandDao;
+import com.bdajaya.adminku.data.dao.ProductDao;
+import com.bdajaya.adminku.data.dao.StockTransactionDao;
+import com.bdajaya.adminku.data.entity.Brand;
+import com.bdajaya.adminku.data.entity.Category;
+import com.bdajaya.adminku.data.entity.Product;
+import com.bdajaya.adminku.data.entity.StockTransaction;
+import com.bdajaya.adminku.data.entity.Unit;
+import com.bdajaya.adminku.data.repository.CategoryTreeCache;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Import katalog produk dari CSV secara streaming.
+ *
+ * - CSV dibaca per record (CsvReader, buffer tetap), tidak pernah seluruh file di memori.
+ * - Upsert berdasarkan barcode (index unik): baris yang sudah ada hanya diupdate field katalognya,
+ *   baris baru di-insert. Tidak memakai REPLACE agar gambar/ledger stok tidak ikut terhapus.
+ * - Per chunk CSV_IMPORT_CHUNK_SIZE baris dalam satu command WriteBatcher (satu transaksi).
+ * - Nama kategori (atau path "A > B > C"), brand dan unit di-resolve lewat map di memori yang
+ *   dibangun sekali di awal; brand yang belum ada dibuat otomatis.
+ * - Kolom stock dalam BASE UNIT dan hanya dipakai untuk produk baru (stok awal sebagai ADJUST di ledger);
+ *   stok produk lama diubah lewat stock opname, bukan import.
+ *
+ * Kolom (header wajib, urutan bebas, case-insensitive): name, unit.
+ * Opsional: barcode, description, category, brand, buy_price, sell_price, margin, stock, status.
+ * Harga dalam satuan yang sama dengan yang disimpan di Product.
+ */
+public class ProductCsvImporter {
+
+    private static final String TAG = "ProductCsvImporter";
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final int MAX_SQL_VARIABLES = 900;
+
+    public static final String[] HEADER = {
+            "barcode", "name", "description", "category", "brand", "unit",
+            "buy_price", "sell_price", "margin", "stock", "status"
+    };
+
+    public interface ProgressListener {
+        void onProgress(long rowsRead, int inserted, int updated);
+    }
+
+    public static class Report {
+        public int inserted;
+        public int updated;
+        public int skipped;
+        public int brandsCreated;
+        public final List<String> errors = new ArrayList<>();
+
+        void error(long line, String message) {
+            skipped++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("Baris " + line + ": " + message);
+            }
+        }
+    }
+
+    private final AppDatabase database;
+    private final WriteBatcher writeBatcher;
+    private final ProductDao productDao;
+    private final BrandDao brandDao;
+    private final StockTransactionDao stockTransactionDao;
+
+    // Lookup maps, keyed by lower-case name
+    private final Map<String, String> categoryIds = new HashMap<>();
+    private final Map<String, String> brandIds = new HashMap<>();
+    private final Map<String, Unit> units = new HashMap<>();
+    private final Map<String, Unit> baseUnits = new HashMap<>(); // keyed by Unit.baseUnit
+    private final BarcodeAllocator barcodeAllocator;
+
+    public ProductCsvImporter(@NonNull AppDatabase database) {
+        this.database = database;
+        this.writeBatcher = WriteBatcher.getInstance(database);
+        this.productDao = database.productDao();
+        this.brandDao = database.brandDao();
+        this.stockTransactionDao = database.stockTransactionDao();
+        this.barcodeAllocator = BarcodeAllocator.getInstance(database);
+    }
+
+    /**
+     * Header dan lookup dibaca di thread pemanggil (background). Tiap chunk lalu dikirim sebagai
+     * satu command WriteBatcher; chunk berikutnya dibaca di executor setelah chunk sebelumnya
+     * commit, jadi tidak ada thread yang menunggu writer. Reader ditutup oleh pemanggil setelah
+     * future selesai.
+     */
+    @NonNull
+    public CompletableFuture<Report> importCsv(@NonNull Reader input, @Nullable ProgressListener listener,
+                                               @NonNull Executor executor) throws IOException {
+        Report report = new Report();
+        CsvReader reader = new CsvReader(input);
+
+        List<String> header = reader.readRecord();
+        if (header == null) {
+            return CompletableFuture.completedFuture(report);
+        }
+        Map<String, Integer> columns = mapHeader(header);
+        if (!columns.containsKey("name") || !columns.containsKey("unit")) {
+            throw new IOException("Header CSV harus memiliki kolom name dan unit");
+        }
+
+        loadLookups();
+
+        return importChunks(new Progress(reader, columns, report, listener), executor);
+    }
+
+    private CompletableFuture<Report> importChunks(Progress progress, Executor executor) {
+        List<Row> chunk;
+        try {
+            chunk = progress.readChunk();
+        } catch (IOException e) {
+            CompletableFuture<Report> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+
+        Report report = progress.report;
+        if (chunk.isEmpty()) {
+            progress.notifyListener();
+            Log.d(TAG, "Import done: " + report.inserted + " inserted, " + report.updated + " updated, "
+                    + report.skipped + " skipped");
+            return CompletableFuture.completedFuture(report);
+        }
+
+        return flush(chunk, report).thenComposeAsync(ignored -> {
+            if (!progress.finished) {
+                progress.notifyListener();
+            }
+            return importChunks(progress, executor);
+        }, executor);
+    }
+
+    private static Map<String, Integer> mapHeader(List<String> header) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        return columns;
+    }
+
+    private void loadLookups() {
+        // Category: full path always resolves; bare name only when it is unique
+        CategoryTreeCache.Snapshot tree = CategoryTreeCache.getInstance(database).get();
+        Map<String, String> byName = new HashMap<>();
+        for (Category category : tree.getAll()) {
+            String path = tree.getPathString(category.getId());
+            if (path != null) {
+                categoryIds.put(key(path), category.getId());
+            }
+            String name = key(category.getName());
+            byName.put(name, byName.containsKey(name) ? null : category.getId());
+        }
+        for (Map.Entry<String, String> entry : byName.entrySet()) {
+            if (entry.getValue() != null) {
+                categoryIds.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+        }
+
+        for (Brand brand : brandDao.getAllSync()) {
+            brandIds.put(key(brand.getName()), brand.getId());
+        }
+        for (Unit unit : database.unitDao().getAllSync()) {
+            units.put(key(unit.getName()), unit);
+            if (unit.isBaseUnit()) {
+                baseUnits.put(unit.getBaseUnit(), unit);
+            }
+        }
+    }
+
+    @Nullable
+    private Row parse(List<String> record, Map<String, Integer> columns, long line, Report report) {
+        Row row = new Row();
+        row.line = line;
+        row.name = field(record, columns, "name");
+        if (row.name == null) {
+            report.error(line, "nama kosong");
+            return null;
+        }
+
+        String unitName = field(record, columns, "unit");
+        row.unit = unitName != null ? units.get(key(unitName)) : null;
+        if (row.unit == null) {
+            report.error(line, "satuan tidak dikenal: " + unitName);
+            return null;
+        }
+
+        row.barcode = field(record, columns, "barcode");
+        row.description = field(record, columns, "description");
+        row.categoryName = field(record, columns, "category");
+        if (row.categoryName != null) {
+            row.categoryId = categoryIds.get(key(row.categoryName));
+            if (row.categoryId == null) {
+                report.error(line, "kategori tidak dikenal: " + row.categoryName);
+                return null;
+            }
+        }
+        row.brandName = field(record, columns, "brand");
+        row.status = field(record, columns, "status");
+
+        try {
+            row.buyPrice = number(record, columns, "buy_price");
+            row.sellPrice = number(record, columns, "sell_price");
+            row.stock = number(record, columns, "stock");
+            String margin = field(record, columns, "margin");
+            row.margin = margin != null
+                    ? Integer.parseInt(margin)
+                    : calculateMargin(row.buyPrice, row.sellPrice);
+        } catch (NumberFormatException e) {
+            report.error(line, "angka tidak valid");
+            return null;
+        }
+        if (row.buyPrice < 0 || row.sellPrice < 0 || row.stock < 0) {
+            report.error(line, "angka tidak boleh negatif");
+            return null;
+        }
+        return row;
+    }
+
+    private CompletableFuture<Void> flush(List<Row> chunk, Report report) {
+        // Last row wins when a barcode repeats inside the chunk
+        Map<String, Row> byBarcode = new LinkedHashMap<>();
+        List<Row> withoutBarcode = new ArrayList<>();
+        for (Row row : chunk) {
+            if (row.barcode != null) {
+                byBarcode.put(row.barcode, row);
+            } else {
+                withoutBarcode.add(row);
+            }
+        }
+
+        // Hasil chunk (termasuk brand baru) dibuat ulang tiap kali command jalan dan baru masuk ke
+        // report/brandIds setelah commit, jadi command aman diulang WriteBatcher
+        return writeBatcher.submit(() -> {
+            ChunkResult result = new ChunkResult();
+            long now = System.currentTimeMillis();
+            // One Sequence reservation per chunk for rows that need a generated barcode
+            long barcodeNumber = withoutBarcode.isEmpty()
+                    ? 0
+                    : barcodeAllocator.reserveRangeInTransaction(withoutBarcode.size());
+
+            Map<String, String> existing = new HashMap<>();
+            List<String> barcodes = new ArrayList<>(byBarcode.keySet());
+            for (int from = 0; from < barcodes.size(); from += MAX_SQL_VARIABLES) {
+                List<String> batch = barcodes.subList(from, Math.min(from + MAX_SQL_VARIABLES, barcodes.size()));
+                for (ProductDao.BarcodeId hit : productDao.getIdsByBarcodes(batch)) {
+                    existing.put(hit.barcode, hit.id);
+                }
+            }
+
+            List<Product> inserts = new ArrayList<>();
+            List<Row> insertRows = new ArrayList<>();
+            List<StockTransaction> openingStock = new ArrayList<>();
+            List<Row> rows = new ArrayList<>(byBarcode.values());
+            rows.addAll(withoutBarcode);
+
+            for (Row row : rows) {
+                String brandId = resolveBrand(row.brandName, now, result.newBrandIds);
+                String id = row.barcode != null ? existing.get(row.barcode) : null;
+
+                if (id != null) {
+                    productDao.updateCatalogFields(id, row.name, row.description, row.categoryId, brandId,
+                            row.unit.getId(), row.buyPrice, row.sellPrice, row.margin, now);
+                    result.updated++;
+                    continue;
+                }
+
+                String barcode = row.barcode != null
+                        ? row.barcode
+                        : BarcodeAllocator.format(barcodeNumber++);
+                String status = "ARCHIVED".equalsIgnoreCase(row.status)
+                        ? "ARCHIVED"
+                        : (row.stock > 0 ? "LIVE" : "OUT_OF_STOCK");
+                Product product = new Product(UUID.randomUUID().toString(), row.name, row.description,
+                        barcode, row.categoryId, brandId, row.unit.getId(), row.buyPrice, row.sellPrice,
+                        row.margin, row.stock, status, now, now);
+                inserts.add(product);
+                insertRows.add(row);
+
+                if (row.stock > 0) {
+                    // stock column is BASE UNIT, so the ledger row is recorded in the base unit too
+                    Unit baseUnit = baseUnits.get(row.unit.getBaseUnit());
+                    openingStock.add(new StockTransaction.Builder(product.getId(),
+                            StockTransaction.TransactionType.ADJUST)
+                            .quantity(row.stock)
+                            .originalQuantity(row.stock)
+                            .originalConversionFactor(1)
+                            .unitId(baseUnit != null ? baseUnit.getId() : row.unit.getId())
+                            .notes("Import CSV")
+                            .timestamp(now)
+                            .build());
+                }
+            }
+
+            long[] rowIds = productDao.insertAllIfAbsent(inserts);
+            List<StockTransaction> ledger = new ArrayList<>(openingStock.size());
+            Set<String> insertedIds = new HashSet<>();
+            for (int i = 0; i < rowIds.length; i++) {
+                if (rowIds[i] != -1) {
+                    result.inserted++;
+                    insertedIds.add(inserts.get(i).getId());
+                } else {
+                    result.conflicts.add(insertRows.get(i));
+                    result.conflictBarcodes.add(inserts.get(i).getBarcode());
+                }
+            }
+            for (StockTransaction transaction : openingStock) {
+                if (insertedIds.contains(transaction.getProductId())) {
+                    ledger.add(transaction);
+                }
+            }
+            stockTransactionDao.insertAll(ledger);
+            return result;
+        }).thenAccept(result -> {
+            report.inserted += result.inserted;
+            report.updated += result.updated;
+            for (int i = 0; i < result.conflicts.size(); i++) {
+                report.error(result.conflicts.get(i).line, "barcode bentrok: " + result.conflictBarcodes.get(i));
+            }
+            brandIds.putAll(result.newBrandIds);
+            report.brandsCreated += result.newBrandIds.size();
+        });
+    }
+
+    @Nullable
+    private String resolveBrand(@Nullable String name, long now, Map<String, String> newBrandIds) {
+        if (name == null) {
+            return null;
+        }
+        String key = key(name);
+        String id = brandIds.get(key);
+        if (id == null) {
+            id = newBrandIds.get(key);
+        }
+        if (id == null) {
+            id = UUID.randomUUID().toString();
+            brandDao.insert(new Brand(id, name, now, now));
+            newBrandIds.put(key, id);
+        }
+        return id;
+    }
+
+    @Nullable
+    private static String field(List<String> record, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static long number(List<String> record, Map<String, Integer> columns, String name) {
+        String value = field(record, columns, name);
+        return value != null ? Long.parseLong(value) : 0;
+    }
+
+    private static int calculateMargin(long buyPrice, long sellPrice) {
+        if (buyPrice == 0) return 0;
+        return (int) (((double) (sellPrice - buyPrice) / buyPrice) * 100);
+    }
+
+    private static String key(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Posisi pembacaan CSV di antara chunk.
+     */
+    private final class Progress {
+        final CsvReader reader;
+        final Map<String, Integer> columns;
+        final Report report;
+        @Nullable final ProgressListener listener;
+        long rowsRead;
+        boolean finished;
+
+        Progress(CsvReader reader, Map<String, Integer> columns, Report report,
+                 @Nullable ProgressListener listener) {
+            this.reader = reader;
+            this.columns = columns;
+            this.report = report;
+            this.listener = listener;
+        }
+
+        /**
+         * Sampai CSV_IMPORT_CHUNK_SIZE baris valid; kosong berarti file habis.
+         */
+        List<Row> readChunk() throws IOException {
+            List<Row> chunk = new ArrayList<>(Constants.CSV_IMPORT_CHUNK_SIZE);
+            List<String> record;
+            while (chunk.size() < Constants.CSV_IMPORT_CHUNK_SIZE && (record = reader.readRecord()) != null) {
+                rowsRead++;
+                Row row = parse(record, columns, reader.getLineNumber(), report);
+                if (row != null) {
+                    chunk.add(row);
+                }
+            }
+            finished = chunk.size() < Constants.CSV_IMPORT_CHUNK_SIZE;
+            return chunk;
+        }
+
+        void notifyListener() {
+            if (listener != null) {
+                listener.onProgress(rowsRead, report.inserted, report.updated);
+            }
+        }
+    }
+
+    private static class ChunkResult {
+        int inserted;
+        int updated;
+        final Map<String, String> newBrandIds = new HashMap<>();
+        final List<Row> conflicts = new ArrayList<>();
+        final List<String> conflictBarcodes = new ArrayList<>();
+    }
+
+    private static class Row {
+        long line;
+        String barcode;
+        String name;
+        String description;
+        String categoryName;
+        String categoryId;
+        String brandName;
+        Unit unit;
+        long buyPrice;
+        long sellPrice;
+        int margin;
+        long stock;
+        String status;
+    }
+}
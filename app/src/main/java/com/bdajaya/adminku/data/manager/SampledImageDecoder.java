@@ -0,0 +1,213 @@
+package com.bdajaya.adminku.data.manager;
+
+import android.content.ContentResolver;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decode gambar besar (foto kamera 48MP) tanpa pernah memuat resolusi penuh ke memori.
+ *
+ * Pass 1 hanya membaca ukuran (inJustDecodeBounds) dan tag EXIF orientation. Pass 2 decode
+ * dengan inSampleSize pangkat dua terbesar yang sisi panjangnya masih >= maxDimension, dan
+ * sisa skalanya dikerjakan decoder sendiri (inDensity/inTargetDensity), jadi bitmap yang
+ * dialokasikan sudah berukuran akhir. {@link #decodeSampled} berhenti di sini dan membiarkan
+ * orientasi EXIF untuk ditulis ulang ke JPEG hasil (tanpa salinan kedua); {@link #decode}
+ * memutar pixel, dan foto yang memang diputar butuh satu salinan sementara.
+ *
+ * Contoh: 8000x6000 (≈190MB ARGB penuh) → sample 4 (2000x1500) → 1920x1440, ≈11MB.
+ */
+public final class SampledImageDecoder {
+
+    private static final String TAG = "SampledImageDecoder";
+
+    private SampledImageDecoder() {
+    }
+
+    /**
+     * Hasil pass 1: ukuran asli dan orientasi EXIF, tanpa pixel.
+     */
+    public static final class Source {
+        public final int width;
+        public final int height;
+        public final int orientation;
+
+        Source(int width, int height, int orientation) {
+            this.width = width;
+            this.height = height;
+            this.orientation = orientation;
+        }
+
+        /**
+         * Perkiraan memori puncak decodeSampled() ke maxDimension: satu bitmap akhir ARGB_8888,
+         * foto diputar atau tidak. (decode() butuh satu salinan lagi untuk foto yang diputar.)
+         */
+        public long estimatePeakBytes(int maxDimension) {
+            float scale = Math.min(1f, (float) maxDimension / Math.max(width, height));
+            long pixels = (long) Math.ceil(width * scale) * (long) Math.ceil(height * scale);
+            return pixels * 4;
+        }
+
+        /**
+         * True kalau orientasi menukar lebar dan tinggi (putaran 90/270, dengan atau tanpa flip).
+         */
+        public boolean swapsDimensions() {
+            switch (orientation) {
+                case ExifInterface.ORIENTATION_TRANSPOSE:
+                case ExifInterface.ORIENTATION_ROTATE_90:
+                case ExifInterface.ORIENTATION_TRANSVERSE:
+                case ExifInterface.ORIENTATION_ROTATE_270:
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
+
+    /**
+     * Bitmap dengan orientasi benar dan sisi terpanjang <= maxDimension, atau null kalau Uri
+     * bukan gambar yang bisa di-decode.
+     */
+    @Nullable
+    public static Bitmap decode(@NonNull ContentResolver resolver, @NonNull Uri uri, int maxDimension)
+            throws IOException {
+        Source source = readSource(resolver, uri);
+        return source != null ? decode(resolver, uri, source, maxDimension) : null;
+    }
+
+    /**
+     * Pass 1: ukuran saja (tanpa alokasi pixel) dan tag EXIF orientation. Null kalau bukan gambar.
+     */
+    @Nullable
+    public static Source readSource(@NonNull ContentResolver resolver, @NonNull Uri uri) throws IOException {
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream in = open(resolver, uri)) {
+            BitmapFactory.decodeStream(in, null, bounds);
+        }
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            return null;
+        }
+        return new Source(bounds.outWidth, bounds.outHeight, readOrientation(resolver, uri));
+    }
+
+    /**
+     * Pass 2: decode langsung ke ukuran akhir, lalu terapkan orientasi dari pass 1.
+     */
+    @Nullable
+    public static Bitmap decode(@NonNull ContentResolver resolver, @NonNull Uri uri, @NonNull Source source,
+                                int maxDimension) throws IOException {
+        Bitmap bitmap = decodeSampled(resolver, uri, source, maxDimension);
+        return bitmap != null ? applyOrientation(bitmap, source.orientation) : null;
+    }
+
+    /**
+     * Pass 2 tanpa orientasi: pixel tetap seperti di sensor, pemanggil menulis source.orientation
+     * ke tag EXIF file hasil. Memori puncak tepat {@link Source#estimatePeakBytes}.
+     */
+    @Nullable
+    public static Bitmap decodeSampled(@NonNull ContentResolver resolver, @NonNull Uri uri,
+                                       @NonNull Source source, int maxDimension) throws IOException {
+        int longest = Math.max(source.width, source.height);
+        int sampleSize = calculateInSampleSize(source.width, source.height, maxDimension);
+        int sampledLongest = longest / sampleSize;
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sampleSize;
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        if (sampledLongest > maxDimension) {
+            options.inScaled = true;
+            options.inDensity = sampledLongest;
+            options.inTargetDensity = maxDimension;
+        }
+
+        Bitmap bitmap;
+        try (InputStream in = open(resolver, uri)) {
+            bitmap = BitmapFactory.decodeStream(in, null, options);
+        }
+        if (bitmap == null) {
+            return null;
+        }
+        // Decoder tidak menyimpan density sumber; jangan biarkan canvas/ImageView menskala ulang
+        bitmap.setDensity(Bitmap.DENSITY_NONE);
+        return bitmap;
+    }
+
+    /**
+     * Pangkat dua terbesar yang membuat sisi terpanjang tetap >= maxDimension (1 kalau gambar
+     * sudah lebih kecil).
+     */
+    public static int calculateInSampleSize(int width, int height, int maxDimension) {
+        int longest = Math.max(width, height);
+        int sampleSize = 1;
+        while (longest / (sampleSize * 2) >= maxDimension) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    private static InputStream open(ContentResolver resolver, Uri uri) throws IOException {
+        InputStream in = resolver.openInputStream(uri);
+        if (in == null) {
+            throw new IOException("Cannot open " + uri);
+        }
+        return in;
+    }
+
+    private static int readOrientation(ContentResolver resolver, Uri uri) {
+        try (InputStream in = open(resolver, uri)) {
+            return new ExifInterface(in).getAttributeInt(
+                    ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+        } catch (IOException | RuntimeException e) {
+            // PNG/WebP tanpa EXIF, atau EXIF rusak: anggap orientasi normal
+            Log.w(TAG, "No EXIF orientation for " + uri, e);
+            return ExifInterface.ORIENTATION_NORMAL;
+        }
+    }
+
+    private static Bitmap applyOrientation(Bitmap bitmap, int orientation) {
+        Matrix matrix = new Matrix();
+        switch (orientation) {
+            case ExifInterface.ORIENTATION_FLIP_HORIZONTAL:
+                matrix.setScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_180:
+                matrix.setRotate(180);
+                break;
+            case ExifInterface.ORIENTATION_FLIP_VERTICAL:
+                matrix.setScale(1, -1);
+                break;
+            case ExifInterface.ORIENTATION_TRANSPOSE:
+                matrix.setRotate(90);
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_90:
+                matrix.setRotate(90);
+                break;
+            case ExifInterface.ORIENTATION_TRANSVERSE:
+                matrix.setRotate(-90);
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_270:
+                matrix.setRotate(-90);
+                break;
+            default:
+                return bitmap;
+        }
+
+        Bitmap oriented = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+        if (oriented != bitmap) {
+            bitmap.recycle();
+        }
+        return oriented;
+    }
+}
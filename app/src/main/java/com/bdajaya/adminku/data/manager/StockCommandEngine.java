@@ -0,0 +1,225 @@
+package com.bdajaya.adminku.data.manager;
+
+import androidx.annotation.NonNull;
+
+import com.bdajaya.adminku.data.dao.StockTransactionDao;
+import com.bdajaya.adminku.data.entity.StockBalance;
+import com.bdajaya.adminku.data.entity.StockTransaction;
+import com.bdajaya.adminku.data.entity.Unit;
+import com.bdajaya.adminku.data.model.StockCommand;
+import com.bdajaya.adminku.data.model.StockCommandResult;
+import com.bdajaya.adminku.data.repository.UnitConversionTable;
+import com.bdajaya.adminku.data.repository.UnitRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Menjalankan StockCommand: konversi satu kali, validasi, lalu tulis ledger + saldo.
+ *
+ * apply() harus dipanggil di dalam transaksi database (StockRepository menjalankannya lewat
+ * WriteBatcher, jadi banyak command dari banyak thread di-commit bersama di writer):
+ * - Faktor konversi diambil dari UnitConversionTable (cache), tanpa query Unit.
+ * - REMOVE memakai UPDATE bersyarat (onHand >= qty), jadi cek saldo dan pengurangan tidak
+ *   bisa disela penulis lain dan stok tidak pernah minus.
+ * - Timestamp dijaga > lastAdjustAt, supaya ADD/REMOVE yang jatuh di milidetik yang sama
+ *   dengan ADJUST sebelumnya tetap terhitung di saldo.
+ * - Product.stock/status ikut diperbarui dari saldo baru.
+ *
+ * applyAll() menjalankan satu keranjang sekaligus: semua command berhasil, atau tidak ada yang
+ * ditulis sama sekali.
+ */
+public class StockCommandEngine {
+
+    private final StockTransactionDao stockTransactionDao;
+    private final Supplier<UnitConversionTable> units;
+
+    public StockCommandEngine(@NonNull StockTransactionDao stockTransactionDao,
+                              @NonNull UnitRepository unitRepository) {
+        this(stockTransactionDao, unitRepository::getConversionTable);
+    }
+
+    StockCommandEngine(@NonNull StockTransactionDao stockTransactionDao,
+                       @NonNull Supplier<UnitConversionTable> units) {
+        this.stockTransactionDao = stockTransactionDao;
+        this.units = units;
+    }
+
+    @NonNull
+    public StockCommandResult apply(@NonNull StockCommand command) {
+        boolean adjust = command.type == StockTransaction.TransactionType.ADJUST;
+        if (command.quantity < 0 || (command.quantity == 0 && !adjust)) {
+            return StockCommandResult.rejected(StockCommandResult.Status.INVALID_QUANTITY, 0, 0);
+        }
+
+        Unit unit = units.get().getUnit(command.unitId);
+        if (unit == null) {
+            return StockCommandResult.rejected(StockCommandResult.Status.UNKNOWN_UNIT, 0, 0);
+        }
+
+        long baseQuantity;
+        try {
+            baseQuantity = Math.multiplyExact(command.quantity, unit.getConversionFactor());
+        } catch (ArithmeticException e) {
+            return StockCommandResult.rejected(StockCommandResult.Status.INVALID_QUANTITY, 0, 0);
+        }
+
+        String productId = command.productId;
+        if (!stockTransactionDao.productExists(productId)) {
+            return StockCommandResult.rejected(StockCommandResult.Status.PRODUCT_NOT_FOUND, baseQuantity, 0);
+        }
+
+        long now = System.currentTimeMillis();
+        stockTransactionDao.ensureBalanceRow(productId, now);
+        StockBalance balance = stockTransactionDao.getBalance(productId);
+        long timestamp = Math.max(now, balance.getLastAdjustAt() + 1);
+
+        long onHand;
+        switch (command.type) {
+            case ADD:
+                stockTransactionDao.applyBalanceDelta(productId, baseQuantity, timestamp, now);
+                onHand = balance.getOnHand() + baseQuantity;
+                break;
+            case REMOVE:
+                if (stockTransactionDao.applyBalanceRemoveGuarded(productId, baseQuantity, timestamp, now) == 0) {
+                    return StockCommandResult.rejected(StockCommandResult.Status.INSUFFICIENT_STOCK,
+                            baseQuantity, balance.getOnHand());
+                }
+                onHand = balance.getOnHand() - baseQuantity;
+                break;
+            default:
+                // Movement yang sudah tercatat setelah timestamp ikut diputar ulang oleh query ini
+                stockTransactionDao.applyBalanceAdjust(productId, baseQuantity, timestamp, now);
+                onHand = stockTransactionDao.getTotalStockForProduct(productId);
+                break;
+        }
+
+        StockTransaction transaction = new StockTransaction.Builder(productId, command.type)
+                .quantity(baseQuantity)
+                .originalQuantity(command.quantity)
+                .originalConversionFactor(unit.getConversionFactor())
+                .unitId(command.unitId)
+                .notes(command.notes)
+                .timestamp(timestamp)
+                .build();
+        stockTransactionDao.insertLedgerRow(transaction);
+        stockTransactionDao.syncProductStock(productId, onHand, now);
+
+        return StockCommandResult.applied(transaction.getId(), baseQuantity, onHand);
+    }
+
+    /**
+     * All-or-nothing batch (checkout cart). Harus dipanggil di dalam transaksi database.
+     *
+     * Pass pertama hanya membaca: saldo tiap produk disimulasikan berurutan (ADD menambah,
+     * REMOVE dicek lalu mengurangi, ADJUST mengganti), jadi dua baris REMOVE untuk produk yang
+     * sama ikut dijumlahkan. Kalau ada baris yang ditolak, tidak ada yang ditulis: baris yang
+     * ditolak membawa alasannya, sisanya BATCH_REJECTED. Kalau semua lolos, setiap command
+     * dijalankan lewat {@link #apply}; penolakan di tahap ini tidak seharusnya terjadi (writer
+     * tunggal) dan dilempar sebagai exception supaya transaksi di-rollback.
+     *
+     * @return satu hasil per command, dengan urutan yang sama
+     */
+    @NonNull
+    public List<StockCommandResult> applyAll(@NonNull List<StockCommand> commands) {
+        List<StockCommandResult> rejections = check(commands);
+        if (rejections != null) {
+            return rejections;
+        }
+
+        List<StockCommandResult> results = new ArrayList<>(commands.size());
+        for (StockCommand command : commands) {
+            StockCommandResult result = apply(command);
+            if (!result.isApplied()) {
+                throw new IllegalStateException("Stock batch rejected after check: " + result.status
+                        + " for product " + command.productId);
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
+    /**
+     * Read-only pass of {@link #applyAll}: null when every command would apply.
+     */
+    private List<StockCommandResult> check(List<StockCommand> commands) {
+        StockCommandResult[] rejected = new StockCommandResult[commands.size()];
+        long[] baseQuantities = new long[commands.size()];
+        Map<String, Long> projected = new HashMap<>(); // productId -> simulated onHand
+        boolean anyRejected = false;
+
+        for (int i = 0; i < commands.size(); i++) {
+            StockCommand command = commands.get(i);
+            StockCommandResult rejection = null;
+
+            boolean adjust = command.type == StockTransaction.TransactionType.ADJUST;
+            Unit unit = units.get().getUnit(command.unitId);
+            if (command.quantity < 0 || (command.quantity == 0 && !adjust)) {
+                rejection = StockCommandResult.rejected(StockCommandResult.Status.INVALID_QUANTITY, 0, 0);
+            } else if (unit == null) {
+                rejection = StockCommandResult.rejected(StockCommandResult.Status.UNKNOWN_UNIT, 0, 0);
+            } else {
+                try {
+                    baseQuantities[i] = Math.multiplyExact(command.quantity, unit.getConversionFactor());
+                    rejection = simulate(command, baseQuantities[i], projected);
+                } catch (ArithmeticException e) {
+                    rejection = StockCommandResult.rejected(StockCommandResult.Status.INVALID_QUANTITY, 0, 0);
+                }
+            }
+
+            if (rejection != null) {
+                rejected[i] = rejection;
+                anyRejected = true;
+            }
+        }
+
+        if (!anyRejected) {
+            return null;
+        }
+        List<StockCommandResult> results = new ArrayList<>(commands.size());
+        for (int i = 0; i < commands.size(); i++) {
+            StockCommandResult result = rejected[i];
+            if (result == null) {
+                Long onHand = projected.get(commands.get(i).productId);
+                result = StockCommandResult.rejected(StockCommandResult.Status.BATCH_REJECTED,
+                        baseQuantities[i], onHand != null ? onHand : 0);
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
+    /**
+     * Apply one command to the simulated balance; returns the rejection, or null if it fits.
+     */
+    private StockCommandResult simulate(StockCommand command, long baseQuantity, Map<String, Long> projected) {
+        String productId = command.productId;
+        Long onHand = projected.get(productId);
+        if (onHand == null) {
+            if (!stockTransactionDao.productExists(productId)) {
+                return StockCommandResult.rejected(StockCommandResult.Status.PRODUCT_NOT_FOUND, baseQuantity, 0);
+            }
+            onHand = stockTransactionDao.getTotalStockForProduct(productId);
+        }
+
+        switch (command.type) {
+            case ADD:
+                projected.put(productId, Math.addExact(onHand, baseQuantity));
+                return null;
+            case REMOVE:
+                if (baseQuantity > onHand) {
+                    projected.put(productId, onHand);
+                    return StockCommandResult.rejected(StockCommandResult.Status.INSUFFICIENT_STOCK,
+                            baseQuantity, onHand);
+                }
+                projected.put(productId, onHand - baseQuantity);
+                return null;
+            default:
+                projected.put(productId, baseQuantity);
+                return null;
+        }
+    }
+}
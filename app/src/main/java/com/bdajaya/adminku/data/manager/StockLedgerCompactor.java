@@ -0,0 +1,221 @@
+package com.bdajaya.adminku.data.manager;
+
+import androidx.annotation.NonNull;
+
+import com.bdajaya.adminku.core.ErrorHandler;
+import com.bdajaya.adminku.data.AppDatabase;
+import com.bdajaya.adminku.data.WriteBatcher;
+import com.bdajaya.adminku.data.dao.StockTransactionDao;
+import com.bdajaya.adminku.data.entity.StockTransaction;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Kompaksi ledger stok: transaksi sebelum cutoff dilipat menjadi baris checkpoint.
+ *
+ * Per produk (satu command WriteBatcher per produk, jadi kompaksi antri di writer thread dan tidak
+ * merebut lock SQLite dari tulisan lain; command hanya kerja database sehingga aman diulang):
+ * - Semua baris sampai ADJUST terakhir sebelum cutoff menjadi satu baris ADJUST checkpoint
+ *   (ADD/REMOVE sebelum ADJUST memang tidak mempengaruhi saldo).
+ * - ADD/REMOVE setelah ADJUST tersebut menjadi satu baris net per unit.
+ * - Baris mentah (bukan checkpoint) direkap ke StockMonthlySummary sebelum dihapus.
+ *
+ * Hasil lipatan memberi saldo yang sama persis, sehingga StockBalance tidak disentuh dan
+ * rebuild dari ledger tetap menghasilkan angka yang sama.
+ */
+public class StockLedgerCompactor {
+
+    private static final String OPERATION = "compactLedger";
+
+    private final WriteBatcher writeBatcher;
+    private final StockTransactionDao stockTransactionDao;
+
+    public StockLedgerCompactor(@NonNull AppDatabase database) {
+        this(WriteBatcher.getInstance(database), database.stockTransactionDao());
+    }
+
+    StockLedgerCompactor(@NonNull WriteBatcher writeBatcher, @NonNull StockTransactionDao stockTransactionDao) {
+        this.writeBatcher = writeBatcher;
+        this.stockTransactionDao = stockTransactionDao;
+    }
+
+    /**
+     * Produk dikompaksi satu per satu: command berikutnya baru diantrikan setelah yang sebelumnya
+     * commit, tanpa thread yang menunggu writer. Daftar produk dibaca di thread pemanggil
+     * (background).
+     *
+     * @return future jumlah baris ledger yang berkurang
+     */
+    public CompletableFuture<Integer> compactOlderThan(long cutoff) {
+        List<String> productIds = stockTransactionDao.getProductIdsToCompact(cutoff);
+        return compactFrom(productIds, 0, cutoff, 0).whenComplete((removed, error) -> {
+            if (error != null) {
+                ErrorHandler.logError(ErrorHandler.ERROR_CODE_DATABASE,
+                        "Operation failed: " + OPERATION + " - " + error.getMessage(),
+                        error instanceof Exception ? (Exception) error : null);
+            } else {
+                ErrorHandler.logDebug("Operation completed successfully: " + OPERATION + ": "
+                        + productIds.size() + " products, " + removed + " rows removed");
+            }
+        });
+    }
+
+    private CompletableFuture<Integer> compactFrom(List<String> productIds, int index, long cutoff, int removed) {
+        if (index >= productIds.size()) {
+            return CompletableFuture.completedFuture(removed);
+        }
+        String productId = productIds.get(index);
+        // Satu produk per command: tulisan interaktif bisa menyelip di antara produk
+        return writeBatcher.submit(() -> compactProduct(productId, cutoff))
+                .thenCompose(count -> compactFrom(productIds, index + 1, cutoff, removed + count));
+    }
+
+    private int compactProduct(String productId, long cutoff) {
+        List<StockTransaction> rows = stockTransactionDao.getLedgerBefore(productId, cutoff);
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        writeMonthlySummaries(productId, rows);
+
+        StockTransaction lastAdjust = null;
+        for (StockTransaction row : rows) {
+            if (row.isAdjustment()) {
+                lastAdjust = row;
+            }
+        }
+        long adjustPoint = lastAdjust != null ? lastAdjust.getTimestamp() : Long.MIN_VALUE;
+
+        List<StockTransaction> checkpoints = new ArrayList<>();
+        if (lastAdjust != null) {
+            checkpoints.add(new StockTransaction.Builder(productId, StockTransaction.TransactionType.ADJUST)
+                    .quantity(lastAdjust.getQuantity())
+                    .originalQuantity(lastAdjust.getOriginalQuantity())
+                    .originalConversionFactor(lastAdjust.getOriginalConversionFactor())
+                    .unitId(lastAdjust.getUnitId())
+                    .notes(lastAdjust.getNotes())
+                    .timestamp(lastAdjust.getTimestamp())
+                    .checkpoint(true)
+                    .build());
+        }
+
+        // Net ADD/REMOVE per unit setelah ADJUST terakhir (urutan unit dipertahankan)
+        Map<String, NetMovement> netByUnit = new LinkedHashMap<>();
+        for (StockTransaction row : rows) {
+            if (row.getTimestamp() <= adjustPoint || row.isAdjustment()) {
+                continue;
+            }
+            NetMovement net = netByUnit.get(row.getUnitId());
+            if (net == null) {
+                net = new NetMovement(row.getOriginalConversionFactor());
+                netByUnit.put(row.getUnitId(), net);
+            }
+            net.add(row);
+        }
+
+        for (Map.Entry<String, NetMovement> entry : netByUnit.entrySet()) {
+            NetMovement net = entry.getValue();
+            if (net.quantity == 0) {
+                continue;
+            }
+            long quantity = Math.abs(net.quantity);
+            boolean keepFactor = net.factor > 0 && quantity % net.factor == 0;
+            checkpoints.add(new StockTransaction.Builder(productId, net.quantity > 0
+                    ? StockTransaction.TransactionType.ADD
+                    : StockTransaction.TransactionType.REMOVE)
+                    .quantity(quantity)
+                    .originalQuantity(keepFactor ? quantity / net.factor : quantity)
+                    .originalConversionFactor(keepFactor ? net.factor : 1)
+                    .unitId(entry.getKey())
+                    .notes("Checkpoint " + net.count + " transaksi")
+                    .timestamp(net.lastTimestamp)
+                    .checkpoint(true)
+                    .build());
+        }
+
+        int deleted = stockTransactionDao.deleteLedgerBefore(productId, cutoff);
+        for (StockTransaction checkpoint : checkpoints) {
+            // Langsung ke ledger: saldo tidak berubah, jadi StockBalance tidak diterapkan ulang
+            stockTransactionDao.insertLedgerRow(checkpoint);
+        }
+        return deleted - checkpoints.size();
+    }
+
+    private void writeMonthlySummaries(String productId, List<StockTransaction> rows) {
+        ZoneId zone = ZoneId.systemDefault();
+        Map<String, MonthBucket> buckets = new HashMap<>();
+
+        for (StockTransaction row : rows) {
+            if (row.isCheckpoint()) {
+                continue; // sudah direkap saat kompaksi sebelumnya
+            }
+            String month = YearMonth.from(Instant.ofEpochMilli(row.getTimestamp()).atZone(zone)).toString();
+            String key = row.getUnitId() + '|' + month;
+            MonthBucket bucket = buckets.get(key);
+            if (bucket == null) {
+                bucket = new MonthBucket(row.getUnitId(), month);
+                buckets.put(key, bucket);
+            }
+            bucket.add(row);
+        }
+
+        for (MonthBucket bucket : buckets.values()) {
+            stockTransactionDao.ensureMonthlySummary(productId, bucket.unitId, bucket.month);
+            stockTransactionDao.addToMonthlySummary(productId, bucket.unitId, bucket.month,
+                    bucket.addQuantity, bucket.removeQuantity, bucket.adjustCount, bucket.transactionCount);
+        }
+    }
+
+    private static final class NetMovement {
+        long quantity;
+        long lastTimestamp;
+        long factor;
+        int count;
+
+        NetMovement(long factor) {
+            this.factor = factor;
+        }
+
+        void add(StockTransaction row) {
+            quantity += row.getEffectiveQuantity();
+            lastTimestamp = Math.max(lastTimestamp, row.getTimestamp());
+            if (row.getOriginalConversionFactor() != factor) {
+                factor = 0; // faktor konversi berubah di tengah jalan, simpan dalam base unit
+            }
+            count++;
+        }
+    }
+
+    private static final class MonthBucket {
+        final String unitId;
+        final String month;
+        long addQuantity;
+        long removeQuantity;
+        int adjustCount;
+        int transactionCount;
+
+        MonthBucket(String unitId, String month) {
+            this.unitId = unitId;
+            this.month = month;
+        }
+
+        void add(StockTransaction row) {
+            if (row.isAddition()) {
+                addQuantity += row.getQuantity();
+            } else if (row.isRemoval()) {
+                removeQuantity += row.getQuantity();
+            } else if (row.isAdjustment()) {
+                adjustCount++;
+            }
+            transactionCount++;
+        }
+    }
+}
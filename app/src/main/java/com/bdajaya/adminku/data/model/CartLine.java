@@ -0,0 +1,38 @@
+package com.bdajaya.adminku.data.model;
+
+import androidx.annotation.NonNull;
+
+/**
+ * One checkout cart line: quantity is in the product's own unit, price is per unit (cents).
+ * Immutable; the cart replaces a line when its quantity changes.
+ */
+public final class CartLine {
+    @NonNull
+    public final String productId;
+    @NonNull
+    public final String barcode;
+    public final String name;
+    @NonNull
+    public final String unitId;
+    public final long unitPrice;
+    public final long quantity;
+
+    public CartLine(@NonNull String productId, @NonNull String barcode, String name, @NonNull String unitId,
+                    long unitPrice, long quantity) {
+        this.productId = productId;
+        this.barcode = barcode;
+        this.name = name;
+        this.unitId = unitId;
+        this.unitPrice = unitPrice;
+        this.quantity = quantity;
+    }
+
+    @NonNull
+    public CartLine withQuantity(long quantity) {
+        return new CartLine(productId, barcode, name, unitId, unitPrice, quantity);
+    }
+
+    public long getSubtotal() {
+        return unitPrice * quantity;
+    }
+}
@@ -15,6 +15,15 @@ public class CategoryWithPath {
         buildPathString();
     }
 
+    /**
+     * Use a precomputed path string (e.g. from CategoryTreeCache) instead of rebuilding it.
+     */
+    public CategoryWithPath(Category category, List<Category> pathToRoot, String pathString) {
+        this.category = category;
+        this.pathToRoot = pathToRoot;
+        this.pathString = pathString;
+    }
+
     private void buildPathString() {
         StringBuilder sb = new StringBuilder();
         for (int i = pathToRoot.size() - 1; i >= 0; i--) {
@@ -65,6 +65,23 @@ public class ProductWithDetails {
         return null;
     }
 
+    /**
+     * Thumbnail gambar utama untuk list/grid (file asli kalau thumbnail belum ada).
+     */
+    public String getFirstThumbnailPath() {
+        if (images != null && !images.isEmpty()) {
+            return images.get(0).getDisplayPath();
+        }
+        return null;
+    }
+
+    /**
+     * True while the main image is still being encoded by ImageIngestionWorker.
+     */
+    public boolean isFirstImagePending() {
+        return images != null && !images.isEmpty() && images.get(0).isPending();
+    }
+
     public boolean hasImages() {
         return images != null && !images.isEmpty();
     }
@@ -0,0 +1,101 @@
+package com.bdajaya.adminku.data.model;
+
+import androidx.annotation.NonNull;
+
+import com.bdajaya.adminku.data.entity.Brand;
+import com.bdajaya.adminku.data.entity.Unit;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Hasil pencarian gabungan, dikelompokkan per jenis. Tiap grup berisi hit teratas (sudah
+ * diurutkan menurut relevansi) dan jumlah semua yang cocok.
+ */
+public class SearchResults {
+
+    public enum Kind {
+        PRODUCT,
+        CATEGORY,
+        BRAND,
+        UNIT
+    }
+
+    private final String query;
+    private final Group<ProductWithDetails> products;
+    private final Group<CategoryWithPath> categories;
+    private final Group<Brand> brands;
+    private final Group<Unit> units;
+
+    public SearchResults(String query, Group<ProductWithDetails> products, Group<CategoryWithPath> categories,
+                         Group<Brand> brands, Group<Unit> units) {
+        this.query = query;
+        this.products = products;
+        this.categories = categories;
+        this.brands = brands;
+        this.units = units;
+    }
+
+    public static SearchResults empty(String query) {
+        return new SearchResults(query, Group.empty(), Group.empty(), Group.empty(), Group.empty());
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    @NonNull
+    public Group<ProductWithDetails> getProducts() {
+        return products;
+    }
+
+    @NonNull
+    public Group<CategoryWithPath> getCategories() {
+        return categories;
+    }
+
+    @NonNull
+    public Group<Brand> getBrands() {
+        return brands;
+    }
+
+    @NonNull
+    public Group<Unit> getUnits() {
+        return units;
+    }
+
+    public int getTotalCount() {
+        return products.getTotalCount() + categories.getTotalCount()
+                + brands.getTotalCount() + units.getTotalCount();
+    }
+
+    public static final class Group<T> {
+        private final List<T> hits;
+        private final int totalCount;
+
+        public Group(@NonNull List<T> hits, int totalCount) {
+            this.hits = hits;
+            this.totalCount = Math.max(totalCount, hits.size());
+        }
+
+        public static <T> Group<T> empty() {
+            return new Group<>(Collections.emptyList(), 0);
+        }
+
+        @NonNull
+        public List<T> getHits() {
+            return hits;
+        }
+
+        /**
+         * Jumlah semua yang cocok (tidak dibatasi limit), minimal getHits().size().
+         */
+        public int getTotalCount() {
+            return totalCount;
+        }
+
+        public boolean isEmpty() {
+            return hits.isEmpty();
+        }
+    }
+}
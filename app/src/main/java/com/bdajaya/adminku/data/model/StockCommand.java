@@ -0,0 +1,49 @@
+package com.bdajaya.adminku.data.model;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bdajaya.adminku.data.entity.StockTransaction;
+
+/**
+ * One stock movement as entered by the user: quantity is in the given unit, NOT in base unit.
+ * Conversion happens exactly once, in StockCommandEngine.
+ */
+public final class StockCommand {
+    @NonNull
+    public final String productId;
+    @NonNull
+    public final String unitId;
+    public final long quantity;
+    @NonNull
+    public final StockTransaction.TransactionType type;
+    @Nullable
+    public final String notes;
+
+    public StockCommand(@NonNull String productId, @NonNull String unitId, long quantity,
+                        @NonNull StockTransaction.TransactionType type, @Nullable String notes) {
+        this.productId = productId;
+        this.unitId = unitId;
+        this.quantity = quantity;
+        this.type = type;
+        this.notes = notes;
+    }
+
+    public static StockCommand add(@NonNull String productId, long quantity, @NonNull String unitId,
+                                   @Nullable String notes) {
+        return new StockCommand(productId, unitId, quantity, StockTransaction.TransactionType.ADD, notes);
+    }
+
+    public static StockCommand remove(@NonNull String productId, long quantity, @NonNull String unitId,
+                                      @Nullable String notes) {
+        return new StockCommand(productId, unitId, quantity, StockTransaction.TransactionType.REMOVE, notes);
+    }
+
+    /**
+     * Set the stock level to an absolute quantity.
+     */
+    public static StockCommand adjust(@NonNull String productId, long quantity, @NonNull String unitId,
+                                      @Nullable String notes) {
+        return new StockCommand(productId, unitId, quantity, StockTransaction.TransactionType.ADJUST, notes);
+    }
+}
@@ -0,0 +1,68 @@
+package com.bdajaya.adminku.data.model;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Outcome of a StockCommand. Rejections are values, not exceptions, so a rejected command
+ * inside a group-committed batch never rolls back the other writes in that batch.
+ */
+public final class StockCommandResult {
+
+    public enum Status {
+        APPLIED,
+        INSUFFICIENT_STOCK,
+        UNKNOWN_UNIT,
+        PRODUCT_NOT_FOUND,
+        INVALID_QUANTITY,
+        BATCH_REJECTED // valid on its own, not applied because another command in the batch was rejected
+    }
+
+    @NonNull
+    public final Status status;
+    @Nullable
+    public final String transactionId;
+    public final long baseQuantity; // in base unit, 0 when the unit was unknown
+    public final long onHand; // in base unit: balance after the command, or current balance if rejected
+
+    private StockCommandResult(@NonNull Status status, @Nullable String transactionId,
+                               long baseQuantity, long onHand) {
+        this.status = status;
+        this.transactionId = transactionId;
+        this.baseQuantity = baseQuantity;
+        this.onHand = onHand;
+    }
+
+    public static StockCommandResult applied(@NonNull String transactionId, long baseQuantity, long onHand) {
+        return new StockCommandResult(Status.APPLIED, transactionId, baseQuantity, onHand);
+    }
+
+    public static StockCommandResult rejected(@NonNull Status status, long baseQuantity, long onHand) {
+        return new StockCommandResult(status, null, baseQuantity, onHand);
+    }
+
+    public boolean isApplied() {
+        return status == Status.APPLIED;
+    }
+
+    /**
+     * Pesan untuk ditampilkan ke user (null kalau berhasil).
+     */
+    @Nullable
+    public String getErrorMessage() {
+        switch (status) {
+            case INSUFFICIENT_STOCK:
+                return "Stok tidak mencukupi. Stok tersedia: " + onHand;
+            case UNKNOWN_UNIT:
+                return "Satuan tidak ditemukan";
+            case PRODUCT_NOT_FOUND:
+                return "Produk tidak ditemukan";
+            case INVALID_QUANTITY:
+                return "Kuantitas tidak valid";
+            case BATCH_REJECTED:
+                return "Dibatalkan karena item lain dalam transaksi ditolak";
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.bdajaya.adminku.data.model;
+
+import androidx.annotation.Nullable;
+import androidx.room.Embedded;
+
+import com.bdajaya.adminku.data.entity.StockTransaction;
+import com.bdajaya.adminku.data.entity.Unit;
+
+/**
+ * Satu baris timeline stok: transaksi + unit hasil JOIN dalam query yang sama
+ * (tanpa @Relation, sehingga satu halaman = satu query).
+ */
+public class StockTimelineEntry {
+    @Embedded
+    public StockTransaction transaction;
+
+    @Nullable
+    @Embedded(prefix = "unit_")
+    public Unit unit;
+
+    public String getDisplayText() {
+        if (unit == null) return transaction.getDisplayQuantity();
+        return transaction.getDisplayQuantity() + " " + unit.getName();
+    }
+}
@@ -0,0 +1,134 @@
+package com.bdajaya.adminku.data.paging;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.paging.ListenableFuturePagingSource;
+import androidx.paging.PagingState;
+import androidx.room.InvalidationTracker;
+
+import com.bdajaya.adminku.data.AppDatabase;
+import com.bdajaya.adminku.data.dao.ProductDao;
+import com.bdajaya.adminku.data.model.ProductWithDetails;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * PagingSource produk per status dengan keyset pagination pada (name, id).
+ *
+ * Setiap halaman adalah satu range scan pada index (status, name, id) sehingga biayanya
+ * tidak bergantung pada posisi scroll (tidak ada OFFSET). Source di-invalidate oleh
+ * InvalidationTracker saat tabel yang dibaca berubah; Pager lalu membuat source baru
+ * yang mulai dari key hasil {@link #getRefreshKey(PagingState)}.
+ */
+public class ProductKeysetPagingSource
+        extends ListenableFuturePagingSource<ProductKeysetPagingSource.Key, ProductWithDetails> {
+
+    private static final String[] OBSERVED_TABLES = {"Product", "ProductImage", "Category", "Brand", "Unit"};
+
+    private final ProductDao productDao;
+    private final String status;
+    private final ListeningExecutorService executor;
+
+    public ProductKeysetPagingSource(AppDatabase database, ProductDao productDao, String status,
+                                     Executor reader) {
+        this.productDao = productDao;
+        this.status = status;
+        this.executor = MoreExecutors.listeningDecorator(reader);
+
+        InvalidationTracker tracker = database.getInvalidationTracker();
+        InvalidationTracker.Observer observer = new InvalidationTracker.Observer(OBSERVED_TABLES) {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                invalidate();
+            }
+        };
+        tracker.addObserver(observer);
+        registerInvalidatedCallback(() -> {
+            tracker.removeObserver(observer);
+            return kotlin.Unit.INSTANCE;
+        });
+    }
+
+    @NonNull
+    @Override
+    public ListenableFuture<LoadResult<Key, ProductWithDetails>> loadFuture(@NonNull LoadParams<Key> params) {
+        return executor.submit(() -> {
+            try {
+                return loadPage(params);
+            } catch (Exception e) {
+                return new LoadResult.Error<>(e);
+            }
+        });
+    }
+
+    private LoadResult<Key, ProductWithDetails> loadPage(LoadParams<Key> params) {
+        if (isInvalid()) {
+            return new LoadResult.Invalid<>();
+        }
+
+        Key key = params.getKey();
+        int limit = params.getLoadSize();
+
+        if (params instanceof LoadParams.Prepend) {
+            List<ProductWithDetails> page = productDao.getPageBefore(status, key.name, key.id, limit);
+            Collections.reverse(page);
+            Key prevKey = page.size() < limit ? null : Key.of(page.get(0));
+            Key nextKey = page.isEmpty() ? null : Key.of(page.get(page.size() - 1));
+            return new LoadResult.Page<>(page, prevKey, nextKey);
+        }
+
+        List<ProductWithDetails> page;
+        Key prevKey;
+        if (params instanceof LoadParams.Append) {
+            page = productDao.getPageAfter(status, key.name, key.id, limit);
+            prevKey = page.isEmpty() ? null : Key.of(page.get(0));
+        } else if (key == null) {
+            page = productDao.getPageFirst(status, limit);
+            prevKey = null;
+        } else {
+            page = productDao.getPageFrom(status, key.name, key.id, limit);
+            prevKey = page.isEmpty() ? null : Key.of(page.get(0));
+        }
+        Key nextKey = page.size() < limit ? null : Key.of(page.get(page.size() - 1));
+        return new LoadResult.Page<>(page, prevKey, nextKey);
+    }
+
+    /**
+     * Mulai refresh sedikit di atas item yang sedang terlihat agar posisi scroll tetap.
+     */
+    @Nullable
+    @Override
+    public Key getRefreshKey(@NonNull PagingState<Key, ProductWithDetails> state) {
+        Integer anchorPosition = state.getAnchorPosition();
+        if (anchorPosition == null) {
+            return null;
+        }
+        int position = Math.max(0, anchorPosition - state.getConfig().pageSize / 2);
+        ProductWithDetails item = state.closestItemToPosition(position);
+        return item != null ? Key.of(item) : null;
+    }
+
+    /**
+     * Posisi dalam urutan (name, id). Untuk refresh bersifat inklusif, untuk append/prepend
+     * bersifat eksklusif.
+     */
+    public static final class Key {
+        final String name;
+        final String id;
+
+        Key(String name, String id) {
+            this.name = name;
+            this.id = id;
+        }
+
+        static Key of(ProductWithDetails item) {
+            return new Key(item.product.getName(), item.product.getId());
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.bdajaya.adminku.data.paging;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.paging.ListenableFuturePagingSource;
+import androidx.paging.PagingState;
+import androidx.room.InvalidationTracker;
+
+import com.bdajaya.adminku.data.AppDatabase;
+import com.bdajaya.adminku.data.dao.StockTransactionDao;
+import com.bdajaya.adminku.data.model.StockTimelineEntry;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * PagingSource timeline stok satu produk, terbaru di atas, dengan cursor (timestamp, id).
+ *
+ * Setiap halaman memakai index (productId, timestamp) mulai dari cursor, jadi halaman ke-1000
+ * sama murahnya dengan halaman pertama. Unit ikut di-JOIN dalam query yang sama.
+ */
+public class StockTimelinePagingSource
+        extends ListenableFuturePagingSource<StockTimelinePagingSource.Cursor, StockTimelineEntry> {
+
+    private static final String[] OBSERVED_TABLES = {"StockTransaction", "Unit"};
+
+    private final StockTransactionDao stockTransactionDao;
+    private final String productId;
+    private final ListeningExecutorService executor;
+
+    public StockTimelinePagingSource(AppDatabase database, StockTransactionDao stockTransactionDao,
+                                     String productId, Executor reader) {
+        this.stockTransactionDao = stockTransactionDao;
+        this.productId = productId;
+        this.executor = MoreExecutors.listeningDecorator(reader);
+
+        InvalidationTracker tracker = database.getInvalidationTracker();
+        InvalidationTracker.Observer observer = new InvalidationTracker.Observer(OBSERVED_TABLES) {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                invalidate();
+            }
+        };
+        tracker.addObserver(observer);
+        registerInvalidatedCallback(() -> {
+            tracker.removeObserver(observer);
+            return kotlin.Unit.INSTANCE;
+        });
+    }
+
+    @NonNull
+    @Override
+    public ListenableFuture<LoadResult<Cursor, StockTimelineEntry>> loadFuture(@NonNull LoadParams<Cursor> params) {
+        return executor.submit(() -> {
+            try {
+                return loadPage(params);
+            } catch (Exception e) {
+                return new LoadResult.Error<>(e);
+            }
+        });
+    }
+
+    private LoadResult<Cursor, StockTimelineEntry> loadPage(LoadParams<Cursor> params) {
+        if (isInvalid()) {
+            return new LoadResult.Invalid<>();
+        }
+
+        Cursor cursor = params.getKey();
+        int limit = params.getLoadSize();
+
+        if (params instanceof LoadParams.Prepend) {
+            List<StockTimelineEntry> page = stockTransactionDao.getTimelineNewer(
+                    productId, cursor.timestamp, cursor.id, limit);
+            Collections.reverse(page);
+            Cursor prevKey = page.size() < limit ? null : Cursor.of(page.get(0));
+            Cursor nextKey = page.isEmpty() ? null : Cursor.of(page.get(page.size() - 1));
+            return new LoadResult.Page<>(page, prevKey, nextKey);
+        }
+
+        List<StockTimelineEntry> page;
+        Cursor prevKey;
+        if (params instanceof LoadParams.Append) {
+            page = stockTransactionDao.getTimelineOlder(productId, cursor.timestamp, cursor.id, limit);
+            prevKey = page.isEmpty() ? null : Cursor.of(page.get(0));
+        } else if (cursor == null) {
+            page = stockTransactionDao.getTimelineFirst(productId, limit);
+            prevKey = null;
+        } else {
+            page = stockTransactionDao.getTimelineFrom(productId, cursor.timestamp, cursor.id, limit);
+            prevKey = page.isEmpty() ? null : Cursor.of(page.get(0));
+        }
+        Cursor nextKey = page.size() < limit ? null : Cursor.of(page.get(page.size() - 1));
+        return new LoadResult.Page<>(page, prevKey, nextKey);
+    }
+
+    @Nullable
+    @Override
+    public Cursor getRefreshKey(@NonNull PagingState<Cursor, StockTimelineEntry> state) {
+        Integer anchorPosition = state.getAnchorPosition();
+        if (anchorPosition == null) {
+            return null;
+        }
+        int position = Math.max(0, anchorPosition - state.getConfig().pageSize / 2);
+        StockTimelineEntry item = state.closestItemToPosition(position);
+        return item != null ? Cursor.of(item) : null;
+    }
+
+    /**
+     * Posisi dalam urutan (timestamp DESC, id DESC).
+     */
+    public static final class Cursor {
+        public final long timestamp;
+        public final String id;
+
+        public Cursor(long timestamp, String id) {
+            this.timestamp = timestamp;
+            this.id = id;
+        }
+
+        public static Cursor of(StockTimelineEntry entry) {
+            return new Cursor(entry.transaction.getTimestamp(), entry.transaction.getId());
+        }
+    }
+}
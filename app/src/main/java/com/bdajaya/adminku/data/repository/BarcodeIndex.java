@@ -0,0 +1,261 @@
+package com.bdajaya.adminku.data.repository;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.room.InvalidationTracker;
+
+import com.bdajaya.adminku.core.ErrorHandler;
+import com.bdajaya.adminku.data.AppDatabase;
+import com.bdajaya.adminku.data.dao.ProductDao;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory barcode → (product, unit, price, stock) map for checkout scanning.
+ *
+ * Built with one query at session start ({@link #load()}). After that only changed products are
+ * read: SQL triggers record every changed Product rowid (including every product of a unit whose
+ * conversion factor changes) in ProductChange with an increasing seq, the index
+ * observes only that table, and an update reads the rows with seq above the last one it applied.
+ * Updates queued while one is pending are coalesced. A scan is a single map lookup and never
+ * touches the database, so it is safe on the main thread.
+ *
+ * Between a write and the update a lookup may see the previous price/stock. That is fine for
+ * scanning: the stock check that counts happens again in the ledger when the cart is committed.
+ * One index per checkout session; {@link #close()} detaches it from the tracker.
+ */
+public class BarcodeIndex {
+    private static final String OBSERVED_TABLE = "ProductChange";
+
+    /**
+     * Queries the index needs; ProductDao in the app, a fake in tests.
+     */
+    interface Source {
+        long lastChangeSeq();
+
+        List<ProductDao.BarcodeRow> allRows();
+
+        List<ProductDao.BarcodeRow> rowsChangedAfter(long seq);
+    }
+
+    private final Source source;
+    private final Executor executor;
+    private final Runnable detach;
+    private final Map<String, Entry> byBarcode = new ConcurrentHashMap<>();
+    /** Guarded by applyLock, like lastSeq: barcode currently indexed for each Product rowid. */
+    private final Map<Long, String> barcodeByDocid = new HashMap<>();
+    private final Object applyLock = new Object();
+    private long lastSeq;
+    /** Bumped on every invalidation; the index is stale while appliedGeneration lags behind. */
+    private final AtomicLong generation = new AtomicLong();
+    private volatile long appliedGeneration = -1; // -1: not loaded
+    private final AtomicBoolean updateScheduled = new AtomicBoolean(false);
+    private volatile boolean closed;
+
+    public BarcodeIndex(@NonNull AppDatabase database, @NonNull Executor executor) {
+        ProductDao productDao = database.productDao();
+        this.source = new Source() {
+            @Override
+            public long lastChangeSeq() {
+                return productDao.getLastProductChangeSeq();
+            }
+
+            @Override
+            public List<ProductDao.BarcodeRow> allRows() {
+                return productDao.getBarcodeRows();
+            }
+
+            @Override
+            public List<ProductDao.BarcodeRow> rowsChangedAfter(long seq) {
+                return productDao.getBarcodeRowsChangedAfter(seq);
+            }
+        };
+        this.executor = executor;
+        InvalidationTracker.Observer observer = new InvalidationTracker.Observer(OBSERVED_TABLE) {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                invalidate();
+            }
+        };
+        database.getInvalidationTracker().addObserver(observer);
+        this.detach = () -> database.getInvalidationTracker().removeObserver(observer);
+    }
+
+    /**
+     * For tests: no tracker; call {@link #invalidate()} to simulate a write.
+     */
+    BarcodeIndex(@NonNull Source source, @NonNull Executor executor) {
+        this.source = source;
+        this.executor = executor;
+        this.detach = () -> {};
+    }
+
+    /**
+     * Build the index now. Blocking; call from a background thread.
+     */
+    public void load() {
+        synchronized (applyLock) {
+            long target = generation.get();
+            // seq first: a change committed before the rows are read is simply applied twice
+            long seq = source.lastChangeSeq();
+            List<ProductDao.BarcodeRow> rows = source.allRows();
+            byBarcode.clear();
+            barcodeByDocid.clear();
+            for (ProductDao.BarcodeRow row : rows) {
+                apply(row);
+            }
+            lastSeq = seq;
+            appliedGeneration = target;
+        }
+    }
+
+    /**
+     * Marks the index stale and schedules a background update of the changed products.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        if (!closed && updateScheduled.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                updateScheduled.set(false);
+                if (closed) {
+                    return;
+                }
+                try {
+                    update();
+                } catch (Exception e) {
+                    ErrorHandler.logError(ErrorHandler.ERROR_CODE_DATABASE, "Failed to update barcode index", e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Entry for a scanned barcode, or null when no product has it (or the index is not loaded).
+     * Scanner input is trimmed; internal BE- barcodes also match when typed in lower case.
+     */
+    @Nullable
+    public Entry lookup(@Nullable String barcode) {
+        if (barcode == null) {
+            return null;
+        }
+        String key = barcode.trim();
+        Entry entry = byBarcode.get(key);
+        if (entry == null && !key.isEmpty()) {
+            entry = byBarcode.get(key.toUpperCase(Locale.ROOT));
+        }
+        return entry;
+    }
+
+    public boolean isLoaded() {
+        return appliedGeneration >= 0;
+    }
+
+    /**
+     * True while a write has not been folded into the index yet.
+     */
+    public boolean isStale() {
+        return appliedGeneration != generation.get();
+    }
+
+    public int size() {
+        return byBarcode.size();
+    }
+
+    public void close() {
+        closed = true;
+        detach.run();
+        synchronized (applyLock) {
+            byBarcode.clear();
+            barcodeByDocid.clear();
+            appliedGeneration = -1;
+        }
+    }
+
+    private void update() {
+        synchronized (applyLock) {
+            if (closed) {
+                return;
+            }
+            if (appliedGeneration < 0) {
+                load();
+                return;
+            }
+            long target = generation.get();
+            for (ProductDao.BarcodeRow row : source.rowsChangedAfter(lastSeq)) {
+                apply(row);
+                lastSeq = Math.max(lastSeq, row.seq);
+            }
+            appliedGeneration = target;
+        }
+    }
+
+    /**
+     * Replace whatever docid had with its current row; a deleted product or cleared barcode only
+     * removes. The old key is dropped only if it still belongs to docid, so two products swapping
+     * barcodes end up right whatever order their rows come in.
+     */
+    private void apply(ProductDao.BarcodeRow row) {
+        String previous = barcodeByDocid.remove(row.docid);
+        if (previous != null) {
+            Entry indexed = byBarcode.get(previous);
+            if (indexed != null && indexed.docid == row.docid) {
+                byBarcode.remove(previous);
+            }
+        }
+        if (row.productId == null || row.barcode == null || row.barcode.isEmpty()) {
+            return;
+        }
+        byBarcode.put(row.barcode, new Entry(row));
+        barcodeByDocid.put(row.docid, row.barcode);
+    }
+
+    /**
+     * What a scan needs to price a cart line and pre-check stock. Stock is in base unit;
+     * conversionFactor converts one product unit to base unit.
+     */
+    public static final class Entry {
+        @NonNull
+        public final String productId;
+        @NonNull
+        public final String barcode;
+        public final String name;
+        @NonNull
+        public final String unitId;
+        public final long conversionFactor;
+        public final long sellPrice; // in cents, per product unit
+        public final long stock; // in base unit
+        public final String status;
+        final long docid; // Product.rowid
+
+        Entry(ProductDao.BarcodeRow row) {
+            this.docid = row.docid;
+            this.productId = row.productId;
+            this.barcode = row.barcode;
+            this.name = row.name;
+            this.unitId = row.unitId;
+            this.conversionFactor = row.conversionFactor > 0 ? row.conversionFactor : 1;
+            this.sellPrice = row.sellPrice;
+            this.stock = row.stock;
+            this.status = row.status;
+        }
+
+        public boolean isArchived() {
+            return "ARCHIVED".equals(status);
+        }
+
+        /**
+         * Whole product units available, from the indexed stock.
+         */
+        public long availableUnits() {
+            return stock / conversionFactor;
+        }
+    }
+}
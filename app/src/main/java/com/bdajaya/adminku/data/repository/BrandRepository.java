@@ -2,7 +2,7 @@ package com.bdajaya.adminku.data.repository;
 
 import androidx.lifecycle.LiveData;
 
-import com.bdajaya.adminku.data.AppDatabase;
+import com.bdajaya.adminku.data.WriteBatcher;
 import com.bdajaya.adminku.data.dao.BrandDao;
 import com.bdajaya.adminku.data.entity.Brand;
 
@@ -11,9 +11,11 @@ import java.util.UUID;
 
 public class BrandRepository {
     private final BrandDao brandDao;
+    private final WriteBatcher writeBatcher;
 
-    public BrandRepository(BrandDao brandDao) {
+    public BrandRepository(BrandDao brandDao, WriteBatcher writeBatcher) {
         this.brandDao = brandDao;
+        this.writeBatcher = writeBatcher;
     }
 
     public LiveData<Brand> getBrandById(String id) {
@@ -47,7 +49,7 @@ public class BrandRepository {
         brand.setUpdatedAt(now);
 
         // Insert brand
-        AppDatabase.databaseWriteExecutor.execute(() -> {
+        writeBatcher.execute(() -> {
             brandDao.insert(brand);
         });
 
@@ -58,13 +60,13 @@ public class BrandRepository {
         // Update timestamp
         brand.setUpdatedAt(System.currentTimeMillis());
 
-        AppDatabase.databaseWriteExecutor.execute(() -> {
+        writeBatcher.execute(() -> {
             brandDao.update(brand);
         });
     }
 
     public void deleteBrand(Brand brand) {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
+        writeBatcher.execute(() -> {
             brandDao.delete(brand);
         });
     }
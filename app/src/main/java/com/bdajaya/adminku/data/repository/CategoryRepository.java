@@ -2,12 +2,15 @@ package com.bdajaya.adminku.data.repository;
 
 import androidx.lifecycle.LiveData;
 
+import com.bdajaya.adminku.core.AppExecutors;
+import com.bdajaya.adminku.core.AsyncResult;
 import com.bdajaya.adminku.core.BaseRepository;
 import com.bdajaya.adminku.core.Constants;
 import com.bdajaya.adminku.core.ErrorHandler;
 import com.bdajaya.adminku.core.Result;
 import com.bdajaya.adminku.core.ValidationUtils;
 import com.bdajaya.adminku.data.AppDatabase;
+import com.bdajaya.adminku.data.WriteBatcher;
 import com.bdajaya.adminku.data.dao.CategoryDao;
 import com.bdajaya.adminku.data.dao.ProductDao;
 import com.bdajaya.adminku.data.entity.Category;
@@ -18,8 +21,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
+import java.util.concurrent.Executor;
 
 /**
  * Repository class for category-related database operations.
@@ -30,10 +32,25 @@ import java.util.concurrent.Future;
  * @version 2.0.0
  */
 public class CategoryRepository extends BaseRepository {
+    private final AppDatabase database;
     private final CategoryDao categoryDao;
+    private final CategoryTreeCache treeCache;
+    private final Executor reader;
 
-    public CategoryRepository(CategoryDao categoryDao) {
+    public CategoryRepository(AppDatabase database, CategoryDao categoryDao, CategoryTreeCache treeCache,
+                              AppExecutors executors) {
+        super(WriteBatcher.getInstance(database), executors.diskRead());
+        this.database = database;
         this.categoryDao = categoryDao;
+        this.treeCache = treeCache;
+        this.reader = executors.diskRead();
+    }
+
+    /**
+     * In-memory snapshot of the hierarchy; sync navigation reads below are served from it.
+     */
+    public CategoryTreeCache getTreeCache() {
+        return treeCache;
     }
 
     @Override
@@ -46,7 +63,7 @@ public class CategoryRepository extends BaseRepository {
     }
 
     public List<Category> getRootCategoriesSync() {
-        return categoryDao.getRootsSync();
+        return treeCache.get().getRoots();
     }
 
     public LiveData<List<Category>> getChildCategories(String parentId) {
@@ -54,7 +71,7 @@ public class CategoryRepository extends BaseRepository {
     }
 
     public List<Category> getChildCategoriesSync(String parentId) {
-        return categoryDao.getChildrenSync(parentId);
+        return treeCache.get().getChildren(parentId);
     }
 
     public LiveData<Category> getCategoryById(String id) {
@@ -62,57 +79,84 @@ public class CategoryRepository extends BaseRepository {
     }
 
     public Category getCategoryByIdSync(String id) {
-        return categoryDao.getById(id);
+        return treeCache.get().getCategory(id);
     }
 
     public List<Category> searchCategories(String query, int limit) {
-        return categoryDao.search(query, limit);
+        return treeCache.get().search(query, limit);
     }
 
+    /**
+     * Search categories and attach their precomputed paths, all from the tree snapshot.
+     */
     public List<CategoryWithPath> searchCategoriesWithPath(String query, int limit) {
-        List<Category> categories = categoryDao.search(query, limit);
+        CategoryTreeCache.Snapshot tree = treeCache.get();
         List<CategoryWithPath> result = new ArrayList<>();
+        for (Category category : tree.search(query, limit)) {
+            result.add(tree.withPath(category));
+        }
+        return result;
+    }
 
-        for (Category category : categories) {
-            List<Category> path = pathToRoot(category.getId());
-            result.add(new CategoryWithPath(category, path));
+    public List<CategoryWithPath> withPaths(List<Category> categories) {
+        List<CategoryWithPath> result = new ArrayList<>();
+        if (categories.isEmpty()) {
+            return result;
         }
 
+        CategoryTreeCache.Snapshot tree = treeCache.get();
+        for (Category category : categories) {
+            result.add(tree.withPath(category));
+        }
         return result;
     }
 
+    /**
+     * Path from a category up to its root (self first), from the tree snapshot.
+     */
     public List<Category> pathToRoot(String categoryId) {
-        List<Category> path = new ArrayList<>();
-        Category current = categoryDao.getById(categoryId);
+        return treeCache.get().pathToRoot(categoryId);
+    }
 
-        while (current != null) {
-            path.add(current);
-            if (current.getParentId() == null) {
-                break;
-            }
-            current = categoryDao.getById(current.getParentId());
-        }
+    /**
+     * All descendants of a category (excluding itself), single query on CategoryClosure.
+     */
+    public List<Category> getDescendantsSync(String categoryId) {
+        return categoryDao.getDescendants(categoryId);
+    }
 
-        return path;
+    public List<String> getSubtreeIdsSync(String categoryId) {
+        return categoryDao.getSubtreeIds(categoryId);
     }
 
     /**
-     * Adds a new category with proper validation and error handling.
-     * This method now delegates business logic to CategoryUseCase and focuses on data access.
+     * Adds a new category with proper validation and error handling. The insert is queued on
+     * the writer.
      *
      * @param parentId The parent category ID (null for root categories)
      * @param name The category name
-     * @return A Result containing the new category ID or error
+     * @return An AsyncResult containing the new category ID or error
      */
-    public Result<String> addCategory(String parentId, String name) {
-        // Basic validation
+    public AsyncResult<String> addCategoryAsync(String parentId, String name) {
+        Result<String> invalid = validateNewCategory(name);
+        if (invalid != null) {
+            return AsyncResult.completed(invalid);
+        }
+
+        return writeAsyncAndInvalidate(addCategoryCommand(parentId, name), "Add category: " + name);
+    }
+
+    private Result<String> validateNewCategory(String name) {
         ValidationUtils.ValidationResult validation = ValidationUtils.validateCategoryName(name);
         if (validation.isFailure()) {
             String errorCode = ErrorHandler.getCategoryOperationErrorCode(validation.getErrorMessage());
             return Result.failure(validation.getErrorMessage(), errorCode);
         }
+        return null;
+    }
 
-        return executeWriteOperation(() -> {
+    private Callable<String> addCategoryCommand(String parentId, String name) {
+        return () -> {
             // Check if name already exists at this level
             // Modify to handle null parentId explicitly
             long duplicateCount = parentId == null 
@@ -150,26 +194,31 @@ public class CategoryRepository extends BaseRepository {
                 now
             );
 
+            // Closure rows and parent's hasChildren are maintained by triggers
             categoryDao.insert(category);
 
-            // Update parent's hasChildren if this is a new child
-            if (parentId != null) {
-                updateParentHasChildren(parentId, true);
-            }
-
             return id;
-        }, "Add category: " + name);
+        };
     }
 
     /**
-     * Updates an existing category with proper validation and error handling.
+     * Updates an existing category with proper validation and error handling. The update is
+     * queued on the writer.
      *
      * @param id The category ID to update
      * @param newName The new category name
-     * @return A Result indicating success or failure
+     * @return An AsyncResult indicating success or failure
      */
-    public Result<Void> updateCategory(String id, String newName) {
-        // Basic validation
+    public AsyncResult<Void> updateCategoryAsync(String id, String newName) {
+        Result<Void> invalid = validateCategoryUpdate(id, newName);
+        if (invalid != null) {
+            return AsyncResult.completed(invalid);
+        }
+
+        return writeAsyncAndInvalidate(updateCategoryCommand(id, newName), "Update category: " + id);
+    }
+
+    private Result<Void> validateCategoryUpdate(String id, String newName) {
         ValidationUtils.ValidationResult idValidation = validateId(id, "Category ID");
         if (idValidation.isFailure()) {
             return Result.failure(idValidation.getErrorMessage());
@@ -179,8 +228,11 @@ public class CategoryRepository extends BaseRepository {
         if (nameValidation.isFailure()) {
             return Result.failure(nameValidation.getErrorMessage());
         }
+        return null;
+    }
 
-        return executeWriteOperation(() -> {
+    private Callable<Void> updateCategoryCommand(String id, String newName) {
+        return () -> {
             Category category = categoryDao.getById(id);
             if (category == null) {
                 throw new ErrorHandler.DatabaseException(Constants.ERROR_CATEGORY_NOT_FOUND);
@@ -196,62 +248,46 @@ public class CategoryRepository extends BaseRepository {
             categoryDao.update(category);
 
             return null;
-        }, "Update category: " + id);
+        };
     }
 
-    public String deleteCategory(String id, ProductDao productDao) {
-        try {
-            Future<String> future = AppDatabase.databaseWriteExecutor.submit(new Callable<String>() {
-                @Override
-                public String call() {
-                    // Check if category has children
-                    if (categoryDao.countChildren(id) > 0) {
-                        return "HAS_CHILDREN";
-                    }
-
-                    // Check if category has products
-                    if (productDao.countByCategoryId(id) > 0) {
-                        return "HAS_PRODUCTS";
-                    }
+    /**
+     * Deletes a category that has no children and no products; the delete is queued on the
+     * writer and completes with SUCCESS, HAS_CHILDREN, HAS_PRODUCTS or NOT_FOUND.
+     */
+    public AsyncResult<String> deleteCategoryAsync(String id, ProductDao productDao) {
+        return writeAsyncAndInvalidate(deleteCategoryCommand(id, productDao), "Delete category: " + id);
+    }
 
-                    // Get the category before deleting
-                    Category category = categoryDao.getById(id);
-                    if (category != null) {
-                        // Delete category
-                        categoryDao.delete(category);
+    private Callable<String> deleteCategoryCommand(String id, ProductDao productDao) {
+        return () -> {
+            // Check if category has children
+            if (categoryDao.countChildren(id) > 0) {
+                return "HAS_CHILDREN";
+            }
 
-                        // Update parent's hasChildren flag if needed
-                        String parentId = category.getParentId();
-                        if (parentId != null) {
-                            int remainingChildren = categoryDao.countChildren(parentId);
-                            updateParentHasChildren(parentId, remainingChildren > 0);
-                        }
+            // Check if category has products
+            if (productDao.countByCategoryId(id) > 0) {
+                return "HAS_PRODUCTS";
+            }
 
-                        return "SUCCESS";
-                    }
+            // Get the category before deleting
+            Category category = categoryDao.getById(id);
+            if (category != null) {
+                // Delete category (closure rows and parent's hasChildren via triggers)
+                categoryDao.delete(category);
 
-                    return "NOT_FOUND";
-                }
-            });
+                return "SUCCESS";
+            }
 
-            return future.get();
-        } catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
-            return "ERROR";
-        }
+            return "NOT_FOUND";
+        };
     }
 
     public int getMaxLevel() {
         try {
-            Future<Integer> future = AppDatabase.databaseWriteExecutor.submit(new Callable<Integer>() {
-                @Override
-                public Integer call() {
-                    return categoryDao.getMaxLevel();
-                }
-            });
-
-            return future.get();
-        } catch (InterruptedException | ExecutionException e) {
+            return categoryDao.getMaxLevel();
+        } catch (Exception e) {
             e.printStackTrace();
             return 0;
         }
@@ -291,7 +327,7 @@ public class CategoryRepository extends BaseRepository {
 
     // Method untuk mendapatkan children secara asynchronous (untuk cek konfirmasi)
     public void getChildCategoriesAsync(String parentId, CategoryChildrenCallback callback) {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
+        reader.execute(() -> {
             try {
                 List<Category> children = getChildCategoriesSync(parentId);
                 callback.onChildrenLoaded(children);
@@ -307,87 +343,101 @@ public class CategoryRepository extends BaseRepository {
 
     // Method untuk menghitung jumlah produk dalam kategori
     public int countProductsByCategoryId(String categoryId) {
-        ProductDao productDao = AppDatabase.getInstance(null).productDao();
+        ProductDao productDao = database.productDao();
         try {
-            Future<Integer> future = AppDatabase.databaseWriteExecutor.submit(new Callable<Integer>() {
-                @Override
-                public Integer call() {
-                    return productDao.countByCategoryId(categoryId);
-                }
-            });
-            return future.get();
-        } catch (InterruptedException | ExecutionException e) {
+            return productDao.countByCategoryId(categoryId);
+        } catch (Exception e) {
             e.printStackTrace();
             return 0;
         }
     }
 
-    public String deleteCategoryWithProductUpdate(String id, ProductDao productDaoParam) {
-        final ProductDao productDao = productDaoParam;
-        try {
-            Future<String> future = AppDatabase.databaseWriteExecutor.submit(new Callable<String>() {
-                @Override
-                public String call() {
-                    // Check if category has children
-                    if (categoryDao.countChildren(id) > 0) {
-                        return "HAS_CHILDREN";
-                    }
+    /**
+     * Non-blocking variant of {@link #countProductsByCategoryId} on the read pool.
+     */
+    public AsyncResult<Integer> countProductsByCategoryIdAsync(String categoryId) {
+        ProductDao productDao = database.productDao();
+        return executeReadAsync(() -> productDao.countByCategoryId(categoryId),
+                "Count products in category: " + categoryId);
+    }
 
-                    // Get the category before deleting
-                    Category category = categoryDao.getById(id);
-                    if (category != null) {
-                        // Update products: Set categoryId to null instead of deleting them
-                        if (productDao.countByCategoryId(id) > 0) {
-                            // Get all products in this category and set their categoryId to null
-                            List<Product> products = productDao.getByCategoryId(id);
-                            for (Product product : products) {
-                                product.setCategoryId(null);
-                                product.setUpdatedAt(System.currentTimeMillis());
-                                productDao.update(product);
-                            }
-                        }
-
-                        // Delete category
-                        categoryDao.delete(category);
-
-                        // Update parent's hasChildren flag if needed
-                        String parentId = category.getParentId();
-                        if (parentId != null) {
-                            int remainingChildren = categoryDao.countChildren(parentId);
-                            updateParentHasChildren(parentId, remainingChildren > 0);
-                        }
-
-                        return "SUCCESS";
-                    }
+    /**
+     * Deletes a category and moves its products to no category; the delete is queued on the
+     * writer and completes with SUCCESS, HAS_CHILDREN or NOT_FOUND.
+     */
+    public AsyncResult<String> deleteCategoryWithProductUpdateAsync(String id, ProductDao productDao) {
+        return writeAsyncAndInvalidate(deleteWithProductUpdateCommand(id, productDao), "Delete category: " + id);
+    }
+
+    private Callable<String> deleteWithProductUpdateCommand(String id, ProductDao productDao) {
+        return () -> {
+            // Check if category has children
+            if (categoryDao.countChildren(id) > 0) {
+                return "HAS_CHILDREN";
+            }
 
-                    return "NOT_FOUND";
+            // Get the category before deleting
+            Category category = categoryDao.getById(id);
+            if (category != null) {
+                // Update products: Set categoryId to null instead of deleting them
+                if (productDao.countByCategoryId(id) > 0) {
+                    // Get all products in this category and set their categoryId to null
+                    List<Product> products = productDao.getByCategoryId(id);
+                    for (Product product : products) {
+                        product.setCategoryId(null);
+                        product.setUpdatedAt(System.currentTimeMillis());
+                        productDao.update(product);
+                    }
                 }
-            });
 
-            return future.get();
-        } catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
-            return "ERROR";
-        }
+                // Delete category (closure rows and parent's hasChildren via triggers)
+                categoryDao.delete(category);
+
+                return "SUCCESS";
+            }
+
+            return "NOT_FOUND";
+        };
     }
 
     public void insert(Category newCategory) {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
+        writeAsyncAndInvalidate(() -> {
             categoryDao.insert(newCategory);
-        });
+            return null;
+        }, "Insert category: " + newCategory.getId());
     }
 
     /**
-     * Update the hasChildren flag for a parent category
+     * Update the hasChildren flag for a parent category.
+     * Normally not needed: Category triggers keep hasChildren in sync.
      */
-    public void updateParentHasChildren(String parentId, boolean hasChildren) {
-        if (parentId != null) {
+    public AsyncResult<Void> updateParentHasChildren(String parentId, boolean hasChildren) {
+        if (parentId == null) {
+            return AsyncResult.completed(Result.success());
+        }
+        return writeAsyncAndInvalidate(() -> {
             Category parent = categoryDao.getById(parentId);
             if (parent != null) {
                 parent.setHasChildren(hasChildren);
                 parent.setUpdatedAt(System.currentTimeMillis());
                 categoryDao.update(parent);
             }
-        }
+            return null;
+        }, "Update hasChildren: " + parentId);
+    }
+
+    // ================================
+    // WRITE + TREE CACHE
+    // ================================
+
+    /**
+     * Queued write; the tree cache is invalidated after the commit and before the returned
+     * result completes, so a caller that reloads in its callback sees the change.
+     */
+    private <T> AsyncResult<T> writeAsyncAndInvalidate(Callable<T> command, String operationName) {
+        return executeWriteAsync(command, operationName).map(value -> {
+            treeCache.invalidate();
+            return value;
+        });
     }
 }
@@ -0,0 +1,303 @@
+package com.bdajaya.adminku.data.repository;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.room.InvalidationTracker;
+
+import com.bdajaya.adminku.core.ErrorHandler;
+import com.bdajaya.adminku.data.AppDatabase;
+import com.bdajaya.adminku.data.dao.CategoryDao;
+import com.bdajaya.adminku.data.entity.Category;
+import com.bdajaya.adminku.data.model.CategoryWithPath;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Immutable in-memory snapshot of the whole category hierarchy.
+ *
+ * The snapshot (children per parent sorted by name, path string and depth per node)
+ * is rebuilt off-thread with one query whenever Room's InvalidationTracker reports a
+ * change to Category, and swapped in atomically. Readers never lock: navigation,
+ * breadcrumbs and CategoryWithPath building work on whatever snapshot is current.
+ *
+ * CategoryRepository calls {@link #invalidate()} once its write has committed (never inside the
+ * transaction), so the next {@link #get()} sees the change even before the tracker notification
+ * arrives.
+ * Category objects in a snapshot are shared and must be treated as read-only.
+ */
+public class CategoryTreeCache {
+    private static final String[] OBSERVED_TABLES = {"Category"};
+    private static final String PATH_SEPARATOR = " > ";
+
+    private static volatile CategoryTreeCache INSTANCE;
+
+    private final CategoryDao categoryDao;
+    private final Executor reader;
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    /** Bumped on every invalidation; a snapshot older than this is stale. */
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean(false);
+
+    public static CategoryTreeCache getInstance(AppDatabase database) {
+        if (INSTANCE == null) {
+            synchronized (CategoryTreeCache.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new CategoryTreeCache(database, database.getExecutors().diskRead());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    private CategoryTreeCache(AppDatabase database, Executor reader) {
+        this.categoryDao = database.categoryDao();
+        this.reader = reader;
+
+        database.getInvalidationTracker().addObserver(new InvalidationTracker.Observer(OBSERVED_TABLES) {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                invalidate();
+            }
+        });
+    }
+
+    /**
+     * Marks the current snapshot stale and schedules a background rebuild.
+     * Calls made while a rebuild is already queued are coalesced.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            reader.execute(() -> {
+                rebuildScheduled.set(false);
+                try {
+                    rebuild();
+                } catch (Exception e) {
+                    ErrorHandler.logError(ErrorHandler.ERROR_CODE_DATABASE, "Failed to rebuild category tree", e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Current snapshot, or null when none has been built yet or it is stale.
+     * Never touches the database, so it is safe on the main thread.
+     */
+    @Nullable
+    public Snapshot peek() {
+        Snapshot snapshot = current.get();
+        return snapshot != null && snapshot.generation == generation.get() ? snapshot : null;
+    }
+
+    /**
+     * Up-to-date snapshot. Rebuilds synchronously when stale, so call off the main thread.
+     */
+    @NonNull
+    public Snapshot get() {
+        Snapshot snapshot = peek();
+        return snapshot != null ? snapshot : rebuild();
+    }
+
+    private Snapshot rebuild() {
+        long target = generation.get();
+        Snapshot built = new Snapshot(target, categoryDao.getAllSync());
+
+        // Only move forward: a slower rebuild of an older generation must not win
+        while (true) {
+            Snapshot existing = current.get();
+            if (existing != null && existing.generation >= target) {
+                return existing;
+            }
+            if (current.compareAndSet(existing, built)) {
+                return built;
+            }
+        }
+    }
+
+    /**
+     * One immutable view of the hierarchy.
+     */
+    public static final class Snapshot {
+        private static final Comparator<Category> BY_NAME = (a, b) -> a.getName().compareTo(b.getName());
+
+        private final long generation;
+        private final Map<String, Node> nodes;
+        private final List<Category> roots;
+        private final List<Category> byLevelAndName;
+
+        Snapshot(long generation, List<Category> categories) {
+            this.generation = generation;
+
+            Map<String, Node> nodeMap = new HashMap<>(categories.size() * 2);
+            for (Category category : categories) {
+                nodeMap.put(category.getId(), new Node(category));
+            }
+
+            List<Category> rootList = new ArrayList<>();
+            for (Node node : nodeMap.values()) {
+                String parentId = node.category.getParentId();
+                if (parentId == null) {
+                    rootList.add(node.category);
+                    continue;
+                }
+                Node parent = nodeMap.get(parentId);
+                if (parent != null) {
+                    parent.childList.add(node.category);
+                }
+            }
+
+            Collections.sort(rootList, BY_NAME);
+            for (Node node : nodeMap.values()) {
+                Collections.sort(node.childList, BY_NAME);
+                node.children = Collections.unmodifiableList(node.childList);
+                node.childList = null;
+            }
+
+            // Depth and path string top-down, so each node reuses its parent's path
+            List<Category> queue = new ArrayList<>(rootList);
+            for (Category root : rootList) {
+                Node node = nodeMap.get(root.getId());
+                node.depth = 0;
+                node.pathString = root.getName();
+            }
+            for (int i = 0; i < queue.size(); i++) {
+                Node parent = nodeMap.get(queue.get(i).getId());
+                for (Category child : parent.children) {
+                    Node node = nodeMap.get(child.getId());
+                    node.depth = parent.depth + 1;
+                    node.pathString = parent.pathString + PATH_SEPARATOR + child.getName();
+                    queue.add(child);
+                }
+            }
+
+            List<Category> ordered = new ArrayList<>(categories);
+            Collections.sort(ordered, (a, b) -> {
+                int byLevel = Integer.compare(a.getLevel(), b.getLevel());
+                return byLevel != 0 ? byLevel : BY_NAME.compare(a, b);
+            });
+
+            this.nodes = nodeMap;
+            this.roots = Collections.unmodifiableList(rootList);
+            this.byLevelAndName = Collections.unmodifiableList(ordered);
+        }
+
+        @Nullable
+        public Category getCategory(String id) {
+            Node node = id != null ? nodes.get(id) : null;
+            return node != null ? node.category : null;
+        }
+
+        @NonNull
+        public List<Category> getRoots() {
+            return roots;
+        }
+
+        @NonNull
+        public List<Category> getChildren(String parentId) {
+            Node node = parentId != null ? nodes.get(parentId) : null;
+            return node != null ? node.children : Collections.emptyList();
+        }
+
+        public boolean hasChildren(String id) {
+            return !getChildren(id).isEmpty();
+        }
+
+        /**
+         * Depth below the root (0 for roots), or -1 when unknown.
+         */
+        public int getDepth(String id) {
+            Node node = id != null ? nodes.get(id) : null;
+            return node != null ? node.depth : -1;
+        }
+
+        @Nullable
+        public String getPathString(String id) {
+            Node node = id != null ? nodes.get(id) : null;
+            return node != null ? node.pathString : null;
+        }
+
+        /**
+         * Path from a category up to its root (self first), same order as CategoryDao.getPathToRoot.
+         */
+        @NonNull
+        public List<Category> pathToRoot(String id) {
+            List<Category> path = new ArrayList<>();
+            Node node = id != null ? nodes.get(id) : null;
+            while (node != null && path.size() <= nodes.size()) {
+                path.add(node.category);
+                String parentId = node.category.getParentId();
+                node = parentId != null ? nodes.get(parentId) : null;
+            }
+            return path;
+        }
+
+        @NonNull
+        public CategoryWithPath withPath(Category category) {
+            String pathString = getPathString(category.getId());
+            List<Category> path = pathToRoot(category.getId());
+            if (path.isEmpty()) {
+                path = Collections.singletonList(category);
+            }
+            return pathString != null
+                    ? new CategoryWithPath(category, path, pathString)
+                    : new CategoryWithPath(category, path);
+        }
+
+        /**
+         * Case-insensitive substring match on name, ordered by level then name
+         * (same contract as CategoryDao.search).
+         */
+        @NonNull
+        public List<Category> search(String query, int limit) {
+            List<Category> result = new ArrayList<>();
+            if (query == null) {
+                return result;
+            }
+            String needle = query.toLowerCase(Locale.ROOT);
+            for (Category category : byLevelAndName) {
+                if (result.size() >= limit) {
+                    break;
+                }
+                if (category.getName().toLowerCase(Locale.ROOT).contains(needle)) {
+                    result.add(category);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Every category, ordered by level then name.
+         */
+        @NonNull
+        public List<Category> getAll() {
+            return byLevelAndName;
+        }
+
+        public int size() {
+            return nodes.size();
+        }
+    }
+
+    private static final class Node {
+        final Category category;
+        List<Category> childList = new ArrayList<>();
+        List<Category> children = Collections.emptyList();
+        int depth;
+        String pathString;
+
+        Node(Category category) {
+            this.category = category;
+        }
+    }
+}
@@ -5,38 +5,84 @@ import android.net.Uri;
 import android.util.Log;
 
 import androidx.lifecycle.LiveData;
+import androidx.paging.Pager;
+import androidx.paging.PagingConfig;
 
+import com.bdajaya.adminku.core.AppExecutors;
+import com.bdajaya.adminku.core.Constants;
 import com.bdajaya.adminku.data.AppDatabase;
+import com.bdajaya.adminku.data.BarcodeAllocator;
+import com.bdajaya.adminku.data.WriteBatcher;
+import com.bdajaya.adminku.data.dao.ImageBlobDao;
 import com.bdajaya.adminku.data.dao.ProductDao;
 import com.bdajaya.adminku.data.dao.ProductImageDao;
+import com.bdajaya.adminku.data.entity.ImageBlob;
 import com.bdajaya.adminku.data.entity.Product;
 import com.bdajaya.adminku.data.entity.ProductImage;
 import com.bdajaya.adminku.data.model.ProductWithDetails;
 import com.bdajaya.adminku.data.manager.ImageStorageManager;
-
+import com.bdajaya.adminku.data.manager.ProductCsvExporter;
+import com.bdajaya.adminku.data.manager.ProductCsvImporter;
+import com.bdajaya.adminku.data.paging.ProductKeysetPagingSource;
+import com.bdajaya.adminku.data.search.ProductSearchEngine;
+import com.bdajaya.adminku.data.search.ProductSearchSession;
+import com.bdajaya.adminku.data.search.TrigramIndex;
+import com.bdajaya.adminku.util.ImageIngestionWorker;
+
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Repository untuk Product dengan file-based image management.
  *
  * Improvements:
  * - Gambar disimpan sebagai file, bukan Base64
+ * - File gambar dialamatkan dengan hash isi (ImageBlob): gambar yang sama disimpan sekali dan
+ *   baru dihapus saat tidak ada ProductImage yang mereferensikannya
  * - Transaksi atomic untuk konsistensi data
  * - Support untuk sharing ke apps lain
  */
 public class ProductRepository {
+    private final Context appContext;
+    private final AppDatabase database;
     private final ProductDao productDao;
     private final ProductImageDao productImageDao;
+    private final ImageBlobDao imageBlobDao;
     private final ImageStorageManager imageStorage;
-
-    public ProductRepository(Context context, ProductDao productDao, ProductImageDao productImageDao) {
+    private final ProductSearchEngine searchEngine;
+    private final AppExecutors executors;
+    private final WriteBatcher writeBatcher;
+    private final BarcodeAllocator barcodeAllocator;
+    private final ProductRepositoryCache detailsCache;
+    // Klaim per hash blob: ingestion (memakai/menulis file blob) atau GC (menghapus baris + file).
+    // Future selesai saat klaim dilepas, jadi pihak lain menunggu tanpa memblok thread.
+    private final ConcurrentHashMap<String, CompletableFuture<Void>> blobClaims = new ConcurrentHashMap<>();
+
+    public ProductRepository(Context context, AppDatabase database,
+                             ProductDao productDao, ProductImageDao productImageDao, AppExecutors executors) {
+        this.appContext = context.getApplicationContext();
+        this.database = database;
+        this.executors = executors;
+        this.writeBatcher = WriteBatcher.getInstance(database);
+        this.barcodeAllocator = BarcodeAllocator.getInstance(database);
+        this.detailsCache = new ProductRepositoryCache(database, Constants.PRODUCT_DETAILS_CACHE_SIZE);
         this.productDao = productDao;
         this.productImageDao = productImageDao;
+        this.imageBlobDao = database.imageBlobDao();
         this.imageStorage = new ImageStorageManager(context);
+        this.searchEngine = new ProductSearchEngine(productDao, TrigramIndex.getInstance(database));
     }
 
     // ================================
@@ -51,6 +97,21 @@ public class ProductRepository {
         return productDao.getByIdSync(id);
     }
 
+    /**
+     * Product with category, brand, unit and images from the read-through cache.
+     * The returned object is shared: read-only. Blocking on a miss; background thread only.
+     */
+    public ProductWithDetails getProductWithDetailsSync(String id) {
+        return detailsCache.getProductWithDetails(id);
+    }
+
+    /**
+     * Exposed for hit/miss stats when sizing PRODUCT_DETAILS_CACHE_SIZE.
+     */
+    public ProductRepositoryCache getDetailsCache() {
+        return detailsCache;
+    }
+
     public Product getProductByBarcode(String barcode) {
         return productDao.getByBarcode(barcode);
     }
@@ -63,6 +124,17 @@ public class ProductRepository {
         return productDao.getByStatusSync(status);
     }
 
+    /**
+     * Produk dalam kategori beserta semua sub-kategorinya (satu query via CategoryClosure).
+     */
+    public List<Product> getProductsInCategorySubtree(String categoryId) {
+        return productDao.getByCategorySubtree(categoryId);
+    }
+
+    public int countProductsInCategorySubtree(String categoryId) {
+        return productDao.countByCategorySubtree(categoryId);
+    }
+
     public List<Product> searchProducts(String query, int limit) {
         return productDao.search(query, limit);
     }
@@ -71,12 +143,37 @@ public class ProductRepository {
         return productDao.getProductWithDetails(id);
     }
 
-    public LiveData<List<ProductWithDetails>> getProductsWithDetailsByStatus(String status) {
-        return productDao.getProductsWithDetailsByStatus(status);
+    /**
+     * Pager untuk list produk per status (keyset pada name, id).
+     * Hanya halaman di sekitar posisi scroll yang disimpan di memori (maxSize).
+     */
+    public Pager<ProductKeysetPagingSource.Key, ProductWithDetails> getProductPager(String status) {
+        int pageSize = Constants.RECYCLERVIEW_PAGE_SIZE;
+        PagingConfig config = new PagingConfig(
+                pageSize,
+                pageSize / 2,
+                false,
+                pageSize * 2,
+                pageSize * 6
+        );
+        return new Pager<>(config, () -> new ProductKeysetPagingSource(database, productDao, status,
+                executors.diskRead()));
     }
 
+    /**
+     * Pencarian berperingkat (FTS + barcode). Input mentah dari pengguna, tidak perlu diformat.
+     */
     public List<ProductWithDetails> searchProductsWithDetails(String query, int limit) {
-        return productDao.searchWithDetailsUsingFts(query, limit);
+        return searchEngine.search(query, limit);
+    }
+
+    /**
+     * Sesi search-as-you-type (latest wins, prefix refinement, LRU query terakhir).
+     * Satu sesi per layar; panggil close() saat layar selesai.
+     */
+    public ProductSearchSession newSearchSession() {
+        return new ProductSearchSession(database, searchEngine, executors.diskRead(),
+                Constants.SEARCH_RESULT_LIMIT, Constants.SEARCH_SESSION_CACHE_SIZE);
     }
 
     // ================================
@@ -86,6 +183,10 @@ public class ProductRepository {
     /**
      * Insert product dengan gambar (file-based).
      *
+     * Gambar hanya di-stage (copy mentah + hash, tanpa decode) lalu produk dan ProductImage
+     * di-commit bersama. Gambar yang blob-nya sudah ada langsung READY; sisanya PENDING dan
+     * di-encode ImageIngestionWorker di background.
+     *
      * @param product Product entity
      * @param imageUris List Uri dari PictureSelector
      * @return Product ID
@@ -95,47 +196,111 @@ public class ProductRepository {
             product.setId(UUID.randomUUID().toString());
         }
 
-        if (product.getBarcode() == null || product.getBarcode().isEmpty()) {
-            product.setBarcode(generateBarcode());
-        }
-
         long now = System.currentTimeMillis();
         product.setCreatedAt(now);
         product.setUpdatedAt(now);
 
         final String productId = product.getId();
 
-        // Execute dalam single transaction
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            try {
+        // Dari blok Sequence di memori; pemesanan blok baru adalah command WriteBatcher sendiri
+        CompletableFuture<Void> barcode = product.getBarcode() == null || product.getBarcode().isEmpty()
+                ? barcodeAllocator.nextBarcode().thenAccept(product::setBarcode)
+                : CompletableFuture.completedFuture(null);
+
+        // File gambar di-stage di io pool; writer hanya menjalankan transaksi database
+        executors.io().execute(() -> {
+            List<ImageStorageManager.StagedImage> staged = imageUris != null && !imageUris.isEmpty()
+                    ? distinctByHash(imageStorage.stageImages(productId, imageUris))
+                    : Collections.emptyList();
+
+            barcode.thenCompose(ignored -> writeBatcher.submit(() -> {
                 // Insert product
                 productDao.insert(product);
 
-                // Save dan insert images
-                if (imageUris != null && !imageUris.isEmpty()) {
-                    List<String> imagePaths = imageStorage.saveProductImages(productId, imageUris);
-
-                    for (int i = 0; i < imagePaths.size(); i++) {
-                        ProductImage image = new ProductImage(
-                                UUID.randomUUID().toString(),
-                                productId,
-                                imagePaths.get(i),
-                                i,
-                                now
-                        );
-                        productImageDao.insert(image);
-                    }
+                return insertImages(productId, staged, 0, now);
+            })).whenComplete((inserted, error) -> {
+                if (error != null) {
+                    // Rollback: hapus gambar jika insert gagal
+                    Log.e("ProductRepository", "Failed to insert product with images", error);
+                    executors.io().execute(() -> imageStorage.deleteProductImages(productId));
+                } else {
+                    onImagesInserted(staged, inserted);
                 }
-            } catch (Exception e) {
-                // Rollback: hapus gambar jika insert gagal
-                imageStorage.deleteProductImages(productId);
-                throw new RuntimeException("Failed to insert product with images", e);
-            }
+            });
         });
 
         return productId;
     }
 
+    /**
+     * Di writer: satu ProductImage per file staging, urutan dipertahankan. Kalau blob dengan
+     * hash yang sama sudah ada, baris langsung READY memakai file blob; selain itu PENDING.
+     *
+     * @return baris yang di-insert, sejajar dengan staged
+     */
+    private List<ProductImage> insertImages(String productId, List<ImageStorageManager.StagedImage> staged,
+                                            int startOrderIndex, long createdAt) {
+        List<ProductImage> inserted = new ArrayList<>(staged.size());
+        for (int i = 0; i < staged.size(); i++) {
+            ImageStorageManager.StagedImage image = staged.get(i);
+            ProductImage row = new ProductImage(UUID.randomUUID().toString(), productId, image.path,
+                    startOrderIndex + i, createdAt);
+            row.setBlobHash(image.hash);
+
+            ImageBlob blob = imageBlobDao.get(image.hash);
+            if (blob != null) {
+                row.setImagePath(blob.getImagePath());
+                row.setThumbnailPath(blob.getThumbnailPath());
+                row.setWidth(blob.getWidth());
+                row.setHeight(blob.getHeight());
+                row.setFileSize(blob.getFileSize());
+            } else {
+                row.setStatus(ProductImage.STATUS_PENDING);
+            }
+            productImageDao.insert(row);
+            inserted.add(row);
+        }
+        return inserted;
+    }
+
+    /**
+     * Setelah commit: file staging yang ternyata duplikat blob lama dibuang, sisanya menunggu
+     * ImageIngestionWorker.
+     */
+    private void onImagesInserted(List<ImageStorageManager.StagedImage> staged, List<ProductImage> inserted) {
+        List<String> reusedPaths = new ArrayList<>();
+        boolean anyPending = false;
+        for (int i = 0; i < inserted.size(); i++) {
+            if (inserted.get(i).isPending()) {
+                anyPending = true;
+            } else {
+                reusedPaths.add(staged.get(i).path);
+            }
+        }
+        if (!reusedPaths.isEmpty()) {
+            executors.io().execute(() -> deleteImageFiles(reusedPaths));
+        }
+        if (anyPending) {
+            ImageIngestionWorker.enqueue(appContext);
+        }
+    }
+
+    /**
+     * Gambar yang dipilih dua kali hanya dipasang sekali; file staging duplikatnya dihapus.
+     */
+    private List<ImageStorageManager.StagedImage> distinctByHash(List<ImageStorageManager.StagedImage> staged) {
+        Set<String> hashes = new HashSet<>();
+        List<ImageStorageManager.StagedImage> distinct = new ArrayList<>(staged.size());
+        for (ImageStorageManager.StagedImage image : staged) {
+            if (hashes.add(image.hash)) {
+                distinct.add(image);
+            } else {
+                imageStorage.deleteImage(image.path);
+            }
+        }
+        return distinct;
+    }
+
     // ================================
     // UPDATE WITH IMAGES
     // ================================
@@ -151,36 +316,73 @@ public class ProductRepository {
         final long currentTimestamp = System.currentTimeMillis();
         final String productId = product.getId();
 
-        AppDatabase.databaseWriteExecutor.execute(() -> {
+        executors.io().execute(() -> {
             try {
                 // Ambil gambar yang sudah ada
                 List<ProductImage> existingImages = productImageDao.getByProductIdSync(productId);
 
-                // Update product
-                product.setUpdatedAt(currentTimestamp);
-                productDao.update(product);
-
-                // Handle gambar hanya jika ada imageUris yang dikirim (perubahan eksplisit)
+                // Rencanakan perubahan gambar dan simpan file baru di luar writer
+                ImageChangePlan plan = null;
                 if (imageUris != null) {
                     Log.d("ProductRepository", "Processing image changes. Existing: " +
                             existingImages.size() + ", New: " + imageUris.size());
-
-                    // Jika imageUris kosong, ini berarti hapus semua gambar
-                    if (imageUris.isEmpty()) {
-                        Log.d("ProductRepository", "Removing all images");
-                        // Hapus semua gambar lama
-                        for (ProductImage img : existingImages) {
-                            imageStorage.deleteImage(img.getImagePath());
-                        }
-                        productImageDao.deleteAllForProduct(productId);
-                    } else {
-                        // Jika ada imageUris, analisis perubahan
-                        processImageChanges(productId, existingImages, imageUris, currentTimestamp);
-                    }
+                    plan = planImageChanges(productId, existingImages, imageUris);
                 } else {
                     Log.d("ProductRepository", "No image changes. Keeping existing " +
                             existingImages.size() + " images.");
                 }
+
+                final ImageChangePlan changes = plan;
+                writeBatcher.submit(() -> {
+                    // Update product
+                    product.setUpdatedAt(currentTimestamp);
+                    productDao.update(product);
+
+                    if (changes == null) {
+                        return Collections.<ProductImage>emptyList();
+                    }
+                    // Baca ulang di dalam transaksi: command bisa diulang jika batch-nya gagal
+                    return applyImageChanges(productId, productImageDao.getByProductIdSync(productId),
+                            changes, currentTimestamp);
+                }).whenComplete((inserted, error) -> {
+                    if (error != null) {
+                        Log.e("ProductRepository", "Error updating product images", error);
+                        if (changes != null) {
+                            List<String> stagedPaths = new ArrayList<>();
+                            for (ImageStorageManager.StagedImage image : changes.staged) {
+                                stagedPaths.add(image.path);
+                            }
+                            executors.io().execute(() -> deleteImageFiles(stagedPaths));
+                        }
+                        return;
+                    }
+                    if (changes == null) {
+                        return;
+                    }
+
+                    onImagesInserted(changes.staged, inserted);
+
+                    // File lama baru dihapus setelah transaksi berhasil. Blob bisa dipakai produk
+                    // lain: dihapus lewat GC hanya kalau referensinya habis.
+                    if (!changes.imagesToRemove.isEmpty()) {
+                        List<String> removedPaths = new ArrayList<>();
+                        boolean removedBlobs = false;
+                        for (ProductImage img : changes.imagesToRemove) {
+                            if (img.getBlobHash() == null || img.isPending()) {
+                                removedPaths.add(img.getImagePath());
+                            } else {
+                                removedBlobs = true;
+                            }
+                        }
+                        boolean collect = removedBlobs;
+                        executors.io().execute(() -> {
+                            deleteImageFiles(removedPaths);
+                            if (collect) {
+                                collectUnreferencedBlobs();
+                            }
+                        });
+                    }
+                });
             } catch (Exception e) {
                 Log.e("ProductRepository", "Error updating product images", e);
                 throw new RuntimeException("Failed to update product with images", e);
@@ -189,130 +391,105 @@ public class ProductRepository {
     }
 
     /**
-     * Proses perubahan gambar: tambahkan yang baru, pertahankan yang lama
+     * Rencana perubahan gambar: yang dihapus, file baru yang sudah di-stage, dan urutan akhir.
      */
-    private void processImageChanges(String productId, List<ProductImage> existingImages,
-                                     List<Uri> newUris, long timestamp) {
+    private static class ImageChangePlan {
+        final List<ProductImage> imagesToRemove = new ArrayList<>();
+        final List<String> newKeys = new ArrayList<>();
+        final List<ImageStorageManager.StagedImage> staged = new ArrayList<>();
+    }
 
-        // Identifikasi gambar yang sudah ada (berdasarkan filename)
-        Set<String> existingFilenames = new HashSet<>();
-        Map<String, ProductImage> existingImageMap = new HashMap<>();
+    /**
+     * Identitas gambar untuk deteksi perubahan: hash blob, atau path untuk gambar lama yang
+     * disimpan sebelum blob ada.
+     */
+    private static String imageKey(ProductImage image) {
+        return image.getBlobHash() != null ? image.getBlobHash() : "path:" + image.getImagePath();
+    }
+
+    /**
+     * Tahap file (io pool): bandingkan gambar lama dengan imageUris berdasarkan hash isi, lalu
+     * stage gambar baru. Uri file dari storage kita dicocokkan lewat path ProductImage-nya;
+     * Uri dari luar di-stage dan dikenali dari hash-nya, jadi foto yang sama yang dipilih ulang
+     * tidak menjadi gambar baru. imageUris kosong berarti hapus semua gambar.
+     */
+    private ImageChangePlan planImageChanges(String productId, List<ProductImage> existingImages,
+                                             List<Uri> newUris) {
+        ImageChangePlan plan = new ImageChangePlan();
 
+        Map<String, ProductImage> existingByPath = new HashMap<>();
+        Set<String> existingKeys = new HashSet<>();
         for (ProductImage existing : existingImages) {
-            String filename = getFilenameFromPath(existing.getImagePath());
-            existingFilenames.add(filename);
-            existingImageMap.put(filename, existing);
+            existingByPath.put(existing.getImagePath(), existing);
+            existingKeys.add(imageKey(existing));
         }
 
-        // Identifikasi gambar baru vs yang sudah ada
-        List<Uri> urisToAdd = new ArrayList<>();
-        List<String> newFilenames = new ArrayList<>();
-
+        // Urutan akhir, tanpa duplikat
+        Set<String> keys = new LinkedHashSet<>();
         for (Uri uri : newUris) {
-            String filename = getFilenameFromUri(uri);
-            newFilenames.add(filename);
+            String relativePath = imageStorage.getRelativePath(uri);
+            ProductImage match = relativePath != null ? existingByPath.get(relativePath) : null;
+            if (match != null) {
+                keys.add(imageKey(match));
+                continue;
+            }
 
-            if (!existingFilenames.contains(filename)) {
-                urisToAdd.add(uri);
-                Log.d("ProductRepository", "New image to add: " + filename);
+            // Stage gambar baru (encode menyusul di ImageIngestionWorker)
+            ImageStorageManager.StagedImage staged = imageStorage.stageImage(productId, uri);
+            if (staged == null) {
+                continue;
+            }
+            if (keys.add(staged.hash) && !existingKeys.contains(staged.hash)) {
+                plan.staged.add(staged);
+                Log.d("ProductRepository", "New image to add: " + staged.hash);
+            } else {
+                // Sudah terpasang atau dipilih dua kali
+                imageStorage.deleteImage(staged.path);
             }
         }
+        plan.newKeys.addAll(keys);
 
         // Identifikasi gambar yang dihapus (ada di existing tapi tidak di new)
-        List<ProductImage> imagesToRemove = new ArrayList<>();
         for (ProductImage existing : existingImages) {
-            String filename = getFilenameFromPath(existing.getImagePath());
-            if (!newFilenames.contains(filename)) {
-                imagesToRemove.add(existing);
-                Log.d("ProductRepository", "Image to remove: " + filename);
+            if (!keys.contains(imageKey(existing))) {
+                plan.imagesToRemove.add(existing);
+                Log.d("ProductRepository", "Image to remove: " + imageKey(existing));
             }
         }
+        return plan;
+    }
 
-        // Hapus gambar yang dihapus
-        for (ProductImage imgToRemove : imagesToRemove) {
-            imageStorage.deleteImage(imgToRemove.getImagePath());
+    /**
+     * Tahap database (writer, di dalam transaksi): terapkan rencana ke tabel ProductImage.
+     *
+     * @return baris baru, sejajar dengan plan.staged
+     */
+    private List<ProductImage> applyImageChanges(String productId, List<ProductImage> existingImages,
+                                                 ImageChangePlan plan, long timestamp) {
+        // Hapus gambar yang dihapus (trigger mengurangi refCount blob-nya)
+        Set<String> removedIds = new HashSet<>();
+        for (ProductImage imgToRemove : plan.imagesToRemove) {
             productImageDao.delete(imgToRemove);
-            existingImages.remove(imgToRemove);
+            removedIds.add(imgToRemove.getId());
         }
+        existingImages.removeIf(img -> removedIds.contains(img.getId()));
 
         // Tambahkan gambar baru
-        if (!urisToAdd.isEmpty()) {
-            List<String> newPaths = imageStorage.saveProductImages(productId, urisToAdd);
-            int startOrderIndex = existingImages.size();
-
-            for (int i = 0; i < newPaths.size(); i++) {
-                ProductImage newImage = new ProductImage(
-                        UUID.randomUUID().toString(),
-                        productId,
-                        newPaths.get(i),
-                        startOrderIndex + i,
-                        timestamp
-                );
-                productImageDao.insert(newImage);
-                existingImages.add(newImage);
-            }
-            Log.d("ProductRepository", "Added " + newPaths.size() + " new images");
+        List<ProductImage> inserted = insertImages(productId, plan.staged, existingImages.size(), timestamp);
+        existingImages.addAll(inserted);
+        if (!inserted.isEmpty()) {
+            Log.d("ProductRepository", "Added " + inserted.size() + " new images");
         }
 
         // Update urutan gambar berdasarkan urutan di newUris
-        updateImageOrder(productId, existingImages, newFilenames, timestamp);
+        updateImageOrder(productId, existingImages, plan.newKeys, timestamp);
+        return inserted;
     }
 
-    /**
-     * Deteksi perubahan gambar dengan membandingkan path yang ada.
-     * Return true hanya jika ada perubahan eksplisit pada gambar.
-     */
-    private boolean detectImageChanges(List<ProductImage> existingImages, List<Uri> imageUris) {
-        // Jika imageUris null, pertahankan gambar yang ada (tidak ada perubahan)
-        if (imageUris == null) {
-            return false;
-        }
-
-        // Jika imageUris kosong DAN sebelumnya ada gambar, ini adalah penghapusan eksplisit
-        if (imageUris.isEmpty() && !existingImages.isEmpty()) {
-            return true;
-        }
-
-        // Jika imageUris kosong DAN sebelumnya juga kosong, tidak ada perubahan
-        if (imageUris.isEmpty() && existingImages.isEmpty()) {
-            return false;
-        }
-
-        // Jika jumlah berbeda, ada perubahan
-        if (existingImages.size() != imageUris.size()) {
-            return true;
+    private void deleteImageFiles(List<String> paths) {
+        for (String path : paths) {
+            imageStorage.deleteImage(path);
         }
-
-        // Bandingkan path satu per satu untuk deteksi perubahan urutan atau gambar
-        for (int i = 0; i < existingImages.size(); i++) {
-            ProductImage existingImage = existingImages.get(i);
-            Uri newUri = imageUris.get(i);
-
-            // Jika ini adalah URI file internal (dari storage kita), bandingkan path
-            if (newUri.getScheme() != null && newUri.getScheme().equals("file")) {
-                String newPath = newUri.getPath();
-                String existingPath = existingImage.getImagePath();
-
-                // Extract filename dari path untuk perbandingan
-                String newFilename = getFilenameFromPath(newPath);
-                String existingFilename = getFilenameFromPath(existingPath);
-
-                if (!newFilename.equals(existingFilename)) {
-                    return true;
-                }
-            } else {
-                // Untuk URI content atau lainnya, anggap ada perubahan
-                return true;
-            }
-        }
-
-        return false;
-    }
-
-    private String getFilenameFromPath(String path) {
-        if (path == null) return "";
-        int lastSlash = path.lastIndexOf('/');
-        return lastSlash >= 0 ? path.substring(lastSlash + 1) : path;
     }
 
     // ================================
@@ -322,16 +499,71 @@ public class ProductRepository {
     /**
      * Delete product beserta gambarnya.
      */
-    public void deleteProduct(Product product) {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            // Hapus gambar dari storage
-            imageStorage.deleteProductImages(product.getId());
+    public CompletableFuture<Void> deleteProduct(Product product) {
+        // Hapus dari database (cascade akan hapus ProductImage), lalu file staging/lama produk
+        // dan blob yang tidak lagi dipakai produk lain
+        return writeBatcher.execute(() -> productDao.delete(product))
+                .thenComposeAsync(ignored -> {
+                    imageStorage.deleteProductImages(product.getId());
+                    return collectUnreferencedBlobs();
+                }, executors.io())
+                .thenApply(removed -> null);
+    }
 
-            // Hapus dari database (cascade akan hapus ProductImage)
-            productDao.delete(product);
+    /**
+     * Hapus blob yang refCount-nya 0: baris di writer, file setelah commit. Hash yang sedang
+     * di-ingest dilewati (diambil GC berikutnya); hash yang dihapus tetap diklaim sampai filenya
+     * terhapus, supaya ingestion tidak menulis ulang file yang sedang dihapus.
+     *
+     * @return future jumlah blob yang dihapus
+     */
+    public CompletableFuture<Integer> collectUnreferencedBlobs() {
+        CompletableFuture<Void> claim = new CompletableFuture<>();
+        Set<String> claimed = ConcurrentHashMap.newKeySet();
+        return writeBatcher.submit(() -> {
+            List<ImageBlob> deleted = new ArrayList<>();
+            for (ImageBlob blob : imageBlobDao.getUnreferenced()) {
+                // Klaim yang sama bisa sudah dipegang dari percobaan sebelumnya (batch diulang)
+                CompletableFuture<Void> holder = blobClaims.putIfAbsent(blob.getHash(), claim);
+                if (holder != null && holder != claim) {
+                    continue;
+                }
+                claimed.add(blob.getHash());
+                if (imageBlobDao.deleteIfUnreferenced(blob.getHash()) > 0) {
+                    deleted.add(blob);
+                }
+            }
+            return deleted;
+        }).thenApplyAsync(removed -> {
+            for (ImageBlob blob : removed) {
+                imageStorage.deleteImage(blob.getImagePath());
+            }
+            return removed.size();
+        }, executors.io()).whenComplete((removed, error) -> {
+            for (String hash : claimed) {
+                blobClaims.remove(hash, claim);
+            }
+            claim.complete(null);
         });
     }
 
+    /**
+     * Klaim hash untuk ingestion. Kalau GC sedang memegangnya, klaim diambil setelah GC selesai.
+     */
+    private CompletableFuture<CompletableFuture<Void>> claimBlob(String hash) {
+        CompletableFuture<Void> claim = new CompletableFuture<>();
+        CompletableFuture<Void> holder = blobClaims.putIfAbsent(hash, claim);
+        if (holder == null) {
+            return CompletableFuture.completedFuture(claim);
+        }
+        return holder.thenCompose(ignored -> claimBlob(hash));
+    }
+
+    private void releaseBlob(String hash, CompletableFuture<Void> claim) {
+        blobClaims.remove(hash, claim);
+        claim.complete(null);
+    }
+
     // ================================
     // IMAGE OPERATIONS
     // ================================
@@ -347,12 +579,170 @@ public class ProductRepository {
         return images;
     }
 
+    /**
+     * Progress ingestion: (selesai, total) setiap satu gambar selesai.
+     */
+    public interface IngestionProgressListener {
+        void onProgress(int done, int total);
+    }
+
+    /**
+     * Encode semua ProductImage PENDING: file staging → blob JPEG + thumbnail, paralel di pool
+     * imageProcessing. Baris dikelompokkan per hash, jadi gambar yang sama di beberapa produk
+     * di-encode sekali, dan hash yang blob-nya sudah ada tidak di-encode sama sekali. Setiap
+     * kelompok di-commit sendiri begitu selesai (WriteBatcher menggabungkan commit yang
+     * berdekatan), jadi UI melihat gambar berubah READY satu per satu. Gambar yang tidak bisa
+     * di-decode dihapus, sama seperti dulu gambar gagal dilewati saat simpan.
+     * Baris PENDING dibaca dan di-hash di thread pemanggil (ImageIngestionWorker).
+     *
+     * @return future jumlah gambar yang diproses
+     */
+    public CompletableFuture<Integer> ingestPendingImages(IngestionProgressListener listener) {
+        List<ProductImage> pending = productImageDao.getPending();
+        int total = pending.size();
+        if (total == 0) {
+            return CompletableFuture.completedFuture(0);
+        }
+
+        Map<String, List<ProductImage>> byHash = new LinkedHashMap<>();
+        for (ProductImage image : pending) {
+            // Baris PENDING dari sebelum blob ada belum punya hash: hitung dari file staging
+            String hash = image.getBlobHash() != null
+                    ? image.getBlobHash()
+                    : imageStorage.hashFile(image.getImagePath());
+            String key = hash != null ? hash : "missing:" + image.getId();
+            byHash.computeIfAbsent(key, k -> new ArrayList<>()).add(image);
+        }
+
+        AtomicInteger done = new AtomicInteger();
+        List<CompletableFuture<Void>> tasks = new ArrayList<>(byHash.size());
+        for (Map.Entry<String, List<ProductImage>> group : byHash.entrySet()) {
+            String hash = group.getKey().startsWith("missing:") ? null : group.getKey();
+            List<ProductImage> images = group.getValue();
+            CompletableFuture<Void> task = ingestBlob(hash, images)
+                    .whenComplete((ignored, error) -> {
+                        if (error != null) {
+                            Log.e("ProductRepository", "Failed to ingest image " + group.getKey(), error);
+                        }
+                        if (listener != null) {
+                            listener.onProgress(done.addAndGet(images.size()), total);
+                        }
+                    });
+            tasks.add(task);
+        }
+        // Error per gambar sudah dicatat; baris yang gagal tetap PENDING dan dicoba lagi nanti.
+        // Setelahnya: blob yang semua barisnya dihapus selama encode
+        return CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0]))
+                .exceptionally(e -> null)
+                .thenCompose(ignored -> collectUnreferencedBlobs())
+                .thenApply(removed -> total);
+    }
+
+    /**
+     * Satu hash: klaim hash, encode kalau blob belum ada (di pool imageProcessing), commit, lalu
+     * buang file staging. Klaim dilepas setelah semuanya selesai, juga saat gagal.
+     */
+    private CompletableFuture<Void> ingestBlob(String hash, List<ProductImage> images) {
+        CompletableFuture<CompletableFuture<Void>> claimed = hash != null
+                ? claimBlob(hash)
+                : CompletableFuture.completedFuture(null);
+        return claimed.thenComposeAsync(claim -> {
+            CompletableFuture<Void> ingested;
+            try {
+                ImageStorageManager.SavedImage saved = null;
+                if (hash != null && imageBlobDao.get(hash) == null) {
+                    // File staging pertama bisa sudah dihapus (gambar dilepas saat edit): coba berikutnya
+                    for (ProductImage image : images) {
+                        saved = imageStorage.encodeBlob(hash, image.getImagePath());
+                        if (saved != null) {
+                            break;
+                        }
+                    }
+                }
+
+                ImageStorageManager.SavedImage encoded = saved;
+                ingested = writeBatcher.execute(() -> finishIngestion(hash, images, encoded))
+                        .thenRunAsync(() -> {
+                            for (ProductImage image : images) {
+                                imageStorage.deleteImage(image.getImagePath());
+                            }
+                        }, executors.imageProcessing());
+            } catch (RuntimeException e) {
+                ingested = new CompletableFuture<>();
+                ingested.completeExceptionally(e);
+            }
+            return ingested.whenComplete((ignored, error) -> {
+                if (claim != null) {
+                    releaseBlob(hash, claim);
+                }
+            });
+        }, executors.imageProcessing());
+    }
+
+    /**
+     * Di writer: daftarkan blob hasil encode lalu arahkan baris PENDING ke blob, atau hapus
+     * baris PENDING kalau tidak ada blob (encode gagal / file staging hilang). Baris yang sudah
+     * dihapus selama encode dilewati (completeIngestion 0).
+     */
+    private void finishIngestion(String hash, List<ProductImage> images, ImageStorageManager.SavedImage saved) {
+        ImageBlob blob = hash != null ? imageBlobDao.get(hash) : null;
+        if (blob == null && saved != null) {
+            imageBlobDao.insertIfAbsent(hash, saved.path, saved.thumbnailPath, saved.width, saved.height,
+                    saved.fileSize, System.currentTimeMillis());
+            blob = imageBlobDao.get(hash);
+        }
+
+        for (ProductImage image : images) {
+            if (blob == null) {
+                productImageDao.deletePending(image.getId());
+            } else {
+                productImageDao.completeIngestion(image.getId(), hash, blob.getImagePath(),
+                        blob.getThumbnailPath(), blob.getWidth(), blob.getHeight(), blob.getFileSize());
+            }
+        }
+    }
+
+    public LiveData<Integer> getPendingImageCount() {
+        return productImageDao.observePendingCount();
+    }
+
+    /**
+     * Buat thumbnail untuk satu batch gambar lama yang belum punya. Gambar yang file aslinya
+     * hilang atau rusak ditandai memakai file asli, supaya tidak dicoba terus-menerus.
+     * Decode + tulis file di thread pemanggil (background); hanya update barisnya yang masuk
+     * WriteBatcher.
+     *
+     * @return future jumlah gambar yang diproses; 0 berarti backfill selesai
+     */
+    public CompletableFuture<Integer> backfillThumbnails(int batchSize) {
+        List<ProductImage> pending = productImageDao.getWithoutThumbnail(batchSize);
+        if (pending.isEmpty()) {
+            return CompletableFuture.completedFuture(0);
+        }
+
+        // File di luar writer; satu transaksi untuk seluruh batch
+        Map<String, String> thumbnailPaths = new HashMap<>();
+        for (ProductImage image : pending) {
+            String thumbnailPath = imageStorage.createThumbnail(image.getImagePath());
+            thumbnailPaths.put(image.getId(), thumbnailPath != null ? thumbnailPath : image.getImagePath());
+        }
+        return writeBatcher.execute(() -> {
+            for (Map.Entry<String, String> entry : thumbnailPaths.entrySet()) {
+                productImageDao.updateThumbnailPath(entry.getKey(), entry.getValue());
+            }
+        }).thenApply(ignored -> pending.size());
+    }
+
     /**
      * Get File objects untuk sharing.
      */
     public List<File> getProductImageFilesForSharing(String productId) {
-        List<ProductImage> images = productImageDao.getByProductIdSync(productId);
-        // Sort by orderIndex to ensure first image is the main display image
+        ProductWithDetails details = detailsCache.getProductWithDetails(productId);
+        if (details == null || details.images == null) {
+            return new ArrayList<>();
+        }
+        // Copy (cached list is shared), sorted by orderIndex so the first image is the main one
+        List<ProductImage> images = new ArrayList<>(details.images);
         images.sort((img1, img2) -> Integer.compare(img1.getOrderIndex(), img2.getOrderIndex()));
         List<String> paths = new ArrayList<>();
 
@@ -374,34 +764,29 @@ public class ProductRepository {
     // UTILITY
     // ================================
 
-    public void updateProductStatus(String id, String status) {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            productDao.updateStatus(id, status);
-        });
+    public CompletableFuture<Void> updateProductStatus(String id, String status) {
+        return writeBatcher.execute(() -> productDao.updateStatus(id, status));
     }
 
-    public void updateProductStock(String id, long quantity) {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            productDao.updateStock(id, quantity);
-        });
+    public CompletableFuture<Void> updateProductStock(String id, long quantity) {
+        return writeBatcher.execute(() -> productDao.updateStock(id, quantity));
     }
 
     /**
      * Update urutan gambar berdasarkan urutan baru
      */
     private void updateImageOrder(String productId, List<ProductImage> existingImages,
-                                  List<String> newFilenames, long timestamp) {
+                                  List<String> newKeys, long timestamp) {
 
         Map<String, ProductImage> imageMap = new HashMap<>();
         for (ProductImage img : existingImages) {
-            String filename = getFilenameFromPath(img.getImagePath());
-            imageMap.put(filename, img);
+            imageMap.put(imageKey(img), img);
         }
 
-        // Update order index berdasarkan urutan di newFilenames
-        for (int i = 0; i < newFilenames.size(); i++) {
-            String filename = newFilenames.get(i);
-            ProductImage image = imageMap.get(filename);
+        // Update order index berdasarkan urutan di newKeys
+        for (int i = 0; i < newKeys.size(); i++) {
+            String key = newKeys.get(i);
+            ProductImage image = imageMap.get(key);
             if (image != null && image.getOrderIndex() != i) {
                 image.setOrderIndex(i);
                 image.setCreatedAt(timestamp); // Update timestamp
@@ -409,55 +794,67 @@ public class ProductRepository {
             }
         }
 
-        Log.d("ProductRepository", "Updated image order for " + newFilenames.size() + " images");
-    }
-
-    private String getFilenameFromUri(Uri uri) {
-        if (uri == null) return "";
-        String path = uri.getPath();
-        return getFilenameFromPath(path);
+        Log.d("ProductRepository", "Updated image order for " + newKeys.size() + " images");
     }
 
     /**
      * Update order index untuk semua gambar produk.
      */
-    public void updateProductImageOrder(String productId, List<String> imagePaths) {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            try {
-                List<ProductImage> currentImages = productImageDao.getByProductIdSync(productId);
-
-                // Update order index berdasarkan urutan di imagePaths
-                for (int i = 0; i < imagePaths.size(); i++) {
-                    String path = imagePaths.get(i);
-                    for (ProductImage img : currentImages) {
-                        if (img.getImagePath().equals(path)) {
-                            img.setOrderIndex(i);
-                            productImageDao.updateOrderIndex(img.getId(), i);
-                            break;
-                        }
+    public CompletableFuture<Void> updateProductImageOrder(String productId, List<String> imagePaths) {
+        return writeBatcher.execute(() -> {
+            List<ProductImage> currentImages = productImageDao.getByProductIdSync(productId);
+
+            // Update order index berdasarkan urutan di imagePaths
+            for (int i = 0; i < imagePaths.size(); i++) {
+                String path = imagePaths.get(i);
+                for (ProductImage img : currentImages) {
+                    if (img.getImagePath().equals(path)) {
+                        img.setOrderIndex(i);
+                        productImageDao.updateOrderIndex(img.getId(), i);
+                        break;
                     }
                 }
-            } catch (Exception e) {
-                throw new RuntimeException("Failed to update image order", e);
             }
         });
     }
 
-    private String generateBarcode() {
+    // ================================
+    // CSV IMPORT / EXPORT
+    // ================================
+
+    /**
+     * Import katalog dari CSV (UTF-8), upsert berdasarkan barcode per chunk transaksi.
+     * Header dibaca di thread pemanggil (background); chunk berikutnya dibaca di read pool setelah
+     * chunk sebelumnya commit. Stream ditutup setelah future selesai.
+     */
+    public CompletableFuture<ProductCsvImporter.Report> importCatalogCsv(InputStream input,
+                                                                       ProductCsvImporter.ProgressListener listener) {
+        Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8);
+        CompletableFuture<ProductCsvImporter.Report> result;
         try {
-            Future<Integer> future = AppDatabase.databaseWriteExecutor.submit(new Callable<Integer>() {
-                @Override
-                public Integer call() {
-                    int maxNumber = productDao.getMaxBarcodeNumber();
-                    return maxNumber + 1;
-                }
-            });
+            result = new ProductCsvImporter(database).importCsv(reader, listener, executors.diskRead());
+        } catch (IOException e) {
+            result = new CompletableFuture<>();
+            result.completeExceptionally(e);
+        }
+        return result.whenComplete((report, error) -> {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                Log.w("ProductRepository", "Failed to close CSV reader", e);
+            }
+        });
+    }
 
-            int nextNumber = future.get();
-            return String.format("BE-%08d", nextNumber);
-        } catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
-            return "BE-" + System.currentTimeMillis();
+    /**
+     * Export seluruh katalog ke CSV (UTF-8) langsung dari cursor.
+     * Blocking; panggil dari background thread. Stream ditutup setelah selesai.
+     *
+     * @return jumlah produk yang ditulis
+     */
+    public int exportCatalogCsv(OutputStream output) throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+            return new ProductCsvExporter(database).exportCsv(writer);
         }
     }
 }
@@ -1,55 +1,207 @@
 package com.bdajaya.adminku.data.repository;
 
-import android.util.LruCache;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.collection.LruCache;
+import androidx.room.InvalidationTracker;
 
+import com.bdajaya.adminku.data.AppDatabase;
 import com.bdajaya.adminku.data.dao.ProductDao;
 import com.bdajaya.adminku.data.model.ProductWithDetails;
-import com.bdajaya.adminku.data.entity.Product;
 
 import java.util.List;
+import java.util.Set;
 
 /**
- * Example wrapper demonstrating a simple read-through cache for Product objects.
- * Integrate into ProductRepository (inject ProductDao via Hilt as in RepositoryModule).
+ * Read-through LRU cache for ProductWithDetails (product + category, brand, unit, images).
  *
- * Important:
- * - All write operations must call invalidate(id) or clear().
- * - Choose cache size based on device memory profile; this is just an example.
+ * Entries are dropped automatically. SQL triggers log every product whose row or images change
+ * in ProductChange with an increasing seq; on a ProductChange invalidation the cache reads the
+ * ids with seq above the last one it handled and evicts only those. A Unit/Category/Brand write
+ * still clears the whole cache, because a rename touches every product that points to it. A load
+ * that overlaps an invalidation is returned but not kept, so a stale row is never cached.
+ *
+ * Cached objects are shared: callers must treat them as read-only.
  */
 public class ProductRepositoryCache {
-    private final ProductDao productDao;
+    private static final String CHANGE_TABLE = "ProductChange";
+    private static final String[] SHARED_TABLES = {"Unit", "Category", "Brand"};
+
+    /**
+     * Database reads used by the cache; tests pass a fake.
+     */
+    interface Source {
+        @Nullable
+        ProductWithDetails load(String id);
+
+        long lastChangeSeq();
+
+        List<ProductDao.ChangedProduct> changedAfter(long seq);
+    }
+
+    private final Source source;
     private final LruCache<String, ProductWithDetails> productCache;
 
-    public ProductRepositoryCache(ProductDao productDao) {
-        this.productDao = productDao;
-        // capacity in entries - tune as needed
-        this.productCache = new LruCache<>(256);
+    private final Object generationLock = new Object();
+    private long generation;
+
+    // Serializes invalidation handling; lastSeq < 0 until the first miss reads it
+    private final Object changeLock = new Object();
+    private long lastSeq = -1;
+
+    public ProductRepositoryCache(AppDatabase database, int maxEntries) {
+        this(sourceFor(database.productDao()), maxEntries);
+
+        String[] tables = new String[SHARED_TABLES.length + 1];
+        tables[0] = CHANGE_TABLE;
+        System.arraycopy(SHARED_TABLES, 0, tables, 1, SHARED_TABLES.length);
+        database.getInvalidationTracker().addObserver(new InvalidationTracker.Observer(tables) {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                onTablesInvalidated(tables);
+            }
+        });
+    }
+
+    ProductRepositoryCache(Source source, int maxEntries) {
+        this.source = source;
+        this.productCache = new LruCache<>(maxEntries);
+    }
+
+    private static Source sourceFor(ProductDao productDao) {
+        return new Source() {
+            @Override
+            public ProductWithDetails load(String id) {
+                return productDao.getProductWithDetailsSync(id);
+            }
+
+            @Override
+            public long lastChangeSeq() {
+                return productDao.getLastProductChangeSeq();
+            }
+
+            @Override
+            public List<ProductDao.ChangedProduct> changedAfter(long seq) {
+                return productDao.getProductsChangedAfter(seq);
+            }
+        };
     }
 
+    /**
+     * Cached product with relations, loaded with one @Transaction query on a miss.
+     * Blocking on a miss; call from a background thread.
+     */
+    @Nullable
     public ProductWithDetails getProductWithDetails(String id) {
         ProductWithDetails cached = productCache.get(id);
-        if (cached != null) return cached;
+        if (cached != null) {
+            return cached;
+        }
+
+        long loadGeneration;
+        synchronized (generationLock) {
+            loadGeneration = generation;
+        }
+        ensureBaseline();
+        ProductWithDetails loaded = source.load(id);
+        if (loaded != null) {
+            synchronized (generationLock) {
+                if (loadGeneration == generation) {
+                    productCache.put(id, loaded);
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Read the current seq before the first entry is cached, so every later change to it has a
+     * higher seq and gets evicted.
+     */
+    private void ensureBaseline() {
+        synchronized (changeLock) {
+            if (lastSeq < 0) {
+                lastSeq = source.lastChangeSeq();
+            }
+        }
+    }
 
-        // call DAO sync method from background thread (caller must ensure background thread)
-        ProductWithDetails p = null;
-        try {
-            // If ProductDao had a sync method to return ProductWithDetails, use it. For example:
-            // p = productDao.getProductWithDetailsSync(id);
-            // If not available, you can fetch product and relations separately.
-        } catch (Exception ignored) {}
+    void onTablesInvalidated(Set<String> tables) {
+        synchronized (changeLock) {
+            // Loads in flight may have read the old rows
+            synchronized (generationLock) {
+                generation++;
+            }
+            if (lastSeq < 0) {
+                // Nothing was loaded yet, so nothing can be stale
+                return;
+            }
+            if (containsAny(tables, SHARED_TABLES)) {
+                lastSeq = source.lastChangeSeq();
+                clear();
+                return;
+            }
+            for (ProductDao.ChangedProduct change : source.changedAfter(lastSeq)) {
+                invalidate(change.productId);
+                lastSeq = Math.max(lastSeq, change.seq);
+            }
+        }
+    }
 
-        if (p != null) productCache.put(id, p);
-        return p;
+    private static boolean containsAny(Set<String> tables, String[] names) {
+        for (String table : tables) {
+            for (String name : names) {
+                if (name.equalsIgnoreCase(table)) {
+                    return true;
+                }
+            }
+        }
+        return false;
     }
 
     public void invalidate(String id) {
-        productCache.remove(id);
+        synchronized (generationLock) {
+            generation++;
+            productCache.remove(id);
+        }
     }
 
     public void clear() {
-        productCache.evictAll();
+        synchronized (generationLock) {
+            generation++;
+            productCache.evictAll();
+        }
+    }
+
+    // ================================
+    // STATS (for sizing)
+    // ================================
+
+    public int hitCount() {
+        return productCache.hitCount();
+    }
+
+    public int missCount() {
+        return productCache.missCount();
+    }
+
+    public int evictionCount() {
+        return productCache.evictionCount();
+    }
+
+    public int size() {
+        return productCache.size();
+    }
+
+    public int maxSize() {
+        return productCache.maxSize();
     }
 
-    // Example search caching: for search results you may cache by normalized query string
-    // but be mindful of memory growth and TTL/expiry.
-}
\ No newline at end of file
+    @NonNull
+    @Override
+    public String toString() {
+        // LruCache.toString(): maxSize, hits, misses, hitRate
+        return "ProductRepositoryCache" + productCache + " size=" + productCache.size()
+                + " evictions=" + productCache.evictionCount();
+    }
+}
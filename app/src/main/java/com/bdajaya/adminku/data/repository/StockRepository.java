@@ -1,26 +1,55 @@
 package com.bdajaya.adminku.data.repository;
 
 import androidx.lifecycle.LiveData;
+import androidx.paging.Pager;
+import androidx.paging.PagingConfig;
+import com.bdajaya.adminku.core.AppExecutors;
+import com.bdajaya.adminku.core.AsyncResult;
 import com.bdajaya.adminku.core.BaseRepository;
+import com.bdajaya.adminku.core.Constants;
 import com.bdajaya.adminku.core.Result;
 import com.bdajaya.adminku.data.AppDatabase;
+import com.bdajaya.adminku.data.WriteBatcher;
 import com.bdajaya.adminku.data.dao.StockTransactionDao;
+import com.bdajaya.adminku.data.entity.StockBalance;
+import com.bdajaya.adminku.data.entity.StockMonthlySummary;
 import com.bdajaya.adminku.data.entity.StockTransaction;
 import com.bdajaya.adminku.data.entity.Unit;
-
+import com.bdajaya.adminku.data.manager.StockCommandEngine;
+import com.bdajaya.adminku.data.manager.StockLedgerCompactor;
+import com.bdajaya.adminku.data.model.StockCommand;
+import com.bdajaya.adminku.data.model.StockCommandResult;
+import com.bdajaya.adminku.data.model.StockTimelineEntry;
+import com.bdajaya.adminku.data.paging.StockTimelinePagingSource;
+
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Repository for stock transactions with unit conversion support.
  * ALL stock quantities are stored in BASE UNITS for consistency.
  */
 public class StockRepository extends BaseRepository {
+    private final AppDatabase database;
     private final StockTransactionDao stockTransactionDao;
     private final UnitRepository unitRepository;
-
-    public StockRepository(StockTransactionDao stockTransactionDao, UnitRepository unitRepository) {
+    private final StockLedgerCompactor ledgerCompactor;
+    private final WriteBatcher writeBatcher;
+    private final StockCommandEngine commandEngine;
+    private final Executor reader;
+
+    public StockRepository(AppDatabase database, StockTransactionDao stockTransactionDao,
+                           UnitRepository unitRepository, AppExecutors executors) {
+        super(WriteBatcher.getInstance(database), executors.diskRead());
+        this.database = database;
         this.stockTransactionDao = stockTransactionDao;
         this.unitRepository = unitRepository;
+        this.ledgerCompactor = new StockLedgerCompactor(database);
+        this.writeBatcher = WriteBatcher.getInstance(database);
+        this.commandEngine = new StockCommandEngine(stockTransactionDao, unitRepository);
+        this.reader = executors.diskRead();
     }
 
     @Override
@@ -44,13 +73,70 @@ public class StockRepository extends BaseRepository {
         return stockTransactionDao.getByTimeRange(startTime, endTime);
     }
 
+    // ================================
+    // TIMELINE
+    // ================================
+
+    /**
+     * Pager for a product's stock history (newest first, keyset on timestamp + id)
+     */
+    public Pager<StockTimelinePagingSource.Cursor, StockTimelineEntry> getTimelinePager(String productId) {
+        int pageSize = Constants.RECYCLERVIEW_PAGE_SIZE;
+        PagingConfig config = new PagingConfig(
+                pageSize,
+                pageSize / 2,
+                false,
+                pageSize,
+                pageSize * 6
+        );
+        return new Pager<>(config, () -> new StockTimelinePagingSource(database, stockTransactionDao, productId,
+                reader));
+    }
+
+    /**
+     * One timeline page older than the cursor (null cursor = newest page).
+     * Pass StockTimelinePagingSource.Cursor.of(lastEntry) to get the next page.
+     */
+    public List<StockTimelineEntry> getTimelinePage(String productId,
+                                                    StockTimelinePagingSource.Cursor cursor, int limit) {
+        if (cursor == null) {
+            return stockTransactionDao.getTimelineFirst(productId, limit);
+        }
+        return stockTransactionDao.getTimelineOlder(productId, cursor.timestamp, cursor.id, limit);
+    }
+
     /**
-     * Get total stock in BASE UNIT
+     * Get total stock in BASE UNIT (single lookup on StockBalance)
      */
     public long getTotalStockForProduct(String productId) {
         return stockTransactionDao.getTotalStockForProduct(productId);
     }
 
+    public StockBalance getStockBalance(String productId) {
+        return stockTransactionDao.getBalance(productId);
+    }
+
+    /**
+     * Recompute StockBalance from the ledger (all products)
+     */
+    public AsyncResult<Void> rebuildStockBalances() {
+        return executeWriteAsync(() -> {
+            stockTransactionDao.rebuildAllBalances();
+            logOperationSuccess("rebuildStockBalances");
+            return null;
+        }, "rebuildStockBalances");
+    }
+
+    /**
+     * Recompute StockBalance from the ledger for one product
+     */
+    public AsyncResult<Void> rebuildStockBalance(String productId) {
+        return executeWriteAsync(() -> {
+            stockTransactionDao.rebuildBalance(productId);
+            return null;
+        }, "rebuildStockBalance");
+    }
+
     /**
      * Get stock in specific unit (converted from base unit)
      */
@@ -68,121 +154,50 @@ public class StockRepository extends BaseRepository {
     }
 
     // ================================
-    // WRITE OPERATIONS WITH UNIT CONVERSION
+    // STOCK COMMANDS
     // ================================
 
     /**
-     * Add stock - converts to base unit automatically
+     * Apply one stock command (quantity in the command's unit, converted once by the engine).
+     * Group-committed with other queued writes; completes with a typed StockCommandResult.
+     * A rejected command (insufficient stock, unknown unit, ...) is a successful Result whose
+     * StockCommandResult is not applied.
      */
-    public void addStock(String productId, long quantity, String unitId, String notes) {
-        if (quantity <= 0) {
-            throw new IllegalArgumentException("Quantity must be positive");
-        }
-
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            try {
-                Unit unit = unitRepository.getUnitByIdSync(unitId);
-                if (unit == null) {
-                    throw new IllegalArgumentException("Unit not found");
-                }
-
-                // Convert to base unit
-                long baseQuantity = unit.toBaseUnit(quantity);
-
-                StockTransaction transaction = new StockTransaction.Builder(
-                        productId, StockTransaction.TransactionType.ADD)
-                        .quantity(baseQuantity)
-                        .originalQuantity(quantity)
-                        .originalConversionFactor(unit.getConversionFactor())
-                        .unitId(unitId)
-                        .notes(notes)
-                        .build();
-
-                stockTransactionDao.insert(transaction);
-                logOperationSuccess("addStock: " + quantity + " " + unit.getName());
-            } catch (Exception e) {
-                logOperationFailure("addStock", e.getMessage());
-                throw e;
-            }
-        });
+    public AsyncResult<StockCommandResult> execute(StockCommand command) {
+        return executeWriteAsync(() -> commandEngine.apply(command),
+                "stockCommand: " + command.type.getValue());
     }
 
     /**
-     * Remove stock - converts to base unit automatically
+     * Apply several commands as one all-or-nothing transaction (a checkout cart): one ledger
+     * write for the whole batch, stock checked for every line first. If any line is rejected
+     * nothing is written; see StockCommandEngine.applyAll for the per-line results.
      */
-    public void removeStock(String productId, long quantity, String unitId, String notes) {
-        if (quantity <= 0) {
-            throw new IllegalArgumentException("Quantity must be positive");
-        }
+    public AsyncResult<List<StockCommandResult>> executeBatch(List<StockCommand> commands) {
+        List<StockCommand> snapshot = new ArrayList<>(commands);
+        return executeWriteAsync(() -> commandEngine.applyAll(snapshot),
+                "stockBatch: " + snapshot.size() + " commands");
+    }
 
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            try {
-                Unit unit = unitRepository.getUnitByIdSync(unitId);
-                if (unit == null) {
-                    throw new IllegalArgumentException("Unit not found");
-                }
-
-                // Convert to base unit
-                long baseQuantity = unit.toBaseUnit(quantity);
-
-                // Check stock availability
-                long currentStock = stockTransactionDao.getTotalStockForProduct(productId);
-                if (currentStock < baseQuantity) {
-                    throw new IllegalStateException("Insufficient stock");
-                }
-
-                StockTransaction transaction = new StockTransaction.Builder(
-                        productId, StockTransaction.TransactionType.REMOVE)
-                        .quantity(baseQuantity)
-                        .originalQuantity(quantity)
-                        .originalConversionFactor(unit.getConversionFactor())
-                        .unitId(unitId)
-                        .notes(notes)
-                        .build();
-
-                stockTransactionDao.insert(transaction);
-                logOperationSuccess("removeStock: " + quantity + " " + unit.getName());
-            } catch (Exception e) {
-                logOperationFailure("removeStock", e.getMessage());
-                throw e;
-            }
-        });
+    /**
+     * Add stock; quantity is in unitId and converted to base unit by the engine.
+     */
+    public AsyncResult<StockCommandResult> addStock(String productId, long quantity, String unitId, String notes) {
+        return execute(StockCommand.add(productId, quantity, unitId, notes));
     }
 
     /**
-     * Adjust stock to specific quantity - converts to base unit
+     * Remove stock; rejected with INSUFFICIENT_STOCK instead of going below zero.
      */
-    public void adjustStock(String productId, long quantity, String unitId, String notes) {
-        if (quantity < 0) {
-            throw new IllegalArgumentException("Quantity cannot be negative");
-        }
+    public AsyncResult<StockCommandResult> removeStock(String productId, long quantity, String unitId, String notes) {
+        return execute(StockCommand.remove(productId, quantity, unitId, notes));
+    }
 
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            try {
-                Unit unit = unitRepository.getUnitByIdSync(unitId);
-                if (unit == null) {
-                    throw new IllegalArgumentException("Unit not found");
-                }
-
-                // Convert to base unit
-                long baseQuantity = unit.toBaseUnit(quantity);
-
-                StockTransaction transaction = new StockTransaction.Builder(
-                        productId, StockTransaction.TransactionType.ADJUST)
-                        .quantity(baseQuantity)
-                        .originalQuantity(quantity)
-                        .originalConversionFactor(unit.getConversionFactor())
-                        .unitId(unitId)
-                        .notes(notes)
-                        .build();
-
-                stockTransactionDao.insert(transaction);
-                logOperationSuccess("adjustStock: " + quantity + " " + unit.getName());
-            } catch (Exception e) {
-                logOperationFailure("adjustStock", e.getMessage());
-                throw e;
-            }
-        });
+    /**
+     * Adjust stock to an absolute quantity in unitId.
+     */
+    public AsyncResult<StockCommandResult> adjustStock(String productId, long quantity, String unitId, String notes) {
+        return execute(StockCommand.adjust(productId, quantity, unitId, notes));
     }
 
     // ================================
@@ -213,13 +228,32 @@ public class StockRepository extends BaseRepository {
         return stockTransactionDao.deleteByProductId(productId);
     }
 
-    public int deleteOldTransactions(long timestamp) {
-        return stockTransactionDao.deleteOlderThan(timestamp);
+    /**
+     * @deprecated Old rows are no longer deleted; they are folded into checkpoints so balances
+     * stay correct. Delegates to {@link #compactTransactionsOlderThan(long)}.
+     */
+    @Deprecated
+    public CompletableFuture<Integer> deleteOldTransactions(long timestamp) {
+        return compactTransactionsOlderThan(timestamp);
+    }
+
+    /**
+     * Fold transactions older than cutoff into checkpoint rows and monthly summaries, one
+     * product per write command. Reads the product list on the calling (background) thread.
+     *
+     * @return future number of ledger rows removed
+     */
+    public CompletableFuture<Integer> compactTransactionsOlderThan(long cutoff) {
+        return ledgerCompactor.compactOlderThan(cutoff);
+    }
+
+    public List<StockMonthlySummary> getMonthlySummaries(String productId) {
+        return stockTransactionDao.getMonthlySummaries(productId);
     }
 
-    public void insertAllTransactions(List<StockTransaction> transactions) {
+    public CompletableFuture<Void> insertAllTransactions(List<StockTransaction> transactions) {
         if (transactions == null || transactions.isEmpty()) {
-            return;
+            return CompletableFuture.completedFuture(null);
         }
 
         for (StockTransaction transaction : transactions) {
@@ -228,7 +262,7 @@ public class StockRepository extends BaseRepository {
             }
         }
 
-        AppDatabase.databaseWriteExecutor.execute(() -> {
+        return writeBatcher.execute(() -> {
             stockTransactionDao.insertAll(transactions);
         });
     }
@@ -0,0 +1,251 @@
+package com.bdajaya.adminku.data.repository;
+
+import androidx.lifecycle.LiveData;
+
+import com.bdajaya.adminku.core.AppExecutors;
+import com.bdajaya.adminku.core.AsyncResult;
+import com.bdajaya.adminku.core.BaseRepository;
+import com.bdajaya.adminku.core.Constants;
+import com.bdajaya.adminku.core.ErrorHandler;
+import com.bdajaya.adminku.core.Result;
+import com.bdajaya.adminku.data.AppDatabase;
+import com.bdajaya.adminku.data.WriteBatcher;
+import com.bdajaya.adminku.data.dao.StockTransactionDao;
+import com.bdajaya.adminku.data.dao.StocktakeDao;
+import com.bdajaya.adminku.data.entity.StockTransaction;
+import com.bdajaya.adminku.data.entity.StocktakeCount;
+import com.bdajaya.adminku.data.entity.StocktakeSession;
+import com.bdajaya.adminku.data.entity.Unit;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Stocktake (stock opname): stage counts per session, then commit all ADJUST rows at once.
+ *
+ * Counts live in StocktakeCount until commit, so an OPEN session can be resumed after a restart.
+ * Commit runs in a single database transaction: variance is computed in one query against the
+ * balance as it was when each product was counted, ADJUST rows are dated at that count and go
+ * through StockTransactionDao.insertAll (which keeps StockBalance in sync and replays sales made
+ * after the count), Product.stock is refreshed from the balance in one statement and the session
+ * is closed. A failure rolls all of it back.
+ */
+public class StocktakeRepository extends BaseRepository {
+    private final StocktakeDao stocktakeDao;
+    private final StockTransactionDao stockTransactionDao;
+    private final Supplier<UnitConversionTable> units;
+
+    public StocktakeRepository(AppDatabase database, StocktakeDao stocktakeDao,
+                               StockTransactionDao stockTransactionDao, UnitRepository unitRepository,
+                               AppExecutors executors) {
+        this(WriteBatcher.getInstance(database), executors.diskRead(), stocktakeDao, stockTransactionDao,
+                unitRepository::getConversionTable);
+    }
+
+    StocktakeRepository(WriteBatcher writeBatcher, Executor reader, StocktakeDao stocktakeDao,
+                        StockTransactionDao stockTransactionDao, Supplier<UnitConversionTable> units) {
+        super(writeBatcher, reader);
+        this.stocktakeDao = stocktakeDao;
+        this.stockTransactionDao = stockTransactionDao;
+        this.units = units;
+    }
+
+    @Override
+    protected String getRepositoryName() {
+        return "StocktakeRepository";
+    }
+
+    /**
+     * Progress callback while committing; called on the writer thread, inside the transaction.
+     */
+    public interface CommitProgressListener {
+        void onProgress(int written, int total);
+    }
+
+    // ================================
+    // SESSIONS
+    // ================================
+
+    public AsyncResult<String> startSession(String name) {
+        return executeWriteAsync(() -> {
+            String id = UUID.randomUUID().toString();
+            long now = getCurrentTimestamp();
+            stocktakeDao.insertSession(new StocktakeSession(
+                    id, name, StocktakeSession.STATUS_OPEN, now, now, 0, 0));
+            return id;
+        }, "startSession");
+    }
+
+    /**
+     * Most recent OPEN session (null when there is none), so counting can continue where it stopped.
+     */
+    public Result<StocktakeSession> getResumableSession() {
+        return executeReadOperation(stocktakeDao::getLatestOpenSession, "getResumableSession");
+    }
+
+    public LiveData<List<StocktakeSession>> getSessions() {
+        return stocktakeDao.getSessionsLive();
+    }
+
+    public AsyncResult<Void> cancelSession(String sessionId) {
+        return executeWriteAsync(() -> {
+            long now = getCurrentTimestamp();
+            if (stocktakeDao.closeSession(sessionId, StocktakeSession.STATUS_CANCELLED, 0, 0, now) == 0) {
+                throw new ErrorHandler.ValidationException("Sesi stock opname sudah ditutup");
+            }
+            return null;
+        }, "cancelSession");
+    }
+
+    // ================================
+    // COUNTS
+    // ================================
+
+    /**
+     * Record (or replace) the count for one product, in any unit.
+     */
+    public AsyncResult<Void> recordCount(String sessionId, String productId, long quantity, String unitId) {
+        List<CountInput> single = new ArrayList<>(1);
+        single.add(new CountInput(productId, quantity, unitId));
+        return recordCounts(sessionId, single);
+    }
+
+    /**
+     * Record a batch of counts (e.g. a scanner buffer) in one transaction.
+     */
+    public AsyncResult<Void> recordCounts(String sessionId, List<CountInput> inputs) {
+        return executeWriteAsync(() -> {
+            requireOpen(sessionId);
+
+            UnitConversionTable table = units.get();
+            long now = getCurrentTimestamp();
+            List<StocktakeCount> counts = new ArrayList<>(inputs.size());
+            for (CountInput input : inputs) {
+                if (input.quantity < 0) {
+                    throw new ErrorHandler.ValidationException(Constants.ERROR_INVALID_STOCK_QUANTITY);
+                }
+                Unit unit = table.getUnit(input.unitId);
+                if (unit == null) {
+                    throw new ErrorHandler.ValidationException(Constants.ERROR_UNIT_NOT_FOUND);
+                }
+                counts.add(new StocktakeCount(sessionId, input.productId, input.unitId, input.quantity,
+                        unit.getConversionFactor(), unit.toBaseUnit(input.quantity), now));
+            }
+
+            stocktakeDao.upsertCounts(counts);
+            stocktakeDao.touchSession(sessionId, now);
+            return null;
+        }, "recordCounts");
+    }
+
+    public AsyncResult<Void> removeCount(String sessionId, String productId) {
+        return executeWriteAsync(() -> {
+            requireOpen(sessionId);
+            stocktakeDao.deleteCount(sessionId, productId);
+            return null;
+        }, "removeCount");
+    }
+
+    // ================================
+    // PROGRESS & VARIANCE
+    // ================================
+
+    public LiveData<StocktakeDao.Progress> getProgress(String sessionId) {
+        return stocktakeDao.getProgressLive(sessionId);
+    }
+
+    public LiveData<List<StocktakeDao.VarianceLine>> getVariances(String sessionId) {
+        return stocktakeDao.getNonZeroVariancesLive(sessionId);
+    }
+
+    public Result<List<StocktakeDao.VarianceLine>> getAllLines(String sessionId) {
+        return executeReadOperation(() -> stocktakeDao.getVariances(sessionId), "getAllLines");
+    }
+
+    // ================================
+    // COMMIT
+    // ================================
+
+    /**
+     * Commit the session: one ADJUST per product whose count differs from its balance at count
+     * time, stamped with countedAt so movements recorded between counting and committing stay
+     * on top of it. Counts that match only refresh Product.stock. A failed commit leaves the
+     * session OPEN.
+     *
+     * @return number of ADJUST rows written
+     */
+    public AsyncResult<Integer> commitSession(String sessionId, CommitProgressListener listener) {
+        return executeWriteAsync(() -> {
+            requireOpen(sessionId);
+
+            long now = getCurrentTimestamp();
+            List<StocktakeDao.VarianceLine> lines = stocktakeDao.getVariances(sessionId);
+            List<StockTransaction> adjustments = new ArrayList<>();
+            for (StocktakeDao.VarianceLine line : lines) {
+                if (line.variance == 0) {
+                    continue;
+                }
+                adjustments.add(new StockTransaction.Builder(line.productId, StockTransaction.TransactionType.ADJUST)
+                        .id(adjustmentId(sessionId, line.productId))
+                        .quantity(line.countedBaseQuantity)
+                        .originalQuantity(line.countedQuantity)
+                        .originalConversionFactor(line.conversionFactor)
+                        .unitId(line.unitId)
+                        .notes("Stock opname (selisih " + line.variance + ")")
+                        .timestamp(line.countedAt)
+                        .build());
+            }
+
+            int total = adjustments.size();
+            int chunkSize = Constants.STOCKTAKE_COMMIT_CHUNK_SIZE;
+            for (int from = 0; from < total; from += chunkSize) {
+                int to = Math.min(from + chunkSize, total);
+                stockTransactionDao.insertAll(adjustments.subList(from, to));
+                if (listener != null) {
+                    listener.onProgress(to, total);
+                }
+            }
+
+            stocktakeDao.syncCountedProductsFromBalance(sessionId, now);
+            stocktakeDao.closeSession(sessionId, StocktakeSession.STATUS_COMMITTED, now, total, now);
+
+            logOperationSuccess("commitSession: " + lines.size() + " counts, " + total + " adjustments");
+            return total;
+        }, "commitSession");
+    }
+
+    private void requireOpen(String sessionId)
+            throws ErrorHandler.ValidationException, ErrorHandler.DatabaseException {
+        StocktakeSession session = stocktakeDao.getSession(sessionId);
+        if (session == null) {
+            throw new ErrorHandler.DatabaseException("Sesi stock opname tidak ditemukan");
+        }
+        if (!session.isOpen()) {
+            throw new ErrorHandler.ValidationException("Sesi stock opname sudah ditutup");
+        }
+    }
+
+    private static String adjustmentId(String sessionId, String productId) {
+        String key = "stocktake:" + sessionId + ":" + productId;
+        return UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    /**
+     * One counted line as entered by the user.
+     */
+    public static class CountInput {
+        public final String productId;
+        public final long quantity;
+        public final String unitId;
+
+        public CountInput(String productId, long quantity, String unitId) {
+            this.productId = productId;
+            this.quantity = quantity;
+            this.unitId = unitId;
+        }
+    }
+}
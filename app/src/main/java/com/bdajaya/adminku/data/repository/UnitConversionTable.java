@@ -0,0 +1,154 @@
+package com.bdajaya.adminku.data.repository;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bdajaya.adminku.data.entity.Unit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the Unit table with a precomputed conversion matrix.
+ *
+ * Units are addressed by a dense int index; each pair (from, to) stores the reduced
+ * fraction fromFactor/toFactor, so a conversion is one multiply and one divide with
+ * no lookups beyond the id → index map. Pairs from different base units (different
+ * compatibility groups) have a zero denominator.
+ *
+ * Built by {@link UnitRepository}; Unit objects here are shared and must be treated as read-only.
+ */
+public final class UnitConversionTable {
+    static final int NOT_FOUND = -1;
+
+    private final Unit[] units;
+    private final Map<String, Integer> indexById;
+    private final int[] group;
+    private final long[][] numerator;
+    private final long[][] denominator;
+    private final List<Unit> all;
+    private final List<Unit> baseUnits;
+    private final Map<String, List<Unit>> byBaseUnit;
+
+    /**
+     * @param ordered All units in UnitDao.getAllSync order (base units first, then by name)
+     */
+    UnitConversionTable(List<Unit> ordered) {
+        int n = ordered.size();
+        units = ordered.toArray(new Unit[0]);
+        indexById = new HashMap<>(n * 2);
+        group = new int[n];
+        numerator = new long[n][n];
+        denominator = new long[n][n];
+
+        Map<String, Integer> groupByBaseUnit = new HashMap<>();
+        Map<String, List<Unit>> grouped = new HashMap<>();
+        List<Unit> bases = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            Unit unit = units[i];
+            indexById.put(unit.getId(), i);
+
+            Integer g = groupByBaseUnit.get(unit.getBaseUnit());
+            if (g == null) {
+                g = groupByBaseUnit.size();
+                groupByBaseUnit.put(unit.getBaseUnit(), g);
+                grouped.put(unit.getBaseUnit(), new ArrayList<>());
+            }
+            group[i] = g;
+            grouped.get(unit.getBaseUnit()).add(unit);
+
+            if (unit.isBaseUnit()) {
+                bases.add(unit);
+            }
+        }
+
+        for (int from = 0; from < n; from++) {
+            for (int to = 0; to < n; to++) {
+                long fromFactor = units[from].getConversionFactor();
+                long toFactor = units[to].getConversionFactor();
+                if (group[from] != group[to] || toFactor == 0) {
+                    continue;
+                }
+                long divisor = gcd(Math.abs(fromFactor), Math.abs(toFactor));
+                numerator[from][to] = fromFactor / divisor;
+                denominator[from][to] = toFactor / divisor;
+            }
+        }
+
+        // Same order as UnitDao: getBaseUnits / getByBaseUnit sort by name only
+        Collections.sort(bases, (a, b) -> a.getName().compareTo(b.getName()));
+        for (List<Unit> list : grouped.values()) {
+            Collections.sort(list, (a, b) -> a.getName().compareTo(b.getName()));
+        }
+        for (Map.Entry<String, List<Unit>> entry : grouped.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+
+        all = Collections.unmodifiableList(new ArrayList<>(ordered));
+        baseUnits = Collections.unmodifiableList(bases);
+        byBaseUnit = grouped;
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a == 0 ? 1 : a;
+    }
+
+    int indexOf(String unitId) {
+        Integer index = unitId != null ? indexById.get(unitId) : null;
+        return index != null ? index : NOT_FOUND;
+    }
+
+    @Nullable
+    public Unit getUnit(String unitId) {
+        int index = indexOf(unitId);
+        return index != NOT_FOUND ? units[index] : null;
+    }
+
+    public boolean areCompatible(String fromUnitId, String toUnitId) {
+        int from = indexOf(fromUnitId);
+        int to = indexOf(toUnitId);
+        return from != NOT_FOUND && to != NOT_FOUND && group[from] == group[to];
+    }
+
+    /**
+     * Same arithmetic as quantity * fromFactor / toFactor (truncating), on the reduced fraction.
+     *
+     * @throws IllegalArgumentException when a unit is missing or the units are not compatible
+     */
+    public long convert(long quantity, String fromUnitId, String toUnitId) {
+        int from = indexOf(fromUnitId);
+        int to = indexOf(toUnitId);
+        if (from == NOT_FOUND || to == NOT_FOUND) {
+            throw new IllegalArgumentException("Unit not found");
+        }
+        long den = denominator[from][to];
+        if (den == 0) {
+            throw new IllegalArgumentException("Units are not compatible");
+        }
+        return quantity * numerator[from][to] / den;
+    }
+
+    @NonNull
+    public List<Unit> getAll() {
+        return all;
+    }
+
+    @NonNull
+    public List<Unit> getBaseUnits() {
+        return baseUnits;
+    }
+
+    @NonNull
+    public List<Unit> getByBaseUnit(String baseUnitName) {
+        List<Unit> list = byBaseUnit.get(baseUnitName);
+        return list != null ? list : Collections.emptyList();
+    }
+}
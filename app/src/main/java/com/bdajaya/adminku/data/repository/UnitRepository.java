@@ -1,27 +1,49 @@
 package com.bdajaya.adminku.data.repository;
 
+import androidx.annotation.NonNull;
 import androidx.lifecycle.LiveData;
+import androidx.room.InvalidationTracker;
+
+import com.bdajaya.adminku.core.AppExecutors;
+import com.bdajaya.adminku.core.AsyncResult;
 import com.bdajaya.adminku.core.BaseRepository;
+import com.bdajaya.adminku.core.ErrorHandler;
 import com.bdajaya.adminku.core.Result;
 import com.bdajaya.adminku.data.AppDatabase;
+import com.bdajaya.adminku.data.WriteBatcher;
 import com.bdajaya.adminku.data.dao.UnitDao;
 import com.bdajaya.adminku.data.entity.Unit;
 
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
 
 /**
  * Repository for Unit entity with enhanced CRUD operations.
  * Extends BaseRepository for standardized error handling and async operations.
+ *
+ * Sync reads and conversions are served from a read-through {@link UnitConversionTable}
+ * snapshot, dropped after every unit write here commits and on any Unit change seen by Room's
+ * InvalidationTracker, so the stock hot path never touches SQLite for units.
  */
 public class UnitRepository extends BaseRepository {
     private final UnitDao unitDao;
 
-    public UnitRepository(UnitDao unitDao) {
+    private final Object tableLock = new Object();
+    private volatile UnitConversionTable conversionTable;
+    private long tableGeneration;
+
+    public UnitRepository(AppDatabase database, UnitDao unitDao, AppExecutors executors) {
+        super(WriteBatcher.getInstance(database), executors.diskRead());
         this.unitDao = unitDao;
+
+        database.getInvalidationTracker().addObserver(new InvalidationTracker.Observer("Unit") {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                invalidateConversionTable();
+            }
+        });
     }
 
     @Override
@@ -29,6 +51,42 @@ public class UnitRepository extends BaseRepository {
         return "UnitRepository";
     }
 
+    // ================================
+    // CONVERSION CACHE
+    // ================================
+
+    /**
+     * Current unit snapshot, loaded with one query on first use after an invalidation.
+     */
+    public UnitConversionTable getConversionTable() {
+        UnitConversionTable table = conversionTable;
+        if (table != null) {
+            return table;
+        }
+
+        long generation;
+        synchronized (tableLock) {
+            generation = tableGeneration;
+        }
+        table = new UnitConversionTable(unitDao.getAllSync());
+        synchronized (tableLock) {
+            // An invalidation during the load makes this table stale: hand it out once, don't keep
+            // it. Only holds because writers invalidate after their commit; an invalidation inside
+            // the transaction could precede a load that still reads the old rows.
+            if (generation == tableGeneration) {
+                conversionTable = table;
+            }
+        }
+        return table;
+    }
+
+    public void invalidateConversionTable() {
+        synchronized (tableLock) {
+            tableGeneration++;
+            conversionTable = null;
+        }
+    }
+
     // ================================
     // READ OPERATIONS
     // ================================
@@ -38,7 +96,7 @@ public class UnitRepository extends BaseRepository {
     }
 
     public List<Unit> getAllUnitsSync() {
-        return unitDao.getAllSync();
+        return getConversionTable().getAll();
     }
 
     public LiveData<Unit> getUnitById(String id) {
@@ -46,7 +104,7 @@ public class UnitRepository extends BaseRepository {
     }
 
     public Unit getUnitByIdSync(String id) {
-        return unitDao.getById(id);
+        return getConversionTable().getUnit(id);
     }
 
     public Unit getUnitByName(String name) {
@@ -54,11 +112,11 @@ public class UnitRepository extends BaseRepository {
     }
 
     public List<Unit> getBaseUnits() {
-        return unitDao.getBaseUnits();
+        return getConversionTable().getBaseUnits();
     }
 
     public List<Unit> getUnitsByBaseUnit(String baseUnitName) {
-        return unitDao.getByBaseUnit(baseUnitName);
+        return getConversionTable().getByBaseUnit(baseUnitName);
     }
 
     public List<Unit> searchUnits(String query) {
@@ -70,91 +128,82 @@ public class UnitRepository extends BaseRepository {
     // ================================
 
     /**
-     * Add a new unit with validation.
-     * Returns the ID of the created unit or null if failed.
+     * Add a new unit with validation, as one WriteBatcher command.
+     * Completes with the ID of the created unit, or null if validation failed.
      */
-    public String addUnit(String name, String baseUnit, long conversionFactor, boolean isBaseUnit) {
-        try {
-            Future<String> future = AppDatabase.databaseWriteExecutor.submit(new Callable<String>() {
-                @Override
-                public String call() {
-                    // Check if name already exists
-                    if (unitDao.countByName(name) > 0) {
-                        logOperationFailure("addUnit", "Duplicate unit name: " + name);
-                        return null;
-                    }
-
-                    // Prevent duplicate base units with same conversion
-                    Unit existing = unitDao.findByBaseUnitAndConversion(baseUnit, conversionFactor);
-                    if (existing != null && !existing.getName().equals(name)) {
-                        logOperationFailure("addUnit", "Unit with same conversion already exists");
-                        return null;
-                    }
-
-                    // Create and insert new unit
-                    String id = UUID.randomUUID().toString();
-                    long now = System.currentTimeMillis();
-
-                    Unit unit = new Unit(
-                            id,
-                            name,
-                            baseUnit,
-                            conversionFactor,
-                            isBaseUnit,
-                            now,
-                            now
-                    );
-
-                    unitDao.insert(unit);
-                    logOperationSuccess("addUnit: " + name);
-                    return id;
-                }
-            });
-
-            return future.get();
-        } catch (InterruptedException | ExecutionException e) {
-            logOperationFailure("addUnit", e.getMessage());
-            return null;
-        }
+    public AsyncResult<String> addUnit(String name, String baseUnit, long conversionFactor, boolean isBaseUnit) {
+        return writeAndInvalidate(() -> {
+            // Check if name already exists
+            if (unitDao.countByName(name) > 0) {
+                logOperationFailure("addUnit", "Duplicate unit name: " + name);
+                return null;
+            }
+
+            // Prevent duplicate base units with same conversion
+            Unit existing = unitDao.findByBaseUnitAndConversion(baseUnit, conversionFactor);
+            if (existing != null && !existing.getName().equals(name)) {
+                logOperationFailure("addUnit", "Unit with same conversion already exists");
+                return null;
+            }
+
+            // Create and insert new unit
+            String id = UUID.randomUUID().toString();
+            long now = System.currentTimeMillis();
+
+            Unit unit = new Unit(
+                    id,
+                    name,
+                    baseUnit,
+                    conversionFactor,
+                    isBaseUnit,
+                    now,
+                    now
+            );
+
+            unitDao.insert(unit);
+            logOperationSuccess("addUnit: " + name);
+            return id;
+        }, "addUnit");
     }
 
     /**
      * Initialize default units if not exists.
      */
-    public void initializeDefaultUnits() {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            List<Unit> existingUnits = unitDao.getAllSync();
-            if (existingUnits.isEmpty()) {
-                long now = System.currentTimeMillis();
-
-                // Create pcs (pieces) as base unit
-                Unit pcs = new Unit(
-                        UUID.randomUUID().toString(),
-                        "pcs",
-                        "pcs",
-                        1,
-                        true,
-                        now,
-                        now
-                );
-
-                // Create gr (gram) as base unit
-                Unit gr = new Unit(
-                        UUID.randomUUID().toString(),
-                        "gr",
-                        "gr",
-                        1,
-                        true,
-                        now,
-                        now
-                );
-
-                unitDao.insert(pcs);
-                unitDao.insert(gr);
-
-                logOperationSuccess("initializeDefaultUnits");
+    public AsyncResult<Boolean> initializeDefaultUnits() {
+        return writeAndInvalidate(() -> {
+            if (!unitDao.getAllSync().isEmpty()) {
+                return false;
             }
-        });
+            long now = System.currentTimeMillis();
+
+            // Create pcs (pieces) as base unit
+            Unit pcs = new Unit(
+                    UUID.randomUUID().toString(),
+                    "pcs",
+                    "pcs",
+                    1,
+                    true,
+                    now,
+                    now
+            );
+
+            // Create gr (gram) as base unit
+            Unit gr = new Unit(
+                    UUID.randomUUID().toString(),
+                    "gr",
+                    "gr",
+                    1,
+                    true,
+                    now,
+                    now
+            );
+
+            unitDao.insert(pcs);
+            unitDao.insert(gr);
+
+            logOperationSuccess("initializeDefaultUnits");
+            return true;
+        }, "initializeDefaultUnits");
     }
 
     // ================================
@@ -163,48 +212,38 @@ public class UnitRepository extends BaseRepository {
 
     /**
      * Update an existing unit.
-     * Returns true if successful, false otherwise.
+     * Completes with true if successful, false if validation failed.
      */
-    public boolean updateUnit(String id, String name, long conversionFactor) {
-        try {
-            Future<Boolean> future = AppDatabase.databaseWriteExecutor.submit(new Callable<Boolean>() {
-                @Override
-                public Boolean call() {
-                    Unit unit = unitDao.getById(id);
-                    if (unit == null) {
-                        logOperationFailure("updateUnit", "Unit not found: " + id);
-                        return false;
-                    }
-
-                    // Check if name already exists (excluding current unit)
-                    if (!unit.getName().equals(name) && unitDao.countByNameExcludingId(name, id) > 0) {
-                        logOperationFailure("updateUnit", "Duplicate unit name: " + name);
-                        return false;
-                    }
-
-                    // Base units cannot change conversion factor
-                    if (unit.isBaseUnit() && conversionFactor != 1) {
-                        logOperationFailure("updateUnit", "Cannot change base unit conversion factor");
-                        return false;
-                    }
-
-                    unit.setName(name);
-                    if (!unit.isBaseUnit()) {
-                        unit.setConversionFactor(conversionFactor);
-                    }
-                    unit.setUpdatedAt(System.currentTimeMillis());
-
-                    unitDao.update(unit);
-                    logOperationSuccess("updateUnit: " + name);
-                    return true;
-                }
-            });
-
-            return future.get();
-        } catch (InterruptedException | ExecutionException e) {
-            logOperationFailure("updateUnit", e.getMessage());
-            return false;
-        }
+    public AsyncResult<Boolean> updateUnit(String id, String name, long conversionFactor) {
+        return writeAndInvalidate(() -> {
+            Unit unit = unitDao.getById(id);
+            if (unit == null) {
+                logOperationFailure("updateUnit", "Unit not found: " + id);
+                return false;
+            }
+
+            // Check if name already exists (excluding current unit)
+            if (!unit.getName().equals(name) && unitDao.countByNameExcludingId(name, id) > 0) {
+                logOperationFailure("updateUnit", "Duplicate unit name: " + name);
+                return false;
+            }
+
+            // Base units cannot change conversion factor
+            if (unit.isBaseUnit() && conversionFactor != 1) {
+                logOperationFailure("updateUnit", "Cannot change base unit conversion factor");
+                return false;
+            }
+
+            unit.setName(name);
+            if (!unit.isBaseUnit()) {
+                unit.setConversionFactor(conversionFactor);
+            }
+            unit.setUpdatedAt(System.currentTimeMillis());
+
+            unitDao.update(unit);
+            logOperationSuccess("updateUnit: " + name);
+            return true;
+        }, "updateUnit");
     }
 
     // ================================
@@ -213,44 +252,46 @@ public class UnitRepository extends BaseRepository {
 
     /**
      * Delete a unit.
-     * Returns true if successful, false otherwise.
+     * Completes with true if successful, false otherwise.
      * Base units cannot be deleted.
      */
-    public boolean deleteUnit(String id) {
-        try {
-            Future<Boolean> future = AppDatabase.databaseWriteExecutor.submit(new Callable<Boolean>() {
-                @Override
-                public Boolean call() {
-                    Unit unit = unitDao.getById(id);
-                    if (unit == null) {
-                        logOperationFailure("deleteUnit", "Unit not found: " + id);
-                        return false;
-                    }
-
-                    // Base units cannot be deleted
-                    if (unit.isBaseUnit()) {
-                        logOperationFailure("deleteUnit", "Cannot delete base unit");
-                        return false;
-                    }
-
-                    // Check if unit is in use by products
-                    int productCount = unitDao.countProductsByUnitId(id);
-                    if (productCount > 0) {
-                        logOperationFailure("deleteUnit", "Unit in use by " + productCount + " products");
-                        return false;
-                    }
-
-                    unitDao.delete(unit);
-                    logOperationSuccess("deleteUnit: " + unit.getName());
-                    return true;
-                }
-            });
-
-            return future.get();
-        } catch (InterruptedException | ExecutionException e) {
-            logOperationFailure("deleteUnit", e.getMessage());
-            return false;
-        }
+    public AsyncResult<Boolean> deleteUnit(String id) {
+        return writeAndInvalidate(() -> {
+            Unit unit = unitDao.getById(id);
+            if (unit == null) {
+                logOperationFailure("deleteUnit", "Unit not found: " + id);
+                return false;
+            }
+
+            // Base units cannot be deleted
+            if (unit.isBaseUnit()) {
+                logOperationFailure("deleteUnit", "Cannot delete base unit");
+                return false;
+            }
+
+            // Check if unit is in use by products
+            int productCount = unitDao.countProductsByUnitId(id);
+            if (productCount > 0) {
+                logOperationFailure("deleteUnit", "Unit in use by " + productCount + " products");
+                return false;
+            }
+
+            unitDao.delete(unit);
+            logOperationSuccess("deleteUnit: " + unit.getName());
+            return true;
+        }, "deleteUnit");
+    }
+
+    /**
+     * Unit write as one WriteBatcher command; the conversion table is dropped after it commits
+     * (see getConversionTable).
+     */
+    private <T> AsyncResult<T> writeAndInvalidate(Callable<T> operation, String operationName) {
+        return executeWriteAsync(operation, operationName)
+                .map(value -> {
+                    invalidateConversionTable();
+                    return value;
+                });
     }
 
     // ================================
@@ -262,11 +303,8 @@ public class UnitRepository extends BaseRepository {
      */
     public boolean isUnitInUse(String unitId) {
         try {
-            Future<Boolean> future = AppDatabase.databaseWriteExecutor.submit(
-                    () -> unitDao.countProductsByUnitId(unitId) > 0
-            );
-            return future.get();
-        } catch (InterruptedException | ExecutionException e) {
+            return unitDao.countProductsByUnitId(unitId) > 0;
+        } catch (Exception e) {
             logOperationFailure("isUnitInUse", e.getMessage());
             return false;
         }
@@ -277,11 +315,8 @@ public class UnitRepository extends BaseRepository {
      */
     public boolean isUnitNameExists(String name) {
         try {
-            Future<Boolean> future = AppDatabase.databaseWriteExecutor.submit(
-                    () -> unitDao.countByName(name) > 0
-            );
-            return future.get();
-        } catch (InterruptedException | ExecutionException e) {
+            return unitDao.countByName(name) > 0;
+        } catch (Exception e) {
             logOperationFailure("isUnitNameExists", e.getMessage());
             return false;
         }
@@ -292,18 +327,8 @@ public class UnitRepository extends BaseRepository {
      */
     public boolean areUnitsCompatible(String unitId1, String unitId2) {
         try {
-            Future<Boolean> future = AppDatabase.databaseWriteExecutor.submit(() -> {
-                Unit unit1 = unitDao.getById(unitId1);
-                Unit unit2 = unitDao.getById(unitId2);
-
-                if (unit1 == null || unit2 == null) {
-                    return false;
-                }
-
-                return unit1.getBaseUnit().equals(unit2.getBaseUnit());
-            });
-            return future.get();
-        } catch (InterruptedException | ExecutionException e) {
+            return getConversionTable().areCompatible(unitId1, unitId2);
+        } catch (Exception e) {
             logOperationFailure("areUnitsCompatible", e.getMessage());
             return false;
         }
@@ -318,25 +343,11 @@ public class UnitRepository extends BaseRepository {
      * Both units must have the same base unit.
      */
     public Result<Long> convertBetweenUnits(long quantity, String fromUnitId, String toUnitId) {
-        return executeReadOperation(() -> {
-            Unit fromUnit = unitDao.getById(fromUnitId);
-            Unit toUnit = unitDao.getById(toUnitId);
-
-            if (fromUnit == null || toUnit == null) {
-                throw new IllegalArgumentException("Unit not found");
-            }
-
-            if (!fromUnit.getBaseUnit().equals(toUnit.getBaseUnit())) {
-                throw new IllegalArgumentException("Units are not compatible");
-            }
-
-            // Convert to base unit first
-            long baseQuantity = quantity * fromUnit.getConversionFactor();
-
-            // Then convert to target unit
-            long targetQuantity = baseQuantity / toUnit.getConversionFactor();
-
-            return targetQuantity;
-        }, "convertBetweenUnits");
+        // Precomputed from/to factor in the snapshot: no executor hop, no DAO lookups per call
+        try {
+            return Result.success(getConversionTable().convert(quantity, fromUnitId, toUnitId));
+        } catch (Exception e) {
+            return ErrorHandler.handleException(e, "convertBetweenUnits");
+        }
     }
 }
\ No newline at end of file
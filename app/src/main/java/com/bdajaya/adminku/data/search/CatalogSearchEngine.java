@@ -0,0 +1,206 @@
+package com.bdajaya.adminku.data.search;
+
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteQuery;
+
+import com.bdajaya.adminku.data.AppDatabase;
+import com.bdajaya.adminku.data.dao.SearchDao;
+import com.bdajaya.adminku.data.entity.Brand;
+import com.bdajaya.adminku.data.entity.Category;
+import com.bdajaya.adminku.data.entity.Unit;
+import com.bdajaya.adminku.data.model.CategoryWithPath;
+import com.bdajaya.adminku.data.model.ProductWithDetails;
+import com.bdajaya.adminku.data.model.SearchResults;
+import com.bdajaya.adminku.data.repository.CategoryTreeCache;
+import com.bdajaya.adminku.data.repository.UnitConversionTable;
+import com.bdajaya.adminku.data.repository.UnitRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Pencarian gabungan produk, kategori, brand, dan unit dengan satu ekspresi MATCH.
+ *
+ * - Produk: {@link ProductSearchEngine} (barcode + FTS berperingkat + trigram). Tidak ikut
+ *   UNION karena butuh relasi (ProductWithDetails) dan tier barcode/trigram.
+ * - Kategori, brand, dan unit: satu statement UNION ALL ({@link SearchDao#search}), tiap grup
+ *   diurutkan dan di-LIMIT di SQLite:
+ *   - Kategori: CategoryFts (nama + nama semua ancestor); hit yang semua term-nya ada di nama
+ *     lebih dulu, lalu nama terpendek. Detail dan path diambil dari snapshot CategoryTreeCache.
+ *   - Brand: BrandFts, nama terpendek dulu; baris Brand ikut di hasil UNION.
+ *   - Unit: tanpa FTS; setiap token query harus menjadi prefix salah satu kata nama unit
+ *     (LIKE/GLOB per token), base unit dulu lalu nama.
+ *
+ * Jumlah per grup ikut di statement yang sama: tiap grup punya arm COUNT(*) dengan filter yang
+ * sama (murah di FTS, hanya doclist yang dihitung). Jumlah produk menghitung hit FTS; hit barcode
+ * dan trigram di luar FTS hanya terhitung kalau ditampilkan.
+ *
+ * Tidak dibungkus transaksi: di WAL, runInTransaction memakai BEGIN IMMEDIATE dan akan antre di
+ * belakang writer. Blocking; panggil dari background thread.
+ */
+public class CatalogSearchEngine {
+
+    private static final String KIND_PRODUCT = "PRODUCT";
+    private static final String KIND_CATEGORY = "CATEGORY";
+    private static final String KIND_BRAND = "BRAND";
+    private static final String KIND_UNIT = "UNIT";
+    private static final String COUNT_SUFFIX = "_COUNT";
+
+    private final SearchDao searchDao;
+    private final ProductSearchEngine productEngine;
+    private final CategoryTreeCache treeCache;
+    private final UnitRepository unitRepository;
+
+    public CatalogSearchEngine(AppDatabase database, CategoryTreeCache treeCache, UnitRepository unitRepository) {
+        this.searchDao = database.searchDao();
+        this.productEngine = new ProductSearchEngine(database.productDao(), TrigramIndex.getInstance(database));
+        this.treeCache = treeCache;
+        this.unitRepository = unitRepository;
+    }
+
+    /**
+     * @param kinds grup yang dicari; grup lain kosong
+     * @param limit hit maksimum per grup
+     */
+    public SearchResults search(String rawQuery, Set<SearchResults.Kind> kinds, int limit) {
+        String query = rawQuery == null ? "" : rawQuery.trim();
+        if (query.isEmpty() || limit <= 0) {
+            return SearchResults.empty(query);
+        }
+
+        List<ProductWithDetails> products = new ArrayList<>();
+        if (kinds.contains(SearchResults.Kind.PRODUCT)) {
+            // Barcode tetap dicari walau tidak ada token FTS (misalnya "BE-")
+            products = productEngine.search(query, limit);
+        }
+
+        List<CategoryWithPath> categories = new ArrayList<>();
+        List<Brand> brands = new ArrayList<>();
+        List<Unit> units = new ArrayList<>();
+        int productCount = 0;
+        int categoryCount = 0;
+        int brandCount = 0;
+        int unitCount = 0;
+        SupportSQLiteQuery catalogQuery = buildCatalogQuery(query, kinds, limit);
+        if (catalogQuery != null) {
+            CategoryTreeCache.Snapshot tree = treeCache.get();
+            UnitConversionTable unitTable = unitRepository.getConversionTable();
+            for (SearchDao.Hit hit : searchDao.search(catalogQuery)) {
+                switch (hit.kind) {
+                    case KIND_CATEGORY:
+                        Category category = tree.getCategory(hit.id);
+                        // Snapshot bisa sedikit tertinggal dari FTS; lewati yang belum ada
+                        if (category != null) {
+                            categories.add(tree.withPath(category));
+                        }
+                        break;
+                    case KIND_BRAND:
+                        brands.add(new Brand(hit.id, hit.name, hit.createdAt, hit.updatedAt));
+                        break;
+                    case KIND_UNIT:
+                        Unit unit = unitTable.getUnit(hit.id);
+                        if (unit != null) {
+                            units.add(unit);
+                        }
+                        break;
+                    case KIND_PRODUCT + COUNT_SUFFIX:
+                        productCount = hit.count;
+                        break;
+                    case KIND_CATEGORY + COUNT_SUFFIX:
+                        categoryCount = hit.count;
+                        break;
+                    case KIND_BRAND + COUNT_SUFFIX:
+                        brandCount = hit.count;
+                        break;
+                    case KIND_UNIT + COUNT_SUFFIX:
+                        unitCount = hit.count;
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+
+        return new SearchResults(query,
+                new SearchResults.Group<>(products, productCount),
+                new SearchResults.Group<>(categories, categoryCount),
+                new SearchResults.Group<>(brands, brandCount),
+                new SearchResults.Group<>(units, unitCount));
+    }
+
+    /**
+     * UNION ALL satu arm hit dan satu arm COUNT(*) per grup yang diminta. Tiap arm hit adalah
+     * subquery dengan ORDER BY dan LIMIT sendiri; SQLite mengeluarkan arm UNION ALL berurutan,
+     * jadi urutan per grup tetap. Produk hanya punya arm COUNT (hit-nya dari ProductSearchEngine).
+     *
+     * @return null jika tidak ada grup yang bisa dicari
+     */
+    static SupportSQLiteQuery buildCatalogQuery(String query, Set<SearchResults.Kind> kinds, int limit) {
+        String match = FtsQueryBuilder.build(query);
+        List<String> unitTokens = FtsQueryBuilder.tokenize(query);
+        List<String> arms = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+
+        if (match != null && kinds.contains(SearchResults.Kind.PRODUCT)) {
+            arms.add(countArm(KIND_PRODUCT, "ProductFts JOIN Product ON Product.rowid = ProductFts.docid "
+                    + "WHERE ProductFts MATCH ?"));
+            args.add(match);
+        }
+        if (match != null && kinds.contains(SearchResults.Kind.CATEGORY)) {
+            String from = "CategoryFts JOIN Category ON Category.rowid = CategoryFts.docid WHERE CategoryFts MATCH ?";
+            arms.add("SELECT * FROM (SELECT '" + KIND_CATEGORY + "' AS kind, Category.id AS id, "
+                    + "NULL AS name, 0 AS createdAt, 0 AS updatedAt, 0 AS count "
+                    + "FROM " + from + " "
+                    + "ORDER BY Category.rowid IN (SELECT docid FROM CategoryFts WHERE CategoryFts MATCH ?) DESC, "
+                    + "length(Category.name), Category.name LIMIT ?)");
+            args.add(match);
+            args.add(FtsQueryBuilder.build(query, "name"));
+            args.add(limit);
+            arms.add(countArm(KIND_CATEGORY, from));
+            args.add(match);
+        }
+        if (match != null && kinds.contains(SearchResults.Kind.BRAND)) {
+            String from = "BrandFts JOIN Brand ON Brand.rowid = BrandFts.docid WHERE BrandFts MATCH ?";
+            arms.add("SELECT * FROM (SELECT '" + KIND_BRAND + "' AS kind, Brand.id AS id, "
+                    + "Brand.name AS name, Brand.createdAt AS createdAt, Brand.updatedAt AS updatedAt, 0 AS count "
+                    + "FROM " + from + " "
+                    + "ORDER BY length(Brand.name), Brand.name LIMIT ?)");
+            args.add(match);
+            args.add(limit);
+            arms.add(countArm(KIND_BRAND, from));
+            args.add(match);
+        }
+        if (!unitTokens.isEmpty() && kinds.contains(SearchResults.Kind.UNIT)) {
+            // Token hanya huruf/angka, jadi aman dipakai di pola LIKE/GLOB tanpa escape
+            StringBuilder where = new StringBuilder();
+            List<Object> whereArgs = new ArrayList<>();
+            for (String token : unitTokens) {
+                if (where.length() > 0) {
+                    where.append(" AND ");
+                }
+                where.append("(lower(Unit.name) LIKE ? OR lower(Unit.name) GLOB ?)");
+                whereArgs.add(token + "%");
+                whereArgs.add("*[^a-z0-9]" + token + "*");
+            }
+            arms.add("SELECT * FROM (SELECT '" + KIND_UNIT + "' AS kind, Unit.id AS id, "
+                    + "NULL AS name, 0 AS createdAt, 0 AS updatedAt, 0 AS count "
+                    + "FROM Unit WHERE " + where
+                    + " ORDER BY CASE WHEN Unit.isBaseUnit = 1 THEN 0 ELSE 1 END, Unit.name LIMIT ?)");
+            args.addAll(whereArgs);
+            args.add(limit);
+            arms.add(countArm(KIND_UNIT, "Unit WHERE " + where));
+            args.addAll(whereArgs);
+        }
+
+        if (arms.isEmpty()) {
+            return null;
+        }
+        return new SimpleSQLiteQuery(String.join(" UNION ALL ", arms), args.toArray());
+    }
+
+    private static String countArm(String kind, String from) {
+        return "SELECT '" + kind + COUNT_SUFFIX + "' AS kind, NULL AS id, NULL AS name, "
+                + "0 AS createdAt, 0 AS updatedAt, COUNT(*) AS count FROM " + from;
+    }
+}
@@ -0,0 +1,118 @@
+package com.bdajaya.adminku.data.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Menyusun ekspresi MATCH FTS4 dari input mentah pengguna.
+ *
+ * Aturan:
+ * - Input dipecah menjadi token alfanumerik (sama seperti tokenizer "simple" FTS4),
+ *   karakter lain dianggap pemisah sehingga operator FTS (", *, -, OR, NEAR) tidak bocor.
+ * - Setiap token bebas menjadi prefix query: {@code kopi*}.
+ * - Teks di antara tanda kutip menjadi phrase query: {@code "kopi susu"}, token terakhir
+ *   phrase tetap prefix agar bisa dipakai saat pengguna masih mengetik.
+ * - Semua bagian digabung dengan AND implisit (spasi).
+ * - Varian per kolom memberi setiap bagian filter kolom FTS4: {@code name:kopi*}.
+ */
+public final class FtsQueryBuilder {
+
+    private static final int MAX_TERMS = 8;
+
+    private FtsQueryBuilder() {
+    }
+
+    /**
+     * @return ekspresi MATCH, atau null jika input tidak mengandung token yang bisa dicari
+     */
+    public static String build(String rawQuery) {
+        List<String> parts = parts(rawQuery);
+        return parts.isEmpty() ? null : String.join(" ", parts);
+    }
+
+    /**
+     * Sama seperti {@link #build(String)}, tetapi setiap term/phrase hanya dicocokkan ke satu kolom.
+     *
+     * @return ekspresi MATCH, atau null jika input tidak mengandung token yang bisa dicari
+     */
+    public static String build(String rawQuery, String column) {
+        List<String> parts = parts(rawQuery);
+        if (parts.isEmpty()) {
+            return null;
+        }
+        StringBuilder match = new StringBuilder();
+        for (String part : parts) {
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            match.append(column).append(':').append(part);
+        }
+        return match.toString();
+    }
+
+    private static List<String> parts(String rawQuery) {
+        if (rawQuery == null) {
+            return Collections.emptyList();
+        }
+
+        List<String> parts = new ArrayList<>();
+        String input = rawQuery.toLowerCase(Locale.ROOT);
+        int length = input.length();
+        int index = 0;
+
+        while (index < length && parts.size() < MAX_TERMS) {
+            char c = input.charAt(index);
+            if (c == '"') {
+                int close = input.indexOf('"', index + 1);
+                int end = close < 0 ? length : close;
+                List<String> phraseTokens = tokenize(input.substring(index + 1, end));
+                if (phraseTokens.size() == 1) {
+                    parts.add(phraseTokens.get(0) + "*");
+                } else if (!phraseTokens.isEmpty()) {
+                    parts.add("\"" + String.join(" ", phraseTokens) + "*\"");
+                }
+                index = end + 1;
+            } else if (isTokenChar(c)) {
+                int start = index;
+                while (index < length && isTokenChar(input.charAt(index))) {
+                    index++;
+                }
+                parts.add(input.substring(start, index) + "*");
+            } else {
+                index++;
+            }
+        }
+        return parts;
+    }
+
+    /**
+     * Token alfanumerik dari input, dipakai juga untuk mendeteksi query barcode.
+     */
+    public static List<String> tokenize(String input) {
+        if (input == null || input.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<String> tokens = new ArrayList<>();
+        int length = input.length();
+        int index = 0;
+        while (index < length) {
+            if (!isTokenChar(input.charAt(index))) {
+                index++;
+                continue;
+            }
+            int start = index;
+            while (index < length && isTokenChar(input.charAt(index))) {
+                index++;
+            }
+            tokens.add(input.substring(start, index).toLowerCase(Locale.ROOT));
+        }
+        return tokens;
+    }
+
+    private static boolean isTokenChar(char c) {
+        return Character.isLetterOrDigit(c);
+    }
+}
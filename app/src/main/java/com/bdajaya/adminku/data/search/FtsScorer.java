@@ -0,0 +1,105 @@
+package com.bdajaya.adminku.data.search;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Locale;
+
+/**
+ * Skor relevansi dari matchinfo FTS4 yang dihitung di SQLite (ORDER BY ... LIMIT).
+ *
+ * FTS4 di Android tidak punya bm25() dan Room tidak bisa mendaftarkan fungsi rank, jadi skor
+ * dipecah dua:
+ * - bobot per phrase/kolom (bobot kolom * idf) dihitung di Java dari matchinfo('pcnx') satu hit,
+ *   karena statistik itu sama untuk semua baris;
+ * - term frequency per baris dibaca di SQL dari hex(matchinfo('x')) lalu disaturasi,
+ *   sehingga SQLite bisa mengurutkan dan memotong hasil sendiri.
+ */
+public final class FtsScorer {
+
+    /**
+     * Konstanta saturasi term frequency (seperti k1 pada BM25).
+     */
+    static final double TF_SATURATION = 1.2;
+
+    private static final String HEX_DIGITS = "'0123456789ABCDEF'";
+
+    private FtsScorer() {
+    }
+
+    /**
+     * Bobot tiap phrase/kolom dari matchinfo('pcnx'):
+     * [p, c, n, lalu untuk tiap phrase/kolom: hits di baris ini, hits di semua baris, jumlah dokumen].
+     * Bobot = bobot kolom * idf; 0 untuk phrase/kolom yang tidak muncul di dokumen mana pun.
+     *
+     * @param columnWeights bobot sesuai urutan kolom tabel FTS; kolom tanpa bobot bernilai 1
+     * @return bobot berurutan phrase lalu kolom (indeks phrase * c + kolom), kosong jika blob rusak
+     */
+    public static double[] weights(byte[] matchInfo, double[] columnWeights) {
+        if (matchInfo == null || matchInfo.length < 12) {
+            return new double[0];
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(matchInfo).order(ByteOrder.nativeOrder());
+        int phraseCount = buffer.getInt(0);
+        int columnCount = buffer.getInt(4);
+        int rowCount = buffer.getInt(8);
+        if (phraseCount <= 0 || columnCount <= 0
+                || 12 + 12L * phraseCount * columnCount > matchInfo.length) {
+            return new double[0];
+        }
+
+        double[] weights = new double[phraseCount * columnCount];
+        for (int phrase = 0; phrase < phraseCount; phrase++) {
+            for (int column = 0; column < columnCount; column++) {
+                int index = phrase * columnCount + column;
+                int docsWithHit = buffer.getInt(12 + 12 * index + 8);
+                if (docsWithHit == 0) {
+                    continue;
+                }
+                double idf = Math.log(1.0 + (rowCount - docsWithHit + 0.5) / (docsWithHit + 0.5));
+                double weight = column < columnWeights.length ? columnWeights[column] : 1.0;
+                weights[index] = weight * idf;
+            }
+        }
+        return weights;
+    }
+
+    /**
+     * Ekspresi SQL skor satu baris: jumlah bobot * hits / (hits + TF_SATURATION).
+     *
+     * @param hexMatchInfo ekspresi SQL berisi hex(matchinfo(tabel, 'x')) baris itu
+     * @param weights hasil {@link #weights(byte[], double[])} untuk query MATCH yang sama
+     * @return ekspresi SQL, atau "0" jika tidak ada bobot
+     */
+    public static String scoreExpression(String hexMatchInfo, double[] weights) {
+        StringBuilder sql = new StringBuilder();
+        for (int index = 0; index < weights.length; index++) {
+            if (weights[index] <= 0) {
+                continue;
+            }
+            // 'x' berisi 3 int per phrase/kolom; yang pertama = hits di baris ini
+            String hits = hitsExpression(hexMatchInfo, 3 * index);
+            if (sql.length() > 0) {
+                sql.append(" + ");
+            }
+            sql.append(String.format(Locale.ROOT, "%.6f * %s / (%s + %.1f)",
+                    weights[index], hits, hits, TF_SATURATION));
+        }
+        return sql.length() == 0 ? "0" : sql.toString();
+    }
+
+    /**
+     * Dua byte rendah int ke-intIndex dari blob hex (little-endian seperti semua ABI Android);
+     * jumlah hit satu term di satu baris tidak pernah mendekati 65536.
+     */
+    private static String hitsExpression(String hexMatchInfo, int intIndex) {
+        int position = intIndex * 8 + 1;
+        return "(" + byteExpression(hexMatchInfo, position)
+                + " + 256 * " + byteExpression(hexMatchInfo, position + 2) + ")";
+    }
+
+    private static String byteExpression(String hex, int position) {
+        return "((instr(" + HEX_DIGITS + ", substr(" + hex + ", " + position + ", 1)) - 1) * 16"
+                + " + instr(" + HEX_DIGITS + ", substr(" + hex + ", " + (position + 1) + ", 1)) - 1)";
+    }
+}
@@ -0,0 +1,86 @@
+package com.bdajaya.adminku.data.search;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Sorted rowid list, stored as varint deltas (1-3 bytes per rowid for a typical catalog).
+ */
+final class PostingList {
+
+    private static final long[] EMPTY = new long[0];
+
+    private PostingList() {
+    }
+
+    static byte[] encode(long[] sortedDocids) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(sortedDocids.length * 2);
+        long previous = 0;
+        for (long docid : sortedDocids) {
+            long delta = docid - previous;
+            previous = docid;
+            while ((delta & ~0x7FL) != 0) {
+                out.write((int) ((delta & 0x7F) | 0x80));
+                delta >>>= 7;
+            }
+            out.write((int) delta);
+        }
+        return out.toByteArray();
+    }
+
+    static long[] decode(byte[] bytes, int count) {
+        if (bytes == null || bytes.length == 0) {
+            return EMPTY;
+        }
+        long[] docids = new long[Math.max(count, 0)];
+        int size = 0;
+        long previous = 0;
+        int index = 0;
+        while (index < bytes.length) {
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[index++];
+                delta |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0 && index < bytes.length);
+            previous += delta;
+            if (size == docids.length) {
+                docids = Arrays.copyOf(docids, Math.max(8, size * 2));
+            }
+            docids[size++] = previous;
+        }
+        return size == docids.length ? docids : Arrays.copyOf(docids, size);
+    }
+
+    /**
+     * (current ∪ added) \ removed; all three sorted ascending, result sorted ascending.
+     */
+    static long[] apply(long[] current, long[] added, long[] removed) {
+        long[] result = new long[current.length + added.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        int r = 0;
+        while (i < current.length || j < added.length) {
+            long next;
+            if (j >= added.length || (i < current.length && current[i] <= added[j])) {
+                next = current[i++];
+                if (j < added.length && added[j] == next) {
+                    j++;
+                }
+            } else {
+                next = added[j++];
+            }
+            while (r < removed.length && removed[r] < next) {
+                r++;
+            }
+            if (r < removed.length && removed[r] == next) {
+                continue;
+            }
+            result[size++] = next;
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+}
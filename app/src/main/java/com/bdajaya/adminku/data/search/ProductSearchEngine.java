@@ -0,0 +1,163 @@
+package com.bdajaya.adminku.data.search;
+
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteQuery;
+
+import com.bdajaya.adminku.core.Constants;
+import com.bdajaya.adminku.data.dao.ProductDao;
+import com.bdajaya.adminku.data.model.ProductWithDetails;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Pencarian produk berperingkat di atas ProductFts.
+ *
+ * Alur per query:
+ * 1. Input mentah diubah menjadi ekspresi MATCH oleh {@link FtsQueryBuilder}.
+ * 2. Jika input terlihat seperti barcode, range scan pada index barcode ditaruh paling atas.
+ * 3. Skor FTS dari matchinfo (bobot kolom * idf * tf tersaturasi, lihat {@link FtsScorer}):
+ *    bobot idf dihitung dari statistik satu hit, lalu satu query (join Product.rowid =
+ *    ProductFts.docid) mengurutkan dengan skor itu dan memberi LIMIT di SQLite, jadi hanya
+ *    top-N baris yang dibaca.
+ * 4. Jika hasil masih kurang dari SEARCH_FUZZY_MIN_HITS, {@link TrigramIndex} menambahkan produk
+ *    yang mirip (salah ketik, spasi hilang) di bawah hasil FTS.
+ * 5. Detail hit barcode dan trigram dimuat dalam satu query IN.
+ *
+ * Blocking; panggil dari background thread.
+ */
+public class ProductSearchEngine {
+
+    /**
+     * Bobot kolom sesuai urutan kolom ProductFts: name, description.
+     */
+    private static final double[] COLUMN_WEIGHTS = {10.0, 1.0};
+
+    private static final int MIN_BARCODE_QUERY_LENGTH = 3;
+
+    private final ProductDao productDao;
+    private final TrigramIndex trigramIndex;
+
+    public ProductSearchEngine(ProductDao productDao, TrigramIndex trigramIndex) {
+        this.productDao = productDao;
+        this.trigramIndex = trigramIndex;
+    }
+
+    /**
+     * Produk berurutan menurut relevansi (barcode dulu, lalu peringkat FTS, lalu trigram).
+     */
+    public List<ProductWithDetails> search(String rawQuery, int limit) {
+        if (rawQuery == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        Map<String, ProductWithDetails> ordered = new LinkedHashMap<>();
+        String trimmed = rawQuery.trim();
+
+        if (looksLikeBarcode(trimmed)) {
+            Set<String> barcodeIds = new LinkedHashSet<>(searchBarcode(trimmed, limit));
+            String upper = trimmed.toUpperCase(Locale.ROOT);
+            if (!upper.equals(trimmed) && barcodeIds.size() < limit) {
+                barcodeIds.addAll(searchBarcode(upper, limit - barcodeIds.size()));
+            }
+            putAll(ordered, loadInOrder(new ArrayList<>(barcodeIds)), limit);
+        }
+
+        String match = FtsQueryBuilder.build(trimmed);
+        if (match != null && ordered.size() < limit) {
+            byte[] stats = productDao.getFtsMatchStats(match);
+            if (stats != null) {
+                // Top limit, bukan limit - ordered.size(): hit barcode bisa muncul lagi di sini
+                putAll(ordered, productDao.searchRankedWithDetails(buildRankedQuery(match, stats, limit)), limit);
+            }
+        }
+
+        // Tier cadangan: hanya saat FTS/barcode hampir tidak menemukan apa-apa
+        if (ordered.size() < Math.min(limit, Constants.SEARCH_FUZZY_MIN_HITS)) {
+            List<String> similar = trigramIndex.searchIds(trimmed, limit - ordered.size(), ordered.keySet());
+            putAll(ordered, loadInOrder(similar), limit);
+        }
+
+        return new ArrayList<>(ordered.values());
+    }
+
+    /**
+     * Hit FTS berurutan menurut skor matchinfo, lalu nama terpendek, lalu nama.
+     *
+     * hex(matchinfo) dihitung sekali per baris di subquery; LIMIT -1 mencegah subquery itu
+     * di-flatten (ekspresi skor memakainya berkali-kali). CROSS JOIN memaksa ProductFts di loop
+     * luar agar MATCH selalu dipakai sebagai index FTS.
+     */
+    static SupportSQLiteQuery buildRankedQuery(String match, byte[] matchStats, int limit) {
+        String score = FtsScorer.scoreExpression("hit.matchInfo", FtsScorer.weights(matchStats, COLUMN_WEIGHTS));
+        String sql = "SELECT Product.* FROM (" +
+                "SELECT docid, hex(matchinfo(ProductFts, 'x')) AS matchInfo " +
+                "FROM ProductFts WHERE ProductFts MATCH ? LIMIT -1) AS hit " +
+                "CROSS JOIN Product ON Product.rowid = hit.docid " +
+                "ORDER BY " + score + " DESC, length(Product.name), Product.name " +
+                "LIMIT ?";
+        return new SimpleSQLiteQuery(sql, new Object[]{match, limit});
+    }
+
+    private static void putAll(Map<String, ProductWithDetails> ordered, List<ProductWithDetails> rows, int limit) {
+        for (ProductWithDetails row : rows) {
+            if (ordered.size() >= limit) {
+                return;
+            }
+            ordered.putIfAbsent(row.product.getId(), row);
+        }
+    }
+
+    List<ProductWithDetails> loadInOrder(List<String> rankedIds) {
+        if (rankedIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<ProductWithDetails> rows = productDao.getProductsWithDetailsByIds(rankedIds);
+        Map<String, ProductWithDetails> byId = new HashMap<>(rows.size() * 2);
+        for (ProductWithDetails row : rows) {
+            byId.put(row.product.getId(), row);
+        }
+
+        List<ProductWithDetails> result = new ArrayList<>(rankedIds.size());
+        for (String id : rankedIds) {
+            ProductWithDetails row = byId.get(id);
+            if (row != null) {
+                result.add(row);
+            }
+        }
+        return result;
+    }
+
+    private List<String> searchBarcode(String prefix, int limit) {
+        char last = prefix.charAt(prefix.length() - 1);
+        String upperBound = prefix.substring(0, prefix.length() - 1) + (char) (last + 1);
+        return productDao.searchIdsByBarcodeRange(prefix, upperBound, limit);
+    }
+
+    /**
+     * Barcode: satu kata tanpa spasi yang mengandung angka (EAN atau format BE-00000001).
+     */
+    static boolean looksLikeBarcode(String input) {
+        if (input.length() < MIN_BARCODE_QUERY_LENGTH) {
+            return false;
+        }
+        boolean hasDigit = false;
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (Character.isWhitespace(c)) {
+                return false;
+            }
+            if (Character.isDigit(c)) {
+                hasDigit = true;
+            }
+        }
+        return hasDigit;
+    }
+}
@@ -0,0 +1,242 @@
+package com.bdajaya.adminku.data.search;
+
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.room.InvalidationTracker;
+
+import com.bdajaya.adminku.core.AsyncResult;
+import com.bdajaya.adminku.core.Constants;
+import com.bdajaya.adminku.core.Result;
+import com.bdajaya.adminku.data.AppDatabase;
+import com.bdajaya.adminku.data.model.ProductWithDetails;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sesi search-as-you-type di atas {@link ProductSearchEngine}, satu per layar (ViewModel).
+ *
+ * - Latest wins: setiap query baru membatalkan request sebelumnya. Request yang sudah berjalan
+ *   berhenti di titik cek berikutnya; pemanggil membuang hasil apa pun yang bukan
+ *   {@link #isCurrent} lagi, jadi query yang tertimpa tidak pernah muncul sebagai error.
+ * - Prefix refinement: kalau query baru hanya memperpanjang query sebelumnya dan hasil sebelumnya
+ *   lengkap (kurang dari limit), hasil lama difilter di memori tanpa query FTS. Aturan filter
+ *   sama dengan MATCH: setiap token query harus menjadi prefix token di nama/deskripsi, atau
+ *   barcode diawali query. Kalau hasil saringan terlalu sedikit, query dijalankan penuh supaya
+ *   tier fuzzy ikut.
+ * - LRU query → daftar id untuk query terakhir, sehingga backspace hanya memuat detail per id.
+ *
+ * Cache dan hasil terakhir dibuang setiap ada tulisan ke Product/ProductImage. Panggil
+ * {@link #close()} saat layar selesai (ViewModel.onCleared).
+ */
+public class ProductSearchSession {
+
+    private final AppDatabase database;
+    private final ProductSearchEngine engine;
+    private final Executor executor;
+    private final int limit;
+    private final LruCache<String, List<String>> recentIds;
+    private final InvalidationTracker.Observer observer;
+
+    private final AtomicLong latest = new AtomicLong();
+    private final Object stateLock = new Object();
+    @Nullable
+    private Snapshot last;
+    @Nullable
+    private AsyncResult<List<ProductWithDetails>> inFlight;
+
+    public ProductSearchSession(@NonNull AppDatabase database, @NonNull ProductSearchEngine engine,
+                                @NonNull Executor executor, int limit, int recentQueries) {
+        this.database = database;
+        this.engine = engine;
+        this.executor = executor;
+        this.limit = limit;
+        this.recentIds = new LruCache<>(recentQueries);
+        this.observer = new InvalidationTracker.Observer("Product", "ProductImage") {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                reset();
+            }
+        };
+        database.getInvalidationTracker().addObserver(observer);
+    }
+
+    /**
+     * Jalankan query terbaru; request sebelumnya dibatalkan. Query kosong langsung selesai
+     * dengan daftar kosong.
+     */
+    @NonNull
+    public AsyncResult<List<ProductWithDetails>> search(@Nullable String rawQuery) {
+        String query = rawQuery == null ? "" : rawQuery.trim();
+        long ticket = latest.incrementAndGet();
+
+        AsyncResult<List<ProductWithDetails>> request;
+        if (query.isEmpty()) {
+            request = AsyncResult.completed(Result.success(Collections.emptyList()));
+        } else {
+            request = AsyncResult.supply(executor, () -> run(query, ticket));
+        }
+
+        AsyncResult<List<ProductWithDetails>> previous;
+        synchronized (stateLock) {
+            previous = inFlight;
+            inFlight = request;
+        }
+        if (previous != null) {
+            previous.cancel();
+        }
+        return request;
+    }
+
+    /**
+     * True selama request adalah hasil search() terakhir dan belum di-cancel. Cek di callback main
+     * thread sebelum memakai hasilnya: request yang tertimpa bisa saja selesai sebelum dibatalkan.
+     */
+    public boolean isCurrent(@NonNull AsyncResult<?> request) {
+        synchronized (stateLock) {
+            return inFlight == request;
+        }
+    }
+
+    public void cancel() {
+        latest.incrementAndGet();
+        AsyncResult<List<ProductWithDetails>> previous;
+        synchronized (stateLock) {
+            previous = inFlight;
+            inFlight = null;
+        }
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+
+    public void close() {
+        cancel();
+        database.getInvalidationTracker().removeObserver(observer);
+        reset();
+    }
+
+    private void reset() {
+        synchronized (stateLock) {
+            last = null;
+        }
+        recentIds.evictAll();
+    }
+
+    private Result<List<ProductWithDetails>> run(String query, long ticket) {
+        List<String> ids = recentIds.get(query);
+        List<ProductWithDetails> rows;
+        if (ids != null) {
+            rows = engine.loadInOrder(ids);
+        } else {
+            Snapshot previous;
+            synchronized (stateLock) {
+                previous = last;
+            }
+            rows = null;
+            if (previous != null && canRefine(previous, query)) {
+                rows = refine(previous.rows, query);
+                // Terlalu sedikit: biarkan engine menambah hasil fuzzy (trigram)
+                if (rows.size() < Math.min(limit, Constants.SEARCH_FUZZY_MIN_HITS)) {
+                    rows = null;
+                }
+            }
+            if (rows == null) {
+                if (ticket != latest.get()) {
+                    return superseded();
+                }
+                rows = engine.search(query, limit);
+            }
+            recentIds.put(query, idsOf(rows));
+        }
+
+        synchronized (stateLock) {
+            if (ticket != latest.get()) {
+                return superseded();
+            }
+            last = new Snapshot(query, rows, rows.size() < limit);
+        }
+        return Result.success(rows);
+    }
+
+    private static Result<List<ProductWithDetails>> superseded() {
+        // Bukan error: request ini sudah tertimpa query yang lebih baru dan dibuang lewat isCurrent
+        return Result.success(Collections.emptyList());
+    }
+
+    private boolean canRefine(Snapshot previous, String query) {
+        return previous.complete
+                && query.startsWith(previous.query)
+                && query.indexOf('"') < 0
+                && ProductSearchEngine.looksLikeBarcode(query) == ProductSearchEngine.looksLikeBarcode(previous.query);
+    }
+
+    private List<ProductWithDetails> refine(List<ProductWithDetails> previous, String query) {
+        List<String> queryTokens = FtsQueryBuilder.tokenize(query);
+        boolean barcodeQuery = ProductSearchEngine.looksLikeBarcode(query);
+        String upper = query.toUpperCase(Locale.ROOT);
+
+        List<ProductWithDetails> result = new ArrayList<>();
+        for (ProductWithDetails row : previous) {
+            String barcode = row.product.getBarcode();
+            boolean barcodeHit = barcodeQuery && barcode != null
+                    && (barcode.startsWith(query) || barcode.startsWith(upper));
+            if (barcodeHit || (!queryTokens.isEmpty() && matchesAll(row, queryTokens))) {
+                result.add(row);
+            }
+        }
+        return result;
+    }
+
+    private static boolean matchesAll(ProductWithDetails row, List<String> queryTokens) {
+        List<String> productTokens = new ArrayList<>(FtsQueryBuilder.tokenize(row.product.getName()));
+        productTokens.addAll(FtsQueryBuilder.tokenize(row.product.getDescription()));
+        return matchesAllPrefixes(productTokens, queryTokens);
+    }
+
+    /**
+     * Setiap token query harus menjadi prefix salah satu token teks (aturan MATCH "kopi*").
+     */
+    private static boolean matchesAllPrefixes(List<String> textTokens, List<String> queryTokens) {
+        for (String queryToken : queryTokens) {
+            boolean found = false;
+            for (String textToken : textTokens) {
+                if (textToken.startsWith(queryToken)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<String> idsOf(List<ProductWithDetails> rows) {
+        List<String> ids = new ArrayList<>(rows.size());
+        for (ProductWithDetails row : rows) {
+            ids.add(row.product.getId());
+        }
+        return ids;
+    }
+
+    private static final class Snapshot {
+        final String query;
+        final List<ProductWithDetails> rows;
+        final boolean complete; // fewer than limit: every match of query is in rows
+
+        Snapshot(String query, List<ProductWithDetails> rows, boolean complete) {
+            this.query = query;
+            this.rows = rows;
+            this.complete = complete;
+        }
+    }
+}
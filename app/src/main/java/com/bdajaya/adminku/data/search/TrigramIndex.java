@@ -0,0 +1,446 @@
+package com.bdajaya.adminku.data.search;
+
+import androidx.annotation.NonNull;
+import androidx.room.InvalidationTracker;
+
+import com.bdajaya.adminku.core.AppExecutors;
+import com.bdajaya.adminku.core.Constants;
+import com.bdajaya.adminku.core.ErrorHandler;
+import com.bdajaya.adminku.data.AppDatabase;
+import com.bdajaya.adminku.data.WriteBatcher;
+import com.bdajaya.adminku.data.dao.ProductTrigramDao;
+import com.bdajaya.adminku.data.entity.ProductTrigram;
+import com.bdajaya.adminku.data.entity.ProductTrigramDoc;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Index trigram untuk pencarian produk yang toleran salah ketik ("kaus" → "Kaos", "kaospolos"
+ * → "Kaos Polos"). Dipakai sebagai tier cadangan oleh {@link ProductSearchEngine} saat FTS
+ * hanya menemukan sedikit hasil.
+ *
+ * Penyimpanan:
+ * - ProductTrigram: posting list per trigram (rowid Product terurut, varint delta).
+ * - ProductTrigramDoc: teks ternormalisasi yang terakhir diindeks per rowid.
+ * - ProductTrigramQueue: rowid yang berubah, diisi trigger SQL di Product (insert, ubah
+ *   name/barcode, delete), jadi semua jalur tulis (repository, import CSV) ikut terindeks.
+ *
+ * Antrean dikuras di writer lewat WriteBatcher per TRIGRAM_INDEX_BATCH_SIZE rowid, sehingga
+ * index tertinggal beberapa milidetik dari Product dan tulisan lain tetap bisa menyela.
+ *
+ * Pencarian: trigram query → skor overlap berbobot idf dari posting list → kandidat teratas
+ * di-rerank dengan edit distance (query terhadap substring nama/barcode), tanpa membaca Product.
+ */
+public class TrigramIndex {
+
+    private static final int MAX_QUERY_LENGTH = 64;
+    private static final int MAX_SQL_VARIABLES = 500;
+
+    private static volatile TrigramIndex INSTANCE;
+
+    private final ProductTrigramDao dao;
+    private final WriteBatcher writeBatcher;
+    private final AppExecutors executors;
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private final AtomicBoolean drainRequested = new AtomicBoolean(false);
+
+    public static TrigramIndex getInstance(AppDatabase database) {
+        if (INSTANCE == null) {
+            synchronized (TrigramIndex.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new TrigramIndex(database, database.getExecutors());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    private TrigramIndex(AppDatabase database, AppExecutors executors) {
+        this.dao = database.productTrigramDao();
+        this.writeBatcher = WriteBatcher.getInstance(database);
+        this.executors = executors;
+
+        database.getInvalidationTracker().addObserver(new InvalidationTracker.Observer("ProductTrigramQueue") {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                scheduleDrain();
+            }
+        });
+        // Sisa antrean dari sesi sebelumnya (atau dari migrasi)
+        scheduleDrain();
+    }
+
+    // ================================
+    // SEARCH
+    // ================================
+
+    /**
+     * Id produk yang mirip query, terurut dari edit distance terkecil. Blocking; background thread.
+     *
+     * @param exclude id yang sudah ditemukan tier sebelumnya
+     */
+    public List<String> searchIds(String rawQuery, int limit, Collection<String> exclude) {
+        String query = joined(normalize(rawQuery));
+        if (query.length() > MAX_QUERY_LENGTH) {
+            query = query.substring(0, MAX_QUERY_LENGTH);
+        }
+        int maxTypos = maxTypos(query.length());
+        if (maxTypos == 0 || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        List<String> queryTrigrams = new ArrayList<>(trigramsOf(query, new LinkedHashSet<>()));
+        List<ProductTrigram> postings = dao.getTrigrams(queryTrigrams);
+        if (postings.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // q-gram lemma: tiap edit merusak paling banyak 3 trigram
+        int minShared = Math.max(1, queryTrigrams.size() - 3 * maxTypos);
+        int documentCount = Math.max(1, dao.countDocs());
+        Map<Long, Candidate> byDocid = new HashMap<>();
+        for (ProductTrigram row : postings) {
+            double idf = Math.log(1.0 + (double) documentCount / Math.max(1, row.getDocCount()));
+            for (long docid : PostingList.decode(row.getPostings(), row.getDocCount())) {
+                Candidate candidate = byDocid.get(docid);
+                if (candidate == null) {
+                    candidate = new Candidate(docid);
+                    byDocid.put(docid, candidate);
+                }
+                candidate.shared++;
+                candidate.weight += idf;
+            }
+        }
+
+        List<Candidate> candidates = new ArrayList<>();
+        for (Candidate candidate : byDocid.values()) {
+            if (candidate.shared >= minShared) {
+                candidates.add(candidate);
+            }
+        }
+        candidates.sort((a, b) -> Double.compare(b.weight, a.weight));
+        if (candidates.size() > Constants.SEARCH_FUZZY_CANDIDATE_LIMIT) {
+            candidates = new ArrayList<>(candidates.subList(0, Constants.SEARCH_FUZZY_CANDIDATE_LIMIT));
+        }
+
+        // Rerank dengan edit distance pada teks yang tersimpan di index
+        Map<Long, Candidate> pending = new HashMap<>(candidates.size() * 2);
+        for (Candidate candidate : candidates) {
+            pending.put(candidate.docid, candidate);
+        }
+        List<Candidate> accepted = new ArrayList<>();
+        for (List<Long> chunk : chunks(new ArrayList<>(pending.keySet()))) {
+            for (ProductTrigramDoc doc : dao.getDocs(chunk)) {
+                Candidate candidate = pending.get(doc.getDocid());
+                int distance = substringDistance(query, joined(doc.getName()), maxTypos);
+                if (doc.getBarcode() != null) {
+                    distance = Math.min(distance, substringDistance(query, joined(doc.getBarcode()), maxTypos));
+                }
+                if (candidate != null && distance <= maxTypos) {
+                    candidate.distance = distance;
+                    candidate.length = doc.getName().length();
+                    accepted.add(candidate);
+                }
+            }
+        }
+        accepted.sort((a, b) -> {
+            if (a.distance != b.distance) {
+                return Integer.compare(a.distance, b.distance);
+            }
+            if (a.weight != b.weight) {
+                return Double.compare(b.weight, a.weight);
+            }
+            return Integer.compare(a.length, b.length);
+        });
+
+        // Map rowid → Product.id hanya untuk hasil teratas
+        List<Long> top = new ArrayList<>();
+        int wanted = limit + (exclude != null ? exclude.size() : 0);
+        for (Candidate candidate : accepted) {
+            if (top.size() >= Math.min(wanted, MAX_SQL_VARIABLES)) {
+                break;
+            }
+            top.add(candidate.docid);
+        }
+        if (top.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, String> idByDocid = new HashMap<>(top.size() * 2);
+        for (ProductTrigramDao.DocProduct row : dao.getProductIds(top)) {
+            idByDocid.put(row.docid, row.productId);
+        }
+
+        List<String> result = new ArrayList<>(limit);
+        for (Long docid : top) {
+            String productId = idByDocid.get(docid);
+            if (productId != null && (exclude == null || !exclude.contains(productId))) {
+                result.add(productId);
+                if (result.size() >= limit) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    // ================================
+    // INDEXING
+    // ================================
+
+    /**
+     * Jadwalkan pengurasan antrean di writer. Panggilan selama pengurasan berjalan tidak hilang:
+     * putaran berikutnya dijalankan setelah yang sekarang selesai.
+     */
+    public void scheduleDrain() {
+        drainRequested.set(true);
+        if (draining.compareAndSet(false, true)) {
+            drainChunk();
+        }
+    }
+
+    private void drainChunk() {
+        drainRequested.set(false);
+        int batchSize = Constants.TRIGRAM_INDEX_BATCH_SIZE;
+        writeBatcher.submit(() -> indexQueued(batchSize))
+                // Lanjut dari io: writer thread hanya menjalankan drain WriteBatcher
+                .whenCompleteAsync((indexed, error) -> {
+                    if (error != null) {
+                        ErrorHandler.logError(ErrorHandler.ERROR_CODE_DATABASE, "Trigram indexing failed",
+                                error instanceof Exception ? (Exception) error : new RuntimeException(error));
+                    } else if (indexed >= batchSize) {
+                        drainChunk();
+                        return;
+                    }
+                    draining.set(false);
+                    if (error == null && drainRequested.get() && draining.compareAndSet(false, true)) {
+                        drainChunk();
+                    }
+                }, executors.io());
+    }
+
+    /**
+     * Indeks ulang sampai maxDocs rowid dari antrean. Harus jalan di dalam transaksi.
+     *
+     * @return jumlah rowid yang diproses
+     */
+    int indexQueued(int maxDocs) {
+        List<Long> docids = dao.getQueued(Math.min(maxDocs, MAX_SQL_VARIABLES));
+        if (docids.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, ProductTrigramDoc> oldDocs = new HashMap<>(docids.size() * 2);
+        for (ProductTrigramDoc doc : dao.getDocs(docids)) {
+            oldDocs.put(doc.getDocid(), doc);
+        }
+        Map<Long, ProductTrigramDoc> newDocs = new HashMap<>(docids.size() * 2);
+        for (ProductTrigramDao.IndexSource source : dao.getIndexSources(docids)) {
+            newDocs.put(source.docid, new ProductTrigramDoc(source.docid,
+                    normalize(source.name), emptyToNull(normalize(source.barcode))));
+        }
+
+        Map<String, TreeSet<Long>> added = new HashMap<>();
+        Map<String, TreeSet<Long>> removed = new HashMap<>();
+        List<Long> deleted = new ArrayList<>();
+        for (Long docid : docids) {
+            Set<String> before = trigramsOf(oldDocs.get(docid));
+            ProductTrigramDoc doc = newDocs.get(docid);
+            Set<String> after = trigramsOf(doc);
+            if (doc == null) {
+                deleted.add(docid);
+            }
+            for (String trigram : before) {
+                if (!after.contains(trigram)) {
+                    removed.computeIfAbsent(trigram, t -> new TreeSet<>()).add(docid);
+                }
+            }
+            for (String trigram : after) {
+                if (!before.contains(trigram)) {
+                    added.computeIfAbsent(trigram, t -> new TreeSet<>()).add(docid);
+                }
+            }
+        }
+
+        Set<String> touched = new TreeSet<>(added.keySet());
+        touched.addAll(removed.keySet());
+        for (List<String> chunk : chunks(new ArrayList<>(touched))) {
+            Map<String, ProductTrigram> existing = new HashMap<>(chunk.size() * 2);
+            for (ProductTrigram row : dao.getTrigrams(chunk)) {
+                existing.put(row.getTrigram(), row);
+            }
+
+            List<ProductTrigram> upserts = new ArrayList<>(chunk.size());
+            List<String> emptied = new ArrayList<>();
+            for (String trigram : chunk) {
+                ProductTrigram row = existing.get(trigram);
+                long[] current = row != null
+                        ? PostingList.decode(row.getPostings(), row.getDocCount())
+                        : new long[0];
+                long[] next = PostingList.apply(current, toArray(added.get(trigram)), toArray(removed.get(trigram)));
+                if (next.length == 0) {
+                    if (row != null) {
+                        emptied.add(trigram);
+                    }
+                } else {
+                    upserts.add(new ProductTrigram(trigram, PostingList.encode(next), next.length));
+                }
+            }
+            if (!upserts.isEmpty()) {
+                dao.upsertTrigrams(upserts);
+            }
+            if (!emptied.isEmpty()) {
+                dao.deleteTrigrams(emptied);
+            }
+        }
+
+        if (!newDocs.isEmpty()) {
+            dao.upsertDocs(new ArrayList<>(newDocs.values()));
+        }
+        if (!deleted.isEmpty()) {
+            dao.deleteDocs(deleted);
+        }
+        dao.dequeue(docids);
+        return docids.size();
+    }
+
+    // ================================
+    // TEXT
+    // ================================
+
+    /**
+     * Kata alfanumerik huruf kecil dipisah satu spasi (sama dengan token FTS).
+     */
+    static String normalize(String text) {
+        return String.join(" ", FtsQueryBuilder.tokenize(text));
+    }
+
+    /**
+     * Teks tanpa spasi, supaya "kaos polos" dan "kaospolos" dianggap sama.
+     */
+    static String joined(String normalized) {
+        return normalized.replace(" ", "");
+    }
+
+    /**
+     * Batas salah ketik menurut panjang query; 0 = query terlalu pendek untuk fuzzy.
+     */
+    static int maxTypos(int length) {
+        if (length < 3) {
+            return 0;
+        }
+        if (length <= 4) {
+            return 1;
+        }
+        return length <= 8 ? 2 : 3;
+    }
+
+    private static Set<String> trigramsOf(ProductTrigramDoc doc) {
+        Set<String> trigrams = new LinkedHashSet<>();
+        if (doc == null) {
+            return trigrams;
+        }
+        // Tiap kata sendiri (kata di tengah nama tetap punya trigram awal kata) + seluruh nama
+        // tanpa spasi (query yang lupa spasi)
+        for (String word : doc.getName().split(" ")) {
+            trigramsOf(word, trigrams);
+        }
+        trigramsOf(joined(doc.getName()), trigrams);
+        if (doc.getBarcode() != null) {
+            trigramsOf(joined(doc.getBarcode()), trigrams);
+        }
+        return trigrams;
+    }
+
+    /**
+     * Trigram dengan padding seperti pg_trgm: dua spasi di depan, satu di belakang.
+     */
+    private static Set<String> trigramsOf(String word, Set<String> into) {
+        if (word.isEmpty()) {
+            return into;
+        }
+        String padded = "  " + word + " ";
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            into.add(padded.substring(i, i + 3));
+        }
+        return into;
+    }
+
+    /**
+     * Edit distance minimum antara pattern dan substring mana pun dari text (Sellers), O(m*n).
+     * Nilai di atas maxDistance dilaporkan sebagai maxDistance + 1.
+     */
+    static int substringDistance(String pattern, String text, int maxDistance) {
+        int m = pattern.length();
+        if (m == 0) {
+            return 0;
+        }
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int i = 0; i <= m; i++) {
+            previous[i] = i;
+        }
+
+        int best = previous[m];
+        for (int j = 1; j <= text.length(); j++) {
+            current[0] = 0; // substring boleh mulai di mana saja
+            char c = text.charAt(j - 1);
+            for (int i = 1; i <= m; i++) {
+                int cost = pattern.charAt(i - 1) == c ? 0 : 1;
+                current[i] = Math.min(Math.min(current[i - 1] + 1, previous[i] + 1), previous[i - 1] + cost);
+            }
+            best = Math.min(best, current[m]);
+            if (best == 0) {
+                return 0;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return best <= maxDistance ? best : maxDistance + 1;
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    private static long[] toArray(TreeSet<Long> docids) {
+        if (docids == null) {
+            return new long[0];
+        }
+        long[] result = new long[docids.size()];
+        int i = 0;
+        for (Long docid : docids) {
+            result[i++] = docid;
+        }
+        return result;
+    }
+
+    private static <T> List<List<T>> chunks(List<T> items) {
+        List<List<T>> result = new ArrayList<>();
+        for (int start = 0; start < items.size(); start += MAX_SQL_VARIABLES) {
+            result.add(items.subList(start, Math.min(items.size(), start + MAX_SQL_VARIABLES)));
+        }
+        return result;
+    }
+
+    private static final class Candidate {
+        final long docid;
+        int shared;
+        double weight;
+        int distance;
+        int length;
+
+        Candidate(long docid) {
+            this.docid = docid;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.bdajaya.adminku.db.migration;
+
+import androidx.annotation.NonNull;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * SQL triggers that Room does not manage.
+ *
+ * Room only creates tables and indices from entities, so triggers are installed from two places:
+ * - the migration that introduces them (existing installs)
+ * - AppDatabase's onCreate callback via {@link #createAll(SupportSQLiteDatabase)} (fresh installs)
+ *
+ * All statements are idempotent (IF NOT EXISTS / OR IGNORE).
+ */
+public final class DatabaseTriggers {
+
+    private DatabaseTriggers() {}
+
+    public static void createAll(@NonNull SupportSQLiteDatabase db) {
+        createCategoryClosureTriggers(db);
+        createSearchIndexTriggers(db);
+        createProductTrigramTriggers(db);
+        createImageBlobTriggers(db);
+        createProductChangeTriggers(db);
+    }
+
+    // ================================
+    // CATEGORY CLOSURE + hasChildren
+    // ================================
+
+    /**
+     * Re-link the subtree rooted at NEW.id under NEW.parentId: drop links from ancestors outside
+     * the subtree, then join every ancestor of the new parent with every node of the subtree.
+     */
+    private static final String RELINK_SUBTREE =
+            "DELETE FROM CategoryClosure WHERE descendantId IN " +
+            "(SELECT descendantId FROM CategoryClosure WHERE ancestorId = NEW.id) " +
+            "AND ancestorId NOT IN (SELECT descendantId FROM CategoryClosure WHERE ancestorId = NEW.id); " +
+            "INSERT OR IGNORE INTO CategoryClosure (ancestorId, descendantId, depth) " +
+            "SELECT p.ancestorId, c.descendantId, p.depth + c.depth + 1 " +
+            "FROM CategoryClosure p, CategoryClosure c " +
+            "WHERE p.descendantId = NEW.parentId AND c.ancestorId = NEW.id; ";
+
+    public static void createCategoryClosureTriggers(@NonNull SupportSQLiteDatabase db) {
+        // Insert (also covers INSERT OR REPLACE of an existing id)
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS category_closure_ai AFTER INSERT ON Category BEGIN " +
+                "INSERT OR IGNORE INTO CategoryClosure (ancestorId, descendantId, depth) VALUES (NEW.id, NEW.id, 0); " +
+                RELINK_SUBTREE +
+                "UPDATE Category SET hasChildren = 1 WHERE id = NEW.parentId AND hasChildren = 0; " +
+                "END");
+
+        // Move to another parent
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS category_closure_au AFTER UPDATE OF parentId ON Category " +
+                "WHEN OLD.parentId IS NOT NEW.parentId BEGIN " +
+                RELINK_SUBTREE +
+                "UPDATE Category SET hasChildren = 1 WHERE id = NEW.parentId AND hasChildren = 0; " +
+                "UPDATE Category SET hasChildren = EXISTS(SELECT 1 FROM Category c WHERE c.parentId = OLD.parentId) " +
+                "WHERE id = OLD.parentId; " +
+                "END");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS category_closure_ad AFTER DELETE ON Category BEGIN " +
+                "DELETE FROM CategoryClosure WHERE descendantId = OLD.id OR ancestorId = OLD.id; " +
+                "UPDATE Category SET hasChildren = EXISTS(SELECT 1 FROM Category c WHERE c.parentId = OLD.parentId) " +
+                "WHERE id = OLD.parentId; " +
+                "END");
+    }
+
+    /**
+     * Recompute the whole closure table and hasChildren flags from Category.parentId.
+     */
+    public static void rebuildCategoryClosure(@NonNull SupportSQLiteDatabase db) {
+        db.execSQL("DELETE FROM CategoryClosure");
+        db.execSQL("WITH RECURSIVE tree(ancestorId, descendantId, depth) AS (" +
+                "SELECT id, id, 0 FROM Category " +
+                "UNION ALL " +
+                "SELECT tree.ancestorId, c.id, tree.depth + 1 FROM tree JOIN Category c ON c.parentId = tree.descendantId " +
+                "WHERE tree.depth < 64) " +
+                "INSERT OR IGNORE INTO CategoryClosure (ancestorId, descendantId, depth) " +
+                "SELECT ancestorId, descendantId, depth FROM tree");
+        db.execSQL("UPDATE Category SET hasChildren = EXISTS(SELECT 1 FROM Category c WHERE c.parentId = Category.id)");
+    }
+
+    // ================================
+    // SEARCH INDEX (CategoryFts, BrandFts)
+    // ================================
+
+    /**
+     * Re-index the categories matched by {@code condition} (on alias c): name plus ancestor names
+     * from CategoryClosure. docid = Category.rowid; OR REPLACE overwrites the previous entry.
+     */
+    private static String refreshCategoryFts(String condition) {
+        return "INSERT OR REPLACE INTO CategoryFts (docid, name, path) " +
+                "SELECT c.rowid, c.name, (SELECT group_concat(a.name, ' ') FROM CategoryClosure p " +
+                "JOIN Category a ON a.id = p.ancestorId WHERE p.descendantId = c.id AND p.depth > 0) " +
+                "FROM Category c WHERE " + condition + "; ";
+    }
+
+    private static final String CATEGORY_SUBTREE_OF_NEW =
+            "c.id = NEW.id OR c.id IN (SELECT descendantId FROM CategoryClosure WHERE ancestorId = NEW.id)";
+
+    public static void createSearchIndexTriggers(@NonNull SupportSQLiteDatabase db) {
+        // Category rows; REPLACE of an existing id lands here too (with a new rowid)
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS category_fts_ai AFTER INSERT ON Category BEGIN " +
+                refreshCategoryFts(CATEGORY_SUBTREE_OF_NEW) +
+                "END");
+
+        // Rename changes the path of every descendant
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS category_fts_au AFTER UPDATE OF name ON Category " +
+                "WHEN OLD.name IS NOT NEW.name BEGIN " +
+                refreshCategoryFts(CATEGORY_SUBTREE_OF_NEW) +
+                "END");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS category_fts_ad AFTER DELETE ON Category BEGIN " +
+                "DELETE FROM CategoryFts WHERE docid = OLD.rowid; " +
+                "END");
+
+        // Ancestors change through the closure table (insert, move); the last closure row
+        // written for a node sees all of its ancestors, whatever order the triggers fire in
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS category_fts_closure_ai AFTER INSERT ON CategoryClosure BEGIN " +
+                refreshCategoryFts("c.id = NEW.descendantId") +
+                "END");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS category_fts_closure_ad AFTER DELETE ON CategoryClosure BEGIN " +
+                refreshCategoryFts("c.id = OLD.descendantId") +
+                "END");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS brand_fts_ai AFTER INSERT ON Brand BEGIN " +
+                "INSERT OR REPLACE INTO BrandFts (docid, name) VALUES (NEW.rowid, NEW.name); " +
+                "END");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS brand_fts_au AFTER UPDATE OF name ON Brand BEGIN " +
+                "INSERT OR REPLACE INTO BrandFts (docid, name) VALUES (NEW.rowid, NEW.name); " +
+                "END");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS brand_fts_ad AFTER DELETE ON Brand BEGIN " +
+                "DELETE FROM BrandFts WHERE docid = OLD.rowid; " +
+                "END");
+    }
+
+    /**
+     * Rebuild CategoryFts and BrandFts from their source tables (needs CategoryClosure).
+     */
+    public static void rebuildSearchIndex(@NonNull SupportSQLiteDatabase db) {
+        db.execSQL("DELETE FROM CategoryFts");
+        db.execSQL(refreshCategoryFts("1"));
+        db.execSQL("DELETE FROM BrandFts");
+        db.execSQL("INSERT INTO BrandFts (docid, name) SELECT rowid, name FROM Brand");
+    }
+
+    // ================================
+    // PRODUCT TRIGRAM QUEUE
+    // ================================
+
+    /**
+     * Queue the Product rowid for TrigramIndex on every change to the indexed text. Trigrams are
+     * computed in Java, so the triggers only record which rows to re-index.
+     */
+    public static void createProductTrigramTriggers(@NonNull SupportSQLiteDatabase db) {
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS product_trigram_ai AFTER INSERT ON Product BEGIN " +
+                "INSERT OR IGNORE INTO ProductTrigramQueue (docid) VALUES (NEW.rowid); " +
+                "END");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS product_trigram_au AFTER UPDATE OF name, barcode ON Product " +
+                "WHEN OLD.name IS NOT NEW.name OR OLD.barcode IS NOT NEW.barcode BEGIN " +
+                "INSERT OR IGNORE INTO ProductTrigramQueue (docid) VALUES (NEW.rowid); " +
+                "END");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS product_trigram_ad AFTER DELETE ON Product BEGIN " +
+                "INSERT OR IGNORE INTO ProductTrigramQueue (docid) VALUES (OLD.rowid); " +
+                "END");
+    }
+
+    // ================================
+    // IMAGE BLOB refCount
+    // ================================
+
+    /**
+     * Count ProductImage rows per ImageBlob. Deletes cascaded from Product fire these too.
+     * A row may point to a blob that is not registered yet (PENDING); the UPDATE is then a no-op
+     * and ImageBlobDao.insertIfAbsent counts it when the blob row is created.
+     */
+    public static void createImageBlobTriggers(@NonNull SupportSQLiteDatabase db) {
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS image_blob_ref_ai AFTER INSERT ON ProductImage " +
+                "WHEN NEW.blobHash IS NOT NULL BEGIN " +
+                "UPDATE ImageBlob SET refCount = refCount + 1 WHERE hash = NEW.blobHash; " +
+                "END");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS image_blob_ref_au AFTER UPDATE OF blobHash ON ProductImage " +
+                "WHEN OLD.blobHash IS NOT NEW.blobHash BEGIN " +
+                "UPDATE ImageBlob SET refCount = refCount - 1 WHERE hash = OLD.blobHash; " +
+                "UPDATE ImageBlob SET refCount = refCount + 1 WHERE hash = NEW.blobHash; " +
+                "END");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS image_blob_ref_ad AFTER DELETE ON ProductImage " +
+                "WHEN OLD.blobHash IS NOT NULL BEGIN " +
+                "UPDATE ImageBlob SET refCount = refCount - 1 WHERE hash = OLD.blobHash; " +
+                "END");
+    }
+
+    // ================================
+    // PRODUCT CHANGE LOG
+    // ================================
+
+    private static final String NEXT_CHANGE_SEQ = "(SELECT COALESCE(MAX(seq), 0) + 1 FROM ProductChange)";
+
+    /**
+     * Record the Product (rowid and id) with the next seq whenever the product row, one of its
+     * images, or its unit's conversion factor changes. Read by BarcodeIndex and
+     * ProductRepositoryCache.
+     */
+    public static void createProductChangeTriggers(@NonNull SupportSQLiteDatabase db) {
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS product_change_ai AFTER INSERT ON Product BEGIN " +
+                "INSERT OR REPLACE INTO ProductChange (docid, productId, seq) " +
+                "VALUES (NEW.rowid, NEW.id, " + NEXT_CHANGE_SEQ + "); " +
+                "END");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS product_change_au AFTER UPDATE ON Product BEGIN " +
+                "INSERT OR REPLACE INTO ProductChange (docid, productId, seq) " +
+                "VALUES (NEW.rowid, NEW.id, " + NEXT_CHANGE_SEQ + "); " +
+                "END");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS product_change_ad AFTER DELETE ON Product BEGIN " +
+                "INSERT OR REPLACE INTO ProductChange (docid, productId, seq) " +
+                "VALUES (OLD.rowid, OLD.id, " + NEXT_CHANGE_SEQ + "); " +
+                "END");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS product_change_unit_au AFTER UPDATE OF conversionFactor ON Unit " +
+                "WHEN OLD.conversionFactor IS NOT NEW.conversionFactor BEGIN " +
+                "INSERT OR REPLACE INTO ProductChange (docid, productId, seq) " +
+                "SELECT rowid, id, " + NEXT_CHANGE_SEQ + " FROM Product WHERE unitId = NEW.id; " +
+                "END");
+
+        // Cascade from a Product delete finds no Product row here; product_change_ad covers it
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS product_change_image_ai AFTER INSERT ON ProductImage BEGIN " +
+                "INSERT OR REPLACE INTO ProductChange (docid, productId, seq) " +
+                "SELECT rowid, id, " + NEXT_CHANGE_SEQ + " FROM Product WHERE id = NEW.productId; " +
+                "END");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS product_change_image_au AFTER UPDATE ON ProductImage BEGIN " +
+                "INSERT OR REPLACE INTO ProductChange (docid, productId, seq) " +
+                "SELECT rowid, id, " + NEXT_CHANGE_SEQ + " FROM Product WHERE id IN (OLD.productId, NEW.productId); " +
+                "END");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS product_change_image_ad AFTER DELETE ON ProductImage BEGIN " +
+                "INSERT OR REPLACE INTO ProductChange (docid, productId, seq) " +
+                "SELECT rowid, id, " + NEXT_CHANGE_SEQ + " FROM Product WHERE id = OLD.productId; " +
+                "END");
+    }
+}
@@ -8,6 +8,18 @@ import androidx.sqlite.db.SupportSQLiteDatabase;
  * Central place for custom SQL migrations.
  *
  * MIGRATION_5_6: add FTS virtual table ProductFts and an index for name+status.
+ * MIGRATION_6_7: replace index on status with (status, name, id) for keyset paging.
+ * MIGRATION_7_8: add StockBalance and fill it from the StockTransaction ledger.
+ * MIGRATION_8_9: add StockTransaction.checkpoint and StockMonthlySummary for ledger compaction.
+ * MIGRATION_9_10: add CategoryClosure, its triggers, and backfill from Category.parentId.
+ * MIGRATION_10_11: add StocktakeSession and StocktakeCount (stock opname staging).
+ * MIGRATION_11_12: add Sequence and seed the barcode counter from existing BE- barcodes.
+ * MIGRATION_12_13: add CategoryFts (name + ancestor path) and BrandFts, their triggers, and backfill.
+ * MIGRATION_13_14: add the product trigram index tables, queue every product, add the queue triggers.
+ * MIGRATION_14_15: add ProductImage.thumbnailPath (thumbnail files are backfilled by ThumbnailBackfillWorker).
+ * MIGRATION_15_16: add ProductImage.status (PENDING while ImageIngestionWorker encodes the staged file).
+ * MIGRATION_16_17: add ImageBlob, ProductImage.blobHash and the refCount triggers (existing files stay per product).
+ * MIGRATION_17_18: add ProductChange and its triggers (incremental BarcodeIndex and product cache updates).
  *
  * Important:
  * - Increase AppDatabase DATABASE_VERSION accordingly.
@@ -23,5 +35,204 @@ public final class Migrations {
         }
     };
 
+    public static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            // Keyset paging per status: WHERE status = ? AND (name, id) > (?, ?) ORDER BY name, id
+            database.execSQL("DROP INDEX IF EXISTS index_Product_status");
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_Product_status_name_id ON Product(status, name, id)");
+        }
+    };
+
+    public static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS StockBalance (" +
+                    "productId TEXT NOT NULL, " +
+                    "onHand INTEGER NOT NULL, " +
+                    "lastAdjustQuantity INTEGER NOT NULL, " +
+                    "lastAdjustAt INTEGER NOT NULL, " +
+                    "updatedAt INTEGER NOT NULL, " +
+                    "PRIMARY KEY(productId), " +
+                    "FOREIGN KEY(productId) REFERENCES Product(id) ON UPDATE NO ACTION ON DELETE CASCADE)");
+
+            // Same computation as StockTransactionDao.rebuildAllBalances()
+            database.execSQL("INSERT INTO StockBalance (productId, onHand, lastAdjustQuantity, lastAdjustAt, updatedAt) " +
+                    "SELECT t.productId, " +
+                    "COALESCE(a.quantity, 0) + COALESCE(SUM(CASE WHEN t.timestamp > COALESCE(a.lastAdjustAt, 0) THEN " +
+                    "CASE t.transactionType WHEN 'ADD' THEN t.quantity WHEN 'REMOVE' THEN -t.quantity ELSE 0 END " +
+                    "ELSE 0 END), 0), " +
+                    "COALESCE(a.quantity, 0), COALESCE(a.lastAdjustAt, 0), ? " +
+                    "FROM StockTransaction t " +
+                    "LEFT JOIN (SELECT productId, quantity, MAX(timestamp) AS lastAdjustAt FROM StockTransaction " +
+                    "WHERE transactionType = 'ADJUST' GROUP BY productId) a ON a.productId = t.productId " +
+                    "GROUP BY t.productId",
+                    new Object[]{System.currentTimeMillis()});
+        }
+    };
+
+    public static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE StockTransaction ADD COLUMN checkpoint INTEGER NOT NULL DEFAULT 0");
+            database.execSQL("CREATE TABLE IF NOT EXISTS StockMonthlySummary (" +
+                    "productId TEXT NOT NULL, " +
+                    "unitId TEXT NOT NULL, " +
+                    "month TEXT NOT NULL, " +
+                    "addQuantity INTEGER NOT NULL, " +
+                    "removeQuantity INTEGER NOT NULL, " +
+                    "adjustCount INTEGER NOT NULL, " +
+                    "transactionCount INTEGER NOT NULL, " +
+                    "PRIMARY KEY(productId, unitId, month), " +
+                    "FOREIGN KEY(productId) REFERENCES Product(id) ON UPDATE NO ACTION ON DELETE CASCADE)");
+        }
+    };
+
+    public static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS CategoryClosure (" +
+                    "ancestorId TEXT NOT NULL, " +
+                    "descendantId TEXT NOT NULL, " +
+                    "depth INTEGER NOT NULL, " +
+                    "PRIMARY KEY(ancestorId, descendantId))");
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_CategoryClosure_descendantId_depth " +
+                    "ON CategoryClosure(descendantId, depth)");
+
+            DatabaseTriggers.rebuildCategoryClosure(database);
+            DatabaseTriggers.createCategoryClosureTriggers(database);
+        }
+    };
+
+    public static final Migration MIGRATION_10_11 = new Migration(10, 11) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS StocktakeSession (" +
+                    "id TEXT NOT NULL, " +
+                    "name TEXT, " +
+                    "status TEXT NOT NULL, " +
+                    "createdAt INTEGER NOT NULL, " +
+                    "updatedAt INTEGER NOT NULL, " +
+                    "committedAt INTEGER NOT NULL, " +
+                    "adjustedCount INTEGER NOT NULL, " +
+                    "PRIMARY KEY(id))");
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_StocktakeSession_status ON StocktakeSession(status)");
+
+            database.execSQL("CREATE TABLE IF NOT EXISTS StocktakeCount (" +
+                    "sessionId TEXT NOT NULL, " +
+                    "productId TEXT NOT NULL, " +
+                    "unitId TEXT NOT NULL, " +
+                    "countedQuantity INTEGER NOT NULL, " +
+                    "conversionFactor INTEGER NOT NULL, " +
+                    "countedBaseQuantity INTEGER NOT NULL, " +
+                    "countedAt INTEGER NOT NULL, " +
+                    "PRIMARY KEY(sessionId, productId), " +
+                    "FOREIGN KEY(sessionId) REFERENCES StocktakeSession(id) ON UPDATE NO ACTION ON DELETE CASCADE, " +
+                    "FOREIGN KEY(productId) REFERENCES Product(id) ON UPDATE NO ACTION ON DELETE CASCADE)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_StocktakeCount_productId ON StocktakeCount(productId)");
+        }
+    };
+
     private Migrations() {}
-}
\ No newline at end of file
+
+    public static final Migration MIGRATION_11_12 = new Migration(11, 12) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS Sequence (" +
+                    "name TEXT NOT NULL, " +
+                    "nextValue INTEGER NOT NULL, " +
+                    "updatedAt INTEGER NOT NULL, " +
+                    "PRIMARY KEY(name))");
+
+            // Last MAX scan: BarcodeAllocator continues from here
+            database.execSQL("INSERT OR IGNORE INTO Sequence (name, nextValue, updatedAt) " +
+                    "SELECT 'barcode', COALESCE(MAX(CAST(SUBSTR(barcode, 4) AS INTEGER)), 0) + 1, ? " +
+                    "FROM Product WHERE barcode LIKE 'BE-%'",
+                    new Object[]{System.currentTimeMillis()});
+        }
+    };
+
+    public static final Migration MIGRATION_12_13 = new Migration(12, 13) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `CategoryFts` USING FTS4(`name` TEXT NOT NULL, `path` TEXT)");
+            database.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `BrandFts` USING FTS4(`name` TEXT NOT NULL)");
+
+            DatabaseTriggers.rebuildSearchIndex(database);
+            DatabaseTriggers.createSearchIndexTriggers(database);
+        }
+    };
+
+    public static final Migration MIGRATION_13_14 = new Migration(13, 14) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS ProductTrigram (" +
+                    "trigram TEXT NOT NULL, " +
+                    "postings BLOB NOT NULL, " +
+                    "docCount INTEGER NOT NULL, " +
+                    "PRIMARY KEY(trigram))");
+            database.execSQL("CREATE TABLE IF NOT EXISTS ProductTrigramDoc (" +
+                    "docid INTEGER NOT NULL, " +
+                    "name TEXT NOT NULL, " +
+                    "barcode TEXT, " +
+                    "PRIMARY KEY(docid))");
+            database.execSQL("CREATE TABLE IF NOT EXISTS ProductTrigramQueue (" +
+                    "docid INTEGER NOT NULL, " +
+                    "PRIMARY KEY(docid))");
+
+            // TrigramIndex builds the index in the background from the queue
+            database.execSQL("INSERT OR IGNORE INTO ProductTrigramQueue (docid) SELECT rowid FROM Product");
+            DatabaseTriggers.createProductTrigramTriggers(database);
+        }
+    };
+
+    public static final Migration MIGRATION_14_15 = new Migration(14, 15) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE ProductImage ADD COLUMN thumbnailPath TEXT");
+        }
+    };
+
+    public static final Migration MIGRATION_15_16 = new Migration(15, 16) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE ProductImage ADD COLUMN status TEXT NOT NULL DEFAULT 'READY'");
+        }
+    };
+
+    public static final Migration MIGRATION_16_17 = new Migration(16, 17) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS ImageBlob (" +
+                    "hash TEXT NOT NULL, " +
+                    "imagePath TEXT NOT NULL, " +
+                    "thumbnailPath TEXT, " +
+                    "width INTEGER NOT NULL, " +
+                    "height INTEGER NOT NULL, " +
+                    "fileSize INTEGER NOT NULL, " +
+                    "refCount INTEGER NOT NULL, " +
+                    "createdAt INTEGER NOT NULL, " +
+                    "PRIMARY KEY(hash))");
+            database.execSQL("ALTER TABLE ProductImage ADD COLUMN blobHash TEXT");
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_ProductImage_blobHash ON ProductImage (blobHash)");
+
+            // Existing images keep their per-product files (blobHash NULL); only new images are shared
+            DatabaseTriggers.createImageBlobTriggers(database);
+        }
+    };
+
+    public static final Migration MIGRATION_17_18 = new Migration(17, 18) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS ProductChange (" +
+                    "docid INTEGER NOT NULL, " +
+                    "productId TEXT NOT NULL, " +
+                    "seq INTEGER NOT NULL, " +
+                    "PRIMARY KEY(docid))");
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_ProductChange_seq ON ProductChange (seq)");
+
+            // Empty on purpose: readers load everything once, then follow seq
+            DatabaseTriggers.createProductChangeTriggers(database);
+        }
+    };
+}
@@ -1,7 +1,10 @@
 package com.bdajaya.adminku.di;
 
 import android.content.Context;
+import com.bdajaya.adminku.core.AppExecutors;
 import com.bdajaya.adminku.data.AppDatabase;
+import com.bdajaya.adminku.data.BarcodeAllocator;
+import com.bdajaya.adminku.data.WriteBatcher;
 import com.bdajaya.adminku.data.dao.*;
 import dagger.Module;
 import dagger.Provides;
@@ -16,8 +19,20 @@ public class DatabaseModule {
 
     @Provides
     @Singleton
-    public AppDatabase provideAppDatabase(@ApplicationContext Context context) {
-        return AppDatabase.getInstance(context);
+    public AppDatabase provideAppDatabase(@ApplicationContext Context context, AppExecutors executors) {
+        return AppDatabase.getInstance(context, executors);
+    }
+
+    @Provides
+    @Singleton
+    public WriteBatcher provideWriteBatcher(AppDatabase database) {
+        return WriteBatcher.getInstance(database);
+    }
+
+    @Provides
+    @Singleton
+    public BarcodeAllocator provideBarcodeAllocator(AppDatabase database) {
+        return BarcodeAllocator.getInstance(database);
     }
 
     @Provides
@@ -55,4 +70,22 @@ public class DatabaseModule {
     public BrandDao provideBrandDao(AppDatabase database) {
         return database.brandDao();
     }
-}
\ No newline at end of file
+
+    @Provides
+    @Singleton
+    public StocktakeDao provideStocktakeDao(AppDatabase database) {
+        return database.stocktakeDao();
+    }
+
+    @Provides
+    @Singleton
+    public SearchDao provideSearchDao(AppDatabase database) {
+        return database.searchDao();
+    }
+
+    @Provides
+    @Singleton
+    public ImageBlobDao provideImageBlobDao(AppDatabase database) {
+        return database.imageBlobDao();
+    }
+}
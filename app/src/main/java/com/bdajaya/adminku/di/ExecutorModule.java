@@ -0,0 +1,19 @@
+package com.bdajaya.adminku.di;
+
+import com.bdajaya.adminku.core.AppExecutors;
+import dagger.Module;
+import dagger.Provides;
+import dagger.hilt.InstallIn;
+import dagger.hilt.components.SingletonComponent;
+import javax.inject.Singleton;
+
+@Module
+@InstallIn(SingletonComponent.class)
+public class ExecutorModule {
+
+    @Provides
+    @Singleton
+    public AppExecutors provideAppExecutors() {
+        return new AppExecutors();
+    }
+}
@@ -1,6 +1,9 @@
 package com.bdajaya.adminku.di;
 
 import android.content.Context;
+import com.bdajaya.adminku.core.AppExecutors;
+import com.bdajaya.adminku.data.AppDatabase;
+import com.bdajaya.adminku.data.WriteBatcher;
 import com.bdajaya.adminku.data.dao.*;
 import com.bdajaya.adminku.data.manager.ImageStorageManager;
 import com.bdajaya.adminku.data.repository.*;
@@ -19,37 +22,60 @@ public class RepositoryModule {
     @Singleton
     public ProductRepository provideProductRepository(
             @ApplicationContext Context context,
+            AppDatabase database,
             ProductDao productDao,
-            ProductImageDao productImageDao
+            ProductImageDao productImageDao,
+            AppExecutors executors
     ) {
-        return new ProductRepository(context, productDao, productImageDao);
+        return new ProductRepository(context, database, productDao, productImageDao, executors);
     }
 
     @Provides
     @Singleton
-    public CategoryRepository provideCategoryRepository(CategoryDao categoryDao) {
-        return new CategoryRepository(categoryDao);
+    public CategoryTreeCache provideCategoryTreeCache(AppDatabase database) {
+        return CategoryTreeCache.getInstance(database);
     }
 
     @Provides
     @Singleton
-    public BrandRepository provideBrandRepository(BrandDao brandDao) {
-        return new BrandRepository(brandDao);
+    public CategoryRepository provideCategoryRepository(AppDatabase database, CategoryDao categoryDao,
+                                                        CategoryTreeCache treeCache, AppExecutors executors) {
+        return new CategoryRepository(database, categoryDao, treeCache, executors);
     }
 
     @Provides
     @Singleton
-    public UnitRepository provideUnitRepository(UnitDao unitDao) {
-        return new UnitRepository(unitDao);
+    public BrandRepository provideBrandRepository(BrandDao brandDao, WriteBatcher writeBatcher) {
+        return new BrandRepository(brandDao, writeBatcher);
+    }
+
+    @Provides
+    @Singleton
+    public UnitRepository provideUnitRepository(AppDatabase database, UnitDao unitDao, AppExecutors executors) {
+        return new UnitRepository(database, unitDao, executors);
     }
 
     @Provides
     @Singleton
     public StockRepository provideStockRepository(
+            AppDatabase database,
+            StockTransactionDao stockTransactionDao,
+            UnitRepository unitRepository,
+            AppExecutors executors
+    ) {
+        return new StockRepository(database, stockTransactionDao, unitRepository, executors);
+    }
+
+    @Provides
+    @Singleton
+    public StocktakeRepository provideStocktakeRepository(
+            AppDatabase database,
+            StocktakeDao stocktakeDao,
             StockTransactionDao stockTransactionDao,
-            UnitRepository unitRepository
+            UnitRepository unitRepository,
+            AppExecutors executors
     ) {
-        return new StockRepository(stockTransactionDao, unitRepository);
+        return new StocktakeRepository(database, stocktakeDao, stockTransactionDao, unitRepository, executors);
     }
 
     @Provides
@@ -2,6 +2,8 @@ package com.bdajaya.adminku.domain.service;
 
 import androidx.lifecycle.LiveData;
 
+import com.bdajaya.adminku.core.AppExecutors;
+import com.bdajaya.adminku.core.AsyncResult;
 import com.bdajaya.adminku.core.Constants;
 import com.bdajaya.adminku.core.ErrorHandler;
 import com.bdajaya.adminku.core.Result;
@@ -27,90 +29,76 @@ import javax.inject.Singleton;
 public class CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final AppExecutors executors;
 
     @Inject
-    public CategoryService(CategoryRepository categoryRepository) {
+    public CategoryService(CategoryRepository categoryRepository, AppExecutors executors) {
         this.categoryRepository = categoryRepository;
+        this.executors = executors;
     }
 
     // ================================
     // CATEGORY CREATION
     // ================================
 
-    public Result<String> createCategory(String name, String parentId) {
-        try {
-            // Basic validation
-            if (name == null || name.trim().isEmpty()) {
-                return Result.failure("Nama kategori tidak boleh kosong");
-            }
-
-            if (!Constants.isValidCategoryName(name)) {
-                return Result.failure("Nama kategori tidak valid");
-            }
-
-            // Check depth limit
-            Result<Boolean> maxDepthCheck = categoryRepository.isMaxDepthReached(parentId);
-            if (maxDepthCheck.isFailure()) {
-                return Result.failure(maxDepthCheck.getErrorMessage());
-            }
-            if (Boolean.TRUE.equals(maxDepthCheck.getData())) {
-                return Result.failure(Constants.ERROR_MAX_DEPTH_REACHED);
-            }
-
-            // Delegate to repository
-            return categoryRepository.addCategory(parentId, name);
+    public AsyncResult<String> createCategory(String name, String parentId) {
+        // Basic validation
+        if (name == null || name.trim().isEmpty()) {
+            return AsyncResult.completed(Result.failure("Nama kategori tidak boleh kosong"));
+        }
 
-        } catch (Exception e) {
-            return ErrorHandler.handleException(e, "Create category");
+        if (!Constants.isValidCategoryName(name)) {
+            return AsyncResult.completed(Result.failure("Nama kategori tidak valid"));
         }
+
+        // Check depth limit on the read pool, then queue the insert on the writer
+        return AsyncResult.supply(executors.diskRead(),
+                        () -> categoryRepository.isMaxDepthReached(parentId))
+                .flatMap(maxDepthReached -> Boolean.TRUE.equals(maxDepthReached)
+                        ? AsyncResult.completed(Result.<String>failure(Constants.ERROR_MAX_DEPTH_REACHED))
+                        : categoryRepository.addCategoryAsync(parentId, name));
     }
 
     // ================================
     // CATEGORY UPDATE
     // ================================
 
-    public Result<Void> updateCategory(String categoryId, String newName) {
-        try {
-            if (categoryId == null || categoryId.trim().isEmpty()) {
-                return Result.failure("ID kategori tidak boleh kosong");
-            }
-            if (newName == null || newName.trim().isEmpty()) {
-                return Result.failure("Nama kategori tidak boleh kosong");
-            }
-
-            return categoryRepository.updateCategory(categoryId, newName);
-        } catch (Exception e) {
-            return ErrorHandler.handleException(e, "Update category");
+    public AsyncResult<Void> updateCategory(String categoryId, String newName) {
+        if (categoryId == null || categoryId.trim().isEmpty()) {
+            return AsyncResult.completed(Result.failure("ID kategori tidak boleh kosong"));
         }
+        if (newName == null || newName.trim().isEmpty()) {
+            return AsyncResult.completed(Result.failure("Nama kategori tidak boleh kosong"));
+        }
+
+        return categoryRepository.updateCategoryAsync(categoryId, newName);
     }
 
     // ================================
     // CATEGORY DELETION
     // ================================
 
-    public Result<Void> deleteCategory(String categoryId, ProductDao productDao) {
-        try {
-            if (categoryId == null || categoryId.trim().isEmpty()) {
-                return Result.failure("ID kategori tidak boleh kosong");
-            }
+    public AsyncResult<Void> deleteCategory(String categoryId, ProductDao productDao) {
+        if (categoryId == null || categoryId.trim().isEmpty()) {
+            return AsyncResult.completed(Result.failure("ID kategori tidak boleh kosong"));
+        }
 
-            String result = categoryRepository.deleteCategory(categoryId, productDao);
-
-            switch (result) {
-                case "SUCCESS":
-                    return Result.success();
-                case "HAS_CHILDREN":
-                    return Result.failure(Constants.ERROR_CATEGORY_HAS_CHILDREN);
-                case "HAS_PRODUCTS":
-                    return Result.failure(Constants.ERROR_CATEGORY_HAS_PRODUCTS);
-                case "NOT_FOUND":
-                    return Result.failure(Constants.ERROR_CATEGORY_NOT_FOUND);
-                default:
-                    return Result.failure("Gagal menghapus kategori: " + result);
-            }
+        return categoryRepository.deleteCategoryAsync(categoryId, productDao)
+                .flatMap(result -> AsyncResult.completed(toDeleteResult(result)));
+    }
 
-        } catch (Exception e) {
-            return ErrorHandler.handleException(e, "Delete category");
+    private static Result<Void> toDeleteResult(String result) {
+        switch (result) {
+            case "SUCCESS":
+                return Result.success();
+            case "HAS_CHILDREN":
+                return Result.failure(Constants.ERROR_CATEGORY_HAS_CHILDREN);
+            case "HAS_PRODUCTS":
+                return Result.failure(Constants.ERROR_CATEGORY_HAS_PRODUCTS);
+            case "NOT_FOUND":
+                return Result.failure(Constants.ERROR_CATEGORY_NOT_FOUND);
+            default:
+                return Result.failure("Gagal menghapus kategori: " + result);
         }
     }
 
@@ -0,0 +1,46 @@
+package com.bdajaya.adminku.domain.service;
+
+import com.bdajaya.adminku.core.AppExecutors;
+import com.bdajaya.adminku.core.AsyncResult;
+import com.bdajaya.adminku.core.ErrorHandler;
+import com.bdajaya.adminku.core.Result;
+import com.bdajaya.adminku.data.AppDatabase;
+import com.bdajaya.adminku.data.repository.BarcodeIndex;
+import com.bdajaya.adminku.data.repository.StockRepository;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Mode kasir scan barcode. Setiap sesi memuat {@link BarcodeIndex} sekali (satu query di read
+ * pool), lalu scan berjalan dari memori dan keranjang di-commit sebagai satu transaksi ledger.
+ */
+@Singleton
+public class CheckoutService {
+    private final AppDatabase database;
+    private final StockRepository stockRepository;
+    private final AppExecutors executors;
+
+    @Inject
+    public CheckoutService(AppDatabase database, StockRepository stockRepository, AppExecutors executors) {
+        this.database = database;
+        this.stockRepository = stockRepository;
+        this.executors = executors;
+    }
+
+    /**
+     * Sesi baru dengan index barcode yang sudah terisi.
+     */
+    public AsyncResult<CheckoutSession> startSession() {
+        return AsyncResult.supply(executors.diskRead(), () -> {
+            BarcodeIndex index = new BarcodeIndex(database, executors.diskRead());
+            try {
+                index.load();
+                return Result.success(new CheckoutSession(index, stockRepository));
+            } catch (Exception e) {
+                index.close();
+                return ErrorHandler.handleException(e, "Start checkout session");
+            }
+        });
+    }
+}
@@ -0,0 +1,245 @@
+package com.bdajaya.adminku.domain.service;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bdajaya.adminku.core.AsyncResult;
+import com.bdajaya.adminku.core.Result;
+import com.bdajaya.adminku.data.model.CartLine;
+import com.bdajaya.adminku.data.model.StockCommand;
+import com.bdajaya.adminku.data.model.StockCommandResult;
+import com.bdajaya.adminku.data.repository.BarcodeIndex;
+import com.bdajaya.adminku.data.repository.StockRepository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Satu sesi kasir mode scan: keranjang di memori di atas {@link BarcodeIndex}.
+ *
+ * - scan() hanya lookup HashMap, tanpa query database, jadi aman dipanggil di main thread
+ *   untuk setiap scan. Scan barcode yang sama menambah qty baris yang sudah ada.
+ * - Stok dicek dulu terhadap stok di index (cepat, bisa sedikit tertinggal); cek yang
+ *   menentukan terjadi lagi saat commit.
+ * - commit() menulis seluruh keranjang sebagai satu transaksi ledger (REMOVE per baris):
+ *   semua baris tercatat atau tidak sama sekali. Baris yang sudah di-commit dikeluarkan dari
+ *   keranjang; scan yang masuk selama commit tetap tinggal.
+ *
+ * Buat lewat {@link CheckoutService#startSession()}, dan panggil {@link #close()} saat layar
+ * kasir selesai.
+ */
+public class CheckoutSession {
+
+    public enum ScanStatus {
+        ADDED,
+        NOT_FOUND,
+        ARCHIVED,
+        INSUFFICIENT_STOCK
+    }
+
+    /**
+     * Hasil satu scan; line adalah baris keranjang setelah scan (null kalau ditolak).
+     */
+    public static final class ScanResult {
+        @NonNull
+        public final ScanStatus status;
+        @Nullable
+        public final CartLine line;
+        public final long availableUnits; // stok di index, dalam satuan produk
+
+        ScanResult(@NonNull ScanStatus status, @Nullable CartLine line, long availableUnits) {
+            this.status = status;
+            this.line = line;
+            this.availableUnits = availableUnits;
+        }
+
+        public boolean isAdded() {
+            return status == ScanStatus.ADDED;
+        }
+
+        /**
+         * Pesan untuk ditampilkan ke user (null kalau berhasil).
+         */
+        @Nullable
+        public String getErrorMessage() {
+            switch (status) {
+                case NOT_FOUND:
+                    return "Barcode tidak ditemukan";
+                case ARCHIVED:
+                    return "Produk sudah diarsipkan";
+                case INSUFFICIENT_STOCK:
+                    return "Stok tidak mencukupi. Stok tersedia: " + availableUnits;
+                default:
+                    return null;
+            }
+        }
+    }
+
+    private final BarcodeIndex index;
+    private final Function<List<StockCommand>, AsyncResult<List<StockCommandResult>>> batchWriter;
+    private final Map<String, CartLine> lines = new LinkedHashMap<>(); // productId -> line, scan order
+
+    CheckoutSession(@NonNull BarcodeIndex index, @NonNull StockRepository stockRepository) {
+        this(index, stockRepository::executeBatch);
+    }
+
+    /**
+     * @param batchWriter StockRepository.executeBatch di app; fake di test
+     */
+    CheckoutSession(@NonNull BarcodeIndex index,
+                    @NonNull Function<List<StockCommand>, AsyncResult<List<StockCommandResult>>> batchWriter) {
+        this.index = index;
+        this.batchWriter = batchWriter;
+    }
+
+    @NonNull
+    public ScanResult scan(@Nullable String barcode) {
+        return scan(barcode, 1);
+    }
+
+    /**
+     * Tambah quantity (satuan produk) untuk barcode yang di-scan.
+     */
+    @NonNull
+    public ScanResult scan(@Nullable String barcode, long quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("quantity must be positive");
+        }
+        BarcodeIndex.Entry entry = index.lookup(barcode);
+        if (entry == null) {
+            return new ScanResult(ScanStatus.NOT_FOUND, null, 0);
+        }
+        if (entry.isArchived()) {
+            return new ScanResult(ScanStatus.ARCHIVED, null, 0);
+        }
+
+        synchronized (lines) {
+            CartLine existing = lines.get(entry.productId);
+            long total = (existing != null ? existing.quantity : 0) + quantity;
+            if (total > entry.availableUnits()) {
+                return new ScanResult(ScanStatus.INSUFFICIENT_STOCK, null, entry.availableUnits());
+            }
+            CartLine line = existing != null
+                    ? existing.withQuantity(total)
+                    : new CartLine(entry.productId, entry.barcode, entry.name, entry.unitId, entry.sellPrice, total);
+            lines.put(entry.productId, line);
+            return new ScanResult(ScanStatus.ADDED, line, entry.availableUnits());
+        }
+    }
+
+    /**
+     * Ganti quantity satu baris; 0 menghapus baris. Tidak dicek terhadap stok: commit yang menolak.
+     */
+    public void setQuantity(@NonNull String productId, long quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("quantity must not be negative");
+        }
+        synchronized (lines) {
+            CartLine existing = lines.get(productId);
+            if (existing == null) {
+                return;
+            }
+            if (quantity == 0) {
+                lines.remove(productId);
+            } else {
+                lines.put(productId, existing.withQuantity(quantity));
+            }
+        }
+    }
+
+    public void removeLine(@NonNull String productId) {
+        synchronized (lines) {
+            lines.remove(productId);
+        }
+    }
+
+    public void clear() {
+        synchronized (lines) {
+            lines.clear();
+        }
+    }
+
+    @NonNull
+    public List<CartLine> getLines() {
+        synchronized (lines) {
+            return Collections.unmodifiableList(new ArrayList<>(lines.values()));
+        }
+    }
+
+    public boolean isEmpty() {
+        synchronized (lines) {
+            return lines.isEmpty();
+        }
+    }
+
+    /**
+     * Total harga keranjang dalam sen.
+     */
+    public long getTotal() {
+        long total = 0;
+        synchronized (lines) {
+            for (CartLine line : lines.values()) {
+                total += line.getSubtotal();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Tulis keranjang sebagai satu transaksi stok keluar. Hasil per baris mengikuti urutan
+     * {@link #getLines()} saat commit dipanggil; kalau satu baris ditolak, tidak ada yang ditulis
+     * dan keranjang tidak berubah.
+     */
+    @NonNull
+    public AsyncResult<List<StockCommandResult>> commit(@Nullable String notes) {
+        List<CartLine> committed = getLines();
+        if (committed.isEmpty()) {
+            return AsyncResult.completed(Result.failure("Keranjang kosong"));
+        }
+        List<StockCommand> commands = new ArrayList<>(committed.size());
+        for (CartLine line : committed) {
+            commands.add(StockCommand.remove(line.productId, line.quantity, line.unitId, notes));
+        }
+
+        return batchWriter.apply(commands).map(results -> {
+            if (allApplied(results)) {
+                removeCommitted(committed);
+            }
+            return results;
+        });
+    }
+
+    public void close() {
+        index.close();
+    }
+
+    public static boolean allApplied(@NonNull List<StockCommandResult> results) {
+        for (StockCommandResult result : results) {
+            if (!result.isApplied()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void removeCommitted(List<CartLine> committed) {
+        synchronized (lines) {
+            for (CartLine done : committed) {
+                CartLine current = lines.get(done.productId);
+                if (current == null) {
+                    continue;
+                }
+                long remaining = current.quantity - done.quantity;
+                if (remaining > 0) {
+                    lines.put(done.productId, current.withQuantity(remaining));
+                } else {
+                    lines.remove(done.productId);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.bdajaya.adminku.domain.service;
+
+import com.bdajaya.adminku.core.AppExecutors;
+import com.bdajaya.adminku.core.AsyncResult;
+import com.bdajaya.adminku.core.ErrorHandler;
+import com.bdajaya.adminku.core.Result;
+import com.bdajaya.adminku.data.AppDatabase;
+import com.bdajaya.adminku.data.model.SearchResults;
+import com.bdajaya.adminku.data.repository.CategoryTreeCache;
+import com.bdajaya.adminku.data.repository.UnitRepository;
+import com.bdajaya.adminku.data.search.CatalogSearchEngine;
+
+import java.util.EnumSet;
+import java.util.Set;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Satu pintu pencarian untuk produk, kategori, brand, dan unit.
+ *
+ * Semua grup yang diminta dicari dalam satu tugas di read pool dan dikembalikan sebagai satu
+ * {@link SearchResults} (hit berperingkat + jumlah per grup). Layar picker meminta grupnya
+ * sendiri saja, misalnya {@code search(query, EnumSet.of(Kind.BRAND), limit)}.
+ */
+@Singleton
+public class SearchService {
+    private final CatalogSearchEngine engine;
+    private final AppExecutors executors;
+
+    @Inject
+    public SearchService(AppDatabase database, CategoryTreeCache treeCache, UnitRepository unitRepository,
+                         AppExecutors executors) {
+        this.engine = new CatalogSearchEngine(database, treeCache, unitRepository);
+        this.executors = executors;
+    }
+
+    public AsyncResult<SearchResults> search(String query, Set<SearchResults.Kind> kinds, int limitPerGroup) {
+        return AsyncResult.supply(executors.diskRead(), () -> {
+            try {
+                return Result.success(engine.search(query, kinds, limitPerGroup));
+            } catch (Exception e) {
+                return ErrorHandler.handleException(e, "Search: " + query);
+            }
+        });
+    }
+
+    public AsyncResult<SearchResults> searchAll(String query, int limitPerGroup) {
+        return search(query, EnumSet.allOf(SearchResults.Kind.class), limitPerGroup);
+    }
+}
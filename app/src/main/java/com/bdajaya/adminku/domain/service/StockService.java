@@ -1,14 +1,16 @@
 package com.bdajaya.adminku.domain.service;
 
 import androidx.lifecycle.LiveData;
+import com.bdajaya.adminku.core.AsyncResult;
 import com.bdajaya.adminku.core.ErrorHandler;
 import com.bdajaya.adminku.core.Result;
 import com.bdajaya.adminku.core.ValidationUtils;
 import com.bdajaya.adminku.data.entity.StockTransaction;
 import com.bdajaya.adminku.data.entity.Unit;
+import com.bdajaya.adminku.data.model.StockCommand;
+import com.bdajaya.adminku.data.model.StockCommandResult;
 import com.bdajaya.adminku.data.repository.StockRepository;
 import com.bdajaya.adminku.data.repository.UnitRepository;
-import dagger.hilt.internal.aggregatedroot.codegen._com_bdajaya_adminku_AdminkuApplication;
 
 import java.util.List;
 import javax.inject.Inject;
@@ -34,136 +36,46 @@ public class StockService {
     }
 
     /**
-     * Add stock with automatic conversion to base unit.
+     * Add stock; quantity is in unitId and converted to base unit once, by the command engine.
+     * Non-blocking: the command is group-committed on the writer.
      */
-    public Result<Void> addStock(String productId, long quantity, String unitId, String notes) {
-        // Validate inputs
-        ValidationUtils.ValidationResult productValidation = ValidationUtils.validateNotEmpty(productId, "Product ID");
-        if (productValidation.isFailure()) {
-            return Result.failure(productValidation.getErrorMessage());
-        }
-
-        ValidationUtils.ValidationResult unitValidation = ValidationUtils.validateNotEmpty(unitId, "Unit ID");
-        if (unitValidation.isFailure()) {
-            return Result.failure(unitValidation.getErrorMessage());
-        }
-
-        if (quantity <= 0) {
-            return Result.failure("Kuantitas harus lebih dari 0");
-        }
-
-        try {
-            // Get unit for conversion
-            Unit unit = unitRepository.getUnitByIdSync(unitId);
-            if (unit == null) {
-                return Result.failure("Satuan tidak ditemukan");
-            }
-
-            // Convert to base unit
-            Result<Long> conversionResult = unitService.convertToBaseUnit(quantity, unitId);
-            if (conversionResult.isFailure()) {
-                return Result.failure(conversionResult.getErrorMessage());
-            }
-
-            long baseQuantity = conversionResult.getData();
-
-            // Add stock transaction
-            stockRepository.addStock(productId, baseQuantity, unitId, notes);
-
-            return Result.success();
-        } catch (Exception e) {
-            return ErrorHandler.handleException(e, "Add stock");
-        }
+    public AsyncResult<StockCommandResult> addStock(String productId, long quantity, String unitId, String notes) {
+        return executeCommand(StockCommand.add(productId, quantity, unitId, notes));
     }
 
     /**
-     * Remove stock with automatic conversion to base unit.
+     * Remove stock. The balance check and the decrement run in one guarded update, so
+     * concurrent removals cannot oversell.
      */
-    public Result<Void> removeStock(String productId, long quantity, String unitId, String notes) {
-        ValidationUtils.ValidationResult productValidation = ValidationUtils.validateNotEmpty(productId, "Product ID");
-        if (productValidation.isFailure()) {
-            return Result.failure(productValidation.getErrorMessage());
-        }
-
-        ValidationUtils.ValidationResult unitValidation = ValidationUtils.validateNotEmpty(unitId, "Unit ID");
-        if (unitValidation.isFailure()) {
-            return Result.failure(unitValidation.getErrorMessage());
-        }
-
-        if (quantity <= 0) {
-            return Result.failure("Kuantitas harus lebih dari 0");
-        }
-
-        try {
-            // Get unit for conversion
-            Unit unit = unitRepository.getUnitByIdSync(unitId);
-            if (unit == null) {
-                return Result.failure("Satuan tidak ditemukan");
-            }
-
-            // Convert to base unit
-            Result<Long> conversionResult = unitService.convertToBaseUnit(quantity, unitId);
-            if (conversionResult.isFailure()) {
-                return Result.failure(conversionResult.getErrorMessage());
-            }
-
-            long baseQuantity = conversionResult.getData();
-
-            // Check if enough stock available
-            long currentStock = stockRepository.getTotalStockForProduct(productId);
-            if (currentStock < baseQuantity) {
-                return Result.failure("Stok tidak mencukupi");
-            }
-
-            // Remove stock transaction
-            stockRepository.removeStock(productId, baseQuantity, unitId, notes);
-
-            return Result.success();
-        } catch (Exception e) {
-            return ErrorHandler.handleException(e, "Remove stock");
-        }
+    public AsyncResult<StockCommandResult> removeStock(String productId, long quantity, String unitId, String notes) {
+        return executeCommand(StockCommand.remove(productId, quantity, unitId, notes));
     }
 
     /**
      * Adjust stock to a specific quantity with unit conversion.
      */
-    public Result<Void> adjustStock(String productId, long quantity, String unitId, String notes) {
-        ValidationUtils.ValidationResult productValidation = ValidationUtils.validateNotEmpty(productId, "Product ID");
+    public AsyncResult<StockCommandResult> adjustStock(String productId, long quantity, String unitId, String notes) {
+        return executeCommand(StockCommand.adjust(productId, quantity, unitId, notes));
+    }
+
+    /**
+     * Validates the inputs, runs the command and turns a rejected command into a failure
+     * whose error code is the StockCommandResult status name.
+     */
+    private AsyncResult<StockCommandResult> executeCommand(StockCommand command) {
+        ValidationUtils.ValidationResult productValidation = ValidationUtils.validateNotEmpty(command.productId, "Product ID");
         if (productValidation.isFailure()) {
-            return Result.failure(productValidation.getErrorMessage());
+            return AsyncResult.completed(Result.failure(productValidation.getErrorMessage()));
         }
 
-        ValidationUtils.ValidationResult unitValidation = ValidationUtils.validateNotEmpty(unitId, "Unit ID");
+        ValidationUtils.ValidationResult unitValidation = ValidationUtils.validateNotEmpty(command.unitId, "Unit ID");
         if (unitValidation.isFailure()) {
-            return Result.failure(unitValidation.getErrorMessage());
+            return AsyncResult.completed(Result.failure(unitValidation.getErrorMessage()));
         }
 
-        if (quantity < 0) {
-            return Result.failure("Kuantitas tidak boleh negatif");
-        }
-
-        try {
-            // Get unit for conversion
-            Unit unit = unitRepository.getUnitByIdSync(unitId);
-            if (unit == null) {
-                return Result.failure("Satuan tidak ditemukan");
-            }
-
-            // Convert to base unit
-            Result<Long> conversionResult = unitService.convertToBaseUnit(quantity, unitId);
-            if (conversionResult.isFailure()) {
-                return Result.failure(conversionResult.getErrorMessage());
-            }
-
-            long baseQuantity = conversionResult.getData();
-
-            // Adjust stock transaction
-            stockRepository.adjustStock(productId, baseQuantity, unitId, notes);
-
-            return Result.success();
-        } catch (Exception e) {
-            return ErrorHandler.handleException(e, "Adjust stock");
-        }
+        return stockRepository.execute(command).flatMap(result -> AsyncResult.completed(result.isApplied()
+                ? Result.success(result)
+                : Result.<StockCommandResult>failure(result.getErrorMessage(), result.status.name())));
     }
 
     /**
@@ -243,12 +155,7 @@ public class StockService {
             }
 
             if (type == StockTransaction.TransactionType.REMOVE) {
-                Result<Long> conversionResult = unitService.convertToBaseUnit(quantity, unitId);
-                if (conversionResult.isFailure()) {
-                    return Result.failure(conversionResult.getErrorMessage());
-                }
-
-                long baseQuantity = conversionResult.getData();
+                long baseQuantity = unit.toBaseUnit(quantity);
                 long currentStock = stockRepository.getTotalStockForProduct(productId);
 
                 if (currentStock < baseQuantity) {
@@ -2,15 +2,15 @@ package com.bdajaya.adminku.domain.service;
 
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import com.bdajaya.adminku.core.AppExecutors;
+import com.bdajaya.adminku.core.AsyncResult;
 import com.bdajaya.adminku.core.Constants;
 import com.bdajaya.adminku.core.ErrorHandler;
 import com.bdajaya.adminku.core.Result;
 import com.bdajaya.adminku.core.ValidationUtils;
-import com.bdajaya.adminku.data.AppDatabase;
 import com.bdajaya.adminku.data.entity.Unit;
 import com.bdajaya.adminku.data.repository.UnitRepository;
 import java.util.List;
-import java.util.UUID;
 import java.util.stream.Collectors;
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -18,135 +18,130 @@ import javax.inject.Singleton;
 @Singleton
 public class UnitService {
     private final UnitRepository unitRepository;
+    private final AppExecutors executors;
 
     // Base units
     public static final String BASE_UNIT_PCS = "pcs";
     public static final String BASE_UNIT_GRAM = "gr";
 
     @Inject
-    public UnitService(UnitRepository unitRepository) {
+    public UnitService(UnitRepository unitRepository, AppExecutors executors) {
         this.unitRepository = unitRepository;
+        this.executors = executors;
         initializeDefaultUnits();
     }
 
     private void initializeDefaultUnits() {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            List<Unit> existingUnits = unitRepository.getAllUnitsSync();
-            if (existingUnits.isEmpty()) {
-                // Create default pcs unit
-                unitRepository.addUnit("pcs", BASE_UNIT_PCS, 1, true);
-                // Create default gram unit
-                unitRepository.addUnit("gr", BASE_UNIT_GRAM, 1, true);
-            }
-        });
+        // Create default pcs and gram units when the table is empty (one write command)
+        unitRepository.initializeDefaultUnits();
     }
 
-    public Result<String> addUnit(String code, String name, String baseUnit, long conversionFactor) {
+    // Validasi dan pembacaan di read pool; hanya tulisannya yang masuk WriteBatcher lewat repository
+
+    public AsyncResult<String> addUnitAsync(String code, String name, String baseUnit, long conversionFactor) {
         // Validate inputs
         ValidationUtils.ValidationResult codeValidation = ValidationUtils.validateNotEmpty(code, "Kode unit");
         if (codeValidation.isFailure()) {
-            return Result.failure(codeValidation.getErrorMessage());
+            return AsyncResult.completed(Result.failure(codeValidation.getErrorMessage()));
         }
 
         ValidationUtils.ValidationResult nameValidation = ValidationUtils.validateNotEmpty(name, "Nama unit");
         if (nameValidation.isFailure()) {
-            return Result.failure(nameValidation.getErrorMessage());
+            return AsyncResult.completed(Result.failure(nameValidation.getErrorMessage()));
         }
 
         ValidationUtils.ValidationResult baseUnitValidation = validateBaseUnit(baseUnit);
         if (baseUnitValidation.isFailure()) {
-            return Result.failure(baseUnitValidation.getErrorMessage());
+            return AsyncResult.completed(Result.failure(baseUnitValidation.getErrorMessage()));
         }
 
         if (conversionFactor <= 0) {
-            return Result.failure("Faktor konversi harus lebih dari 0");
+            return AsyncResult.completed(Result.failure("Faktor konversi harus lebih dari 0"));
         }
 
-        try {
-            // Check if unit with same name already exists
-            Unit existingUnit = unitRepository.getUnitByName(name);
-            if (existingUnit != null) {
-                return Result.failure("Satuan dengan nama '" + name + "' sudah ada");
+        return AsyncResult.<Void>supply(executors.diskRead(), () -> {
+            try {
+                // Check if unit with same name already exists
+                Unit existingUnit = unitRepository.getUnitByName(name);
+                if (existingUnit != null) {
+                    return Result.failure("Satuan dengan nama '" + name + "' sudah ada");
+                }
+                return Result.success();
+            } catch (Exception e) {
+                return ErrorHandler.handleException(e, "Add unit");
             }
-
+        }).flatMap(ignored -> {
             // Add unit
             boolean isBaseUnit = conversionFactor == 1 &&
                     (baseUnit.equals(BASE_UNIT_PCS) || baseUnit.equals(BASE_UNIT_GRAM));
-            String unitId = unitRepository.addUnit(name, baseUnit, conversionFactor, isBaseUnit);
-
-            if (unitId == null) {
-                return Result.failure("Gagal menambahkan satuan");
-            }
-
-            return Result.success(unitId);
-        } catch (Exception e) {
-            return ErrorHandler.handleException(e, "Add unit");
-        }
+            return unitRepository.addUnit(name, baseUnit, conversionFactor, isBaseUnit)
+                    .flatMap(unitId -> AsyncResult.completed(unitId != null
+                            ? Result.success(unitId)
+                            : Result.<String>failure("Gagal menambahkan satuan")));
+        });
     }
 
-    public Result<Void> updateUnit(String id, String name, long conversionFactor) {
+    public AsyncResult<Void> updateUnitAsync(String id, String name, long conversionFactor) {
         ValidationUtils.ValidationResult idValidation = ValidationUtils.validateNotEmpty(id, "ID unit");
         if (idValidation.isFailure()) {
-            return Result.failure(idValidation.getErrorMessage());
+            return AsyncResult.completed(Result.failure(idValidation.getErrorMessage()));
         }
 
         ValidationUtils.ValidationResult nameValidation = ValidationUtils.validateNotEmpty(name, "Nama unit");
         if (nameValidation.isFailure()) {
-            return Result.failure(nameValidation.getErrorMessage());
+            return AsyncResult.completed(Result.failure(nameValidation.getErrorMessage()));
         }
 
         if (conversionFactor <= 0) {
-            return Result.failure("Faktor konversi harus lebih dari 0");
+            return AsyncResult.completed(Result.failure("Faktor konversi harus lebih dari 0"));
         }
 
-        try {
-            Unit unit = unitRepository.getUnitByIdSync(id);
-            if (unit == null) {
-                return Result.failure("Satuan tidak ditemukan");
-            }
-
-            // Base units cannot change conversion factor
-            if (unit.isBaseUnit() && conversionFactor != 1) {
-                return Result.failure("Satuan dasar tidak dapat mengubah faktor konversi");
+        return AsyncResult.<Void>supply(executors.diskRead(), () -> {
+            try {
+                Unit unit = unitRepository.getUnitByIdSync(id);
+                if (unit == null) {
+                    return Result.failure("Satuan tidak ditemukan");
+                }
+
+                // Base units cannot change conversion factor
+                if (unit.isBaseUnit() && conversionFactor != 1) {
+                    return Result.failure("Satuan dasar tidak dapat mengubah faktor konversi");
+                }
+                return Result.success();
+            } catch (Exception e) {
+                return ErrorHandler.handleException(e, "Update unit");
             }
-
-            boolean success = unitRepository.updateUnit(id, name, conversionFactor);
-            if (!success) {
-                return Result.failure("Gagal mengupdate satuan");
-            }
-
-            return Result.success();
-        } catch (Exception e) {
-            return ErrorHandler.handleException(e, "Update unit");
-        }
+        }).flatMap(ignored -> unitRepository.updateUnit(id, name, conversionFactor)
+                .flatMap(success -> AsyncResult.completed(success
+                        ? Result.<Void>success()
+                        : Result.<Void>failure("Gagal mengupdate satuan"))));
     }
 
-    public Result<Void> deleteUnit(String id) {
+    public AsyncResult<Void> deleteUnitAsync(String id) {
         ValidationUtils.ValidationResult validation = ValidationUtils.validateNotEmpty(id, "ID unit");
         if (validation.isFailure()) {
-            return Result.failure(validation.getErrorMessage());
+            return AsyncResult.completed(Result.failure(validation.getErrorMessage()));
         }
 
-        try {
-            Unit unit = unitRepository.getUnitByIdSync(id);
-            if (unit == null) {
-                return Result.failure("Satuan tidak ditemukan");
+        return AsyncResult.<Void>supply(executors.diskRead(), () -> {
+            try {
+                Unit unit = unitRepository.getUnitByIdSync(id);
+                if (unit == null) {
+                    return Result.failure("Satuan tidak ditemukan");
+                }
+
+                // Cannot delete base units
+                if (unit.isBaseUnit()) {
+                    return Result.failure("Satuan dasar tidak dapat dihapus");
+                }
+                return Result.success();
+            } catch (Exception e) {
+                return ErrorHandler.handleException(e, "Delete unit");
             }
-
-            // Cannot delete base units
-            if (unit.isBaseUnit()) {
-                return Result.failure("Satuan dasar tidak dapat dihapus");
-            }
-
-            boolean success = unitRepository.deleteUnit(id);
-            if (!success) {
-                return Result.failure("Gagal menghapus satuan");
-            }
-
-            return Result.success();
-        } catch (Exception e) {
-            return ErrorHandler.handleException(e, "Delete unit");
-        }
+        }).flatMap(ignored -> unitRepository.deleteUnit(id)
+                .flatMap(success -> AsyncResult.completed(success
+                        ? Result.<Void>success()
+                        : Result.<Void>failure("Gagal menghapus satuan"))));
     }
 
     public LiveData<List<Unit>> getAllUnits() {
@@ -155,7 +150,7 @@ public class UnitService {
 
     public LiveData<List<Unit>> searchUnitsLive(String query) {
         MutableLiveData<List<Unit>> result = new MutableLiveData<>();
-        AppDatabase.databaseWriteExecutor.execute(() -> {
+        executors.diskRead().execute(() -> {
             List<Unit> allUnits = unitRepository.getAllUnitsSync();
             List<Unit> filtered = allUnits.stream()
                     .filter(unit -> unit.getName().toLowerCase().contains(query.toLowerCase()))
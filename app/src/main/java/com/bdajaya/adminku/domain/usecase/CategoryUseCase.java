@@ -3,10 +3,14 @@ package com.bdajaya.adminku.domain.usecase;
 import android.content.Context;
 import androidx.annotation.Nullable;
 
+import com.bdajaya.adminku.AdminkuApplication;
+import com.bdajaya.adminku.core.AsyncResult;
 import com.bdajaya.adminku.core.Constants;
 import com.bdajaya.adminku.core.ErrorHandler;
 import com.bdajaya.adminku.core.Result;
 import com.bdajaya.adminku.core.ValidationUtils;
+import com.bdajaya.adminku.data.AppDatabase;
+import com.bdajaya.adminku.data.WriteBatcher;
 import com.bdajaya.adminku.data.dao.CategoryDao;
 import com.bdajaya.adminku.data.dao.ProductDao;
 import com.bdajaya.adminku.data.entity.Category;
@@ -16,8 +20,6 @@ import com.bdajaya.adminku.data.repository.CategoryRepository;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
 
 /**
  * Use case class for category-related business logic.
@@ -52,16 +54,16 @@ public class CategoryUseCase {
      *
      * @param name The category name
      * @param parentId The parent category ID (null for root categories)
-     * @return A Result containing the new category ID or error
+     * @return An AsyncResult containing the new category ID or error
      */
-    public Result<String> createCategory(String name, @Nullable String parentId) {
+    public AsyncResult<String> createCategory(String name, @Nullable String parentId) {
         // Validate input
         ValidationUtils.ValidationResult validation = ValidationUtils.validateCategoryData(
             name, parentId, getParentLevel(parentId), null);
 
         if (validation.isFailure()) {
             String errorCode = ErrorHandler.getCategoryOperationErrorCode(validation.getErrorMessage());
-            return Result.failure(validation.getErrorMessage(), errorCode);
+            return AsyncResult.completed(Result.failure(validation.getErrorMessage(), errorCode));
         }
 
         // Sanitize input
@@ -73,7 +75,7 @@ public class CategoryUseCase {
             if (isNameExistsAtLevel(sanitizedName, sanitizedParentId)) {
                 String errorMessage = Constants.ERROR_DUPLICATE_CATEGORY;
                 String errorCode = ErrorHandler.getCategoryOperationErrorCode(errorMessage);
-                return Result.failure(errorMessage, errorCode);
+                return AsyncResult.completed(Result.failure(errorMessage, errorCode));
             }
 
             // Calculate level
@@ -83,14 +85,14 @@ public class CategoryUseCase {
             if (level > Constants.MAX_CATEGORY_LEVEL) {
                 String errorMessage = Constants.ERROR_MAX_DEPTH_REACHED;
                 String errorCode = ErrorHandler.getCategoryOperationErrorCode(errorMessage);
-                return Result.failure(errorMessage, errorCode);
+                return AsyncResult.completed(Result.failure(errorMessage, errorCode));
             }
 
             // Create category
             return executeCreateCategory(sanitizedName, sanitizedParentId, level);
 
         } catch (Exception e) {
-            return ErrorHandler.handleException(e, "Category creation");
+            return AsyncResult.completed(ErrorHandler.handleException(e, "Category creation"));
         }
     }
 
@@ -99,18 +101,18 @@ public class CategoryUseCase {
      *
      * @param categoryId The category ID to update
      * @param newName The new category name
-     * @return A Result indicating success or failure
+     * @return An AsyncResult indicating success or failure
      */
-    public Result<Void> updateCategory(String categoryId, String newName) {
+    public AsyncResult<Void> updateCategory(String categoryId, String newName) {
         // Validate input
         ValidationUtils.ValidationResult idValidation = ValidationUtils.validateNotEmpty(categoryId, "Category ID");
         if (idValidation.isFailure()) {
-            return Result.failure(idValidation.getErrorMessage());
+            return AsyncResult.completed(Result.failure(idValidation.getErrorMessage()));
         }
 
         ValidationUtils.ValidationResult nameValidation = ValidationUtils.validateCategoryName(newName);
         if (nameValidation.isFailure()) {
-            return Result.failure(nameValidation.getErrorMessage());
+            return AsyncResult.completed(Result.failure(nameValidation.getErrorMessage()));
         }
 
         // Sanitize input
@@ -120,21 +122,21 @@ public class CategoryUseCase {
             // Check if new name already exists at this level
             Category existingCategory = categoryRepository.getCategoryByIdSync(categoryId);
             if (existingCategory == null) {
-                return Result.failure(Constants.ERROR_CATEGORY_NOT_FOUND);
+                return AsyncResult.completed(Result.failure(Constants.ERROR_CATEGORY_NOT_FOUND));
             }
 
             if (isNameExistsAtLevel(sanitizedName, existingCategory.getParentId()) &&
                 !sanitizedName.equals(existingCategory.getName())) {
                 String errorMessage = Constants.ERROR_DUPLICATE_CATEGORY;
                 String errorCode = ErrorHandler.getCategoryOperationErrorCode(errorMessage);
-                return Result.failure(errorMessage, errorCode);
+                return AsyncResult.completed(Result.failure(errorMessage, errorCode));
             }
 
             // Update category
             return executeUpdateCategory(categoryId, sanitizedName);
 
         } catch (Exception e) {
-            return ErrorHandler.handleException(e, "Category update");
+            return AsyncResult.completed(ErrorHandler.handleException(e, "Category update"));
         }
     }
 
@@ -147,27 +149,27 @@ public class CategoryUseCase {
      *
      * @param categoryId The category ID to delete
      * @param productDao The product DAO for checking related products
-     * @return A Result indicating success or failure
+     * @return An AsyncResult indicating success or failure
      */
-    public Result<Void> deleteCategory(String categoryId, ProductDao productDao) {
+    public AsyncResult<Void> deleteCategory(String categoryId, ProductDao productDao) {
         // Validate input
         ValidationUtils.ValidationResult validation = ValidationUtils.validateNotEmpty(categoryId, "Category ID");
         if (validation.isFailure()) {
-            return Result.failure(validation.getErrorMessage());
+            return AsyncResult.completed(Result.failure(validation.getErrorMessage()));
         }
 
         try {
             // Check if category exists
             Category category = categoryRepository.getCategoryByIdSync(categoryId);
             if (category == null) {
-                return Result.failure(Constants.ERROR_CATEGORY_NOT_FOUND);
+                return AsyncResult.completed(Result.failure(Constants.ERROR_CATEGORY_NOT_FOUND));
             }
 
             // Check business rules
             return validateAndExecuteDeletion(categoryId, category, productDao);
 
         } catch (Exception e) {
-            return ErrorHandler.handleException(e, "Category deletion");
+            return AsyncResult.completed(ErrorHandler.handleException(e, "Category deletion"));
         }
     }
 
@@ -358,9 +360,9 @@ public class CategoryUseCase {
      * @param name The category name
      * @param parentId The parent category ID
      * @param level The category level
-     * @return A Result containing the new category ID or error
+     * @return An AsyncResult containing the new category ID or error
      */
-    private Result<String> executeCreateCategory(String name, @Nullable String parentId, int level) {
+    private AsyncResult<String> executeCreateCategory(String name, @Nullable String parentId, int level) {
         return executeWriteOperation(
             () -> {
                 String id = UUID.randomUUID().toString();
@@ -397,9 +399,9 @@ public class CategoryUseCase {
      *
      * @param categoryId The category ID
      * @param name The new name
-     * @return A Result indicating success or failure
+     * @return An AsyncResult indicating success or failure
      */
-    private Result<Void> executeUpdateCategory(String categoryId, String name) {
+    private AsyncResult<Void> executeUpdateCategory(String categoryId, String name) {
         return executeWriteOperation(
             () -> {
                 CategoryDao categoryDao = getCategoryDao();
@@ -423,9 +425,9 @@ public class CategoryUseCase {
      * @param categoryId The category ID
      * @param category The category to delete
      * @param productDao The product DAO
-     * @return A Result indicating success or failure
+     * @return An AsyncResult indicating success or failure
      */
-    private Result<Void> validateAndExecuteDeletion(String categoryId, Category category, ProductDao productDao) {
+    private AsyncResult<Void> validateAndExecuteDeletion(String categoryId, Category category, ProductDao productDao) {
         return executeWriteOperation(
             () -> {
                 // Check if category has children
@@ -479,6 +481,13 @@ public class CategoryUseCase {
         }
     }
 
+    /**
+     * Database injected into the application by Hilt.
+     */
+    private AppDatabase getDatabase() {
+        return ((AdminkuApplication) context.getApplicationContext()).getAppDatabase();
+    }
+
     /**
      * Gets the category DAO instance.
      *
@@ -487,11 +496,12 @@ public class CategoryUseCase {
     private CategoryDao getCategoryDao() {
         // This would need to be injected or obtained from a repository
         // For now, we'll use a simplified approach
-        return com.bdajaya.adminku.data.AppDatabase.getInstance(context).categoryDao();
+        return getDatabase().categoryDao();
     }
 
     /**
      * Executes a read operation with proper error handling.
+     * Runs inline; call from a background thread.
      *
      * @param operation The operation to execute
      * @param operationName The name of the operation for logging
@@ -500,49 +510,24 @@ public class CategoryUseCase {
      */
     private <T> Result<T> executeReadOperation(Callable<T> operation, String operationName) {
         try {
-            Future<T> future = com.bdajaya.adminku.data.AppDatabase.databaseWriteExecutor.submit(operation);
-            T result = future.get();
-            return Result.success(result);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            return ErrorHandler.handleDatabaseException(e, operationName);
-        } catch (ExecutionException e) {
-            Throwable cause = e.getCause();
-            if (cause instanceof Exception) {
-                return ErrorHandler.handleDatabaseException((Exception) cause, operationName);
-            } else {
-                return ErrorHandler.handleException(new Exception(cause), operationName);
-            }
+            return Result.success(operation.call());
         } catch (Exception e) {
-            return ErrorHandler.handleException(e, operationName);
+            return ErrorHandler.handleDatabaseException(e, operationName);
         }
     }
 
     /**
-     * Executes a write operation with proper error handling.
+     * Queues a write operation on the single writer (WriteBatcher); the AsyncResult completes
+     * after its commit. Nothing waits for it here.
      *
      * @param operation The operation to execute
      * @param operationName The name of the operation for logging
      * @param <T> The return type
-     * @return A Result containing the operation result or error
+     * @return An AsyncResult containing the operation result or error
      */
-    private <T> Result<T> executeWriteOperation(Callable<T> operation, String operationName) {
-        try {
-            Future<T> future = com.bdajaya.adminku.data.AppDatabase.databaseWriteExecutor.submit(operation);
-            T result = future.get();
-            return Result.success(result);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            return ErrorHandler.handleDatabaseException(e, operationName);
-        } catch (ExecutionException e) {
-            Throwable cause = e.getCause();
-            if (cause instanceof Exception) {
-                return ErrorHandler.handleDatabaseException((Exception) cause, operationName);
-            } else {
-                return ErrorHandler.handleException(new Exception(cause), operationName);
-            }
-        } catch (Exception e) {
-            return ErrorHandler.handleException(e, operationName);
-        }
+    private <T> AsyncResult<T> executeWriteOperation(Callable<T> operation, String operationName) {
+        WriteBatcher writeBatcher = WriteBatcher.getInstance(getDatabase());
+        return AsyncResult.from(writeBatcher.submit(operation),
+                e -> ErrorHandler.<T>handleDatabaseException(e, operationName));
     }
 }
@@ -22,21 +22,27 @@ import androidx.core.view.WindowCompat;
 import androidx.core.view.WindowInsetsCompat;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.RecyclerView;
+import androidx.work.Data;
+import androidx.work.WorkInfo;
 import com.bdajaya.adminku.AdminkuApplication;
 import com.bdajaya.adminku.R;
-import com.bdajaya.adminku.data.AppDatabase;
+import com.bdajaya.adminku.core.AppExecutors;
+import com.bdajaya.adminku.data.entity.ProductImage;
 import com.bdajaya.adminku.data.manager.ImageStorageManager;
 import com.bdajaya.adminku.databinding.ActivityAddEditProductBinding;
 import com.bdajaya.adminku.databinding.DialogPhotoPreviewBinding;
 import com.bdajaya.adminku.ui.viewmodel.AddEditProductViewModel;
 import com.bdajaya.adminku.util.CurrencyFormatter;
+import com.bdajaya.adminku.util.ImageIngestionWorker;
 import com.bumptech.glide.Glide;
 import com.yalantis.ucrop.UCrop;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
 
 import dagger.hilt.android.AndroidEntryPoint;
+import javax.inject.Inject;
 
 @AndroidEntryPoint
 public class AddEditProductActivity extends AppCompatActivity {
@@ -47,12 +53,14 @@ public class AddEditProductActivity extends AppCompatActivity {
 
     private ActivityAddEditProductBinding binding;
     private AddEditProductViewModel viewModel;
+    @Inject AppExecutors executors;
     private ImageStorageManager imageStorage;
 
     private boolean hasUnsavedChanges = false;
     private boolean isPopulatingUi = false;
     private int pendingCropIndex = RecyclerView.NO_POSITION;
     private String selectedUnitId;
+    private boolean existingImagesLoaded = false;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -91,6 +99,7 @@ public class AddEditProductActivity extends AppCompatActivity {
         setupUnitSelection();
         setupUnsavedChangeWatchers();
         setupPhotoSelector();
+        observeImageIngestion();
         setupSaveButtons();
         setupBackPressed();
     }
@@ -129,27 +138,49 @@ public class AddEditProductActivity extends AppCompatActivity {
         }
     }
 
+    /**
+     * Diamati, bukan dibaca sekali: baris ProductImage berubah dari file staging ke hasil encode
+     * satu per satu saat ImageIngestionWorker berjalan, dan thumbnail ikut diperbarui.
+     */
     private void loadExistingImages(String productId) {
+        AdminkuApplication app = (AdminkuApplication) getApplication();
+        app.getProductRepository().getProductImages(productId).observe(this, images -> {
+            if (images == null) {
+                return;
+            }
+            // Query sudah ORDER BY orderIndex (urutan hasil drag)
+            List<String> imagePaths = new ArrayList<>(images.size());
+            for (ProductImage image : images) {
+                imagePaths.add(image.getImagePath());
+            }
 
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            AdminkuApplication app = (AdminkuApplication) getApplication();
-            List<com.bdajaya.adminku.data.entity.ProductImage> images =
-                    app.getProductRepository().getProductImagesSync(productId);
-
-            if (images != null && !images.isEmpty()) {
-                // Sort images by orderIndex ascending to ensure reordered images show in correct display order (dragged first position shows first in product list)
-                images.sort((img1, img2) -> Integer.compare(img1.getOrderIndex(), img2.getOrderIndex()));
+            if (!existingImagesLoaded) {
+                existingImagesLoaded = true;
+                binding.photoSelector.setImagePaths(this, imagePaths);
+            } else {
+                binding.photoSelector.refreshImagePaths(this, imagePaths);
+            }
+        });
+    }
 
-                List<String> imagePaths = new java.util.ArrayList<>();
-                for (com.bdajaya.adminku.data.entity.ProductImage img : images) {
-                    imagePaths.add(img.getImagePath());
+    /**
+     * Progress ImageIngestionWorker (KEY_DONE/KEY_TOTAL) di kartu foto; foto yang masih di staging
+     * ditandai per item oleh PhotoThumbAdapter.
+     */
+    private void observeImageIngestion() {
+        ImageIngestionWorker.getWorkInfo(this).observe(this, infos -> {
+            int done = 0;
+            int total = 0;
+            if (infos != null) {
+                for (WorkInfo info : infos) {
+                    if (info.getState() == WorkInfo.State.RUNNING) {
+                        Data progress = info.getProgress();
+                        done = progress.getInt(ImageIngestionWorker.KEY_DONE, 0);
+                        total = progress.getInt(ImageIngestionWorker.KEY_TOTAL, 0);
+                    }
                 }
-
-                runOnUiThread(() -> {
-                    // Load images ke CardPhotoSelector
-                    binding.photoSelector.setImagePaths(this, imagePaths);
-                });
             }
+            binding.photoSelector.setProcessingProgress(done, total);
         });
     }
 
@@ -483,7 +514,7 @@ public class AddEditProductActivity extends AppCompatActivity {
             // Save product
             showSavingInProgress(true);
 
-            AppDatabase.databaseWriteExecutor.execute(() -> {
+            executors.diskRead().execute(() -> {
                 try {
                     AdminkuApplication app = (AdminkuApplication) getApplication();
 
@@ -593,21 +624,6 @@ public class AddEditProductActivity extends AppCompatActivity {
         }
     }
 
-    private String getValidUnitId(AdminkuApplication app) {
-        com.bdajaya.adminku.data.entity.Unit pcsUnit = app.getUnitRepository().getUnitByName("pcs");
-        if (pcsUnit != null) {
-            return pcsUnit.getId();
-        }
-
-        List<com.bdajaya.adminku.data.entity.Unit> units = app.getUnitRepository().getAllUnitsSync();
-        if (!units.isEmpty()) {
-            return units.get(0).getId();
-        }
-
-        // Create default unit
-        return app.getUnitRepository().addUnit("pcs", "pcs", 1, true);
-    }
-
     private int calculateMargin(long buyPrice, long sellPrice) {
         if (buyPrice == 0) return 0;
         return (int) (((double) (sellPrice - buyPrice) / buyPrice) * 100);
@@ -24,9 +24,9 @@ import androidx.viewpager2.widget.ViewPager2;
 
 import com.bdajaya.adminku.AdminkuApplication;
 import com.bdajaya.adminku.R;
+import com.bdajaya.adminku.core.AppExecutors;
 import com.bdajaya.adminku.core.Constants;
 import com.bdajaya.adminku.core.ErrorHandler;
-import com.bdajaya.adminku.data.AppDatabase;
 import com.bdajaya.adminku.data.entity.Product;
 import com.bdajaya.adminku.data.entity.Unit;
 import com.bdajaya.adminku.data.manager.ImageStorageManager;
@@ -41,6 +41,7 @@ import com.bdajaya.adminku.util.ProductShareHelper;
 import com.google.android.material.bottomsheet.BottomSheetDialog;
 import com.google.android.material.tabs.TabLayoutMediator;
 import dagger.hilt.android.AndroidEntryPoint;
+import javax.inject.Inject;
 
 import java.io.File;
 import java.util.ArrayList;
@@ -51,6 +52,7 @@ public class ProductManagementActivity extends AppCompatActivity {
 
     private ActivityProductManagementBinding binding;
     private ProductManagementViewModel viewModel;
+    @Inject AppExecutors executors;
     private ProductTabAdapter tabAdapter;
 
     private final Handler searchHandler = new Handler(Looper.getMainLooper());
@@ -317,9 +319,9 @@ public class ProductManagementActivity extends AppCompatActivity {
     private void loadUnitsForDialog(DialogPriceStockBinding binding, ProductWithDetails pwd) {
         AdminkuApplication app = (AdminkuApplication) getApplication();
 
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            // Get current unit
-            Unit currentUnit = app.getUnitRepository().getUnitByIdSync(pwd.product.getUnitId());
+        executors.diskRead().execute(() -> {
+            // Get current unit (from the cached details, falls back to the unit cache)
+            Unit currentUnit = currentUnitOf(app, pwd);
 
             // Get compatible units (same base unit)
             List<Unit> compatibleUnits;
@@ -364,20 +366,31 @@ public class ProductManagementActivity extends AppCompatActivity {
 
         // Convert stock to display in current unit - run on background thread
         AdminkuApplication app = (AdminkuApplication) getApplication();
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            Unit currentUnit = app.getUnitRepository().getUnitByIdSync(pwd.product.getUnitId());
+        executors.diskRead().execute(() -> {
+            // The paged item may be older than the last write; the cache is invalidated on commit
+            ProductWithDetails fresh = app.getProductRepository().getProductWithDetailsSync(pwd.product.getId());
+            long stock = fresh != null ? fresh.product.getStock() : pwd.product.getStock();
+            Unit currentUnit = currentUnitOf(app, pwd);
 
             runOnUiThread(() -> {
                 if (currentUnit != null) {
-                    long displayStock = currentUnit.fromBaseUnit(pwd.product.getStock());
+                    long displayStock = currentUnit.fromBaseUnit(stock);
                     binding.stockInput.setValue(String.valueOf(displayStock));
                 } else {
-                    binding.stockInput.setValue(String.valueOf(pwd.product.getStock()));
+                    binding.stockInput.setValue(String.valueOf(stock));
                 }
             });
         });
     }
 
+    private static Unit currentUnitOf(AdminkuApplication app, ProductWithDetails pwd) {
+        ProductWithDetails details = app.getProductRepository().getProductWithDetailsSync(pwd.product.getId());
+        if (details != null && details.unit != null) {
+            return details.unit;
+        }
+        return app.getUnitRepository().getUnitByIdSync(pwd.product.getUnitId());
+    }
+
     private void setupPriceCalculationListeners(DialogPriceStockBinding binding) {
         final boolean[] isUpdating = {false};
 
@@ -463,7 +476,7 @@ public class ProductManagementActivity extends AppCompatActivity {
         AdminkuApplication app = (AdminkuApplication) getApplication();
 
         // Run database operations on background thread
-        AppDatabase.databaseWriteExecutor.execute(() -> {
+        executors.diskRead().execute(() -> {
             try {
                 // Get units
                 Unit selectedUnit = app.getUnitRepository().getUnitByIdSync(selectedUnitId);
@@ -499,7 +512,8 @@ public class ProductManagementActivity extends AppCompatActivity {
                 // Update product in database
                 app.getProductRepository().updateProduct(p, null);
 
-                // Add stock transaction if there's a change
+                // Record the new level as an ADJUST in the selected unit; the stock engine
+                // converts it to base unit exactly once
                 if (deltaInBaseUnit != 0) {
                     String notes = "Quick edit";
                     if (!selectedUnitId.equals(pwd.product.getUnitId())) {
@@ -508,21 +522,16 @@ public class ProductManagementActivity extends AppCompatActivity {
                                 " to " + selectedUnit.getName() + ")";
                     }
 
-                    if (deltaInBaseUnit > 0) {
-                        app.getStockRepository().addStock(
-                                p.getId(),
-                                deltaInBaseUnit, // Already in base unit
-                                selectedUnitId,
-                                notes
-                        );
-                    } else {
-                        app.getStockRepository().removeStock(
-                                p.getId(),
-                                Math.abs(deltaInBaseUnit), // Already in base unit
-                                selectedUnitId,
-                                notes
-                        );
-                    }
+                    app.getStockRepository()
+                            .adjustStock(p.getId(), inputQuantity, selectedUnitId, notes)
+                            .onMainThread(result -> {
+                                if (result.isFailure() || !result.getData().isApplied()) {
+                                    String message = result.isFailure()
+                                            ? result.getErrorMessage()
+                                            : result.getData().getErrorMessage();
+                                    Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
+                                }
+                            });
                 }
 
                 runOnUiThread(() -> {
@@ -581,7 +590,7 @@ public class ProductManagementActivity extends AppCompatActivity {
     }
 
     private void shareProduct(ProductWithDetails product) {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
+        executors.io().execute(() -> {
             AdminkuApplication app = (AdminkuApplication) getApplication();
             List<File> imageFiles = app.getProductRepository()
                     .getProductImageFilesForSharing(product.product.getId());
@@ -9,12 +9,12 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.bdajaya.adminku.AdminkuApplication;
 import com.bdajaya.adminku.R;
 import com.bdajaya.adminku.core.Constants;
 import com.bdajaya.adminku.core.ErrorHandler;
-import com.bdajaya.adminku.data.AppDatabase;
 import com.bdajaya.adminku.data.entity.Category;
-import com.bdajaya.adminku.data.repository.CategoryRepository;
+import com.bdajaya.adminku.data.repository.CategoryTreeCache;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -138,7 +138,7 @@ public class CategoryAdapter extends RecyclerView.Adapter<CategoryAdapter.Catego
     class CategoryViewHolder extends RecyclerView.ViewHolder {
         private final TextView nameTextView;
         private final ImageView chevronImageView;
-        private CategoryRepository categoryRepository;
+        private CategoryTreeCache treeCache;
 
         CategoryViewHolder(@NonNull View itemView) {
             super(itemView);
@@ -148,15 +148,15 @@ public class CategoryAdapter extends RecyclerView.Adapter<CategoryAdapter.Catego
             chevronImageView = itemView.findViewById(R.id.chevron_image_view);
 
             // Initialize to null first
-            categoryRepository = null;
+            treeCache = null;
 
             try {
-                // Get CategoryRepository from context
-                AppDatabase database = AppDatabase.getInstance(itemView.getContext());
-                categoryRepository = new CategoryRepository(database.categoryDao());
+                // Shared tree snapshot, so binding never queries the database
+                AdminkuApplication app = (AdminkuApplication) itemView.getContext().getApplicationContext();
+                treeCache = app.getCategoryRepository().getTreeCache();
             } catch (Exception e) {
-                ErrorHandler.logError(ErrorHandler.ERROR_CODE_DATABASE, "Failed to initialize CategoryRepository in ViewHolder", e);
-                // categoryRepository already set to null above
+                ErrorHandler.logError(ErrorHandler.ERROR_CODE_DATABASE, "Failed to initialize CategoryTreeCache in ViewHolder", e);
+                // treeCache already set to null above
             }
         }
 
@@ -261,13 +261,14 @@ public class CategoryAdapter extends RecyclerView.Adapter<CategoryAdapter.Catego
          * @return true if the category has children
          */
         private boolean checkCategoryChildren(Category category) {
-            if (categoryRepository == null || category == null) {
+            if (category == null) {
                 return false;
             }
 
             try {
-                List<Category> children = categoryRepository.getChildCategoriesSync(category.getId());
-                return children != null && !children.isEmpty();
+                // Fall back to the trigger-maintained flag while the snapshot is being rebuilt
+                CategoryTreeCache.Snapshot tree = treeCache != null ? treeCache.peek() : null;
+                return tree != null ? tree.hasChildren(category.getId()) : category.hasChildren();
             } catch (Exception e) {
                 ErrorHandler.logWarning("Failed to check category children for: " + category.getId(), e.getMessage());
                 return false;
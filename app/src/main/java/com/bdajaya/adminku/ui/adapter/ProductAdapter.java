@@ -8,6 +8,8 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.paging.PagingDataAdapter;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bdajaya.adminku.R;
@@ -16,20 +18,46 @@ import com.bdajaya.adminku.util.CurrencyFormatter;
 import com.bdajaya.adminku.data.manager.ImageStorageManager;
 import com.bumptech.glide.Glide;
 
-import java.util.List;
+import java.util.Objects;
 
-public class ProductAdapter extends RecyclerView.Adapter<ProductAdapter.ProductViewHolder> {
+/**
+ * Adapter produk berbasis PagingData. Halaman dimuat oleh Pager saat scroll;
+ * hasil pencarian dikirim sebagai PagingData.from(list).
+ */
+public class ProductAdapter extends PagingDataAdapter<ProductWithDetails, ProductAdapter.ProductViewHolder> {
+
+    private static final DiffUtil.ItemCallback<ProductWithDetails> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<ProductWithDetails>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull ProductWithDetails oldItem,
+                                               @NonNull ProductWithDetails newItem) {
+                    return oldItem.product.getId().equals(newItem.product.getId());
+                }
+
+                @Override
+                public boolean areContentsTheSame(@NonNull ProductWithDetails oldItem,
+                                                  @NonNull ProductWithDetails newItem) {
+                    return oldItem.product.getUpdatedAt() == newItem.product.getUpdatedAt()
+                            && oldItem.product.getStock() == newItem.product.getStock()
+                            && oldItem.product.getSellPrice() == newItem.product.getSellPrice()
+                            && oldItem.product.getStatus().equals(newItem.product.getStatus())
+                            && Objects.equals(oldItem.getFirstThumbnailPath(), newItem.getFirstThumbnailPath())
+                            && oldItem.isFirstImagePending() == newItem.isFirstImagePending()
+                            && oldItem.getCategoryName().equals(newItem.getCategoryName())
+                            && oldItem.getUnitName().equals(newItem.getUnitName());
+                }
+            };
+
+    private static final float PENDING_IMAGE_ALPHA = 0.5f;
 
-    private List<ProductWithDetails> products;
     private final OnProductClickListener clickListener;
     private final OnProductLongClickListener longClickListener;
     private final ImageStorageManager imageStorage;
 
-    public ProductAdapter(List<ProductWithDetails> products,
-                          OnProductClickListener clickListener,
+    public ProductAdapter(OnProductClickListener clickListener,
                           OnProductLongClickListener longClickListener,
                           ImageStorageManager imageStorage) {
-        this.products = products;
+        super(DIFF_CALLBACK);
         this.clickListener = clickListener;
         this.longClickListener = longClickListener;
         this.imageStorage = imageStorage;
@@ -45,18 +73,10 @@ public class ProductAdapter extends RecyclerView.Adapter<ProductAdapter.ProductV
 
     @Override
     public void onBindViewHolder(@NonNull ProductViewHolder holder, int position) {
-        ProductWithDetails product = products.get(position);
-        holder.bind(product);
-    }
-
-    @Override
-    public int getItemCount() {
-        return products != null ? products.size() : 0;
-    }
-
-    public void updateData(List<ProductWithDetails> newProducts) {
-        this.products = newProducts;
-        notifyDataSetChanged();
+        ProductWithDetails product = getItem(position);
+        if (product != null) {
+            holder.bind(product);
+        }
     }
 
     public interface OnProductClickListener {
@@ -101,8 +121,10 @@ public class ProductAdapter extends RecyclerView.Adapter<ProductAdapter.ProductV
 
             categoryTextView.setText(product.getCategoryName());
 
-            // Load image dari file storage
-            String firstImagePath = product.getFirstImagePath();
+            // Load thumbnail dari file storage (file asli hanya untuk detail/share)
+            String firstImagePath = product.getFirstThumbnailPath();
+            // Gambar yang masih di-encode di background ditampilkan redup sampai selesai
+            productImageView.setAlpha(product.isFirstImagePending() ? PENDING_IMAGE_ALPHA : 1f);
             if (firstImagePath != null && !firstImagePath.isEmpty()) {
                 Uri imageUri = imageStorage.getImageUri(firstImagePath);
 
@@ -3,6 +3,7 @@ package com.bdajaya.adminku.ui.adapter;
 import androidx.annotation.NonNull;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentActivity;
+import androidx.paging.PagingData;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.viewpager2.adapter.FragmentStateAdapter;
@@ -30,7 +31,7 @@ public class ProductTabAdapter extends FragmentStateAdapter {
 
         // Set up search results recycler view
         searchRecyclerView = activity.findViewById(com.bdajaya.adminku.R.id.recycler_view_search_results);
-        searchAdapter = new ProductAdapter(null,
+        searchAdapter = new ProductAdapter(
                 product -> activity.onProductClick(product),
                 product -> activity.onProductLongClick(product),
                 activity.getImageStorageManager());
@@ -59,7 +60,7 @@ public class ProductTabAdapter extends FragmentStateAdapter {
     }
 
     public void updateSearchResults(List<ProductWithDetails> products) {
-        searchAdapter.updateData(products);
+        searchAdapter.submitData(activity.getLifecycle(), PagingData.from(products));
     }
 }
 
@@ -51,6 +51,8 @@ public class CardPhotoSelector extends FrameLayout {
 
     // Store Uris instead of base64
     private final List<Uri> selectedUris = new ArrayList<>();
+    // Uri terakhir dari setImagePaths; beda dengan selectedUris berarti pengguna sudah mengubah daftar
+    private final List<Uri> loadedUris = new ArrayList<>();
 
     public CardPhotoSelector(Context c) { this(c, null); }
     public CardPhotoSelector(Context c, @Nullable AttributeSet a) { this(c, a, 0); }
@@ -198,6 +200,33 @@ public class CardPhotoSelector extends FrameLayout {
             }
             adapter.replaceUris(uris);
         }
+        loadedUris.clear();
+        loadedUris.addAll(selectedUris);
+    }
+
+    /**
+     * Path tersimpan berubah (misalnya file staging selesai di-encode). Diterapkan hanya kalau
+     * pengguna belum menambah, menghapus, atau mengurutkan ulang foto sejak dimuat.
+     */
+    public void refreshImagePaths(Context context, List<String> paths) {
+        if (!selectedUris.equals(loadedUris)) {
+            return;
+        }
+        setImagePaths(context, paths);
+    }
+
+    /**
+     * Progress encode gambar di background; total <= 0 menyembunyikan status.
+     */
+    public void setProcessingProgress(int done, int total) {
+        if (total <= 0) {
+            cpsBinding.processingStatus.setVisibility(GONE);
+            return;
+        }
+        cpsBinding.processingStatus.setText(done > 0
+                ? getResources().getString(R.string.image_processing_progress, done, total)
+                : getResources().getString(R.string.image_processing));
+        cpsBinding.processingStatus.setVisibility(VISIBLE);
     }
 
     public void replaceImageAt(int index, Uri uri) {
@@ -12,7 +12,9 @@ import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.ItemTouchHelper;
 import androidx.recyclerview.widget.RecyclerView;
 import com.bdajaya.adminku.R;
+import com.bdajaya.adminku.data.manager.ImageStorageManager;
 import com.bumptech.glide.Glide;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -232,17 +234,34 @@ public class PhotoThumbAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
         return imageUris.size() + 1;
     }
 
+    /**
+     * Gambar tersimpan punya thumbnail di sampingnya; gambar baru dari picker dimuat apa adanya.
+     * Uri di list tetap Uri file asli (dipakai untuk preview dan untuk menyimpan perubahan).
+     */
+    private static Object thumbnailModel(Uri uri) {
+        if ("file".equals(uri.getScheme()) && uri.getPath() != null) {
+            File thumbnail = ImageStorageManager.getThumbnailFile(new File(uri.getPath()));
+            if (thumbnail != null) {
+                return thumbnail;
+            }
+        }
+        return uri;
+    }
+
     static class AddViewHolder extends RecyclerView.ViewHolder {
         private final ImageView imageView;
         private final View removeButton;
+        private final View progress;
 
         AddViewHolder(View view) {
             super(view);
             imageView = view.findViewById(R.id.img);
             removeButton = view.findViewById(R.id.btnRemove);
+            progress = view.findViewById(R.id.progress);
         }
 
         void bind(Runnable onAddClick) {
+            progress.setVisibility(View.GONE);
             imageView.setImageResource(R.drawable.ic_add_photo);
             imageView.setContentDescription("Add photo");
             imageView.setPadding(32, 32, 32, 32);
@@ -260,12 +279,14 @@ public class PhotoThumbAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
         private final ImageView imageView;
         private final View removeButton;
         private final View dragSurface;
+        private final View progress;
 
         ImageViewHolder(View view) {
             super(view);
             imageView = view.findViewById(R.id.img);
             removeButton = view.findViewById(R.id.btnRemove);
             dragSurface = view.findViewById(R.id.btnDrag);
+            progress = view.findViewById(R.id.progress);
         }
 
         void bind(Uri uri,
@@ -275,13 +296,17 @@ public class PhotoThumbAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
                   LruCache<String, Bitmap> bitmapCache,
                   ItemTouchHelper itemTouchHelper) {
             Glide.with(imageView.getContext())
-                    .load(uri)
+                    .load(thumbnailModel(uri))
                     .placeholder(R.drawable.ic_image_placeholder)
                     .error(R.drawable.ic_products)
                     .centerCrop()
                     .into(imageView);
 
-            imageView.setContentDescription("Photo " + (position + 1));
+            // File staging: masih di-encode di background
+            boolean pending = ImageStorageManager.isStagedPath(uri.getPath());
+            imageView.setAlpha(pending ? 0.5f : 1f);
+            progress.setVisibility(pending ? View.VISIBLE : View.GONE);
+            imageView.setContentDescription("Photo " + (position + 1) + (pending ? " (processing)" : ""));
             removeButton.setVisibility(View.VISIBLE);
             dragSurface.setVisibility(View.VISIBLE);
 
@@ -9,6 +9,8 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
+import androidx.paging.LoadState;
+import androidx.paging.PagingData;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
@@ -19,9 +21,6 @@ import com.bdajaya.adminku.ui.adapter.ProductAdapter;
 import com.bdajaya.adminku.ui.viewmodel.ProductManagementViewModel;
 import com.facebook.shimmer.ShimmerFrameLayout;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public class ProductListFragment extends Fragment {
 
     private static final String ARG_STATUS = "status";
@@ -67,11 +66,15 @@ public class ProductListFragment extends Fragment {
 
         // Set up RecyclerView
         recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
-        adapter = new ProductAdapter(new ArrayList<>(),
+        adapter = new ProductAdapter(
                 product -> ((ProductManagementActivity) requireActivity()).onProductClick(product),
                 product -> ((ProductManagementActivity) requireActivity()).onProductLongClick(product),
                 ((ProductManagementActivity) requireActivity()).getImageStorageManager());
         recyclerView.setAdapter(adapter);
+        adapter.addLoadStateListener(loadStates -> {
+            onRefreshStateChanged(loadStates.getRefresh());
+            return kotlin.Unit.INSTANCE;
+        });
 
         // Get ViewModel
         viewModel = new ViewModelProvider(requireActivity()).get(ProductManagementViewModel.class);
@@ -98,16 +101,20 @@ public class ProductListFragment extends Fragment {
         }
     }
 
-    private void updateProductList(List<ProductWithDetails> products) {
+    private void updateProductList(PagingData<ProductWithDetails> products) {
+        adapter.submitData(getViewLifecycleOwner().getLifecycle(), products);
+    }
+
+    private void onRefreshStateChanged(LoadState refreshState) {
+        if (refreshState instanceof LoadState.Loading) {
+            return;
+        }
+
         // Stop shimmer and hide it
         shimmerLayout.stopShimmer();
         shimmerLayout.setVisibility(View.GONE);
 
-        // Update adapter
-        adapter.updateData(products);
-
         // Show empty view if needed
-        emptyView.setVisibility(products.isEmpty() ? View.VISIBLE : View.GONE);
+        emptyView.setVisibility(adapter.getItemCount() == 0 ? View.VISIBLE : View.GONE);
     }
 }
-
@@ -8,7 +8,9 @@ import androidx.lifecycle.ViewModel;
 
 import javax.inject.Inject;
 
-import com.bdajaya.adminku.data.AppDatabase;
+import com.bdajaya.adminku.core.AppExecutors;
+import com.bdajaya.adminku.core.AsyncResult;
+import com.bdajaya.adminku.core.Result;
 import com.bdajaya.adminku.data.entity.Product;
 
 import com.bdajaya.adminku.data.entity.Unit;
@@ -28,6 +30,7 @@ public class AddEditProductViewModel extends ViewModel {
     private final CategoryRepository categoryRepository;
     private final BrandRepository brandRepository;
     private final UnitRepository unitRepository;
+    private final AppExecutors executors;
     private final MutableLiveData<String> productId = new MutableLiveData<>(null);
     // Update LiveData untuk category
     private final MutableLiveData<String> categoryId = new MutableLiveData<>(null);
@@ -61,33 +64,21 @@ public class AddEditProductViewModel extends ViewModel {
     private long productSellPrice = 15000; // Default sell price in cents (Rp 150)
     private long productStock = 0; // Default stock
 
-    public AddEditProductViewModel(ProductRepository productRepository, CategoryRepository categoryRepository, BrandRepository brandRepository) {
-        this.productRepository = productRepository;
-        this.categoryRepository = categoryRepository;
-        this.brandRepository = brandRepository;
-        this.unitRepository = null; // Will be injected if available
-    }
-
     @Inject
     public AddEditProductViewModel(
             ProductRepository productRepository,
             CategoryRepository categoryRepository,
             BrandRepository brandRepository,
-            UnitRepository unitRepository
+            UnitRepository unitRepository,
+            AppExecutors executors
     ) {
         this.productRepository = productRepository;
         this.categoryRepository = categoryRepository;
         this.brandRepository = brandRepository;
         this.unitRepository = unitRepository;
+        this.executors = executors;
     }
 
-    // Constructor for backwards compatibility
-    public AddEditProductViewModel(ProductRepository productRepository, CategoryRepository categoryRepository) {
-        this.productRepository = productRepository;
-        this.categoryRepository = categoryRepository;
-        this.brandRepository = null;
-        this.unitRepository = null;
-    }
     public void loadProduct(String id) {
         // Determine edit mode based on the passed id
         if (id == null || id.trim().isEmpty()) {
@@ -107,7 +98,7 @@ public class AddEditProductViewModel extends ViewModel {
         isEditMode = true;
         isLoading.setValue(true);
 
-        AppDatabase.databaseWriteExecutor.execute(() -> {
+        executors.diskRead().execute(() -> {
             try {
                 var product = productRepository.getProductByIdSync(id);
                 if (product != null) {
@@ -179,16 +170,13 @@ public class AddEditProductViewModel extends ViewModel {
     // Save product
     public void saveProduct() {
         isLoading.setValue(true);
-        AppDatabase.databaseWriteExecutor.execute(() -> {
+        // Baca dan siapkan di read pool; tulisannya sendiri masuk WriteBatcher lewat repository
+        executors.diskRead().execute(() -> {
             try {
-                // Create or update product
-                Product product;
-                String productIdToUse;
-
                 if (isEditMode && productId.getValue() != null && !productId.getValue().isEmpty()) {
                     // Update existing product
-                    productIdToUse = productId.getValue();
-                    product = productRepository.getProductByIdSync(productIdToUse);
+                    String productIdToUse = productId.getValue();
+                    Product product = productRepository.getProductByIdSync(productIdToUse);
                     if (product == null) {
                         errorMessage.postValue("Product not found for update");
                         saveSuccess.postValue(false);
@@ -220,42 +208,51 @@ public class AddEditProductViewModel extends ViewModel {
                     product.setUpdatedAt(System.currentTimeMillis());
                     // Update via repository
                     updateExistingProduct(product, null); // No images for now
+                    onProductSaved(productIdToUse);
                 } else {
-                    // Create new product with default values
-                    product = createNewProductWithDefaults();
-                    productIdToUse = productRepository.insertProduct(product, null); // No images
-                }
-
-                // Success
-                saveSuccess.postValue(true);
-                errorMessage.postValue("");
-                // Optionally set the productId for new products after saving
-                if (!isEditMode || productId.getValue() == null || productId.getValue().isEmpty()) {
-                    productId.postValue(productIdToUse);
-                    // Switch to edit mode after creating new product
-                    isEditMode = true;
+                    // Create new product with default values, once a valid unit is known
+                    resolveUnitId().onComplete(unit -> {
+                        try {
+                            Product product = createNewProductWithDefaults(unitIdOrPlaceholder(unit));
+                            onProductSaved(productRepository.insertProduct(product, null)); // No images
+                        } catch (Exception e) {
+                            onSaveFailed(e);
+                        }
+                    });
                 }
-
             } catch (Exception e) {
-                Log.e("AddEditProductViewModel", "Error saving product", e);
-                errorMessage.postValue("Failed to save product: " + e.getMessage());
-                saveSuccess.postValue(false);
-            } finally {
-                isLoading.postValue(false);
+                onSaveFailed(e);
             }
         });
     }
 
-    private Product createNewProductWithDefaults() {
+    private void onProductSaved(String productIdToUse) {
+        // Success
+        saveSuccess.postValue(true);
+        errorMessage.postValue("");
+        // Optionally set the productId for new products after saving
+        if (!isEditMode || productId.getValue() == null || productId.getValue().isEmpty()) {
+            productId.postValue(productIdToUse);
+            // Switch to edit mode after creating new product
+            isEditMode = true;
+        }
+        isLoading.postValue(false);
+    }
+
+    private void onSaveFailed(Exception e) {
+        Log.e("AddEditProductViewModel", "Error saving product", e);
+        errorMessage.postValue("Failed to save product: " + e.getMessage());
+        saveSuccess.postValue(false);
+        isLoading.postValue(false);
+    }
+
+    private Product createNewProductWithDefaults(String unitId) {
         String name = productName != null && !productName.trim().isEmpty() ? productName : "Nama Produk";
         String description = productDescription != null ? productDescription : "Deskripsi";
         String barcode = productBarcode != null && !productBarcode.trim().isEmpty() ? productBarcode : "";
         // Map status: "active" → "LIVE", "archived" → "ARCHIVED"
         String status = "archived".equalsIgnoreCase(productStatusForSave) ? "ARCHIVED" : "LIVE";
 
-        // Get a valid unit ID from the database
-        String unitId = getValidUnitId();
-
         // Calculate margin from buy and sell prices
         int margin = 0;
         if (productBuyPrice != 0) {
@@ -280,39 +277,43 @@ public class AddEditProductViewModel extends ViewModel {
         );
     }
 
-    private String getValidUnitId() {
-        // Since we need synchronous database access in the write executor context,
-        // we'll try to get a valid unit. If unitRepository is null, create a valid unit dynamically.
-
+    /**
+     * Di read pool: unit yang valid dari database. Kalau belum ada satu pun, unit pcs dibuat lewat
+     * WriteBatcher dan hasilnya diterima setelah commit.
+     */
+    private AsyncResult<String> resolveUnitId() {
         if (unitRepository != null) {
             // Try to get existing "pcs" unit
             Unit pcsUnit = unitRepository.getUnitByName("pcs");
             if (pcsUnit != null) {
-                return pcsUnit.getId();
+                return AsyncResult.completed(Result.success(pcsUnit.getId()));
             }
 
             // If not found, try to get any base unit
             List<Unit> baseUnits = unitRepository.getBaseUnits();
             if (!baseUnits.isEmpty()) {
-                return baseUnits.get(0).getId();
+                return AsyncResult.completed(Result.success(baseUnits.get(0).getId()));
             }
 
             // If not found, get any unit
             List<Unit> allUnits = unitRepository.getAllUnitsSync();
             if (!allUnits.isEmpty()) {
-                return allUnits.get(0).getId();
+                return AsyncResult.completed(Result.success(allUnits.get(0).getId()));
             }
 
-            // Last resort: create a pcs unit synchronously
+            // Last resort: create a pcs unit
             Log.w("AddEditProductViewModel", "No units found, creating default pcs unit");
-            try {
-                String unitId = unitRepository.addUnit("pcs", "pcs", 1, true);
-                if (unitId != null) {
-                    return unitId;
-                }
-            } catch (Exception e) {
-                Log.e("AddEditProductViewModel", "Failed to create default unit", e);
-            }
+            return unitRepository.addUnit("pcs", "pcs", 1, true);
+        }
+        return AsyncResult.completed(Result.success(null));
+    }
+
+    private String unitIdOrPlaceholder(Result<String> unit) {
+        if (unit.isSuccess() && unit.getData() != null) {
+            return unit.getData();
+        }
+        if (unit.isFailure()) {
+            Log.e("AddEditProductViewModel", "Failed to create default unit: " + unit.getErrorMessage());
         }
 
         // If all attempts fail, return a placeholder (this will still cause FK error)
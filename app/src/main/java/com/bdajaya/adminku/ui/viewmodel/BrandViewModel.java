@@ -1,27 +1,36 @@
 package com.bdajaya.adminku.ui.viewmodel;
 
-import android.os.Handler;
-import android.os.Looper;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
+import com.bdajaya.adminku.core.AppExecutors;
+import com.bdajaya.adminku.core.AsyncResult;
+import com.bdajaya.adminku.core.Constants;
 import com.bdajaya.adminku.core.Result;
 import com.bdajaya.adminku.data.entity.Brand;
+import com.bdajaya.adminku.data.model.SearchResults;
 import com.bdajaya.adminku.domain.service.BrandService;
+import com.bdajaya.adminku.domain.service.SearchService;
 import dagger.hilt.android.lifecycle.HiltViewModel;
+import java.util.EnumSet;
 import java.util.List;
 import javax.inject.Inject;
 
 @HiltViewModel
 public class BrandViewModel extends ViewModel {
     private final BrandService brandService;
+    private final SearchService searchService;
+    private final AppExecutors executors;
     private final MutableLiveData<List<Brand>> brands = new MutableLiveData<>();
     private final MutableLiveData<String> errorMessage = new MutableLiveData<>();
     private final MutableLiveData<Boolean> isLoading = new MutableLiveData<>(false);
+    private AsyncResult<SearchResults> searchRequest;
 
     @Inject
-    public BrandViewModel(BrandService brandService) {
+    public BrandViewModel(BrandService brandService, SearchService searchService, AppExecutors executors) {
         this.brandService = brandService;
+        this.searchService = searchService;
+        this.executors = executors;
 
         // Initially load brands
         loadBrands();
@@ -40,6 +49,7 @@ public class BrandViewModel extends ViewModel {
     }
 
     public void loadBrands() {
+        cancelSearch();
         isLoading.setValue(true);
         errorMessage.setValue(null);
 
@@ -53,29 +63,39 @@ public class BrandViewModel extends ViewModel {
         isLoading.setValue(true);
         errorMessage.setValue(null);
 
-        // Use a background thread for search
-        new Thread(() -> {
-            try {
-                List<Brand> searchResults = brandService.searchBrands(query, 50);
-                brands.postValue(searchResults);
-                isLoading.postValue(false);
-            } catch (Exception e) {
-                errorMessage.postValue("Error searching brands: " + e.getMessage());
-                isLoading.postValue(false);
+        // BrandFts on the read pool; only the latest query is delivered
+        cancelSearch();
+        AsyncResult<SearchResults> request = searchService.search(query,
+                EnumSet.of(SearchResults.Kind.BRAND), Constants.SEARCH_RESULT_LIMIT);
+        searchRequest = request;
+        request.onMainThread(result -> {
+            searchRequest = null;
+            isLoading.setValue(false);
+            if (result.isSuccess()) {
+                brands.setValue(result.getData().getBrands().getHits());
+            } else {
+                errorMessage.setValue("Error searching brands: " + result.getErrorMessage());
             }
-        }).start();
+        });
+    }
+
+    private void cancelSearch() {
+        if (searchRequest != null) {
+            searchRequest.cancel();
+            searchRequest = null;
+        }
     }
 
     public void addBrand(String name) {
         isLoading.setValue(true);
         errorMessage.setValue(null);
 
-        new Thread(() -> {
+        executors.diskRead().execute(() -> {
             try {
                 Result<String> result = brandService.addBrand(name);
                 if (result.isSuccess()) {
                     // Reload the list on main thread
-                    new Handler(Looper.getMainLooper()).post(this::loadBrands);
+                    executors.mainThread().execute(this::loadBrands);
                 } else {
                     errorMessage.postValue(result.getErrorMessage());
                 }
@@ -84,19 +104,19 @@ public class BrandViewModel extends ViewModel {
                 errorMessage.postValue("Error adding brand: " + e.getMessage());
                 isLoading.postValue(false);
             }
-        }).start();
+        });
     }
 
     public void updateBrand(String brandId, String name) {
         isLoading.setValue(true);
         errorMessage.setValue(null);
 
-        new Thread(() -> {
+        executors.diskRead().execute(() -> {
             try {
                 Result<Void> result = brandService.updateBrand(brandId, name);
                 if (result.isSuccess()) {
                     // Reload the list on main thread
-                    new Handler(Looper.getMainLooper()).post(this::loadBrands);
+                    executors.mainThread().execute(this::loadBrands);
                 } else {
                     errorMessage.postValue(result.getErrorMessage());
                 }
@@ -105,19 +125,19 @@ public class BrandViewModel extends ViewModel {
                 errorMessage.postValue("Error updating brand: " + e.getMessage());
                 isLoading.postValue(false);
             }
-        }).start();
+        });
     }
 
     public void deleteBrand(String brandId) {
         isLoading.setValue(true);
         errorMessage.setValue(null);
 
-        new Thread(() -> {
+        executors.diskRead().execute(() -> {
             try {
                 Result<Void> result = brandService.deleteBrand(brandId);
                 if (result.isSuccess()) {
                     // Reload the list on main thread
-                    new Handler(Looper.getMainLooper()).post(this::loadBrands);
+                    executors.mainThread().execute(this::loadBrands);
                 } else {
                     errorMessage.postValue(result.getErrorMessage());
                 }
@@ -126,6 +146,12 @@ public class BrandViewModel extends ViewModel {
                 errorMessage.postValue("Error deleting brand: " + e.getMessage());
                 isLoading.postValue(false);
             }
-        }).start();
+        });
+    }
+
+    @Override
+    protected void onCleared() {
+        cancelSearch();
+        super.onCleared();
     }
 }
@@ -5,23 +5,28 @@ import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
 
 import com.bdajaya.adminku.AdminkuApplication;
+import com.bdajaya.adminku.core.AppExecutors;
+import com.bdajaya.adminku.core.AsyncResult;
 import com.bdajaya.adminku.core.Constants;
 import com.bdajaya.adminku.core.ErrorHandler;
 import com.bdajaya.adminku.core.Result;
 import com.bdajaya.adminku.core.ValidationUtils;
-import com.bdajaya.adminku.data.AppDatabase;
 import com.bdajaya.adminku.data.dao.ProductDao;
 import com.bdajaya.adminku.data.entity.Category;
 import com.bdajaya.adminku.data.model.Breadcrumb;
 import com.bdajaya.adminku.data.model.CategoryWithPath;
+import com.bdajaya.adminku.data.model.SearchResults;
 import com.bdajaya.adminku.data.repository.CategoryRepository;
+import com.bdajaya.adminku.data.repository.CategoryTreeCache;
 import com.bdajaya.adminku.domain.service.CategoryService;
+import com.bdajaya.adminku.domain.service.SearchService;
 import dagger.hilt.android.lifecycle.HiltViewModel;
 import javax.inject.Inject;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 /**
  * ViewModel for browsing categories with improved error handling and architecture.
@@ -37,6 +42,8 @@ public class BrowseCategoryViewModel extends ViewModel {
 
     private final CategoryRepository categoryRepository;
     private final CategoryService categoryService;
+    private final SearchService searchService;
+    private final AppExecutors executors;
 
     // UI State LiveData
     private final MutableLiveData<Category> currentCategory = new MutableLiveData<>();
@@ -50,25 +57,27 @@ public class BrowseCategoryViewModel extends ViewModel {
     // Navigation state
     private String currentParentId = null;
 
+    // Set in onCleared(); writes already submitted still commit, only their callbacks are dropped
+    private boolean cleared;
+
+    // Latest search only; a new query cancels the previous one
+    private AsyncResult<SearchResults> searchRequest;
+
     /**
      * Creates a new BrowseCategoryViewModel with dependencies.
      *
      * @param categoryRepository The category repository for data access
      * @param categoryService The category service for business logic
+     * @param searchService Unified FTS search (categories by name and ancestor path)
+     * @param executors Background executors for tree reads; writes go through AsyncResult
      */
     @Inject
-    public BrowseCategoryViewModel(CategoryRepository categoryRepository, CategoryService categoryService) {
+    public BrowseCategoryViewModel(CategoryRepository categoryRepository, CategoryService categoryService,
+                                   SearchService searchService, AppExecutors executors) {
         this.categoryRepository = categoryRepository;
         this.categoryService = categoryService;
-    }
-
-    /**
-     * Simplified constructor for backward compatibility.
-     *
-     * @param categoryRepository The category repository for data access
-     */
-    public BrowseCategoryViewModel(CategoryRepository categoryRepository) {
-        this(categoryRepository, null); // CategoryService will be null, use repository directly
+        this.searchService = searchService;
+        this.executors = executors;
     }
 
     public LiveData<List<Breadcrumb>> getBreadcrumb() {
@@ -106,7 +115,7 @@ public class BrowseCategoryViewModel extends ViewModel {
         MutableLiveData<CategoryDeletionInfo> result = new MutableLiveData<>();
 
         isLoadingLiveData.setValue(true);
-        AppDatabase.databaseWriteExecutor.execute(() -> {
+        executors.diskRead().execute(() -> {
             try {
                 List<Category> children = categoryRepository.getChildCategoriesSync(categoryId);
                 int productCount = categoryRepository.countProductsByCategoryId(categoryId);
@@ -131,11 +140,25 @@ public class BrowseCategoryViewModel extends ViewModel {
         return result;
     }
 
+    /**
+     * Runs a navigation step against the category tree snapshot: inline when a fresh
+     * snapshot is already in memory, otherwise on the executor after (re)building it.
+     */
+    private void withTree(Consumer<CategoryTreeCache.Snapshot> action) {
+        CategoryTreeCache treeCache = categoryRepository.getTreeCache();
+        CategoryTreeCache.Snapshot tree = treeCache.peek();
+        if (tree != null) {
+            action.accept(tree);
+            return;
+        }
+        executors.diskRead().execute(() -> action.accept(treeCache.get()));
+    }
+
     public void loadRoot() {
         isLoadingLiveData.setValue(true);
 
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            List<Category> rootCategories = categoryRepository.getRootCategoriesSync();
+        withTree(tree -> {
+            List<Category> rootCategories = tree.getRoots();
 
             // Reset breadcrumb
             List<Breadcrumb> breadcrumbs = new ArrayList<>();
@@ -151,8 +174,8 @@ public class BrowseCategoryViewModel extends ViewModel {
         isLoadingLiveData.setValue(true);
         currentCategory.setValue(category);
 
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            List<Category> children = categoryRepository.getChildCategoriesSync(category.getId());
+        withTree(tree -> {
+            List<Category> children = tree.getChildren(category.getId());
 
             // Update breadcrumb
             List<Breadcrumb> breadcrumbs = breadcrumbLiveData.getValue();
@@ -177,7 +200,7 @@ public class BrowseCategoryViewModel extends ViewModel {
 
         isLoadingLiveData.setValue(true);
 
-        AppDatabase.databaseWriteExecutor.execute(() -> {
+        withTree(tree -> {
             // Get the selected breadcrumb
             Breadcrumb selected = breadcrumbs.get(index);
 
@@ -186,7 +209,7 @@ public class BrowseCategoryViewModel extends ViewModel {
             breadcrumbLiveData.postValue(newBreadcrumbs);
 
             // Load children of this category
-            List<Category> children = categoryRepository.getChildCategoriesSync(selected.getId());
+            List<Category> children = tree.getChildren(selected.getId());
             currentParentId = selected.getId();
             currentLevelItemsLiveData.postValue(children);
             isLoadingLiveData.postValue(false);
@@ -195,155 +218,133 @@ public class BrowseCategoryViewModel extends ViewModel {
 
     public void search(String query) {
         if (query == null || query.trim().isEmpty()) {
-            isSearchingLiveData.setValue(false);
+            clearSearch();
             return;
         }
 
         isSearchingLiveData.setValue(true);
         isLoadingLiveData.setValue(true);
 
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            List<CategoryWithPath> results = categoryRepository.searchCategoriesWithPath(query, 20);
-            searchResultsLiveData.postValue(results);
-            isLoadingLiveData.postValue(false);
+        if (searchService == null) {
+            withTree(tree -> {
+                List<CategoryWithPath> results = new ArrayList<>();
+                for (Category category : tree.search(query, Constants.CATEGORY_SEARCH_LIMIT)) {
+                    results.add(tree.withPath(category));
+                }
+                searchResultsLiveData.postValue(results);
+                isLoadingLiveData.postValue(false);
+            });
+            return;
+        }
+
+        cancelSearch();
+        AsyncResult<SearchResults> request = searchService.search(query,
+                EnumSet.of(SearchResults.Kind.CATEGORY), Constants.CATEGORY_SEARCH_LIMIT);
+        searchRequest = request;
+        request.onMainThread(result -> {
+            searchRequest = null;
+            isLoadingLiveData.setValue(false);
+            if (result.isSuccess()) {
+                searchResultsLiveData.setValue(result.getData().getCategories().getHits());
+            } else {
+                showFailure(result);
+            }
         });
     }
 
     public void clearSearch() {
+        cancelSearch();
         isSearchingLiveData.setValue(false);
         searchResultsLiveData.setValue(new ArrayList<>());
     }
 
+    private void cancelSearch() {
+        if (searchRequest != null) {
+            searchRequest.cancel();
+            searchRequest = null;
+        }
+    }
+
     public void addCategory(String name, String parentId) {
         isLoadingLiveData.setValue(true);
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            try {
-                // Gunakan CategoryRepository.addCategory() yang sudah ada
-                // Method ini akan menghitung level secara otomatis dengan validasi
-                Result<String> result = categoryRepository.addCategory(parentId, name);
-
-                if (result.isFailure()) {
-                    // Gunakan getCategoryOperationErrorCode untuk mendapatkan error code yang tepat
-                    String errorCode = result.getErrorCode();
-                    if (errorCode != null) {
-                        // Gunakan ErrorHandler untuk mendapatkan user-friendly message berdasarkan error code
-                        String userFriendlyMessage = ErrorHandler.getUserFriendlyMessage(
-                                AdminkuApplication.getInstance().getApplicationContext(), errorCode, result.getErrorMessage());
-                        errorMessageLiveData.postValue(userFriendlyMessage);
-                    } else {
-                        errorMessageLiveData.postValue(result.getErrorMessage());
-                    }
-                } else {
-                    // Refresh the current level data
-                    refreshCurrentLevel();
-                    errorMessageLiveData.postValue(null); // Clear any previous errors
-                }
-            } catch (Exception e) {
-                errorMessageLiveData.postValue("Error refreshing categories: " + e.getMessage());
-            } finally {
-                isLoadingLiveData.postValue(false);
+        // CategoryRepository menghitung level secara otomatis dengan validasi
+        track(categoryRepository.addCategoryAsync(parentId, name), result -> {
+            if (result.isFailure()) {
+                showFailure(result);
+            } else {
+                // Refresh the current level data
+                refreshCurrentLevel();
+                errorMessageLiveData.setValue(null); // Clear any previous errors
             }
         });
     }
 
     public void updateCategory(String categoryId, String newName) {
         isLoadingLiveData.setValue(true);
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            try {
-                Result<Void> result = categoryRepository.updateCategory(categoryId, newName);
-                if (result.isFailure()) {
-                    // Gunakan getCategoryOperationErrorCode untuk mendapatkan error code yang tepat
-                    String errorCode = result.getErrorCode();
-                    if (errorCode != null) {
-                        // Gunakan ErrorHandler untuk mendapatkan user-friendly message berdasarkan error code
-                        String userFriendlyMessage = ErrorHandler.getUserFriendlyMessage(
-                                AdminkuApplication.getInstance().getApplicationContext(), errorCode, result.getErrorMessage());
-                        errorMessageLiveData.postValue(userFriendlyMessage);
-                    } else {
-                        errorMessageLiveData.postValue(result.getErrorMessage());
-                    }
-                } else {
-                    // Refresh the current level data
-                    refreshCurrentLevel();
-                    errorMessageLiveData.postValue(null); // Clear any previous errors
-                }
-            } catch (Exception e) {
-                String errorCode = ErrorHandler.getCategoryOperationErrorCode(e.getMessage());
-                String userFriendlyMessage = ErrorHandler.getUserFriendlyMessage(
-                        AdminkuApplication.getInstance().getApplicationContext(), errorCode, e.getMessage());
-                errorMessageLiveData.postValue(userFriendlyMessage);
-            } finally {
-                isLoadingLiveData.postValue(false);
+        track(categoryRepository.updateCategoryAsync(categoryId, newName), result -> {
+            if (result.isFailure()) {
+                showFailure(result);
+            } else {
+                // Refresh the current level data
+                refreshCurrentLevel();
+                errorMessageLiveData.setValue(null); // Clear any previous errors
             }
         });
     }
 
     public void deleteCategory(String categoryId, AdminkuApplication application) {
         isLoadingLiveData.setValue(true);
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            try {
-                // Menggunakan method deleteCategory yang sudah ada dengan enhancement untuk update produk
-                String result = categoryRepository.deleteCategoryWithProductUpdate(categoryId,
-                        application.getAppDatabase().productDao());
-
-                if ("SUCCESS".equals(result)) {
-                    // Refresh the current level data
-                    if (currentParentId != null) {
-                        // We're in a subcategory level, refresh parent level counts
-                        refreshParentLevel();
-                    }
-                    refreshCurrentLevel();
-                    errorMessageLiveData.postValue(null); // Clear any previous errors
-                } else {
-                    // Gunakan getCategoryOperationErrorCode untuk error code yang tepat
-                    String errorCode = ErrorHandler.getCategoryOperationErrorCode("delete failed");
-                    String userFriendlyMessage = ErrorHandler.getUserFriendlyMessage(
-                            AdminkuApplication.getInstance().getApplicationContext(), errorCode, "Gagal menghapus kategori");
-                    errorMessageLiveData.postValue(userFriendlyMessage);
-                }
-            } catch (Exception e) {
-                String errorCode = ErrorHandler.getCategoryOperationErrorCode(e.getMessage());
+        // Produk di kategori ini tidak ikut dihapus, categoryId-nya di-set null
+        track(categoryRepository.deleteCategoryWithProductUpdateAsync(categoryId,
+                application.getAppDatabase().productDao()), result -> {
+            if (result.isSuccess() && "SUCCESS".equals(result.getData())) {
+                // Refresh the current level data (parent's hasChildren is kept by triggers)
+                refreshCurrentLevel();
+                errorMessageLiveData.setValue(null); // Clear any previous errors
+            } else {
+                // Gunakan getCategoryOperationErrorCode untuk error code yang tepat
+                String errorCode = ErrorHandler.getCategoryOperationErrorCode("delete failed");
                 String userFriendlyMessage = ErrorHandler.getUserFriendlyMessage(
-                        AdminkuApplication.getInstance().getApplicationContext(), errorCode, e.getMessage());
-                errorMessageLiveData.postValue(userFriendlyMessage);
-            } finally {
-                isLoadingLiveData.postValue(false);
+                        AdminkuApplication.getInstance().getApplicationContext(), errorCode, "Gagal menghapus kategori");
+                errorMessageLiveData.setValue(userFriendlyMessage);
             }
         });
     }
 
-    private void refreshParentLevel() {
-        if (currentParentId != null) {
-            // Set hasChildren untuk parent
-            categoryRepository.updateParentHasChildren(currentParentId,
-                    getChildCategoriesSync(currentParentId).size() > 0);
-        }
+    /**
+     * Delivers an async write result on the main thread, unless the ViewModel was cleared first.
+     * The write itself is never cancelled.
+     */
+    private <T> void track(AsyncResult<T> request, Consumer<Result<T>> onResult) {
+        request.onMainThread(result -> {
+            if (cleared) {
+                return;
+            }
+            isLoadingLiveData.setValue(false);
+            onResult.accept(result);
+        });
     }
 
-    private List<Category> getChildCategoriesSync(String parentId) {
-        try {
-            Future<List<Category>> future = AppDatabase.databaseWriteExecutor.submit(new java.util.concurrent.Callable<List<Category>>() {
-                @Override
-                public List<Category> call() {
-                    return categoryRepository.getChildCategoriesSync(parentId);
-                }
-            });
-            return future.get();
-        } catch (Exception e) {
-            errorMessageLiveData.postValue("Error loading child categories: " + e.getMessage());
-            return new ArrayList<>();
+    private void showFailure(Result<?> result) {
+        // Gunakan ErrorHandler untuk mendapatkan user-friendly message berdasarkan error code
+        String errorCode = result.getErrorCode();
+        if (errorCode != null) {
+            String userFriendlyMessage = ErrorHandler.getUserFriendlyMessage(
+                    AdminkuApplication.getInstance().getApplicationContext(), errorCode, result.getErrorMessage());
+            errorMessageLiveData.setValue(userFriendlyMessage);
+        } else {
+            errorMessageLiveData.setValue(result.getErrorMessage());
         }
     }
 
     private void refreshCurrentLevel() {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
+        // Jalan di executor, jadi get() boleh membangun ulang snapshot yang stale setelah write
+        executors.diskRead().execute(() -> {
             try {
-                List<Category> children;
-                if (currentParentId == null) {
-                    children = categoryRepository.getRootCategoriesSync();
-                } else {
-                    children = categoryRepository.getChildCategoriesSync(currentParentId);
-                }
+                CategoryTreeCache.Snapshot tree = categoryRepository.getTreeCache().get();
+                List<Category> children = currentParentId == null
+                        ? tree.getRoots()
+                        : tree.getChildren(currentParentId);
                 currentLevelItemsLiveData.postValue(children);
             } catch (Exception e) {
                 String errorCode = ErrorHandler.getCategoryOperationErrorCode(e.getMessage());
@@ -423,6 +424,12 @@ public class BrowseCategoryViewModel extends ViewModel {
         return current != null ? current.getLevel() : Constants.ROOT_CATEGORY_LEVEL;
     }
 
+    @Override
+    protected void onCleared() {
+        cancelSearch();
+        cleared = true;
+    }
+
     /**
      * Data class for category deletion information
      */
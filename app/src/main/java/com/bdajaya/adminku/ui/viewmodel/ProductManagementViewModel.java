@@ -3,11 +3,15 @@ package com.bdajaya.adminku.ui.viewmodel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
+import androidx.lifecycle.ViewModelKt;
+import androidx.paging.PagingData;
+import androidx.paging.PagingLiveData;
 
-import com.bdajaya.adminku.data.AppDatabase;
+import com.bdajaya.adminku.core.AsyncResult;
 import com.bdajaya.adminku.data.entity.Product;
 import com.bdajaya.adminku.data.model.ProductWithDetails;
 import com.bdajaya.adminku.data.repository.ProductRepository;
+import com.bdajaya.adminku.data.search.ProductSearchSession;
 
 import dagger.hilt.android.lifecycle.HiltViewModel;
 import java.util.ArrayList;
@@ -18,10 +22,11 @@ import javax.inject.Inject;
 public class ProductManagementViewModel extends ViewModel {
 
     private final ProductRepository productRepository;
+    private final ProductSearchSession searchSession;
 
-    private final LiveData<List<ProductWithDetails>> liveProducts;
-    private final LiveData<List<ProductWithDetails>> outOfStockProducts;
-    private final LiveData<List<ProductWithDetails>> archivedProducts;
+    private final LiveData<PagingData<ProductWithDetails>> liveProducts;
+    private final LiveData<PagingData<ProductWithDetails>> outOfStockProducts;
+    private final LiveData<PagingData<ProductWithDetails>> archivedProducts;
 
     private final MutableLiveData<String> searchQuery = new MutableLiveData<>("");
     private final MutableLiveData<List<ProductWithDetails>> searchResults = new MutableLiveData<>(new ArrayList<>());
@@ -32,22 +37,29 @@ public class ProductManagementViewModel extends ViewModel {
     @Inject
     public ProductManagementViewModel(ProductRepository productRepository) {
         this.productRepository = productRepository;
+        this.searchSession = productRepository.newSearchSession();
 
-        // Initialize LiveData for each tab
-        liveProducts = productRepository.getProductsWithDetailsByStatus("LIVE");
-        outOfStockProducts = productRepository.getProductsWithDetailsByStatus("OUT_OF_STOCK");
-        archivedProducts = productRepository.getProductsWithDetailsByStatus("ARCHIVED");
+        // Paged stream per tab, cached so configuration changes reuse loaded pages
+        liveProducts = pagedProducts("LIVE");
+        outOfStockProducts = pagedProducts("OUT_OF_STOCK");
+        archivedProducts = pagedProducts("ARCHIVED");
     }
 
-    public LiveData<List<ProductWithDetails>> getLiveProducts() {
+    private LiveData<PagingData<ProductWithDetails>> pagedProducts(String status) {
+        LiveData<PagingData<ProductWithDetails>> pages =
+                PagingLiveData.getLiveData(productRepository.getProductPager(status));
+        return PagingLiveData.cachedIn(pages, ViewModelKt.getViewModelScope(this));
+    }
+
+    public LiveData<PagingData<ProductWithDetails>> getLiveProducts() {
         return liveProducts;
     }
 
-    public LiveData<List<ProductWithDetails>> getOutOfStockProducts() {
+    public LiveData<PagingData<ProductWithDetails>> getOutOfStockProducts() {
         return outOfStockProducts;
     }
 
-    public LiveData<List<ProductWithDetails>> getArchivedProducts() {
+    public LiveData<PagingData<ProductWithDetails>> getArchivedProducts() {
         return archivedProducts;
     }
 
@@ -81,36 +93,46 @@ public class ProductManagementViewModel extends ViewModel {
         isSearching.setValue(true);
         isLoading.setValue(true);
 
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            List<ProductWithDetails> results = productRepository.searchProductsWithDetails(query, 50);
-            searchResults.postValue(results);
-            isLoading.postValue(false);
+        // Hasil query yang sudah tertimpa (atau di-clear) dibuang tanpa menyentuh isLoading/error
+        AsyncResult<List<ProductWithDetails>> request = searchSession.search(query);
+        request.onMainThread(result -> {
+            if (!searchSession.isCurrent(request)) {
+                return;
+            }
+            isLoading.setValue(false);
+            if (result.isSuccess()) {
+                searchResults.setValue(result.getData());
+            } else {
+                errorMessage.setValue(result.getErrorMessage());
+            }
         });
     }
 
     public void clearSearch() {
+        searchSession.cancel();
+        isLoading.setValue(false);
         searchQuery.setValue("");
         isSearching.setValue(false);
         searchResults.setValue(new ArrayList<>());
     }
 
+    // Repository sudah mengantrikan tulisan ke writer thread
     public void archiveProduct(String productId) {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            productRepository.updateProductStatus(productId, "ARCHIVED");
-        });
+        productRepository.updateProductStatus(productId, "ARCHIVED");
     }
 
     public void unarchiveProduct(String productId, long stock) {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            String newStatus = stock > 0 ? "LIVE" : "OUT_OF_STOCK";
-            productRepository.updateProductStatus(productId, newStatus);
-        });
+        String newStatus = stock > 0 ? "LIVE" : "OUT_OF_STOCK";
+        productRepository.updateProductStatus(productId, newStatus);
     }
 
     public void deleteProduct(Product product) {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            productRepository.deleteProduct(product);
-        });
+        productRepository.deleteProduct(product);
     }
-}
 
+    @Override
+    protected void onCleared() {
+        searchSession.close();
+        super.onCleared();
+    }
+}
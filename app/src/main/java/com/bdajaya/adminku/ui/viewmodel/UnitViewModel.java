@@ -4,54 +4,95 @@ import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.Transformations;
 import androidx.lifecycle.ViewModel;
-import com.bdajaya.adminku.core.Result;
+import com.bdajaya.adminku.core.AsyncResult;
+import com.bdajaya.adminku.core.Constants;
 import com.bdajaya.adminku.data.entity.Unit;
+import com.bdajaya.adminku.data.model.SearchResults;
+import com.bdajaya.adminku.domain.service.SearchService;
 import com.bdajaya.adminku.domain.service.UnitService;
 import dagger.hilt.android.lifecycle.HiltViewModel;
+import java.util.EnumSet;
 import java.util.List;
 import javax.inject.Inject;
 
 @HiltViewModel
 public class UnitViewModel extends ViewModel {
     private final UnitService unitService;
+    private final SearchService searchService;
     private final MutableLiveData<String> searchQuery = new MutableLiveData<>("");
     private final MutableLiveData<String> errorMessage = new MutableLiveData<>();
+    private final LiveData<List<Unit>> units;
+    private AsyncResult<SearchResults> searchRequest;
+    // Set in onCleared(); pending writes still commit, their callbacks are dropped
+    private boolean cleared;
 
     @Inject
-    public UnitViewModel(UnitService unitService) {
+    public UnitViewModel(UnitService unitService, SearchService searchService) {
         this.unitService = unitService;
+        this.searchService = searchService;
+        // Empty query: live list of all units; otherwise the latest search result
+        this.units = Transformations.switchMap(searchQuery, query ->
+                query == null || query.trim().isEmpty() ? unitService.getAllUnits() : search(query));
     }
 
     public LiveData<List<Unit>> getUnits() {
-        return unitService.getAllUnits();
+        return units;
     }
 
     public void addUnit(String code, String name, String baseUnit, long quantity) {
-        Result<String> result = unitService.addUnit(code, name, baseUnit, quantity);
-        if (result.isFailure()) {
-            errorMessage.setValue(result.getErrorMessage());
-        }
+        track(unitService.addUnitAsync(code, name, baseUnit, quantity));
     }
 
     public void updateUnit(String id, String name, long conversionFactor) {
-        Result<Void> result = unitService.updateUnit(id, name, conversionFactor);
-        if (result.isFailure()) {
-            errorMessage.setValue(result.getErrorMessage());
-        }
+        track(unitService.updateUnitAsync(id, name, conversionFactor));
     }
 
     public void deleteUnit(String id) {
-        Result<Void> result = unitService.deleteUnit(id);
-        if (result.isFailure()) {
-            errorMessage.setValue(result.getErrorMessage());
-        }
+        track(unitService.deleteUnitAsync(id));
+    }
+
+    private void track(AsyncResult<?> request) {
+        request.onMainThread(result -> {
+            if (!cleared && result.isFailure()) {
+                errorMessage.setValue(result.getErrorMessage());
+            }
+        });
     }
 
     public void searchUnits(String query) {
         searchQuery.setValue(query);
     }
 
+    private LiveData<List<Unit>> search(String query) {
+        cancelSearch();
+        MutableLiveData<List<Unit>> result = new MutableLiveData<>();
+        AsyncResult<SearchResults> request = searchService.search(query,
+                EnumSet.of(SearchResults.Kind.UNIT), Constants.SEARCH_RESULT_LIMIT);
+        searchRequest = request;
+        request.onMainThread(searchResult -> {
+            if (searchResult.isSuccess()) {
+                result.setValue(searchResult.getData().getUnits().getHits());
+            } else {
+                errorMessage.setValue(searchResult.getErrorMessage());
+            }
+        });
+        return result;
+    }
+
+    private void cancelSearch() {
+        if (searchRequest != null) {
+            searchRequest.cancel();
+            searchRequest = null;
+        }
+    }
+
     public LiveData<String> getErrorMessage() {
         return errorMessage;
     }
+
+    @Override
+    protected void onCleared() {
+        cancelSearch();
+        cleared = true;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,94 @@
+package com.bdajaya.adminku.util;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.bdajaya.adminku.AdminkuApplication;
+
+import java.util.List;
+
+/**
+ * Background worker yang meng-encode gambar produk yang baru di-stage (ProductImage PENDING)
+ * menjadi blob JPEG + thumbnail (sekali per hash isi), lihat ProductRepository.ingestPendingImages.
+ *
+ * Simpan produk hanya menyalin file mentah lalu commit, jadi UI tidak menunggu encode. Karena
+ * staging dan status PENDING ada di disk/database, pekerjaan yang terputus (proses mati)
+ * dilanjutkan WorkManager atau oleh enqueue() berikutnya saat app start.
+ *
+ * Progress (KEY_DONE/KEY_TOTAL) dilaporkan setiap satu gambar selesai; baris ProductImage
+ * sendiri berubah READY satu per satu, jadi layar yang mengamati gambar produk ikut terbarui.
+ */
+public class ImageIngestionWorker extends Worker {
+
+    private static final String TAG = "ImageIngestion";
+    private static final String UNIQUE_WORK_NAME = "image_ingestion";
+
+    public static final String KEY_DONE = "done";
+    public static final String KEY_TOTAL = "total";
+
+    public ImageIngestionWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    /**
+     * Jadwalkan ingestion. Kalau worker sedang berjalan, satu run lagi diantrikan di belakangnya
+     * untuk gambar yang masuk setelah run tersebut membaca daftar PENDING.
+     */
+    public static void enqueue(@NonNull Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiresStorageNotLow(true)
+                .build();
+
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(ImageIngestionWorker.class)
+                .setConstraints(constraints)
+                .build();
+
+        WorkManager.getInstance(context).enqueueUniqueWork(
+                UNIQUE_WORK_NAME, ExistingWorkPolicy.APPEND_OR_REPLACE, request);
+    }
+
+    /**
+     * WorkInfo untuk ditampilkan di UI; progress ada di getProgress() (KEY_DONE/KEY_TOTAL).
+     */
+    @NonNull
+    public static LiveData<List<WorkInfo>> getWorkInfo(@NonNull Context context) {
+        return WorkManager.getInstance(context).getWorkInfosForUniqueWorkLiveData(UNIQUE_WORK_NAME);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        try {
+            Context appContext = getApplicationContext();
+            if (!(appContext instanceof AdminkuApplication)) {
+                Log.e(TAG, "Application context is not AdminkuApplication");
+                return Result.failure();
+            }
+
+            int processed = ((AdminkuApplication) appContext).getProductRepository()
+                    .ingestPendingImages((done, total) -> setProgressAsync(new Data.Builder()
+                            .putInt(KEY_DONE, done)
+                            .putInt(KEY_TOTAL, total)
+                            .build()))
+                    // Worker berjalan di thread WorkManager sendiri; hanya di sini hasilnya ditunggu
+                    .join();
+
+            Log.d(TAG, "Image ingestion completed, " + processed + " images processed");
+            return Result.success();
+        } catch (Exception e) {
+            Log.e(TAG, "Error during image ingestion", e);
+            return Result.retry();
+        }
+    }
+}
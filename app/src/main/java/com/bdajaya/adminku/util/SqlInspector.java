@@ -7,7 +7,7 @@ import android.util.Log;
 import androidx.annotation.NonNull;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 
-import com.bdajaya.adminku.data.AppDatabase;
+import com.bdajaya.adminku.AdminkuApplication;
 
 /**
  * Utility to run EXPLAIN QUERY PLAN on a given SQL string and log the result.
@@ -20,7 +20,8 @@ public final class SqlInspector {
 
     public static void explain(@NonNull Context context, @NonNull String sql, Object[] bindArgs) {
         try {
-            SupportSQLiteDatabase db = AppDatabase.getInstance(context).getOpenHelper().getReadableDatabase();
+            SupportSQLiteDatabase db = ((AdminkuApplication) context.getApplicationContext()).getAppDatabase()
+                    .getOpenHelper().getReadableDatabase();
             // SQLite API expects a normal SQL — wrap it with EXPLAIN QUERY PLAN
             String explainSql = "EXPLAIN QUERY PLAN " + sql;
             Cursor c = db.query(explainSql, bindArgs == null ? new Object[]{} : bindArgs);
@@ -0,0 +1,72 @@
+package com.bdajaya.adminku.util;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.bdajaya.adminku.AdminkuApplication;
+import com.bdajaya.adminku.core.Constants;
+import com.bdajaya.adminku.core.ErrorHandler;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background worker untuk kompaksi ledger stok (lihat StockLedgerCompactor).
+ * Dijadwalkan harian sebagai unique periodic work saat device idle.
+ */
+public class StockLedgerCompactionWorker extends Worker {
+
+    private static final String UNIQUE_WORK_NAME = "stock_ledger_compaction";
+
+    public StockLedgerCompactionWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    /**
+     * Daftarkan job periodik; aman dipanggil setiap app start (KEEP).
+     */
+    public static void schedule(@NonNull Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiresDeviceIdle(true)
+                .setRequiresBatteryNotLow(true)
+                .build();
+
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(
+                StockLedgerCompactionWorker.class, 1, TimeUnit.DAYS)
+                .setConstraints(constraints)
+                .build();
+
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(
+                UNIQUE_WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        try {
+            Context appContext = getApplicationContext();
+            if (!(appContext instanceof AdminkuApplication)) {
+                ErrorHandler.logError(ErrorHandler.ERROR_CODE_UNKNOWN, "Application context is not AdminkuApplication");
+                return Result.failure();
+            }
+
+            long cutoff = System.currentTimeMillis()
+                    - TimeUnit.DAYS.toMillis(Constants.STOCK_LEDGER_RETENTION_DAYS);
+            // Worker berjalan di thread WorkManager sendiri; hanya di sini hasil kompaksi ditunggu
+            // Hasil dan kegagalan dicatat oleh StockLedgerCompactor
+            ((AdminkuApplication) appContext).getStockRepository()
+                    .compactTransactionsOlderThan(cutoff)
+                    .join();
+            return Result.success();
+        } catch (Exception e) {
+            ErrorHandler.logError(ErrorHandler.ERROR_CODE_DATABASE, "Error during ledger compaction", e);
+            return Result.retry();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.bdajaya.adminku.util;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.bdajaya.adminku.AdminkuApplication;
+import com.bdajaya.adminku.core.Constants;
+import com.bdajaya.adminku.data.repository.ProductRepository;
+
+/**
+ * Background worker yang membuat thumbnail untuk gambar produk yang disimpan sebelum ada
+ * thumbnail (lihat ProductRepository.backfillThumbnails). Gambar baru sudah mendapat thumbnail
+ * saat disimpan, jadi setelah backfill selesai worker ini hanya menjalankan satu query kosong.
+ */
+public class ThumbnailBackfillWorker extends Worker {
+
+    private static final String TAG = "ThumbnailBackfill";
+    private static final String UNIQUE_WORK_NAME = "thumbnail_backfill";
+
+    public ThumbnailBackfillWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    /**
+     * Daftarkan job sekali jalan; aman dipanggil setiap app start (KEEP).
+     */
+    public static void schedule(@NonNull Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiresBatteryNotLow(true)
+                .setRequiresStorageNotLow(true)
+                .build();
+
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(ThumbnailBackfillWorker.class)
+                .setConstraints(constraints)
+                .build();
+
+        WorkManager.getInstance(context).enqueueUniqueWork(
+                UNIQUE_WORK_NAME, ExistingWorkPolicy.KEEP, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        try {
+            Context appContext = getApplicationContext();
+            if (!(appContext instanceof AdminkuApplication)) {
+                Log.e(TAG, "Application context is not AdminkuApplication");
+                return Result.failure();
+            }
+
+            ProductRepository repository = ((AdminkuApplication) appContext).getProductRepository();
+            int total = 0;
+            int processed;
+            do {
+                if (isStopped()) {
+                    // Sisa batch diambil lagi di app start berikutnya
+                    return Result.success();
+                }
+                // Worker berjalan di thread WorkManager sendiri; hanya di sini hasilnya ditunggu
+                processed = repository.backfillThumbnails(Constants.THUMBNAIL_BACKFILL_BATCH_SIZE).join();
+                total += processed;
+            } while (processed > 0);
+
+            Log.d(TAG, "Thumbnail backfill completed, " + total + " images processed");
+            return Result.success();
+        } catch (Exception e) {
+            Log.e(TAG, "Error during thumbnail backfill", e);
+            return Result.retry();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.bdajaya.adminku.data;
+
+import com.bdajaya.adminku.data.dao.SequenceDao;
+import com.bdajaya.adminku.data.entity.Sequence;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class BarcodeAllocatorTest {
+
+    private static final int BLOCK = 3;
+
+    private FakeSequenceDao sequenceDao;
+    private WriteBatcher writeBatcher;
+    private BarcodeAllocator allocator;
+
+    @Before
+    public void setUp() {
+        sequenceDao = new FakeSequenceDao();
+        writeBatcher = TestWriteBatchers.singleThread();
+        allocator = new BarcodeAllocator(writeBatcher, sequenceDao, () -> 41, BLOCK);
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        return future.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void firstNumber_continuesAfterExistingBarcodes() throws Exception {
+        assertEquals(Long.valueOf(42), await(allocator.nextNumber()));
+        assertEquals(Long.valueOf(42 + BLOCK), sequenceDao.getNextValue(BarcodeAllocator.SEQUENCE_BARCODE));
+    }
+
+    @Test
+    public void nextBarcode_isFormatted() throws Exception {
+        assertEquals("BE-00000042", await(allocator.nextBarcode()));
+        assertEquals("BE-00000007", BarcodeAllocator.format(7));
+    }
+
+    @Test
+    public void blockIsServedFromMemory() throws Exception {
+        for (int i = 0; i < BLOCK; i++) {
+            await(allocator.nextNumber());
+        }
+        assertEquals(1, sequenceDao.updates);
+
+        await(allocator.nextNumber());
+        assertEquals(2, sequenceDao.updates);
+    }
+
+    @Test
+    public void concurrentCallers_neverShareANumber() throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        try {
+            List<CompletableFuture<Long>> futures = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                futures.add(CompletableFuture.supplyAsync(() -> allocator.nextNumber(), callers)
+                        .thenCompose(number -> number));
+            }
+            Set<Long> numbers = new HashSet<>();
+            for (CompletableFuture<Long> future : futures) {
+                numbers.add(await(future));
+            }
+            assertEquals(50, numbers.size());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void rangeReservedInTransaction_doesNotOverlapBlock() throws Exception {
+        long block = await(allocator.nextNumber());
+        long range = await(writeBatcher.submit(() -> allocator.reserveRangeInTransaction(5)));
+
+        assertTrue(range >= block + BLOCK);
+        for (int i = 0; i < BLOCK + 1; i++) {
+            long next = await(allocator.nextNumber());
+            assertFalse(next >= range && next < range + 5);
+        }
+    }
+
+    @Test
+    public void failedReservation_failsCallerAndIsRetriedNextTime() throws Exception {
+        sequenceDao.failNext = true;
+        try {
+            await(allocator.nextNumber());
+            fail("expected the reservation to fail");
+        } catch (ExecutionException expected) {
+            assertTrue(expected.getCause() instanceof IllegalStateException);
+        }
+
+        assertEquals(Long.valueOf(42), await(allocator.nextNumber()));
+    }
+
+    private static final class FakeSequenceDao implements SequenceDao {
+        private final Map<String, Long> values = new HashMap<>();
+        int updates;
+        boolean failNext;
+
+        @Override
+        public synchronized Long getNextValue(String name) {
+            if (failNext) {
+                failNext = false;
+                throw new IllegalStateException("database is locked");
+            }
+            return values.get(name);
+        }
+
+        @Override
+        public synchronized void insert(Sequence sequence) {
+            values.put(sequence.getName(), sequence.getNextValue());
+        }
+
+        @Override
+        public synchronized int setNextValue(String name, long nextValue, long now) {
+            updates++;
+            values.put(name, nextValue);
+            return 1;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.bdajaya.adminku.data;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * WriteBatcher untuk unit test: writer thread sungguhan, transaksi hanya menjalankan body (tanpa
+ * rollback), cukup untuk fake DAO di memori.
+ */
+public final class TestWriteBatchers {
+
+    private TestWriteBatchers() {}
+
+    public static WriteBatcher singleThread() {
+        AtomicReference<Thread> writerThread = new AtomicReference<>();
+        ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "test-writer");
+            thread.setDaemon(true);
+            writerThread.set(thread);
+            return thread;
+        });
+        return new WriteBatcher(body -> body.call(), writer,
+                () -> Thread.currentThread() == writerThread.get());
+    }
+}
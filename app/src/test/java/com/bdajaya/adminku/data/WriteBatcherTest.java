@@ -0,0 +1,155 @@
+package com.bdajaya.adminku.data;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class WriteBatcherTest {
+
+    /** "Tabel" yang ditulis command; di-rollback kalau transaksi terluar gagal. */
+    private final List<String> rows = new ArrayList<>();
+    private final List<Runnable> writerTasks = new ArrayList<>();
+    private boolean onWriter;
+    private int depth;
+    private int transactions;
+
+    private WriteBatcher batcher;
+
+    @Before
+    public void setUp() {
+        WriteBatcher.Transactions roomLike = body -> {
+            if (depth > 0) {
+                // Bersarang: ikut transaksi luar, seperti runInTransaction Room
+                depth++;
+                try {
+                    body.call();
+                } finally {
+                    depth--;
+                }
+                return;
+            }
+            transactions++;
+            List<String> snapshot = new ArrayList<>(rows);
+            depth++;
+            try {
+                body.call();
+            } catch (Exception e) {
+                rows.clear();
+                rows.addAll(snapshot);
+                throw e;
+            } finally {
+                depth--;
+            }
+        };
+        batcher = new WriteBatcher(roomLike, writerTasks::add, () -> onWriter);
+    }
+
+    /** Jalankan drain yang sudah dijadwalkan, seolah-olah di writer thread. */
+    private void runWriter() {
+        onWriter = true;
+        try {
+            while (!writerTasks.isEmpty()) {
+                writerTasks.remove(0).run();
+            }
+        } finally {
+            onWriter = false;
+        }
+    }
+
+    private CompletableFuture<Void> write(String row) {
+        return batcher.execute(() -> rows.add(row));
+    }
+
+    private CompletableFuture<Void> failing() {
+        return batcher.execute(() -> {
+            rows.add("bad");
+            throw new IllegalStateException("constraint failed");
+        });
+    }
+
+    @Test
+    public void queuedCommands_shareOneTransaction() {
+        CompletableFuture<Void> a = write("a");
+        CompletableFuture<Void> b = write("b");
+        CompletableFuture<Void> c = write("c");
+        assertFalse(a.isDone());
+
+        runWriter();
+
+        assertTrue(a.isDone() && b.isDone() && c.isDone());
+        assertEquals(Arrays.asList("a", "b", "c"), rows);
+        assertEquals(1, transactions);
+        assertEquals(1, batcher.getCommittedBatches());
+        assertEquals(3, batcher.getCommittedWrites());
+    }
+
+    @Test
+    public void failingCommand_onlyFailsItself() {
+        CompletableFuture<Void> a = write("a");
+        CompletableFuture<Void> bad = failing();
+        CompletableFuture<Void> c = write("c");
+
+        runWriter();
+
+        assertFalse(a.isCompletedExceptionally());
+        assertTrue(bad.isCompletedExceptionally());
+        assertFalse(c.isCompletedExceptionally());
+        assertEquals(Arrays.asList("a", "c"), rows);
+        // Batch gagal lalu diulang satu per satu
+        assertEquals(4, transactions);
+    }
+
+    @Test
+    public void nestedWrite_completesWithParentCommit() {
+        AtomicReference<CompletableFuture<Void>> child = new AtomicReference<>();
+        AtomicReference<Boolean> childDoneInsideParent = new AtomicReference<>();
+        CompletableFuture<Void> parent = batcher.execute(() -> {
+            rows.add("parent");
+            child.set(write("child"));
+            childDoneInsideParent.set(child.get().isDone());
+        });
+
+        runWriter();
+
+        assertFalse(childDoneInsideParent.get());
+        assertTrue(parent.isDone() && !parent.isCompletedExceptionally());
+        assertTrue(child.get().isDone() && !child.get().isCompletedExceptionally());
+        assertEquals(Arrays.asList("parent", "child"), rows);
+        assertEquals(1, transactions);
+    }
+
+    @Test
+    public void nestedFailure_failsParentAndRollsBack() {
+        AtomicReference<CompletableFuture<Void>> child = new AtomicReference<>();
+        CompletableFuture<Void> parent = batcher.execute(() -> {
+            rows.add("parent");
+            child.set(failing());
+        });
+
+        runWriter();
+
+        assertTrue(parent.isCompletedExceptionally());
+        assertTrue(child.get().isCompletedExceptionally());
+        assertEquals(Collections.emptyList(), rows);
+    }
+
+    @Test
+    public void cancelledBeforeDrain_isSkipped() {
+        CompletableFuture<Void> cancelled = write("cancelled");
+        CompletableFuture<Void> kept = write("kept");
+        cancelled.cancel(false);
+
+        runWriter();
+
+        assertTrue(kept.isDone());
+        assertEquals(Collections.singletonList("kept"), rows);
+    }
+}
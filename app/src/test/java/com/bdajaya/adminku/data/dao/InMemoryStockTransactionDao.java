@@ -0,0 +1,367 @@
+package com.bdajaya.adminku.data.dao;
+
+import androidx.lifecycle.LiveData;
+
+import com.bdajaya.adminku.data.entity.StockBalance;
+import com.bdajaya.adminku.data.entity.StockMonthlySummary;
+import com.bdajaya.adminku.data.entity.StockTransaction;
+import com.bdajaya.adminku.data.model.StockTimelineEntry;
+import com.bdajaya.adminku.data.model.StockTransactionWithUnit;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * StockTransactionDao di memori untuk unit test: query ledger dan saldo yang dipakai stock engine,
+ * stocktake dan kompaksi ditiru dengan aturan yang sama seperti SQL-nya. List ledger memakai urutan
+ * insert sebagai rowid. Query yang tidak dipakai test melempar UnsupportedOperationException.
+ */
+public class InMemoryStockTransactionDao implements StockTransactionDao {
+
+    public final List<StockTransaction> ledger = new ArrayList<>();
+    public final Map<String, StockBalance> balances = new HashMap<>();
+    public final Set<String> products = new HashSet<>();
+    /** Product.stock terakhir yang ditulis syncProductStock. */
+    public final Map<String, Long> productStock = new HashMap<>();
+    public final Map<String, StockMonthlySummary> monthlySummaries = new HashMap<>();
+
+    public void addProduct(String productId) {
+        products.add(productId);
+    }
+
+    /**
+     * Saldo dihitung ulang dari ledger (aturan LEDGER_BALANCE_SELECT): ADJUST terakhir menetapkan
+     * level, ADD/REMOVE setelahnya menggeser.
+     */
+    public long ledgerBalance(String productId) {
+        StockTransaction lastAdjust = null;
+        for (StockTransaction row : ledger) {
+            if (row.getProductId().equals(productId) && row.isAdjustment()
+                    && (lastAdjust == null || row.getTimestamp() > lastAdjust.getTimestamp())) {
+                lastAdjust = row;
+            }
+        }
+        long since = lastAdjust != null ? lastAdjust.getTimestamp() : 0;
+        long balance = lastAdjust != null ? lastAdjust.getQuantity() : 0;
+        return balance + movementsAfter(productId, since);
+    }
+
+    public List<StockTransaction> rowsFor(String productId) {
+        List<StockTransaction> rows = new ArrayList<>();
+        for (StockTransaction row : ledger) {
+            if (row.getProductId().equals(productId)) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Jumlah ADD/REMOVE dengan timestamp > after.
+     */
+    public long movementsAfter(String productId, long after) {
+        long sum = 0;
+        for (StockTransaction row : ledger) {
+            if (row.getProductId().equals(productId) && row.getTimestamp() > after && !row.isAdjustment()) {
+                sum += row.getEffectiveQuantity();
+            }
+        }
+        return sum;
+    }
+
+    // ================================
+    // LEDGER + BALANCE
+    // ================================
+
+    @Override
+    public long insertLedgerRow(StockTransaction stockTransaction) {
+        if (getById(stockTransaction.getId()) != null) {
+            return -1;
+        }
+        ledger.add(stockTransaction);
+        return ledger.size();
+    }
+
+    @Override
+    public void ensureBalanceRow(String productId, long now) {
+        if (!balances.containsKey(productId)) {
+            balances.put(productId, new StockBalance(productId, 0, 0, 0, now));
+        }
+    }
+
+    @Override
+    public void applyBalanceDelta(String productId, long delta, long timestamp, long now) {
+        StockBalance balance = balances.get(productId);
+        if (balance != null && balance.getLastAdjustAt() < timestamp) {
+            balance.setOnHand(balance.getOnHand() + delta);
+            balance.setUpdatedAt(now);
+        }
+    }
+
+    @Override
+    public void applyBalanceAdjust(String productId, long quantity, long timestamp, long now) {
+        StockBalance balance = balances.get(productId);
+        if (balance != null && balance.getLastAdjustAt() <= timestamp) {
+            balance.setOnHand(quantity + movementsAfter(productId, timestamp));
+            balance.setLastAdjustQuantity(quantity);
+            balance.setLastAdjustAt(timestamp);
+            balance.setUpdatedAt(now);
+        }
+    }
+
+    @Override
+    public int applyBalanceRemoveGuarded(String productId, long quantity, long timestamp, long now) {
+        StockBalance balance = balances.get(productId);
+        if (balance == null || balance.getLastAdjustAt() >= timestamp || balance.getOnHand() < quantity) {
+            return 0;
+        }
+        balance.setOnHand(balance.getOnHand() - quantity);
+        balance.setUpdatedAt(now);
+        return 1;
+    }
+
+    @Override
+    public boolean productExists(String productId) {
+        return products.contains(productId);
+    }
+
+    @Override
+    public void syncProductStock(String productId, long onHand, long now) {
+        productStock.put(productId, onHand);
+    }
+
+    @Override
+    public StockBalance getBalance(String productId) {
+        return balances.get(productId);
+    }
+
+    @Override
+    public long getTotalStockForProduct(String productId) {
+        StockBalance balance = balances.get(productId);
+        return balance != null ? balance.getOnHand() : 0;
+    }
+
+    @Override
+    public void clearAllBalances() {
+        balances.clear();
+    }
+
+    @Override
+    public void clearBalance(String productId) {
+        balances.remove(productId);
+    }
+
+    @Override
+    public void insertAllBalancesFromLedger(long now) {
+        Set<String> productIds = new LinkedHashSet<>();
+        for (StockTransaction row : ledger) {
+            productIds.add(row.getProductId());
+        }
+        for (String productId : productIds) {
+            insertBalanceFromLedger(productId, now);
+        }
+    }
+
+    @Override
+    public void insertBalanceFromLedger(String productId, long now) {
+        if (rowsFor(productId).isEmpty()) {
+            return;
+        }
+        StockTransaction lastAdjust = null;
+        for (StockTransaction row : rowsFor(productId)) {
+            if (row.isAdjustment() && (lastAdjust == null || row.getTimestamp() > lastAdjust.getTimestamp())) {
+                lastAdjust = row;
+            }
+        }
+        balances.put(productId, new StockBalance(productId, ledgerBalance(productId),
+                lastAdjust != null ? lastAdjust.getQuantity() : 0,
+                lastAdjust != null ? lastAdjust.getTimestamp() : 0, now));
+    }
+
+    // ================================
+    // LEDGER QUERIES
+    // ================================
+
+    @Override
+    public StockTransaction getById(String id) {
+        for (StockTransaction row : ledger) {
+            if (row.getId().equals(id)) {
+                return row;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public List<StockTransaction> getByProductIdSync(String productId) {
+        List<StockTransaction> rows = rowsFor(productId);
+        rows.sort(Comparator.comparingLong(StockTransaction::getTimestamp).reversed());
+        return rows;
+    }
+
+    @Override
+    public int getTransactionCountForProduct(String productId) {
+        return rowsFor(productId).size();
+    }
+
+    @Override
+    public int deleteLedgerByProductId(String productId) {
+        int before = ledger.size();
+        ledger.removeIf(row -> row.getProductId().equals(productId));
+        return before - ledger.size();
+    }
+
+    @Override
+    public int deleteOlderThan(long timestamp) {
+        int before = ledger.size();
+        ledger.removeIf(row -> row.getTimestamp() < timestamp);
+        return before - ledger.size();
+    }
+
+    // ================================
+    // COMPACTION
+    // ================================
+
+    @Override
+    public List<String> getProductIdsToCompact(long cutoff) {
+        Set<String> productIds = new LinkedHashSet<>();
+        for (StockTransaction row : ledger) {
+            if (row.getTimestamp() < cutoff && !row.isCheckpoint()) {
+                productIds.add(row.getProductId());
+            }
+        }
+        return new ArrayList<>(productIds);
+    }
+
+    @Override
+    public List<StockTransaction> getLedgerBefore(String productId, long cutoff) {
+        List<StockTransaction> rows = new ArrayList<>();
+        for (StockTransaction row : rowsFor(productId)) {
+            if (row.getTimestamp() < cutoff) {
+                rows.add(row);
+            }
+        }
+        // Stabil: timestamp sama tetap berurutan menurut rowid
+        rows.sort(Comparator.comparingLong(StockTransaction::getTimestamp));
+        return rows;
+    }
+
+    @Override
+    public int deleteLedgerBefore(String productId, long cutoff) {
+        int before = ledger.size();
+        ledger.removeIf(row -> row.getProductId().equals(productId) && row.getTimestamp() < cutoff);
+        return before - ledger.size();
+    }
+
+    @Override
+    public void ensureMonthlySummary(String productId, String unitId, String month) {
+        String key = productId + '|' + unitId + '|' + month;
+        if (!monthlySummaries.containsKey(key)) {
+            monthlySummaries.put(key, new StockMonthlySummary(productId, unitId, month, 0, 0, 0, 0));
+        }
+    }
+
+    @Override
+    public void addToMonthlySummary(String productId, String unitId, String month, long addQuantity,
+                                    long removeQuantity, int adjustCount, int transactionCount) {
+        StockMonthlySummary summary = monthlySummaries.get(productId + '|' + unitId + '|' + month);
+        if (summary != null) {
+            summary.setAddQuantity(summary.getAddQuantity() + addQuantity);
+            summary.setRemoveQuantity(summary.getRemoveQuantity() + removeQuantity);
+            summary.setAdjustCount(summary.getAdjustCount() + adjustCount);
+            summary.setTransactionCount(summary.getTransactionCount() + transactionCount);
+        }
+    }
+
+    @Override
+    public List<StockMonthlySummary> getMonthlySummaries(String productId) {
+        List<StockMonthlySummary> summaries = new ArrayList<>();
+        for (StockMonthlySummary summary : monthlySummaries.values()) {
+            if (summary.getProductId().equals(productId)) {
+                summaries.add(summary);
+            }
+        }
+        summaries.sort(Comparator.comparing(StockMonthlySummary::getMonth).reversed());
+        return summaries;
+    }
+
+    // ================================
+    // NOT USED BY TESTS
+    // ================================
+
+    @Override
+    public LiveData<List<StockTransaction>> getByProductId(String productId) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public LiveData<List<StockTransactionWithUnit>> getByProductIdWithUnit(String productId) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<StockTransaction> getByProductIdPaginated(String productId, int limit, int offset) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<StockTimelineEntry> getTimelineFirst(String productId, int limit) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<StockTimelineEntry> getTimelineFrom(String productId, long timestamp, String id, int limit) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<StockTimelineEntry> getTimelineOlder(String productId, long timestamp, String id, int limit) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<StockTimelineEntry> getTimelineNewer(String productId, long timestamp, String id, int limit) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public long getLastAdjustmentStock(String productId) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public long getStockChangesSinceLastAdjustment(String productId) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<StockTransaction> getByTimeRange(long startTime, long endTime) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<StockTransaction> getRecentTransactions(int limit) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<StockTransaction> getByProductIdAndType(String productId, String transactionType) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public StockTransaction getLastTransactionForProduct(String productId) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<UnitStockSummary> getStockSummaryByUnit(String productId) {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,193 @@
+package com.bdajaya.adminku.data.dao;
+
+import androidx.lifecycle.LiveData;
+
+import com.bdajaya.adminku.data.entity.StockBalance;
+import com.bdajaya.adminku.data.entity.StocktakeCount;
+import com.bdajaya.adminku.data.entity.StocktakeSession;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * StocktakeDao di memori di atas {@link InMemoryStockTransactionDao}; varians memakai aturan
+ * SYSTEM_AT_COUNT yang sama dengan query-nya.
+ */
+public class InMemoryStocktakeDao implements StocktakeDao {
+
+    private final InMemoryStockTransactionDao ledger;
+    public final Map<String, StocktakeSession> sessions = new LinkedHashMap<>();
+    /** sessionId|productId -> count */
+    public final Map<String, StocktakeCount> counts = new LinkedHashMap<>();
+
+    public InMemoryStocktakeDao(InMemoryStockTransactionDao ledger) {
+        this.ledger = ledger;
+    }
+
+    /**
+     * Saldo sistem (base unit) saat produk dihitung.
+     */
+    public long systemAtCount(StocktakeCount count) {
+        StockBalance balance = ledger.getBalance(count.getProductId());
+        long lastAdjustAt = balance != null ? balance.getLastAdjustAt() : 0;
+        if (lastAdjustAt > count.getCountedAt()) {
+            return count.getCountedBaseQuantity();
+        }
+        long onHand = balance != null ? balance.getOnHand() : 0;
+        return onHand - ledger.movementsAfter(count.getProductId(), count.getCountedAt());
+    }
+
+    private List<StocktakeCount> countsOf(String sessionId) {
+        List<StocktakeCount> result = new ArrayList<>();
+        for (StocktakeCount count : counts.values()) {
+            if (count.getSessionId().equals(sessionId)) {
+                result.add(count);
+            }
+        }
+        return result;
+    }
+
+    // ================================
+    // SESSIONS
+    // ================================
+
+    @Override
+    public void insertSession(StocktakeSession session) {
+        if (sessions.containsKey(session.getId())) {
+            throw new IllegalStateException("UNIQUE constraint failed: StocktakeSession.id");
+        }
+        sessions.put(session.getId(), session);
+    }
+
+    @Override
+    public StocktakeSession getSession(String sessionId) {
+        return sessions.get(sessionId);
+    }
+
+    @Override
+    public StocktakeSession getLatestOpenSession() {
+        StocktakeSession latest = null;
+        for (StocktakeSession session : sessions.values()) {
+            if (session.isOpen() && (latest == null || session.getCreatedAt() >= latest.getCreatedAt())) {
+                latest = session;
+            }
+        }
+        return latest;
+    }
+
+    @Override
+    public LiveData<List<StocktakeSession>> getSessionsLive() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void touchSession(String sessionId, long now) {
+        StocktakeSession session = sessions.get(sessionId);
+        if (session != null) {
+            session.setUpdatedAt(now);
+        }
+    }
+
+    @Override
+    public int closeSession(String sessionId, String status, long committedAt, int adjustedCount, long now) {
+        StocktakeSession session = sessions.get(sessionId);
+        if (session == null || !session.isOpen()) {
+            return 0;
+        }
+        session.setStatus(status);
+        session.setCommittedAt(committedAt);
+        session.setAdjustedCount(adjustedCount);
+        session.setUpdatedAt(now);
+        return 1;
+    }
+
+    // ================================
+    // COUNTS
+    // ================================
+
+    @Override
+    public void upsertCount(StocktakeCount count) {
+        counts.put(count.getSessionId() + '|' + count.getProductId(), count);
+    }
+
+    @Override
+    public void upsertCounts(List<StocktakeCount> list) {
+        for (StocktakeCount count : list) {
+            upsertCount(count);
+        }
+    }
+
+    @Override
+    public int deleteCount(String sessionId, String productId) {
+        return counts.remove(sessionId + '|' + productId) != null ? 1 : 0;
+    }
+
+    @Override
+    public StocktakeCount getCount(String sessionId, String productId) {
+        return counts.get(sessionId + '|' + productId);
+    }
+
+    @Override
+    public int countCounts(String sessionId) {
+        return countsOf(sessionId).size();
+    }
+
+    // ================================
+    // PROGRESS & VARIANCE
+    // ================================
+
+    @Override
+    public Progress getProgress(String sessionId) {
+        Progress progress = new Progress();
+        progress.counted = countCounts(sessionId);
+        progress.totalProducts = ledger.products.size();
+        for (VarianceLine line : getVariances(sessionId)) {
+            if (line.variance != 0) {
+                progress.varianceLines++;
+            }
+        }
+        return progress;
+    }
+
+    @Override
+    public LiveData<Progress> getProgressLive(String sessionId) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<VarianceLine> getVariances(String sessionId) {
+        List<VarianceLine> lines = new ArrayList<>();
+        for (StocktakeCount count : countsOf(sessionId)) {
+            VarianceLine line = new VarianceLine();
+            line.productId = count.getProductId();
+            line.productName = count.getProductId();
+            line.unitId = count.getUnitId();
+            line.countedQuantity = count.getCountedQuantity();
+            line.conversionFactor = count.getConversionFactor();
+            line.countedBaseQuantity = count.getCountedBaseQuantity();
+            line.countedAt = count.getCountedAt();
+            line.systemQuantity = systemAtCount(count);
+            line.variance = line.countedBaseQuantity - line.systemQuantity;
+            lines.add(line);
+        }
+        lines.sort(Comparator.comparing(line -> line.productId));
+        return lines;
+    }
+
+    @Override
+    public LiveData<List<VarianceLine>> getNonZeroVariancesLive(String sessionId) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int syncCountedProductsFromBalance(String sessionId, long now) {
+        List<StocktakeCount> counted = countsOf(sessionId);
+        for (StocktakeCount count : counted) {
+            ledger.productStock.put(count.getProductId(), ledger.getTotalStockForProduct(count.getProductId()));
+        }
+        return counted.size();
+    }
+}
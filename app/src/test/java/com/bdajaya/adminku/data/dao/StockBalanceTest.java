@@ -0,0 +1,93 @@
+package com.bdajaya.adminku.data.dao;
+
+import com.bdajaya.adminku.data.entity.StockTransaction;
+import com.bdajaya.adminku.data.entity.StockTransaction.TransactionType;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * StockBalance yang dijaga insert() harus selalu sama dengan saldo yang dihitung ulang dari ledger.
+ */
+public class StockBalanceTest {
+
+    private static final String PRODUCT = "p1";
+
+    private InMemoryStockTransactionDao dao;
+
+    @Before
+    public void setUp() {
+        dao = new InMemoryStockTransactionDao();
+        dao.addProduct(PRODUCT);
+    }
+
+    private static StockTransaction row(TransactionType type, long quantity, long timestamp) {
+        return new StockTransaction.Builder(PRODUCT, type)
+                .quantity(quantity)
+                .originalQuantity(quantity)
+                .unitId("pcs")
+                .timestamp(timestamp)
+                .build();
+    }
+
+    private void assertBalance(long expected) {
+        assertEquals(expected, dao.getTotalStockForProduct(PRODUCT));
+        assertEquals(expected, dao.ledgerBalance(PRODUCT));
+    }
+
+    @Test
+    public void addAndRemove_moveBalance() {
+        dao.insert(row(TransactionType.ADD, 10, 10));
+        dao.insert(row(TransactionType.REMOVE, 3, 20));
+
+        assertBalance(7);
+    }
+
+    @Test
+    public void adjust_setsLevelAndIgnoresOlderMovements() {
+        dao.insert(row(TransactionType.ADD, 10, 50));
+        dao.insert(row(TransactionType.ADJUST, 40, 100));
+        // Datang terlambat tapi bertanggal sebelum ADJUST: tidak mengubah saldo
+        dao.insert(row(TransactionType.ADD, 5, 60));
+        dao.insert(row(TransactionType.ADD, 2, 150));
+
+        assertBalance(42);
+    }
+
+    @Test
+    public void backdatedAdjust_replaysLaterMovements() {
+        dao.insert(row(TransactionType.ADD, 100, 10));
+        dao.insert(row(TransactionType.REMOVE, 4, 200));
+        // Hitungan fisik di t=150 yang baru dicatat sekarang; penjualan t=200 tetap terhitung
+        dao.insert(row(TransactionType.ADJUST, 30, 150));
+
+        assertBalance(26);
+    }
+
+    @Test
+    public void reinsertingSameRow_isCountedOnce() {
+        StockTransaction add = row(TransactionType.ADD, 10, 10);
+
+        dao.insert(add);
+        dao.insert(add);
+
+        assertBalance(10);
+        assertEquals(1, dao.getTransactionCountForProduct(PRODUCT));
+    }
+
+    @Test
+    public void rebuild_matchesIncrementalBalance() {
+        dao.insert(row(TransactionType.ADD, 10, 10));
+        dao.insert(row(TransactionType.ADJUST, 7, 20));
+        dao.insert(row(TransactionType.REMOVE, 2, 30));
+        long incremental = dao.getTotalStockForProduct(PRODUCT);
+
+        dao.rebuildAllBalances();
+
+        assertEquals(5, incremental);
+        assertEquals(incremental, dao.getTotalStockForProduct(PRODUCT));
+        assertEquals(20, dao.getBalance(PRODUCT).getLastAdjustAt());
+    }
+}
@@ -0,0 +1,70 @@
+package com.bdajaya.adminku.data.manager;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class CsvReaderTest {
+
+    private static CsvReader reader(String input) {
+        return new CsvReader(new StringReader(input));
+    }
+
+    @Test
+    public void readsPlainRecords() throws IOException {
+        CsvReader csv = reader("a,b,c\n1,2,3\n");
+
+        assertEquals(Arrays.asList("a", "b", "c"), csv.readRecord());
+        assertEquals(Arrays.asList("1", "2", "3"), csv.readRecord());
+        assertNull(csv.readRecord());
+    }
+
+    @Test
+    public void quotedFieldsKeepSeparatorsAndDoubledQuotes() throws IOException {
+        CsvReader csv = reader("\"x, y\",\"he said \"\"hi\"\"\",z\n");
+
+        assertEquals(Arrays.asList("x, y", "he said \"hi\"", "z"), csv.readRecord());
+    }
+
+    @Test
+    public void quotedFieldSpansNewlines() throws IOException {
+        CsvReader csv = reader("name,desc\n\"Kopi\",\"baris 1\nbaris 2\"\nnext,row\n");
+
+        csv.readRecord();
+        assertEquals(Arrays.asList("Kopi", "baris 1\nbaris 2"), csv.readRecord());
+        assertEquals(2, csv.getLineNumber());
+        assertEquals(Arrays.asList("next", "row"), csv.readRecord());
+        assertEquals(4, csv.getLineNumber());
+    }
+
+    @Test
+    public void stripsLeadingBom() throws IOException {
+        CsvReader csv = reader("\uFEFFid,name\n1,x");
+
+        assertEquals(Arrays.asList("id", "name"), csv.readRecord());
+        assertEquals(Arrays.asList("1", "x"), csv.readRecord());
+        assertNull(csv.readRecord());
+    }
+
+    @Test
+    public void handlesCrlfAndBlankLines() throws IOException {
+        CsvReader csv = reader("a,b\r\n\r\n\nc,d\r\n");
+
+        assertEquals(Arrays.asList("a", "b"), csv.readRecord());
+        assertEquals(Arrays.asList("c", "d"), csv.readRecord());
+        assertEquals(4, csv.getLineNumber());
+        assertNull(csv.readRecord());
+    }
+
+    @Test
+    public void keepsEmptyFields() throws IOException {
+        CsvReader csv = reader("a,\n\"\",b\n");
+
+        assertEquals(Arrays.asList("a", ""), csv.readRecord());
+        assertEquals(Arrays.asList("", "b"), csv.readRecord());
+    }
+}
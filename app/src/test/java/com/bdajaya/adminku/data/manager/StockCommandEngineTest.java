@@ -0,0 +1,134 @@
+package com.bdajaya.adminku.data.manager;
+
+import com.bdajaya.adminku.data.dao.InMemoryStockTransactionDao;
+import com.bdajaya.adminku.data.entity.StockTransaction;
+import com.bdajaya.adminku.data.model.StockCommand;
+import com.bdajaya.adminku.data.model.StockCommandResult;
+import com.bdajaya.adminku.data.model.StockCommandResult.Status;
+import com.bdajaya.adminku.data.repository.TestUnitTables;
+import com.bdajaya.adminku.data.repository.UnitConversionTable;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class StockCommandEngineTest {
+
+    private InMemoryStockTransactionDao dao;
+    private StockCommandEngine engine;
+
+    @Before
+    public void setUp() {
+        dao = new InMemoryStockTransactionDao();
+        dao.addProduct("p1");
+        dao.addProduct("p2");
+        UnitConversionTable units = TestUnitTables.pcsAndDozen();
+        engine = new StockCommandEngine(dao, () -> units);
+    }
+
+    private StockCommandResult apply(StockCommand command) {
+        return engine.apply(command);
+    }
+
+    @Test
+    public void add_convertsToBaseUnitOnce() {
+        StockCommandResult result = apply(StockCommand.add("p1", 2, "lusin", null));
+
+        assertTrue(result.isApplied());
+        assertEquals(24, result.baseQuantity);
+        assertEquals(24, result.onHand);
+        assertEquals(24, dao.getTotalStockForProduct("p1"));
+        assertEquals(Long.valueOf(24), dao.productStock.get("p1"));
+
+        StockTransaction row = dao.getById(result.transactionId);
+        assertEquals(24, row.getQuantity());
+        assertEquals(2, row.getOriginalQuantity());
+        assertEquals(12, row.getOriginalConversionFactor());
+        assertEquals("lusin", row.getUnitId());
+    }
+
+    @Test
+    public void remove_insufficientStock_writesNothing() {
+        apply(StockCommand.add("p1", 5, "pcs", null));
+
+        StockCommandResult result = apply(StockCommand.remove("p1", 1, "lusin", null));
+
+        assertEquals(Status.INSUFFICIENT_STOCK, result.status);
+        assertEquals(5, result.onHand);
+        assertEquals(5, dao.getTotalStockForProduct("p1"));
+        assertEquals(1, dao.getTransactionCountForProduct("p1"));
+    }
+
+    @Test
+    public void remove_neverOversells() {
+        apply(StockCommand.add("p1", 10, "pcs", null));
+
+        StockCommandResult first = apply(StockCommand.remove("p1", 6, "pcs", null));
+        StockCommandResult second = apply(StockCommand.remove("p1", 6, "pcs", null));
+
+        assertTrue(first.isApplied());
+        assertEquals(Status.INSUFFICIENT_STOCK, second.status);
+        assertEquals(4, dao.getTotalStockForProduct("p1"));
+        assertEquals(4, dao.ledgerBalance("p1"));
+    }
+
+    @Test
+    public void adjust_thenAddInSameMillisecond_isCounted() {
+        apply(StockCommand.add("p1", 3, "pcs", null));
+
+        StockCommandResult adjust = apply(StockCommand.adjust("p1", 7, "pcs", "opname"));
+        StockCommandResult add = apply(StockCommand.add("p1", 1, "pcs", null));
+
+        assertEquals(7, adjust.onHand);
+        assertEquals(8, add.onHand);
+        assertEquals(8, dao.getTotalStockForProduct("p1"));
+        assertEquals(8, dao.ledgerBalance("p1"));
+    }
+
+    @Test
+    public void invalidCommands_areRejected() {
+        assertEquals(Status.INVALID_QUANTITY, apply(StockCommand.add("p1", 0, "pcs", null)).status);
+        assertEquals(Status.INVALID_QUANTITY, apply(StockCommand.remove("p1", -1, "pcs", null)).status);
+        assertEquals(Status.INVALID_QUANTITY,
+                apply(StockCommand.add("p1", Long.MAX_VALUE, "lusin", null)).status);
+        assertEquals(Status.UNKNOWN_UNIT, apply(StockCommand.add("p1", 1, "karton", null)).status);
+        assertEquals(Status.PRODUCT_NOT_FOUND, apply(StockCommand.add("nope", 1, "pcs", null)).status);
+        assertTrue(dao.ledger.isEmpty());
+    }
+
+    @Test
+    public void applyAll_sumsLinesOfSameProductAndWritesNothingOnRejection() {
+        apply(StockCommand.add("p1", 5, "pcs", null));
+        apply(StockCommand.add("p2", 5, "pcs", null));
+        int rows = dao.ledger.size();
+
+        List<StockCommandResult> results = engine.applyAll(Arrays.asList(
+                StockCommand.remove("p2", 1, "pcs", null),
+                StockCommand.remove("p1", 3, "pcs", null),
+                StockCommand.remove("p1", 3, "pcs", null)));
+
+        assertEquals(Status.BATCH_REJECTED, results.get(0).status);
+        assertEquals(Status.BATCH_REJECTED, results.get(1).status);
+        assertEquals(Status.INSUFFICIENT_STOCK, results.get(2).status);
+        assertEquals(rows, dao.ledger.size());
+        assertEquals(5, dao.getTotalStockForProduct("p1"));
+        assertEquals(5, dao.getTotalStockForProduct("p2"));
+    }
+
+    @Test
+    public void applyAll_appliesEveryLineWhenAllFit() {
+        apply(StockCommand.add("p1", 24, "pcs", null));
+
+        List<StockCommandResult> results = engine.applyAll(Arrays.asList(
+                StockCommand.remove("p1", 1, "lusin", null),
+                StockCommand.remove("p1", 12, "pcs", null)));
+
+        assertTrue(results.get(0).isApplied());
+        assertTrue(results.get(1).isApplied());
+        assertEquals(0, dao.getTotalStockForProduct("p1"));
+    }
+}
@@ -0,0 +1,125 @@
+package com.bdajaya.adminku.data.manager;
+
+import com.bdajaya.adminku.data.TestWriteBatchers;
+import com.bdajaya.adminku.data.dao.InMemoryStockTransactionDao;
+import com.bdajaya.adminku.data.entity.StockMonthlySummary;
+import com.bdajaya.adminku.data.entity.StockTransaction;
+import com.bdajaya.adminku.data.entity.StockTransaction.TransactionType;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class StockLedgerCompactorTest {
+
+    private static final String PRODUCT = "p1";
+    // 15 Maret 2024 00:00 UTC: semua baris tetap di bulan yang sama di zona waktu mana pun
+    private static final long BASE = 1710460800000L;
+    private static final long HOUR = 3600_000L;
+
+    private InMemoryStockTransactionDao dao;
+    private StockLedgerCompactor compactor;
+
+    @Before
+    public void setUp() {
+        dao = new InMemoryStockTransactionDao();
+        dao.addProduct(PRODUCT);
+        compactor = new StockLedgerCompactor(TestWriteBatchers.singleThread(), dao);
+
+        insert(TransactionType.ADD, 10, 1, "pcs", 1, 1);
+        insert(TransactionType.ADJUST, 50, 50, "pcs", 1, 2);
+        insert(TransactionType.ADD, 24, 2, "box", 12, 3);
+        insert(TransactionType.REMOVE, 5, 5, "pcs", 1, 4);
+        insert(TransactionType.ADD, 12, 1, "box", 12, 5);
+        insert(TransactionType.REMOVE, 3, 3, "pcs", 1, 7);
+    }
+
+    private void insert(TransactionType type, long quantity, long originalQuantity, String unitId,
+                        long factor, int hour) {
+        dao.insert(new StockTransaction.Builder(PRODUCT, type)
+                .quantity(quantity)
+                .originalQuantity(originalQuantity)
+                .originalConversionFactor(factor)
+                .unitId(unitId)
+                .timestamp(BASE + hour * HOUR)
+                .build());
+    }
+
+    private int compact(long cutoff) throws Exception {
+        return compactor.compactOlderThan(cutoff).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void compaction_keepsBalance() throws Exception {
+        long before = dao.ledgerBalance(PRODUCT);
+
+        compact(BASE + 6 * HOUR);
+
+        assertEquals(78, before);
+        assertEquals(before, dao.ledgerBalance(PRODUCT));
+        assertEquals(before, dao.getTotalStockForProduct(PRODUCT));
+    }
+
+    @Test
+    public void compaction_foldsRowsIntoCheckpoints() throws Exception {
+        int removed = compact(BASE + 6 * HOUR);
+
+        // 5 baris lama -> ADJUST checkpoint + net pcs + net box; baris setelah cutoff tetap
+        assertEquals(2, removed);
+        List<StockTransaction> rows = dao.getLedgerBefore(PRODUCT, BASE + 6 * HOUR);
+        assertEquals(3, rows.size());
+        for (StockTransaction row : rows) {
+            assertTrue(row.isCheckpoint());
+        }
+
+        StockTransaction adjust = rows.get(0);
+        assertTrue(adjust.isAdjustment());
+        assertEquals(50, adjust.getQuantity());
+
+        StockTransaction pcs = rows.get(1);
+        assertTrue(pcs.isRemoval());
+        assertEquals(5, pcs.getQuantity());
+
+        StockTransaction box = rows.get(2);
+        assertTrue(box.isAddition());
+        assertEquals(36, box.getQuantity());
+        assertEquals(3, box.getOriginalQuantity());
+        assertEquals(12, box.getOriginalConversionFactor());
+
+        assertEquals(4, dao.getTransactionCountForProduct(PRODUCT));
+    }
+
+    @Test
+    public void compaction_recordsMonthlySummary() throws Exception {
+        compact(BASE + 6 * HOUR);
+
+        long added = 0;
+        long removedQuantity = 0;
+        int adjusts = 0;
+        int transactions = 0;
+        for (StockMonthlySummary summary : dao.getMonthlySummaries(PRODUCT)) {
+            added += summary.getAddQuantity();
+            removedQuantity += summary.getRemoveQuantity();
+            adjusts += summary.getAdjustCount();
+            transactions += summary.getTransactionCount();
+        }
+        assertEquals(46, added);
+        assertEquals(5, removedQuantity);
+        assertEquals(1, adjusts);
+        assertEquals(5, transactions);
+    }
+
+    @Test
+    public void secondRun_isNoOp() throws Exception {
+        compact(BASE + 6 * HOUR);
+        int rows = dao.getTransactionCountForProduct(PRODUCT);
+
+        assertEquals(0, compact(BASE + 6 * HOUR));
+        assertEquals(rows, dao.getTransactionCountForProduct(PRODUCT));
+        assertEquals(78, dao.ledgerBalance(PRODUCT));
+    }
+}
@@ -0,0 +1,109 @@
+package com.bdajaya.adminku.data.repository;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.bdajaya.adminku.data.repository.TestBarcodeIndexes.row;
+import static org.junit.Assert.*;
+
+public class BarcodeIndexTest {
+
+    private TestBarcodeIndexes.FakeSource source;
+    private BarcodeIndex index;
+
+    @Before
+    public void setUp() {
+        source = new TestBarcodeIndexes.FakeSource();
+        source.put(row(1, "p1", "BE-00000001", 5000, 10));
+        source.put(row(2, "p2", "8991234567890", 7000, 3));
+        source.put(row(3, "p3", "", 1000, 1));
+        index = new BarcodeIndex(source, Runnable::run);
+        index.load();
+    }
+
+    @Test
+    public void load_indexesScannableProducts() {
+        assertTrue(index.isLoaded());
+        assertFalse(index.isStale());
+        assertEquals(2, index.size());
+        assertEquals("p2", index.lookup("8991234567890").productId);
+        assertNull(index.lookup("nope"));
+        assertNull(index.lookup(null));
+    }
+
+    @Test
+    public void lookup_trimsAndMatchesLowerCaseInternalBarcode() {
+        assertEquals("p1", index.lookup("  be-00000001 ").productId);
+    }
+
+    @Test
+    public void write_updatesOnlyChangedRows() {
+        source.put(row(1, "p1", "BE-00000001", 5500, 9));
+
+        index.invalidate();
+
+        assertEquals(1, source.fullLoads);
+        assertEquals(1, source.changedRowsRead);
+        assertFalse(index.isStale());
+        BarcodeIndex.Entry entry = index.lookup("BE-00000001");
+        assertEquals(5500, entry.sellPrice);
+        assertEquals(9, entry.stock);
+    }
+
+    @Test
+    public void deletedProductAndClearedBarcode_areDropped() {
+        source.delete(1);
+        source.put(row(2, "p2", "", 7000, 3));
+
+        index.invalidate();
+
+        assertNull(index.lookup("BE-00000001"));
+        assertNull(index.lookup("8991234567890"));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void changedBarcode_movesEntry() {
+        source.put(row(3, "p3", "BE-00000003", 1000, 1));
+        source.put(row(1, "p1", "BE-00000009", 5000, 10));
+
+        index.invalidate();
+
+        assertEquals("p3", index.lookup("BE-00000003").productId);
+        assertEquals("p1", index.lookup("BE-00000009").productId);
+        assertNull(index.lookup("BE-00000001"));
+    }
+
+    @Test
+    public void swappedBarcodes_endUpOnTheRightProducts() {
+        source.put(row(1, "p1", "8991234567890", 5000, 10));
+        source.put(row(2, "p2", "BE-00000001", 7000, 3));
+
+        index.invalidate();
+
+        assertEquals("p1", index.lookup("8991234567890").productId);
+        assertEquals("p2", index.lookup("BE-00000001").productId);
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    public void unitConversion_isAppliedToAvailableUnits() {
+        source.put(row(4, "p4", "BE-00000004", "lusin", 12, 60000, 30, "LIVE"));
+
+        index.invalidate();
+
+        assertEquals(2, index.lookup("BE-00000004").availableUnits());
+    }
+
+    @Test
+    public void close_detachesAndEmptiesIndex() {
+        index.close();
+        source.put(row(5, "p5", "BE-00000005", 100, 1));
+
+        index.invalidate();
+
+        assertFalse(index.isLoaded());
+        assertNull(index.lookup("BE-00000001"));
+        assertEquals(0, source.changedRowsRead);
+    }
+}
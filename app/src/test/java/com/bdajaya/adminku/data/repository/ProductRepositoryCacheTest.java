@@ -0,0 +1,144 @@
+package com.bdajaya.adminku.data.repository;
+
+import com.bdajaya.adminku.data.dao.ProductDao;
+import com.bdajaya.adminku.data.model.ProductWithDetails;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ProductRepositoryCacheTest {
+
+    private FakeSource source;
+    private ProductRepositoryCache cache;
+
+    @Before
+    public void setUp() {
+        source = new FakeSource();
+        cache = new ProductRepositoryCache(source, 10);
+    }
+
+    @Test
+    public void secondRead_isServedFromCache() {
+        ProductWithDetails first = cache.getProductWithDetails("p1");
+
+        assertSame(first, cache.getProductWithDetails("p1"));
+        assertEquals(1, source.loads("p1"));
+    }
+
+    @Test
+    public void productChange_evictsOnlyChangedIds() {
+        cache.getProductWithDetails("p1");
+        cache.getProductWithDetails("p2");
+
+        source.change("p1");
+        cache.onTablesInvalidated(Collections.singleton("ProductChange"));
+        cache.getProductWithDetails("p1");
+        cache.getProductWithDetails("p2");
+
+        assertEquals(2, source.loads("p1"));
+        assertEquals(1, source.loads("p2"));
+        assertEquals(1, source.changedAfterCalls);
+    }
+
+    @Test
+    public void changesAreReadOnlyOnce() {
+        cache.getProductWithDetails("p1");
+        source.change("p1");
+        cache.onTablesInvalidated(Collections.singleton("ProductChange"));
+        cache.getProductWithDetails("p1");
+
+        source.change("p2");
+        cache.onTablesInvalidated(Collections.singleton("ProductChange"));
+        cache.getProductWithDetails("p1");
+
+        assertEquals(2, source.loads("p1"));
+    }
+
+    @Test
+    public void sharedTableChange_clearsEverything() {
+        cache.getProductWithDetails("p1");
+        cache.getProductWithDetails("p2");
+
+        cache.onTablesInvalidated(Collections.singleton("Brand"));
+
+        assertEquals(0, cache.size());
+        assertEquals(0, source.changedAfterCalls);
+    }
+
+    @Test
+    public void loadOverlappingInvalidation_isNotCached() {
+        source.duringLoad = () -> {
+            source.change("p1");
+            cache.onTablesInvalidated(Collections.singleton("ProductChange"));
+        };
+        cache.getProductWithDetails("p1");
+        source.duringLoad = null;
+
+        cache.getProductWithDetails("p1");
+
+        assertEquals(2, source.loads("p1"));
+    }
+
+    @Test
+    public void missingProduct_isNotCached() {
+        source.missing = "gone";
+
+        assertNull(cache.getProductWithDetails("gone"));
+        assertEquals(0, cache.size());
+    }
+
+    private static final class FakeSource implements ProductRepositoryCache.Source {
+        private final Map<String, Integer> loads = new HashMap<>();
+        private final List<ProductDao.ChangedProduct> changes = new ArrayList<>();
+        private long seq;
+        int changedAfterCalls;
+        Runnable duringLoad;
+        String missing;
+
+        void change(String productId) {
+            ProductDao.ChangedProduct change = new ProductDao.ChangedProduct();
+            change.productId = productId;
+            change.seq = ++seq;
+            changes.add(change);
+        }
+
+        int loads(String id) {
+            Integer count = loads.get(id);
+            return count != null ? count : 0;
+        }
+
+        @Override
+        public ProductWithDetails load(String id) {
+            loads.put(id, loads(id) + 1);
+            if (duringLoad != null) {
+                duringLoad.run();
+            }
+            return id.equals(missing) ? null : new ProductWithDetails();
+        }
+
+        @Override
+        public long lastChangeSeq() {
+            return seq;
+        }
+
+        @Override
+        public List<ProductDao.ChangedProduct> changedAfter(long after) {
+            changedAfterCalls++;
+            List<ProductDao.ChangedProduct> result = new ArrayList<>();
+            for (ProductDao.ChangedProduct change : changes) {
+                if (change.seq > after) {
+                    result.add(change);
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.bdajaya.adminku.data.repository;
+
+import com.bdajaya.adminku.core.AsyncResult;
+import com.bdajaya.adminku.core.Result;
+import com.bdajaya.adminku.data.TestWriteBatchers;
+import com.bdajaya.adminku.data.dao.InMemoryStockTransactionDao;
+import com.bdajaya.adminku.data.dao.InMemoryStocktakeDao;
+import com.bdajaya.adminku.data.entity.StockTransaction;
+import com.bdajaya.adminku.data.entity.StockTransaction.TransactionType;
+import com.bdajaya.adminku.data.entity.StocktakeCount;
+import com.bdajaya.adminku.data.entity.StocktakeSession;
+import com.bdajaya.adminku.data.entity.Unit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class StocktakeRepositoryTest {
+
+    private InMemoryStockTransactionDao ledger;
+    private InMemoryStocktakeDao stocktakeDao;
+    private StocktakeRepository repository;
+
+    @Before
+    public void setUp() {
+        ledger = new InMemoryStockTransactionDao();
+        ledger.addProduct("p1");
+        ledger.addProduct("p2");
+        stocktakeDao = new InMemoryStocktakeDao(ledger);
+
+        UnitConversionTable units = new UnitConversionTable(Arrays.asList(
+                new Unit("pcs", "pcs", "pcs", 1, true, 0, 0),
+                new Unit("lusin", "lusin", "pcs", 12, false, 0, 0)));
+        repository = new StocktakeRepository(TestWriteBatchers.singleThread(), Runnable::run, stocktakeDao,
+                ledger, () -> units);
+    }
+
+    private static <T> Result<T> await(AsyncResult<T> request) throws Exception {
+        return request.toFuture().get(5, TimeUnit.SECONDS);
+    }
+
+    private void stock(String productId, TransactionType type, long quantity, long timestamp) {
+        ledger.insert(new StockTransaction.Builder(productId, type)
+                .quantity(quantity)
+                .originalQuantity(quantity)
+                .unitId("pcs")
+                .timestamp(timestamp)
+                .build());
+    }
+
+    private void count(String sessionId, String productId, long baseQuantity, long countedAt) {
+        stocktakeDao.upsertCount(new StocktakeCount(sessionId, productId, "pcs", baseQuantity, 1,
+                baseQuantity, countedAt));
+    }
+
+    @Test
+    public void recordCount_convertsToBaseUnitOnce() throws Exception {
+        String session = await(repository.startSession("Gudang")).getData();
+
+        Result<Void> result = await(repository.recordCount(session, "p1", 2, "lusin"));
+
+        assertTrue(result.isSuccess());
+        StocktakeCount count = stocktakeDao.getCount(session, "p1");
+        assertEquals(2, count.getCountedQuantity());
+        assertEquals(12, count.getConversionFactor());
+        assertEquals(24, count.getCountedBaseQuantity());
+    }
+
+    @Test
+    public void recordCounts_rejectsWholeBatchOnInvalidLine() throws Exception {
+        String session = await(repository.startSession("Gudang")).getData();
+        List<StocktakeRepository.CountInput> inputs = new ArrayList<>();
+        inputs.add(new StocktakeRepository.CountInput("p1", 5, "pcs"));
+        inputs.add(new StocktakeRepository.CountInput("p2", 1, "karton"));
+
+        Result<Void> result = await(repository.recordCounts(session, inputs));
+
+        assertTrue(result.isFailure());
+        assertEquals(0, stocktakeDao.countCounts(session));
+    }
+
+    @Test
+    public void commit_writesAdjustOnlyForVarianceAndKeepsLaterSales() throws Exception {
+        stock("p1", TransactionType.ADD, 30, 100);
+        stock("p2", TransactionType.ADD, 10, 100);
+        String session = await(repository.startSession("Gudang")).getData();
+        count(session, "p1", 25, 200);
+        count(session, "p2", 10, 200);
+        // Terjual setelah dihitung, sebelum commit
+        stock("p1", TransactionType.REMOVE, 3, 300);
+
+        List<int[]> progress = new ArrayList<>();
+        Result<Integer> result = await(repository.commitSession(session,
+                (written, total) -> progress.add(new int[]{written, total})));
+
+        assertTrue(result.isSuccess());
+        assertEquals(Integer.valueOf(1), result.getData());
+        // Hitungan 25 di t=200, lalu -3: bukan 25 dan bukan 27
+        assertEquals(22, ledger.getTotalStockForProduct("p1"));
+        assertEquals(22, ledger.ledgerBalance("p1"));
+        assertEquals(10, ledger.getTotalStockForProduct("p2"));
+        assertEquals(1, ledger.rowsFor("p2").size());
+        assertEquals(Long.valueOf(22), ledger.productStock.get("p1"));
+        assertEquals(Long.valueOf(10), ledger.productStock.get("p2"));
+
+        StocktakeSession closed = stocktakeDao.getSession(session);
+        assertEquals(StocktakeSession.STATUS_COMMITTED, closed.getStatus());
+        assertEquals(1, closed.getAdjustedCount());
+        assertEquals(1, progress.size());
+        assertArrayEquals(new int[]{1, 1}, progress.get(0));
+    }
+
+    @Test
+    public void commit_onClosedSessionFailsWithoutWriting() throws Exception {
+        stock("p1", TransactionType.ADD, 30, 100);
+        String session = await(repository.startSession("Gudang")).getData();
+        count(session, "p1", 20, 200);
+        assertTrue(await(repository.commitSession(session, null)).isSuccess());
+        int rows = ledger.ledger.size();
+
+        Result<Integer> again = await(repository.commitSession(session, null));
+
+        assertTrue(again.isFailure());
+        assertEquals(rows, ledger.ledger.size());
+        assertEquals(20, ledger.getTotalStockForProduct("p1"));
+    }
+
+    @Test
+    public void cancelledSession_rejectsCounts() throws Exception {
+        String session = await(repository.startSession("Gudang")).getData();
+        assertTrue(await(repository.cancelSession(session)).isSuccess());
+
+        Result<Void> result = await(repository.recordCount(session, "p1", 1, "pcs"));
+
+        assertTrue(result.isFailure());
+        assertNull(repository.getResumableSession().getData());
+    }
+}
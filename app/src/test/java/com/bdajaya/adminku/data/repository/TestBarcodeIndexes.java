@@ -0,0 +1,108 @@
+package com.bdajaya.adminku.data.repository;
+
+import com.bdajaya.adminku.data.dao.ProductDao;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BarcodeIndex di atas "tabel" Product di memori, untuk test di luar package ini.
+ */
+public final class TestBarcodeIndexes {
+
+    private TestBarcodeIndexes() {}
+
+    public static ProductDao.BarcodeRow row(long docid, String productId, String barcode, String unitId,
+                                            long conversionFactor, long sellPrice, long stock, String status) {
+        ProductDao.BarcodeRow row = new ProductDao.BarcodeRow();
+        row.docid = docid;
+        row.productId = productId;
+        row.barcode = barcode;
+        row.name = "Produk " + productId;
+        row.unitId = unitId;
+        row.conversionFactor = conversionFactor;
+        row.sellPrice = sellPrice;
+        row.stock = stock;
+        row.status = status;
+        return row;
+    }
+
+    public static ProductDao.BarcodeRow row(long docid, String productId, String barcode, long sellPrice, long stock) {
+        return row(docid, productId, barcode, "pcs", 1, sellPrice, stock, "LIVE");
+    }
+
+    /**
+     * Index yang sudah di-load; update dijalankan langsung di thread pemanggil.
+     */
+    public static BarcodeIndex loaded(ProductDao.BarcodeRow... rows) {
+        FakeSource source = new FakeSource();
+        for (ProductDao.BarcodeRow row : rows) {
+            source.put(row);
+        }
+        BarcodeIndex index = new BarcodeIndex(source, Runnable::run);
+        index.load();
+        return index;
+    }
+
+    /**
+     * Product + ProductChange: setiap put/delete mencatat docid dengan seq berikutnya, seperti
+     * trigger product_change_*.
+     */
+    static final class FakeSource implements BarcodeIndex.Source {
+        private final Map<Long, ProductDao.BarcodeRow> products = new LinkedHashMap<>();
+        private final Map<Long, Long> changes = new LinkedHashMap<>(); // docid -> seq
+        private long seq;
+        int fullLoads;
+        int changedRowsRead;
+
+        void put(ProductDao.BarcodeRow row) {
+            products.put(row.docid, row);
+            changes.put(row.docid, ++seq);
+        }
+
+        void delete(long docid) {
+            products.remove(docid);
+            changes.put(docid, ++seq);
+        }
+
+        @Override
+        public long lastChangeSeq() {
+            return seq;
+        }
+
+        @Override
+        public List<ProductDao.BarcodeRow> allRows() {
+            fullLoads++;
+            List<ProductDao.BarcodeRow> rows = new ArrayList<>();
+            for (ProductDao.BarcodeRow row : products.values()) {
+                if (row.barcode != null && !row.barcode.isEmpty()) {
+                    rows.add(row);
+                }
+            }
+            return rows;
+        }
+
+        @Override
+        public List<ProductDao.BarcodeRow> rowsChangedAfter(long since) {
+            List<ProductDao.BarcodeRow> rows = new ArrayList<>();
+            for (Map.Entry<Long, Long> change : changes.entrySet()) {
+                if (change.getValue() <= since) {
+                    continue;
+                }
+                ProductDao.BarcodeRow product = products.get(change.getKey());
+                ProductDao.BarcodeRow row = product != null
+                        ? row(product.docid, product.productId, product.barcode, product.unitId,
+                                product.conversionFactor, product.sellPrice, product.stock, product.status)
+                        : new ProductDao.BarcodeRow();
+                row.docid = change.getKey();
+                row.seq = change.getValue();
+                rows.add(row);
+            }
+            rows.sort((a, b) -> Long.compare(a.seq, b.seq));
+            changedRowsRead += rows.size();
+            return rows;
+        }
+    }
+}
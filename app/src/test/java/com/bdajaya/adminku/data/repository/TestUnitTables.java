@@ -0,0 +1,25 @@
+package com.bdajaya.adminku.data.repository;
+
+import com.bdajaya.adminku.data.entity.Unit;
+
+import java.util.Arrays;
+
+/**
+ * UnitConversionTable untuk test di luar package ini: pcs (dasar) dan lusin (12 pcs).
+ */
+public final class TestUnitTables {
+
+    private TestUnitTables() {}
+
+    public static UnitConversionTable pcsAndDozen() {
+        return of(new Unit("pcs", "pcs", "pcs", 1, true, 0, 0),
+                new Unit("lusin", "lusin", "pcs", 12, false, 0, 0));
+    }
+
+    /**
+     * @param units Urutan UnitDao.getAllSync: unit dasar dulu
+     */
+    public static UnitConversionTable of(Unit... units) {
+        return new UnitConversionTable(Arrays.asList(units));
+    }
+}
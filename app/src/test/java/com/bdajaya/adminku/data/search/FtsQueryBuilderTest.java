@@ -0,0 +1,62 @@
+package com.bdajaya.adminku.data.search;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class FtsQueryBuilderTest {
+
+    @Test
+    public void build_turnsWordsIntoPrefixTerms() {
+        assertEquals("kopi* susu*", FtsQueryBuilder.build("Kopi  Susu"));
+    }
+
+    @Test
+    public void build_keepsQuotedPhrase() {
+        assertEquals("\"kopi susu*\"", FtsQueryBuilder.build("\"kopi susu\""));
+        assertEquals("kopi*", FtsQueryBuilder.build("\"kopi\""));
+    }
+
+    @Test
+    public void build_closesUnterminatedQuote() {
+        assertEquals("teh* \"gula batu*\"", FtsQueryBuilder.build("teh \"gula batu"));
+    }
+
+    @Test
+    public void build_doesNotLeakOperators() {
+        // *, -, ^, :, ( ) dibuang; OR/NOT/NEAR menjadi term biasa huruf kecil
+        assertEquals("kopi* susu* or* teh*", FtsQueryBuilder.build("kopi* -susu OR teh"));
+        assertEquals("not* near* name* x*", FtsQueryBuilder.build("NOT (NEAR) name:^x"));
+    }
+
+    @Test
+    public void build_splitsOnQuotesInsideWords() {
+        assertEquals("a* b* c*", FtsQueryBuilder.build("a\"b\"c"));
+    }
+
+    @Test
+    public void build_returnsNullWithoutTokens() {
+        assertNull(FtsQueryBuilder.build(null));
+        assertNull(FtsQueryBuilder.build(""));
+        assertNull(FtsQueryBuilder.build("\"\" * - ()"));
+    }
+
+    @Test
+    public void build_capsTermCount() {
+        assertEquals("a* b* c* d* e* f* g* h*", FtsQueryBuilder.build("a b c d e f g h i j"));
+    }
+
+    @Test
+    public void buildForColumn_restrictsEveryPart() {
+        assertEquals("name:kopi* name:\"gula batu*\"", FtsQueryBuilder.build("Kopi \"gula batu", "name"));
+        assertNull(FtsQueryBuilder.build("-", "name"));
+    }
+
+    @Test
+    public void tokenize_lowercasesAlphanumericRuns() {
+        assertEquals(Arrays.asList("be", "00000001"), FtsQueryBuilder.tokenize("BE-00000001"));
+        assertTrue(FtsQueryBuilder.tokenize("").isEmpty());
+    }
+}
@@ -0,0 +1,71 @@
+package com.bdajaya.adminku.data.search;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.*;
+
+public class FtsScorerTest {
+
+    private static final double[] NAME_FIRST = {10.0, 1.0};
+
+    /**
+     * matchinfo('pcnx') dengan 2 kolom: per phrase {docsWithHit name, docsWithHit description}.
+     */
+    private static byte[] stats(int rowCount, int[]... docsWithHit) {
+        int columns = 2;
+        ByteBuffer buffer = ByteBuffer.allocate(12 + 12 * docsWithHit.length * columns)
+                .order(ByteOrder.nativeOrder());
+        buffer.putInt(docsWithHit.length).putInt(columns).putInt(rowCount);
+        for (int[] phrase : docsWithHit) {
+            for (int docs : phrase) {
+                buffer.putInt(1).putInt(docs).putInt(docs);
+            }
+        }
+        return buffer.array();
+    }
+
+    @Test
+    public void weights_nameColumnOutweighsDescription() {
+        double[] weights = FtsScorer.weights(stats(100, new int[]{10, 10}), NAME_FIRST);
+
+        assertEquals(2, weights.length);
+        assertTrue(weights[0] > weights[1]);
+        assertEquals(10.0, weights[0] / weights[1], 1e-9);
+    }
+
+    @Test
+    public void weights_rareTermOutweighsCommonTerm() {
+        double[] weights = FtsScorer.weights(stats(100, new int[]{2, 0}, new int[]{80, 0}), NAME_FIRST);
+
+        assertTrue(weights[0] > weights[2]);
+        assertEquals(0.0, weights[1], 0.0);
+        assertEquals(0.0, weights[3], 0.0);
+    }
+
+    @Test
+    public void weights_malformedBlobIsEmpty() {
+        assertEquals(0, FtsScorer.weights(null, NAME_FIRST).length);
+        assertEquals(0, FtsScorer.weights(new byte[8], NAME_FIRST).length);
+    }
+
+    @Test
+    public void scoreExpression_readsHitsOfWeightedPhraseColumns() {
+        String sql = FtsScorer.scoreExpression("mi", new double[]{2.5, 0, 0, 1.25});
+
+        // int 0 (phrase 0, name) dimulai di karakter hex 1; int 9 (phrase 1, description) di 73
+        assertTrue(sql.startsWith("2.500000 * ((("));
+        assertTrue(sql.contains("substr(mi, 1, 1)"));
+        assertTrue(sql.contains("1.250000 * "));
+        assertTrue(sql.contains("substr(mi, 73, 1)"));
+        assertFalse(sql.contains("substr(mi, 25, 1)"));
+        assertTrue(sql.endsWith("+ 1.2)"));
+    }
+
+    @Test
+    public void scoreExpression_withoutWeightsIsZero() {
+        assertEquals("0", FtsScorer.scoreExpression("mi", new double[]{0, 0}));
+    }
+}
@@ -0,0 +1,73 @@
+package com.bdajaya.adminku.data.search;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PostingListTest {
+
+    @Test
+    public void encodeDecode_roundTrips() {
+        long[] docids = {1, 2, 3, 127, 128, 300, 16384, 1L << 40};
+
+        byte[] encoded = PostingList.encode(docids);
+
+        assertArrayEquals(docids, PostingList.decode(encoded, docids.length));
+    }
+
+    @Test
+    public void decode_growsPastStaleCount() {
+        long[] docids = {5, 10, 15, 20, 25, 30, 35, 40, 45, 50};
+
+        byte[] encoded = PostingList.encode(docids);
+
+        assertArrayEquals(docids, PostingList.decode(encoded, 2));
+        assertArrayEquals(docids, PostingList.decode(encoded, 0));
+    }
+
+    @Test
+    public void encode_usesOneBytePerSmallDelta() {
+        assertEquals(1, PostingList.encode(new long[]{127}).length);
+        assertEquals(2, PostingList.encode(new long[]{128}).length);
+        // Delta, bukan nilai absolut: 1000 lalu 1001 = 2 byte + 1 byte
+        assertEquals(3, PostingList.encode(new long[]{1000, 1001}).length);
+    }
+
+    @Test
+    public void emptyList_roundTrips() {
+        byte[] encoded = PostingList.encode(new long[0]);
+
+        assertEquals(0, encoded.length);
+        assertEquals(0, PostingList.decode(encoded, 0).length);
+        assertEquals(0, PostingList.decode(null, 3).length);
+    }
+
+    @Test
+    public void apply_mergesAddedAndDropsRemoved() {
+        long[] current = {1, 3, 5};
+        long[] added = {2, 3, 6};
+        long[] removed = {3, 6, 7};
+
+        assertArrayEquals(new long[]{1, 2, 5}, PostingList.apply(current, added, removed));
+    }
+
+    @Test
+    public void apply_deduplicatesOverlap() {
+        assertArrayEquals(new long[]{1, 5, 9},
+                PostingList.apply(new long[]{1, 5}, new long[]{5, 9}, new long[0]));
+    }
+
+    @Test
+    public void apply_canEmptyTheList() {
+        assertArrayEquals(new long[0],
+                PostingList.apply(new long[]{4}, new long[0], new long[]{4}));
+    }
+
+    @Test
+    public void applyThenEncode_roundTrips() {
+        long[] merged = PostingList.apply(new long[]{10, 200, 5000}, new long[]{150, 70000}, new long[]{200});
+
+        assertArrayEquals(new long[]{10, 150, 5000, 70000},
+                PostingList.decode(PostingList.encode(merged), merged.length));
+    }
+}
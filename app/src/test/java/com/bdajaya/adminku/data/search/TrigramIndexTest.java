@@ -0,0 +1,47 @@
+package com.bdajaya.adminku.data.search;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TrigramIndexTest {
+
+    @Test
+    public void maxTypos_scalesWithQueryLength() {
+        assertEquals(0, TrigramIndex.maxTypos(0));
+        assertEquals(0, TrigramIndex.maxTypos(2));
+        assertEquals(1, TrigramIndex.maxTypos(3));
+        assertEquals(1, TrigramIndex.maxTypos(4));
+        assertEquals(2, TrigramIndex.maxTypos(5));
+        assertEquals(2, TrigramIndex.maxTypos(8));
+        assertEquals(3, TrigramIndex.maxTypos(9));
+        assertEquals(3, TrigramIndex.maxTypos(64));
+    }
+
+    @Test
+    public void substringDistance_exactSubstringIsZero() {
+        assertEquals(0, TrigramIndex.substringDistance("kopi", "kopi susu", 2));
+        assertEquals(0, TrigramIndex.substringDistance("susu", "kopi susu", 2));
+        assertEquals(0, TrigramIndex.substringDistance("", "apa saja", 0));
+    }
+
+    @Test
+    public void substringDistance_countsSingleEdits() {
+        // Substitusi, hapus, sisip
+        assertEquals(1, TrigramIndex.substringDistance("kopo", "kopi susu", 2));
+        assertEquals(1, TrigramIndex.substringDistance("kpi", "kopi", 2));
+        assertEquals(1, TrigramIndex.substringDistance("kaoss", "kaos polos", 2));
+    }
+
+    @Test
+    public void substringDistance_capsAboveMax() {
+        assertEquals(2, TrigramIndex.substringDistance("xyz", "kopi", 1));
+        assertEquals(3, TrigramIndex.substringDistance("abc", "", 2));
+    }
+
+    @Test
+    public void normalize_matchesFtsTokens() {
+        assertEquals("kaos polos 2", TrigramIndex.normalize("  Kaos-Polos (2) "));
+        assertEquals("kaospolos2", TrigramIndex.joined("kaos polos 2"));
+    }
+}
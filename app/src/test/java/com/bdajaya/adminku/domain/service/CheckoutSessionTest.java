@@ -0,0 +1,113 @@
+package com.bdajaya.adminku.domain.service;
+
+import com.bdajaya.adminku.core.AsyncResult;
+import com.bdajaya.adminku.core.Result;
+import com.bdajaya.adminku.data.model.CartLine;
+import com.bdajaya.adminku.data.model.StockCommand;
+import com.bdajaya.adminku.data.model.StockCommandResult;
+import com.bdajaya.adminku.data.repository.BarcodeIndex;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.bdajaya.adminku.data.repository.TestBarcodeIndexes.loaded;
+import static com.bdajaya.adminku.data.repository.TestBarcodeIndexes.row;
+import static org.junit.Assert.*;
+
+public class CheckoutSessionTest {
+
+    private final List<List<StockCommand>> batches = new ArrayList<>();
+    private boolean rejectNext;
+    private CheckoutSession session;
+
+    @Before
+    public void setUp() {
+        BarcodeIndex index = loaded(
+                row(1, "p1", "BE-00000001", 5000, 3),
+                row(2, "p2", "BE-00000002", "lusin", 12, 60000, 30, "LIVE"),
+                row(3, "p3", "BE-00000003", "pcs", 1, 1000, 5, "ARCHIVED"));
+        session = new CheckoutSession(index, commands -> {
+            batches.add(commands);
+            List<StockCommandResult> results = new ArrayList<>();
+            for (int i = 0; i < commands.size(); i++) {
+                results.add(rejectNext
+                        ? StockCommandResult.rejected(StockCommandResult.Status.INSUFFICIENT_STOCK, 0, 0)
+                        : StockCommandResult.applied("t" + i, 0, 0));
+            }
+            return AsyncResult.completed(Result.success(results));
+        });
+    }
+
+    private static <T> Result<T> await(AsyncResult<T> request) throws Exception {
+        return request.toFuture().get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void scanSameBarcode_incrementsLine() {
+        assertTrue(session.scan("BE-00000001").isAdded());
+        CheckoutSession.ScanResult second = session.scan("be-00000001");
+
+        assertTrue(second.isAdded());
+        assertEquals(2, second.line.quantity);
+        assertEquals(1, session.getLines().size());
+        assertEquals(10000, session.getTotal());
+    }
+
+    @Test
+    public void scan_rejectsUnknownArchivedAndOverStock() {
+        assertEquals(CheckoutSession.ScanStatus.NOT_FOUND, session.scan("123").status);
+        assertEquals(CheckoutSession.ScanStatus.ARCHIVED, session.scan("BE-00000003").status);
+
+        session.scan("BE-00000002", 2);
+        CheckoutSession.ScanResult over = session.scan("BE-00000002");
+
+        // 30 pcs = 2 lusin utuh
+        assertEquals(CheckoutSession.ScanStatus.INSUFFICIENT_STOCK, over.status);
+        assertEquals(2, over.availableUnits);
+        assertEquals(2, session.getLines().get(0).quantity);
+    }
+
+    @Test
+    public void setQuantityZero_removesLine() {
+        session.scan("BE-00000001");
+        session.setQuantity("p1", 0);
+
+        assertTrue(session.isEmpty());
+    }
+
+    @Test
+    public void commit_writesOneBatchAndClearsCommittedLines() throws Exception {
+        session.scan("BE-00000001", 2);
+        session.scan("BE-00000002");
+
+        Result<List<StockCommandResult>> result = await(session.commit("kasir"));
+
+        assertTrue(result.isSuccess());
+        assertEquals(1, batches.size());
+        assertEquals(2, batches.get(0).size());
+        assertTrue(session.isEmpty());
+    }
+
+    @Test
+    public void rejectedCommit_keepsCart() throws Exception {
+        session.scan("BE-00000001");
+        rejectNext = true;
+
+        Result<List<StockCommandResult>> result = await(session.commit(null));
+
+        assertFalse(CheckoutSession.allApplied(result.getData()));
+        List<CartLine> lines = session.getLines();
+        assertEquals(1, lines.size());
+        assertEquals("p1", lines.get(0).productId);
+    }
+
+    @Test
+    public void emptyCart_failsWithoutWriting() throws Exception {
+        assertTrue(await(session.commit(null)).isFailure());
+        assertTrue(batches.isEmpty());
+    }
+}